@@ -0,0 +1,46 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ Deterministyczne dane wejściowe dla benchmarków (stały seed - wyniki porównywalne między wersjami).
+ */
+final class BenchmarkData {
+    static final long SEED = 42L;
+    static final LocalDate START = LocalDate.parse("2020-01-01");
+    static final double RICH = 1e15; // gotówka, która nie kończy się w trakcie pomiaru
+
+    private BenchmarkData() {}
+
+    // Aktywo i-te: na przemian akcja / waluta / surowiec
+    static Asset asset(int i, Random rnd) {
+        String symbol = "S" + i;
+        double price = 10.0 + rnd.nextInt(100_000) / 100.0;
+        if (i % 3 == 0) return new Share(symbol, "Share " + i, price, 1.0);
+        if (i % 3 == 1) return new Currency(symbol, "Currency " + i, price, 0.01);
+        return new Commodity(symbol, "Commodity " + i, price, 0.001);
+    }
+
+    /**
+     Portfel z positions pozycjami po lotsPerPosition partii.
+     W formacie tekstowym daje to 1 + positions * (1 + lotsPerPosition) linii.
+     */
+    static Portfolio portfolio(int positions, int lotsPerPosition) {
+        Random rnd = new Random(SEED);
+        Portfolio p = new Portfolio(RICH);
+        for (int i = 0; i < positions; i++) {
+            Asset a = asset(i, rnd);
+            for (int j = 0; j < lotsPerPosition; j++) {
+                p.acquire(a, 1 + rnd.nextInt(100), START.plusDays(j), a.getMarketPrice() * (0.9 + rnd.nextDouble() * 0.2));
+            }
+        }
+        return p;
+    }
+}
\ No newline at end of file
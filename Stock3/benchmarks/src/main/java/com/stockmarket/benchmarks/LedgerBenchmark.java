@@ -0,0 +1,74 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.ledger.LedgerTotals;
+import com.stockmarket.ledger.RealizedPnlLedger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ RealizedPnlLedger: dopisanie sprzedaży (wiersz + sumy per symbol/typ/dzień) i zapytanie o sumy.
+ - memoryRows = 0: tylko pamięć, inaczej zrzut na dysk co memoryRows wierszy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LedgerBenchmark {
+    private static final int SYMBOLS = 500;
+
+    @Param({"0", "65536"})
+    public int memoryRows;
+
+    private RealizedPnlLedger ledger;
+    private File file;
+    private String[] symbols;
+    private LocalDate[] days;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (memoryRows == 0) {
+            ledger = new RealizedPnlLedger(Clock.systemUTC());
+        } else {
+            file = File.createTempFile("ledger", ".bin");
+            ledger = RealizedPnlLedger.withSpill(file, memoryRows, Clock.systemUTC());
+        }
+        symbols = new String[SYMBOLS];
+        for (int i = 0; i < SYMBOLS; i++) {
+            symbols[i] = "SYM" + i;
+        }
+        days = new LocalDate[250];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = BenchmarkData.START.plusDays(i);
+        }
+        for (int i = 0; i < SYMBOLS; i++) {
+            ledger.record(days[0], symbols[i], AssetType.SHARE, 1, 100.0, 1.0);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ledger.close();
+        if (file != null) file.delete();
+    }
+
+    @Benchmark
+    public long record() {
+        int i = next++;
+        ledger.record(days[(i >>> 10) % days.length], symbols[i % SYMBOLS], AssetType.SHARE, 10, 100.0, 5.0);
+        return ledger.size();
+    }
+
+    @Benchmark
+    public LedgerTotals totalsForSymbol() {
+        return ledger.getTotals(symbols[next++ % SYMBOLS]);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.LotCoalescing;
+import com.stockmarket.domain.LotStorage;
+import com.stockmarket.domain.Position;
+import com.stockmarket.domain.SaleResult;
+import com.stockmarket.domain.Share;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Zakupy typu DCA: BUYS_PER_DAY zakupów dziennie po kilku powtarzających się cenach,
+ potem sprzedaż całej pozycji FIFO - bez scalania i ze scalaniem EXACT.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LotCoalescingBenchmark {
+    private static final int DAYS = 50;
+    private static final int BUYS_PER_DAY = 200;
+
+    @Param({"NONE", "EXACT"})
+    public String coalescing;
+
+    @Param({"AUTO", "COLUMNAR"})
+    public LotStorage storage;
+
+    private LotCoalescing policy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        policy = "EXACT".equals(coalescing) ? LotCoalescing.EXACT : LotCoalescing.NONE;
+    }
+
+    @Benchmark
+    public SaleResult accumulateAndSell() {
+        Position position = new Position(new Share("XYZ", "XYZ", 100.0, 0.0), storage);
+        position.setLotCoalescing(policy);
+        for (int d = 0; d < DAYS; d++) {
+            LocalDate date = BenchmarkData.START.plusDays(d);
+            for (int i = 0; i < BUYS_PER_DAY; i++) {
+                // ceny zmieniają się co 50 zakupów - zakupy DCA trafiają w tę samą cenę seriami
+                position.addLot(date, 1, 100.0 + (i / 50) * 0.01);
+            }
+        }
+        return position.sellFifo(position.getTotalQuantity(), 101.0);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.LotRelief;
+import com.stockmarket.domain.LotStorage;
+import com.stockmarket.domain.Position;
+import com.stockmarket.domain.SaleResult;
+import com.stockmarket.domain.Share;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Position.sell z metodą LotRelief i Position.sellLot na układzie INDEXED (porównanie z SellFifoBenchmark).
+ - sellAcrossLots: sprzedaż przez SOLD_LOTS partii + dołożenie tylu samo (stan ustalony);
+   nowe partie mają losowe ceny, więc HIFO wybiera partie z całej pozycji,
+ - sellLotRoundRobin: dołożenie partii + sprzedaż wskazanej partii ze środka kolejki.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LotReliefBenchmark {
+    private static final int SOLD_LOTS = 10;
+
+    @State(Scope.Thread)
+    public static class ReliefLots {
+        @Param({"10", "1000", "100000"})
+        public int lotCount;
+
+        @Param({"FIFO", "LIFO", "HIFO"})
+        public LotRelief relief;
+
+        Position position;
+        long day;
+        int seed = 12345;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            position = new Position(new Share("XYZ", "XYZ", 100.0, 0.0), LotStorage.INDEXED);
+            for (int i = 0; i < lotCount; i++) {
+                position.addLot(BenchmarkData.START.plusDays(day++), 1, nextPrice());
+            }
+        }
+
+        // tani generator liniowy - ceny 80..119.99
+        double nextPrice() {
+            seed = seed * 1103515245 + 12345;
+            return 80.0 + ((seed >>> 8) % 4000) / 100.0;
+        }
+    }
+
+    @Benchmark
+    public SaleResult sellAcrossLots(ReliefLots state) {
+        SaleResult result = state.position.sell(SOLD_LOTS, 100.0, state.relief);
+        for (int i = 0; i < SOLD_LOTS; i++) {
+            state.position.addLot(BenchmarkData.START.plusDays(state.day++), 1, state.nextPrice());
+        }
+        return result;
+    }
+
+    // Sprzedaż wskazanej partii nie zależy od relief - osobny stan bez tego parametru
+    @State(Scope.Thread)
+    public static class SpecificLots {
+        @Param({"10", "1000", "100000"})
+        public int lotCount;
+
+        Position position;
+        long day;
+        long nextSoldId;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            position = new Position(new Share("XYZ", "XYZ", 100.0, 0.0), LotStorage.INDEXED);
+            for (int i = 0; i < lotCount; i++) {
+                position.addLot(BenchmarkData.START.plusDays(day++), 1, 90.0 + i % 20);
+            }
+        }
+    }
+
+    @Benchmark
+    public SaleResult sellLotRoundRobin(SpecificLots state) {
+        // kolejne id od środka kolejki, każde sprzedawane raz
+        long id = state.position.addLot(BenchmarkData.START.plusDays(state.day++), 1, 95.0);
+        long target = id - state.lotCount / 2;
+        if (target < state.nextSoldId) target = id;
+        state.nextSoldId = target + 1;
+        return state.position.sellLot(target, 1, 100.0);
+    }
+}
\ No newline at end of file
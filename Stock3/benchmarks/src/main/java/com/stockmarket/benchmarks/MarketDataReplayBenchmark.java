@@ -0,0 +1,75 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.Share;
+import com.stockmarket.marketdata.AssetResolvers;
+import com.stockmarket.marketdata.MarketDataReplay;
+import com.stockmarket.marketdata.ReplayConfig;
+import com.stockmarket.marketdata.ReplayStats;
+import com.stockmarket.marketdata.TickFileFormat;
+import com.stockmarket.marketdata.TickWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ MarketDataReplay: odtworzenie pliku z 10M ticków (1000 symboli) bez tempa, tekst i binarny,
+ dla paczki 1 (tick po ticku) i 4096 (scalanie cen w paczce).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MarketDataReplayBenchmark {
+    private static final int TICKS = 10_000_000;
+    private static final int SYMBOLS = 1000;
+
+    @Param({"TEXT", "BINARY"})
+    public TickFileFormat format;
+
+    @Param({"1", "4096"})
+    public int batchSize;
+
+    private File file;
+    private MarketDataReplay replay;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<String> symbols = new ArrayList<>();
+        Map<String, Asset> assets = new HashMap<>();
+        for (int i = 0; i < SYMBOLS; i++) {
+            String symbol = "SYM" + i;
+            symbols.add(symbol);
+            assets.put(symbol, new Share(symbol, symbol, 100.0, 0.0));
+        }
+
+        file = File.createTempFile("ticks-bench", ".dat");
+        file.deleteOnExit();
+        Random rnd = new Random(42);
+        try (TickWriter w = TickWriter.open(file, format, symbols)) {
+            for (int i = 0; i < TICKS; i++) {
+                w.write(1_700_000_000_000L + i / 100, symbols.get(rnd.nextInt(SYMBOLS)), (5_000 + rnd.nextInt(10_000)) / 100.0);
+            }
+        }
+        replay = new MarketDataReplay(AssetResolvers.of(assets), new ReplayConfig(batchSize, 0.0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public ReplayStats replay() throws IOException {
+        return replay.replay(file, format);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderBasket;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.logic.Portfolio;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Złożenie koszyka zleceń do pustego portfela: submitLimitOrders vs pętla submitLimitOrder.
+ Zlecenia BUY bez strony ASK nie krzyżują się - mierzymy samo dokładanie do ksiąg.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderBasketBenchmark {
+    private static final int SYMBOLS = 16;
+    private static final int PRICES = 1024; // liczba różnych poziomów cenowych na księgę
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private OrderBasket basket;
+    private Portfolio portfolio;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(BenchmarkData.SEED);
+        basket = new OrderBasket(size);
+        for (int i = 0; i < size; i++) {
+            basket.add(OrderType.BUY, AssetType.SHARE, "S" + rnd.nextInt(SYMBOLS), 10,
+                    (10_000 + rnd.nextInt(PRICES)) / 100.0, 100.0);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void newPortfolio() {
+        portfolio = new Portfolio(BenchmarkData.RICH);
+    }
+
+    @Benchmark
+    public List<Order> submitBasket() {
+        return portfolio.submitLimitOrders(basket);
+    }
+
+    @Benchmark
+    public Order submitOneByOne() {
+        Order last = null;
+        for (int i = 0; i < basket.size(); i++) {
+            last = portfolio.submitLimitOrder(basket.getType(i), basket.getAssetType(i), basket.getSymbol(i),
+                    basket.getQuantity(i), basket.getLimitPrice(i), basket.getMarketPrice(i));
+        }
+        return last;
+    }
+}
\ No newline at end of file
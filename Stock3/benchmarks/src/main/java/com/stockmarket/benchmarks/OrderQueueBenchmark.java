@@ -0,0 +1,68 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.logic.Portfolio;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ submitLimitOrder + pollBestOrder przy stałej głębokości ksiąg.
+ Zlecenia BUY bez strony ASK nie krzyżują się - mierzymy samą obsługę ksiąg, bez rozliczeń.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderQueueBenchmark {
+    private static final int SYMBOLS = 16;
+    private static final int PRICES = 1024; // liczba różnych poziomów cenowych na księgę
+
+    @Param({"100", "10000", "1000000"})
+    public int depth;
+
+    private Portfolio portfolio;
+    private String[] symbols;
+    private double[] prices;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(BenchmarkData.SEED);
+        symbols = new String[SYMBOLS];
+        for (int i = 0; i < SYMBOLS; i++) {
+            symbols[i] = "S" + i;
+        }
+        // gotowa pula (symbol, cena) - losowanie poza pomiarem
+        prices = new double[1 << 16];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 100.0 + rnd.nextInt(PRICES) / 100.0;
+        }
+
+        portfolio = new Portfolio(BenchmarkData.RICH);
+        for (int i = 0; i < depth; i++) {
+            submitNext();
+        }
+    }
+
+    private Order submitNext() {
+        int i = next++ & (prices.length - 1);
+        return portfolio.submitLimitOrder(OrderType.BUY, AssetType.SHARE, symbols[i & (SYMBOLS - 1)], 10, prices[i], 100.0);
+    }
+
+    @Benchmark
+    public Order submitAndPoll() {
+        submitNext();
+        return portfolio.pollBestOrder();
+    }
+
+    @Benchmark
+    public Order peekBest() {
+        return portfolio.peekBestOrder();
+    }
+}
\ No newline at end of file
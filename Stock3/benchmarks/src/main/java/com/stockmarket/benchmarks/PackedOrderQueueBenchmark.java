@@ -0,0 +1,71 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.logic.OrderComparators;
+import com.stockmarket.logic.PackedOrderQueue;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ add + poll przy stałej głębokości kolejki: PriorityQueue z OrderComparators.byAttractiveness()
+ vs PackedOrderQueue (klucz long + kopiec 4-arny). Zlecenia przygotowane przed pomiarem.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PackedOrderQueueBenchmark {
+    private static final int PRICES = 1024;
+
+    @Param({"100", "10000", "1000000"})
+    public int depth;
+
+    private Order[] pool;
+    private int next;
+    private PriorityQueue<Order> priorityQueue;
+    private PackedOrderQueue packedQueue;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(BenchmarkData.SEED);
+        LocalDateTime t0 = LocalDateTime.parse("2024-03-01T10:00:00");
+        pool = new Order[1 << 16];
+        for (int i = 0; i < pool.length; i++) {
+            OrderType type = rnd.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+            pool[i] = new Order(type, AssetType.SHARE, "XYZ", 10, (10_000 + rnd.nextInt(PRICES)) / 100.0, 100.0,
+                    t0.plusSeconds(i >> 4), i);
+        }
+
+        priorityQueue = new PriorityQueue<>(depth + 1, OrderComparators.byAttractiveness());
+        packedQueue = new PackedOrderQueue(depth + 1);
+        for (int i = 0; i < depth; i++) {
+            Order o = nextOrder();
+            priorityQueue.add(o);
+            packedQueue.add(o);
+        }
+    }
+
+    private Order nextOrder() {
+        return pool[next++ & (pool.length - 1)];
+    }
+
+    @Benchmark
+    public Order priorityQueueAddPoll() {
+        priorityQueue.add(nextOrder());
+        return priorityQueue.poll();
+    }
+
+    @Benchmark
+    public Order packedQueueAddPoll() {
+        packedQueue.add(nextOrder());
+        return packedQueue.poll();
+    }
+}
\ No newline at end of file
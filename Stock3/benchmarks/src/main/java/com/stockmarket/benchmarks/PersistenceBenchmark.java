@@ -0,0 +1,90 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.persistence.PortfolioPersistence;
+import com.stockmarket.persistence.SnapshotFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ PortfolioPersistence: zapis i odczyt plików o zadanej liczbie linii (format tekstowy i binarny).
+ Pozycja ma 9 partii, czyli 10 linii (ASSET + 9 x LOT); pliki generowane raz na próbę w katalogu tymczasowym.
+ Dla 10M linii potrzebna jest duża sterta (np. -jvmArgsAppend -Xmx8g).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    private static final int LOTS_PER_POSITION = 9;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int lines;
+
+    private final PortfolioPersistence io = new PortfolioPersistence();
+    private Portfolio portfolio;
+    private File textFile;
+    private File binaryFile;
+    private File outFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        portfolio = BenchmarkData.portfolio(Math.max(1, lines / (LOTS_PER_POSITION + 1)), LOTS_PER_POSITION);
+
+        textFile = tempFile(".txt");
+        binaryFile = tempFile(".bin");
+        outFile = tempFile(".out");
+        io.save(portfolio, textFile, SnapshotFormat.TEXT);
+        io.save(portfolio, binaryFile, SnapshotFormat.BINARY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        textFile.delete();
+        binaryFile.delete();
+        outFile.delete();
+    }
+
+    private static File tempFile(String suffix) throws IOException {
+        File f = File.createTempFile("portfolio-bench", suffix);
+        f.deleteOnExit();
+        return f;
+    }
+
+    @Benchmark
+    public File saveText() throws IOException {
+        io.save(portfolio, outFile, SnapshotFormat.TEXT);
+        return outFile;
+    }
+
+    @Benchmark
+    public File saveBinary() throws IOException {
+        io.save(portfolio, outFile, SnapshotFormat.BINARY);
+        return outFile;
+    }
+
+    @Benchmark
+    public Portfolio loadText() throws IOException {
+        return io.load(textFile);
+    }
+
+    @Benchmark
+    public Portfolio loadTextMapped() throws IOException {
+        return io.loadMapped(textFile);
+    }
+
+    @Benchmark
+    public Portfolio loadTextParallel() throws IOException {
+        return io.loadParallel(textFile);
+    }
+
+    @Benchmark
+    public Portfolio loadBinary() throws IOException {
+        return io.load(binaryFile);
+    }
+}
\ No newline at end of file
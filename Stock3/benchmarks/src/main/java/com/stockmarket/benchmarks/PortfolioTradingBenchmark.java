@@ -0,0 +1,53 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Portfolio.acquire i Portfolio.sell przy stałej liczbie partii w pozycji.
+ sell zdejmuje SOLD_LOTS najstarszych partii, a acquire dokłada tyle samo - liczba partii się nie zmienia.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PortfolioTradingBenchmark {
+    private static final int SOLD_LOTS = 10;
+
+    @Param({"10", "1000", "100000"})
+    public int lotCount;
+
+    private Portfolio portfolio;
+    private Share share;
+    private long day;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        portfolio = new Portfolio(BenchmarkData.RICH);
+        share = new Share("XYZ", "XYZ", 100.0, 1.0);
+        for (int i = 0; i < lotCount; i++) {
+            portfolio.acquire(share, 1, BenchmarkData.START.plusDays(day++), 100.0);
+        }
+    }
+
+    @Benchmark
+    public void acquire() {
+        portfolio.acquire(share, 1, BenchmarkData.START.plusDays(day++), 100.0);
+        portfolio.sell("XYZ", 1, 100.0); // utrzymuje liczbę partii
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SOLD_LOTS)
+    public Object sellAcrossLots() {
+        Object result = portfolio.sell("XYZ", SOLD_LOTS, 101.0);
+        for (int i = 0; i < SOLD_LOTS; i++) {
+            portfolio.acquire(share, 1, BenchmarkData.START.plusDays(day++), 100.0);
+        }
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Zmiana ceny aktywa przy włączonych wyzwalaczach zleceń (Portfolio.setPriceTriggersEnabled).
+ Księga ma depth zleceń BUY poniżej ceny rynkowej - tick bez realizacji powinien kosztować
+ tyle samo niezależnie od głębokości, tick z realizacją - o jedno rozliczenie więcej.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PriceTriggerBenchmark {
+    private static final int PRICES = 1024; // liczba różnych poziomów cenowych w księdze
+
+    @Param({"100", "10000", "1000000"})
+    public int depth;
+
+    private Portfolio portfolio;
+    private Share share;
+    private boolean up;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(BenchmarkData.SEED);
+        share = new Share("XYZ", "XYZ", 100.0, 0.0);
+        portfolio = new Portfolio(BenchmarkData.RICH);
+        portfolio.registerAsset(share);
+        portfolio.setPriceTriggersEnabled(true);
+        for (int i = 0; i < depth; i++) {
+            double limit = (5_000 + rnd.nextInt(PRICES)) / 100.0; // 50.00 .. 60.23
+            portfolio.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "XYZ", 1, limit, 100.0);
+        }
+    }
+
+    @Benchmark
+    public double tickWithoutTrigger() {
+        up = !up;
+        share.setMarketPrice(up ? 100.01 : 100.0);
+        return share.getMarketPrice();
+    }
+
+    @Benchmark
+    public int tickWithTrigger() {
+        portfolio.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "XYZ", 1, 99.0, 100.0);
+        share.setMarketPrice(99.0);
+        share.setMarketPrice(100.0);
+        return portfolio.getRestingOrdersCount();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.LotRelief;
+import com.stockmarket.domain.LotStorage;
+import com.stockmarket.domain.Position;
+import com.stockmarket.domain.SaleFillConsumer;
+import com.stockmarket.domain.SaleResult;
+import com.stockmarket.domain.Share;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ Position.sellFifo dla różnych liczb partii i układów pamięci partii (DEQUE / COLUMNAR).
+ - sellAcrossLots: sprzedaż przez SOLD_LOTS partii + dołożenie tylu samo (stan ustalony),
+ - sellAcrossLotsStreaming: to samo przez sellStreaming z jednym odbiorcą realizacji (bez SaleResult/SaleLine),
+ - sellWholePosition: jedna sprzedaż całej pozycji (przejście po wszystkich partiach).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SellFifoBenchmark {
+    private static final int SOLD_LOTS = 10;
+
+    @Param({"10", "1000", "100000"})
+    public int lotCount;
+
+    @Param({"DEQUE", "COLUMNAR"})
+    public LotStorage storage;
+
+    private Position position;
+    private long day;
+
+    // odbiorca realizacji używany wielokrotnie - sumuje koszt zdjętych partii
+    private final FillTotals fills = new FillTotals();
+
+    static final class FillTotals implements SaleFillConsumer {
+        double cost;
+
+        @Override
+        public void accept(long buyEpochDay, int quantity, double buyUnitPrice) {
+            cost += quantity * buyUnitPrice;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        position = new Position(new Share("XYZ", "XYZ", 100.0, 0.0), storage);
+        for (int i = 0; i < lotCount; i++) {
+            position.addLot(BenchmarkData.START.plusDays(day++), 1, 90.0 + i % 20);
+        }
+    }
+
+    @Benchmark
+    public SaleResult sellAcrossLots() {
+        SaleResult result = position.sellFifo(SOLD_LOTS, 100.0);
+        for (int i = 0; i < SOLD_LOTS; i++) {
+            position.addLot(BenchmarkData.START.plusDays(day++), 1, 95.0);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public double sellAcrossLotsStreaming() {
+        double profit = position.sellStreaming(SOLD_LOTS, 100.0, LotRelief.FIFO, fills);
+        for (int i = 0; i < SOLD_LOTS; i++) {
+            position.addLot(BenchmarkData.START.plusDays(day++), 1, 95.0);
+        }
+        return profit + fills.cost;
+    }
+
+    @State(Scope.Thread)
+    public static class FullPosition {
+        @Param({"10", "1000", "100000"})
+        public int lotCount;
+
+        @Param({"DEQUE", "COLUMNAR"})
+        public LotStorage storage;
+
+        Position position;
+
+        // odbudowa przed każdym wywołaniem - poza pomiarem
+        @Setup(Level.Invocation)
+        public void setUp() {
+            position = new Position(new Share("XYZ", "XYZ", 100.0, 0.0), storage);
+            for (int i = 0; i < lotCount; i++) {
+                position.addLot(BenchmarkData.START.plusDays(i), 1, 90.0 + i % 20);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Measurement(iterations = 20, batchSize = 1)
+    public SaleResult sellWholePosition(FullPosition state) {
+        return state.position.sellFifo(state.lotCount, 100.0);
+    }
+}
\ No newline at end of file
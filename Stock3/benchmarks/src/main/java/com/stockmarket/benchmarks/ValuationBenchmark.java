@@ -0,0 +1,62 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.ReportGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ Wycena portfela i raport pozycji dla różnych liczb pozycji.
+ - totalRealValue: suma bieżąca (O(1)),
+ - recalculateValuation: pełne przeliczenie po pozycjach (O(n)),
+ - positionsReport: ReportGenerator.generatePositionsReport (sortowanie + formatowanie),
+ - positionsReportStreaming / topPositionsReport: zapis strumieniowy do Writer (pełny raport i top-10 per typ).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ValuationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int positionCount;
+
+    private Portfolio portfolio;
+    private final ReportGenerator reports = new ReportGenerator();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        portfolio = BenchmarkData.portfolio(positionCount, 3);
+    }
+
+    @Benchmark
+    public double totalRealValue() {
+        return portfolio.calculateTotalRealValue();
+    }
+
+    @Benchmark
+    public double recalculateValuation() {
+        portfolio.recalculateValuation();
+        return portfolio.calculateTotalRealValue();
+    }
+
+    @Benchmark
+    public String positionsReport() {
+        return reports.generatePositionsReport(portfolio.getPositionsView());
+    }
+
+    @Benchmark
+    public void positionsReportStreaming() throws IOException {
+        reports.writePositionsReport(portfolio.getPositionsView(), Writer.nullWriter());
+    }
+
+    @Benchmark
+    public void topPositionsReport() throws IOException {
+        reports.writeTopPositionsReport(portfolio.getPositionsView(), 10, Writer.nullWriter());
+    }
+}
\ No newline at end of file
@@ -1,7 +1,5 @@
 package com.stockmarket.domain;
 
-import java.util.Objects;
-
 /**
  Abstrakcyjna klasa bazowa dla dowolnego aktywa (instrumentu finansowego).
  Wspólne pola: symbol, nazwa, bieżąca cena rynkowa.
@@ -11,12 +9,20 @@ import java.util.Objects;
  - klasy potomne implementują specyficzną logikę:
  * wycena rzeczywista (np. spread, magazynowanie)
  * koszt nabycia (np. opłata manipulacyjna)
+ - zmiana ceny jest rozgłaszana do zarejestrowanych PriceListener (np. pozycji, które trzymają aktywo)
+ - AssetRegistry nadaje instancji kanonicznej gęste id (indeks tablic zamiast mapy po symbolu)
  */
 public abstract class Asset {
     private final AssetType type;      // typ aktywa (enum) - zakaz sterowania logiką przez String
     private final String symbol;       // ticker / identyfikator
     private final String name;         // pełna nazwa
-    private double marketPrice;        // bieżąca cena rynkowa (zmienna w czasie)
+    private volatile double marketPrice; // bieżąca cena rynkowa (zmienna w czasie, czytana także z innych wątków)
+    // kopia przy zapisie: słuchacz może dopisać/wypiąć słuchacza w trakcie rozgłaszania
+    // (np. realizacja zlecenia przy zmianie ceny zamyka pozycję); null - większość aktywów nie ma słuchaczy
+    private PriceListener[] priceListeners;
+    private final int hash;            // hashCode liczony raz (type + symbol są niezmienne)
+    private AssetRegistry registry;    // rejestr, który nadał id (null - aktywo niezarejestrowane)
+    private int id = -1;
 
     public Asset(AssetType type, String symbol, String name, double marketPrice) {
         if (type == null) throw new IllegalArgumentException("type cannot be null");
@@ -27,12 +33,27 @@ public abstract class Asset {
         this.symbol = symbol;
         this.name = name;
         this.marketPrice = marketPrice;
+        this.hash = 31 * type.ordinal() + symbol.hashCode();
     }
 
     public AssetType getType() {
         return type;
     }
 
+    // Gęste id nadane przez AssetRegistry albo -1
+    public int getId() {
+        return id;
+    }
+
+    public AssetRegistry getRegistry() {
+        return registry;
+    }
+
+    void bind(AssetRegistry registry, int id) {
+        this.registry = registry;
+        this.id = id;
+    }
+
     public String getSymbol() {
         return symbol;
     }
@@ -48,7 +69,45 @@ public abstract class Asset {
     // Pozwala aktualizować wycenę rynkową (np. symulacja zmian rynku)
     public void setMarketPrice(double marketPrice) {
         if (marketPrice < 0) throw new IllegalArgumentException("marketPrice must be non-negative");
+        double oldPrice = this.marketPrice;
         this.marketPrice = marketPrice;
+
+        PriceListener[] listeners = priceListeners;
+        if (listeners == null || oldPrice == marketPrice) return;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onPriceChanged(this, oldPrice, marketPrice);
+        }
+    }
+
+    public void addPriceListener(PriceListener listener) {
+        if (listener == null) throw new IllegalArgumentException("listener cannot be null");
+        PriceListener[] listeners = priceListeners;
+        if (listeners == null) {
+            priceListeners = new PriceListener[] { listener };
+            return;
+        }
+        PriceListener[] grown = new PriceListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, grown, 0, listeners.length);
+        grown[listeners.length] = listener;
+        priceListeners = grown;
+    }
+
+    public boolean removePriceListener(PriceListener listener) {
+        PriceListener[] listeners = priceListeners;
+        if (listeners == null) return false;
+        for (int i = 0; i < listeners.length; i++) {
+            if (!listeners[i].equals(listener)) continue;
+            if (listeners.length == 1) {
+                priceListeners = null;
+                return true;
+            }
+            PriceListener[] shrunk = new PriceListener[listeners.length - 1];
+            System.arraycopy(listeners, 0, shrunk, 0, i);
+            System.arraycopy(listeners, i + 1, shrunk, i, shrunk.length - i);
+            priceListeners = shrunk;
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -74,6 +133,6 @@ public abstract class Asset {
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, symbol);
+        return hash;
     }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.stockmarket.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ Rejestr aktywów: (AssetType, symbol) -> gęste id 0, 1, 2, ... i jedna kanoniczna instancja Asset.
+
+ - register(asset) nadaje id pierwszej instancji danej pary i zwraca ją przy każdej kolejnej rejestracji,
+ - get(id) to odczyt z tablicy - struktury po stronie użytkownika (pozycje portfela, liczniki ekspozycji)
+   mogą być tablicami indeksowanymi id zamiast map po symbolu,
+ - instancja należy do co najwyżej jednego rejestru (id jest w niej zapisane),
+ - rejestracja nie jest bezpieczna wątkowo; odczyty po zakończeniu rejestracji mogą iść z wielu wątków.
+ */
+public final class AssetRegistry {
+    private static final AssetType[] TYPES = AssetType.values();
+
+    private final List<Map<String, Asset>> bySymbol; // osobna mapa dla każdego typu (indeks = ordinal) - bez klucza złożonego
+    private Asset[] byId;
+    private int size;
+
+    public AssetRegistry() {
+        this.bySymbol = new ArrayList<>(TYPES.length);
+        for (int i = 0; i < TYPES.length; i++) {
+            bySymbol.add(new HashMap<String, Asset>());
+        }
+        this.byId = new Asset[16];
+    }
+
+    // Instancja kanoniczna dla (type, symbol) aktywa - ta sama przy każdym wywołaniu
+    public Asset register(Asset asset) {
+        if (asset == null) throw new IllegalArgumentException("asset cannot be null");
+        if (asset.getRegistry() == this) return asset;
+
+        Map<String, Asset> assets = bySymbol.get(asset.getType().ordinal());
+        Asset canonical = assets.get(asset.getSymbol());
+        if (canonical != null) return canonical;
+        if (asset.getRegistry() != null) {
+            throw new IllegalArgumentException("Asset " + asset.getSymbol() + " already belongs to another registry");
+        }
+
+        if (size == byId.length) byId = Arrays.copyOf(byId, size * 2);
+        asset.bind(this, size);
+        byId[size++] = asset;
+        assets.put(asset.getSymbol(), asset);
+        return asset;
+    }
+
+    public Asset get(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("id " + id + " out of bounds for size " + size);
+        return byId[id];
+    }
+
+    // Instancja kanoniczna albo null
+    public Asset find(AssetType type, String symbol) {
+        if (type == null) throw new IllegalArgumentException("type cannot be null");
+        return bySymbol.get(type.ordinal()).get(symbol);
+    }
+
+    /**
+     Aktywo o symbolu (dowolnego typu) albo null - dla API po samym symbolu.
+     Symbol zarejestrowany dla kilku typów jest niejednoznaczny - wyjątek zamiast zgadywania typu (wtedy find(type, symbol)).
+     */
+    public Asset findBySymbol(String symbol) {
+        Asset found = null;
+        for (int i = 0; i < TYPES.length; i++) {
+            Asset asset = bySymbol.get(i).get(symbol);
+            if (asset == null) continue;
+            if (found != null) {
+                throw new IllegalArgumentException("Symbol " + symbol + " is registered for several asset types");
+            }
+            found = asset;
+        }
+        return found;
+    }
+
+    public int idOf(AssetType type, String symbol) {
+        Asset asset = find(type, symbol);
+        return asset == null ? -1 : asset.getId();
+    }
+
+    // Liczba zarejestrowanych aktywów = górna granica id (rozmiar tablic indeksowanych id)
+    public int size() {
+        return size;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,171 @@
+package com.stockmarket.domain;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ Partie w układzie kolumnowym (structure of arrays):
+ - int epoch-day, int ilość, double cena w trzech równoległych tablicach,
+ - tablice działają jak bufor cykliczny: head = najstarsza partia, nowe dopisywane za ostatnią,
+ - sprzedaż FIFO przesuwa head (bez przesuwania danych), bufor rośnie x2 gdy jest pełny.
+
+ Jedna partia to 16 bajtów w tablicach zamiast obiektu PurchaseLot + LocalDate,
+ a przejście FIFO czyta pamięć sekwencyjnie.
+ */
+final class ColumnarLotStore implements LotStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] epochDays;
+    private int[] quantities;
+    private double[] unitPrices;
+    private int head; // indeks najstarszej partii
+    private int size;
+    private long firstId; // id partii w head; kolejne partie mają kolejne id
+
+    ColumnarLotStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    ColumnarLotStore(int expectedLots) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < expectedLots) capacity <<= 1;
+        this.epochDays = new int[capacity];
+        this.quantities = new int[capacity];
+        this.unitPrices = new double[capacity];
+    }
+
+    // Przepisanie partii z innego magazynu (zachowuje kolejność FIFO)
+    static ColumnarLotStore copyOf(LotStore source) {
+        final ColumnarLotStore copy = new ColumnarLotStore(source.size());
+        copy.firstId = source.firstLotId();
+        source.forEach(new LotVisitor() {
+            @Override
+            public void visit(long epochDay, int quantity, double unitPrice) {
+                copy.append(epochDay, quantity, unitPrice);
+            }
+        });
+        return copy;
+    }
+
+    @Override
+    public long add(LocalDate date, int quantity, double unitPrice) {
+        if (date == null) throw new IllegalArgumentException("date cannot be null");
+        if (quantity <= 0) throw new IllegalArgumentException("quantity must be positive");
+        if (unitPrice < 0) throw new IllegalArgumentException("unitPrice must be non-negative");
+        append(date.toEpochDay(), quantity, unitPrice);
+        return firstId + size - 1;
+    }
+
+    private void append(long epochDay, int quantity, double unitPrice) {
+        if (epochDay < Integer.MIN_VALUE || epochDay > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("date out of supported range: epochDay=" + epochDay);
+        }
+        if (size == quantities.length) grow();
+
+        int i = (head + size) & (quantities.length - 1);
+        epochDays[i] = (int) epochDay;
+        quantities[i] = quantity;
+        unitPrices[i] = unitPrice;
+        size++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long firstLotId() {
+        return firstId;
+    }
+
+    @Override
+    public long mergeIntoLast(LotCoalescing policy, long epochDay, int quantity, double unitPrice) {
+        if (size == 0) return -1;
+        int last = (head + size - 1) & (quantities.length - 1);
+        if (quantities[last] > Integer.MAX_VALUE - quantity) return -1;
+        if (!policy.accepts(epochDays[last], unitPrices[last], epochDay, unitPrice)) return -1;
+
+        unitPrices[last] = LotCoalescing.mergedPrice(quantities[last], unitPrices[last], quantity, unitPrice);
+        quantities[last] += quantity;
+        return firstId + size - 1;
+    }
+
+    @Override
+    public void renumber() {
+        firstId = 0;
+    }
+
+    @Override
+    public void consumeFifo(int quantity, double sellUnitPrice, SaleFillConsumer fills, ReliefTotals totals) {
+        int mask = quantities.length - 1;
+        int remaining = quantity;
+
+        while (remaining > 0) {
+            if (size == 0) throw new IllegalStateException("Internal error: lots empty during sell");
+
+            int available = quantities[head];
+            if (available <= remaining) {
+                // zamykamy cały najstarszy lot
+                totals.add(available, unitPrices[head], sellUnitPrice);
+                if (fills != null) fills.accept(epochDays[head], available, unitPrices[head]);
+                remaining -= available;
+                head = (head + 1) & mask;
+                size--;
+                firstId++;
+            } else {
+                // sprzedaż częściowa: lot zostaje z mniejszą ilością
+                quantities[head] = available - remaining;
+                totals.add(remaining, unitPrices[head], sellUnitPrice);
+                if (fills != null) fills.accept(epochDays[head], remaining, unitPrices[head]);
+                remaining = 0;
+            }
+        }
+        if (size == 0) head = 0;
+    }
+
+    @Override
+    public void forEach(LotVisitor visitor) {
+        int mask = quantities.length - 1;
+        for (int k = 0, i = head; k < size; k++, i = (i + 1) & mask) {
+            visitor.visit(epochDays[i], quantities[i], unitPrices[i]);
+        }
+    }
+
+    @Override
+    public Deque<PurchaseLot> snapshot() {
+        Deque<PurchaseLot> copy = new ArrayDeque<>(size);
+        int mask = quantities.length - 1;
+        for (int k = 0, i = head; k < size; k++, i = (i + 1) & mask) {
+            copy.addLast(new PurchaseLot(firstId + k, LocalDate.ofEpochDay(epochDays[i]), quantities[i], unitPrices[i]));
+        }
+        return copy;
+    }
+
+    // Podwojenie pojemności; partie przepisywane od head, więc po powiększeniu head = 0
+    private void grow() {
+        int capacity = quantities.length;
+        int newCapacity = capacity << 1;
+        if (newCapacity <= 0) throw new IllegalStateException("Too many lots in position");
+
+        int firstPart = capacity - head; // od head do końca tablicy
+
+        int[] days = new int[newCapacity];
+        System.arraycopy(epochDays, head, days, 0, firstPart);
+        System.arraycopy(epochDays, 0, days, firstPart, head);
+
+        int[] qty = new int[newCapacity];
+        System.arraycopy(quantities, head, qty, 0, firstPart);
+        System.arraycopy(quantities, 0, qty, firstPart, head);
+
+        double[] prices = new double[newCapacity];
+        System.arraycopy(unitPrices, head, prices, 0, firstPart);
+        System.arraycopy(unitPrices, 0, prices, firstPart, head);
+
+        epochDays = days;
+        quantities = qty;
+        unitPrices = prices;
+        head = 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.stockmarket.domain;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ Partie jako obiekty PurchaseLot w ArrayDeque - najstarsza partia na początku kolejki.
+ */
+final class DequeLotStore implements LotStore {
+    private final Deque<PurchaseLot> lots = new ArrayDeque<>();
+    private long nextId;
+
+    @Override
+    public long add(LocalDate date, int quantity, double unitPrice) {
+        lots.addLast(new PurchaseLot(nextId, date, quantity, unitPrice));
+        return nextId++;
+    }
+
+    @Override
+    public int size() {
+        return lots.size();
+    }
+
+    @Override
+    public long firstLotId() {
+        return lots.isEmpty() ? nextId : lots.peekFirst().getId();
+    }
+
+    @Override
+    public long mergeIntoLast(LotCoalescing policy, long epochDay, int quantity, double unitPrice) {
+        PurchaseLot last = lots.peekLast();
+        if (last == null || last.getQuantity() > Integer.MAX_VALUE - quantity) return -1;
+        if (!policy.accepts(last.getDate().toEpochDay(), last.getUnitPrice(), epochDay, unitPrice)) return -1;
+
+        if (unitPrice == last.getUnitPrice()) {
+            last.increaseQuantity(quantity); // najczęstszy przypadek - bez nowego obiektu
+        } else {
+            lots.removeLast();
+            lots.addLast(new PurchaseLot(last.getId(), last.getDate(), last.getQuantity() + quantity,
+                    LotCoalescing.mergedPrice(last.getQuantity(), last.getUnitPrice(), quantity, unitPrice)));
+        }
+        return last.getId();
+    }
+
+    @Override
+    public void renumber() {
+        int n = lots.size();
+        for (int i = 0; i < n; i++) {
+            PurchaseLot lot = lots.removeFirst();
+            lots.addLast(new PurchaseLot(i, lot.getDate(), lot.getQuantity(), lot.getUnitPrice()));
+        }
+        nextId = n;
+    }
+
+    @Override
+    public void consumeFifo(int quantity, double sellUnitPrice, SaleFillConsumer fills, ReliefTotals totals) {
+        int remaining = quantity;
+
+        // dopóki nie sprzedamy całej wymaganej ilości:
+        while (remaining > 0) {
+            PurchaseLot lot = lots.peekFirst();
+            if (lot == null) throw new IllegalStateException("Internal error: lots empty during sell");
+
+            int available = lot.getQuantity();
+
+            if (available <= remaining) {
+                // zamykamy cały najstarszy lot
+                lots.removeFirst();
+                totals.add(available, lot.getUnitPrice(), sellUnitPrice);
+                if (fills != null) fills.accept(lot.getDate().toEpochDay(), available, lot.getUnitPrice());
+                remaining -= available;
+            } else {
+                // sprzedaż częściowa: lot zostaje, ale quantity się zmniejsza
+                lot.decreaseQuantity(remaining);
+                totals.add(remaining, lot.getUnitPrice(), sellUnitPrice);
+                if (fills != null) fills.accept(lot.getDate().toEpochDay(), remaining, lot.getUnitPrice());
+                remaining = 0;
+            }
+        }
+    }
+
+    @Override
+    public void forEach(LotVisitor visitor) {
+        for (PurchaseLot lot : lots) {
+            visitor.visit(lot.getDate().toEpochDay(), lot.getQuantity(), lot.getUnitPrice());
+        }
+    }
+
+    @Override
+    public Deque<PurchaseLot> snapshot() {
+        return new ArrayDeque<>(lots);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.stockmarket.domain;
+
+import java.time.LocalDateTime;
+
+/**
+ Raport z realizacji (Execution Report).
+ Opisuje jedno skojarzenie zlecenia kupna ze zleceniem sprzedaży w księdze zleceń:
+ - kto kupił / kto sprzedał (id zleceń),
+ - ile sztuk i po jakiej cenie (cena zlecenia oczekującego w księdze),
+ - która strona była agresorem (zlecenie przychodzące).
+ */
+public class Execution {
+    private final String symbol;          // ticker aktywa
+    private final AssetType assetType;    // typ aktywa
+    private final long buyOrderId;        // id (sequence) zlecenia kupna
+    private final long sellOrderId;       // id (sequence) zlecenia sprzedaży
+    private final int quantity;           // zrealizowany wolumen
+    private final double price;           // cena transakcji
+    private final OrderType aggressor;    // strona zlecenia przychodzącego
+    private final LocalDateTime executedAt;
+
+    public Execution(String symbol,
+                     AssetType assetType,
+                     long buyOrderId,
+                     long sellOrderId,
+                     int quantity,
+                     double price,
+                     OrderType aggressor,
+                     LocalDateTime executedAt) {
+
+        if (symbol == null || symbol.trim().isEmpty()) throw new IllegalArgumentException("symbol cannot be null/empty");
+        if (assetType == null) throw new IllegalArgumentException("assetType cannot be null");
+        if (quantity <= 0) throw new IllegalArgumentException("quantity must be positive");
+        if (price < 0) throw new IllegalArgumentException("price must be non-negative");
+        if (aggressor == null) throw new IllegalArgumentException("aggressor cannot be null");
+        if (executedAt == null) throw new IllegalArgumentException("executedAt cannot be null");
+
+        this.symbol = symbol;
+        this.assetType = assetType;
+        this.buyOrderId = buyOrderId;
+        this.sellOrderId = sellOrderId;
+        this.quantity = quantity;
+        this.price = price;
+        this.aggressor = aggressor;
+        this.executedAt = executedAt;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public AssetType getAssetType() {
+        return assetType;
+    }
+
+    public long getBuyOrderId() {
+        return buyOrderId;
+    }
+
+    public long getSellOrderId() {
+        return sellOrderId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public OrderType getAggressor() {
+        return aggressor;
+    }
+
+    public LocalDateTime getExecutedAt() {
+        return executedAt;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,303 @@
+package com.stockmarket.domain;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ Partie z indeksami do sprzedaży LIFO/HIFO i sprzedaży wskazanej partii:
+ - dane partii w równoległych tablicach indeksowanych slotem (zwolnione sloty wracają na listę wolnych),
+ - lista dwukierunkowa prev/next w kolejności zakupu: head = najstarsza (FIFO), tail = najnowsza (LIFO),
+ - kopiec max po cenie zakupu (przy równej cenie starsza partia wyżej) z pozycją slotu w kopcu (HIFO),
+ - mapa id -> slot (wskazana partia).
+
+ Wybór partii O(1) (FIFO/LIFO/id) albo O(1) + O(log n) na usunięcie z kopca (HIFO),
+ zamiast przeszukiwania wszystkich partii przy każdej sprzedaży.
+ */
+final class IndexedLotStore implements LotStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NONE = -1;
+
+    private int[] epochDays;
+    private int[] quantities;
+    private double[] unitPrices;
+    private long[] ids;
+    private int[] prev;
+    private int[] next;      // dla slotów wolnych: następny wolny slot
+    private int[] heapPos;   // pozycja slotu w kopcu
+
+    private int[] heap;      // sloty uporządkowane jak kopiec max (cena, potem id rosnąco)
+    private int size;
+    private int used;        // sloty kiedykolwiek zajęte (0..used-1)
+    private int freeHead = NONE;
+    private int head = NONE; // najstarsza partia
+    private int tail = NONE; // najnowsza partia
+    private long nextId;
+
+    private final Map<Long, Integer> slotById = new HashMap<>();
+
+    IndexedLotStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    IndexedLotStore(int expectedLots) {
+        int capacity = Math.max(INITIAL_CAPACITY, expectedLots);
+        epochDays = new int[capacity];
+        quantities = new int[capacity];
+        unitPrices = new double[capacity];
+        ids = new long[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        heapPos = new int[capacity];
+        heap = new int[capacity];
+    }
+
+    // Przepisanie partii z magazynu FIFO (DEQUE/COLUMNAR) z zachowaniem kolejności i id
+    static IndexedLotStore copyOf(LotStore source) {
+        final IndexedLotStore copy = new IndexedLotStore(source.size());
+        copy.nextId = source.firstLotId();
+        source.forEach(new LotVisitor() {
+            @Override
+            public void visit(long epochDay, int quantity, double unitPrice) {
+                copy.append(epochDay, quantity, unitPrice);
+            }
+        });
+        return copy;
+    }
+
+    @Override
+    public long add(LocalDate date, int quantity, double unitPrice) {
+        if (date == null) throw new IllegalArgumentException("date cannot be null");
+        if (quantity <= 0) throw new IllegalArgumentException("quantity must be positive");
+        if (unitPrice < 0) throw new IllegalArgumentException("unitPrice must be non-negative");
+        return append(date.toEpochDay(), quantity, unitPrice);
+    }
+
+    private long append(long epochDay, int quantity, double unitPrice) {
+        if (epochDay < Integer.MIN_VALUE || epochDay > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("date out of supported range: epochDay=" + epochDay);
+        }
+
+        int slot;
+        if (freeHead != NONE) {
+            slot = freeHead;
+            freeHead = next[slot];
+        } else {
+            if (used == quantities.length) grow();
+            slot = used++;
+        }
+
+        long id = nextId++;
+        epochDays[slot] = (int) epochDay;
+        quantities[slot] = quantity;
+        unitPrices[slot] = unitPrice;
+        ids[slot] = id;
+
+        // na koniec listy (najnowsza)
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) head = slot; else next[tail] = slot;
+        tail = slot;
+
+        heap[size] = slot;
+        heapPos[slot] = size;
+        size++;
+        siftUp(size - 1);
+
+        slotById.put(id, slot);
+        return id;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long firstLotId() {
+        return head == NONE ? nextId : ids[head];
+    }
+
+    @Override
+    public long mergeIntoLast(LotCoalescing policy, long epochDay, int quantity, double unitPrice) {
+        if (tail == NONE) return -1;
+        int last = tail;
+        if (quantities[last] > Integer.MAX_VALUE - quantity) return -1;
+        if (!policy.accepts(epochDays[last], unitPrices[last], epochDay, unitPrice)) return -1;
+
+        double oldPrice = unitPrices[last];
+        unitPrices[last] = LotCoalescing.mergedPrice(quantities[last], oldPrice, quantity, unitPrice);
+        quantities[last] += quantity;
+        // zmiana ceny przesuwa partię w kopcu HIFO
+        if (unitPrices[last] != oldPrice && !siftUp(heapPos[last])) siftDown(heapPos[last]);
+        return ids[last];
+    }
+
+    @Override
+    public void renumber() {
+        slotById.clear();
+        long id = 0;
+        for (int s = head; s != NONE; s = next[s]) {
+            ids[s] = id;
+            slotById.put(id, s);
+            id++;
+        }
+        nextId = id; // kolejność id = kolejność zakupu, więc kopiec pozostaje poprawny
+    }
+
+    @Override
+    public void consumeFifo(int quantity, double sellUnitPrice, SaleFillConsumer fills, ReliefTotals totals) {
+        consume(quantity, sellUnitPrice, LotRelief.FIFO, fills, totals);
+    }
+
+    // Zdejmuje quantity sztuk z kolejnych partii wybieranych według relief; sumy jak w consumeFifo
+    void consume(int quantity, double sellUnitPrice, LotRelief relief, SaleFillConsumer fills, ReliefTotals totals) {
+        int remaining = quantity;
+
+        while (remaining > 0) {
+            if (size == 0) throw new IllegalStateException("Internal error: lots empty during sell");
+
+            int slot;
+            switch (relief) {
+                case FIFO: slot = head; break;
+                case LIFO: slot = tail; break;
+                case HIFO: slot = heap[0]; break;
+                default: throw new IllegalArgumentException("Unsupported lot relief: " + relief);
+            }
+            double buyUnitPrice = unitPrices[slot];
+            int taken = take(slot, remaining, fills);
+            totals.add(taken, buyUnitPrice, sellUnitPrice);
+            remaining -= taken;
+        }
+    }
+
+    // Ilość pozostała w partii o danym id albo -1, gdy takiej partii nie ma (sprzedana albo nieznane id)
+    int quantityOf(long lotId) {
+        Integer slot = slotById.get(lotId);
+        return slot == null ? -1 : quantities[slot];
+    }
+
+    // Sprzedaż ze wskazanej partii (ilość sprawdzona wcześniej przez quantityOf)
+    void consumeLot(long lotId, int quantity, double sellUnitPrice, SaleFillConsumer fills, ReliefTotals totals) {
+        Integer slot = slotById.get(lotId);
+        if (slot == null) throw new IllegalArgumentException("Unknown lot id: " + lotId);
+        if (quantity > quantities[slot]) throw new IllegalArgumentException("quantity exceeds lot quantity");
+        double buyUnitPrice = unitPrices[slot];
+        take(slot, quantity, fills);
+        totals.add(quantity, buyUnitPrice, sellUnitPrice);
+    }
+
+    // Zdejmuje z partii min(available, wanted) sztuk; zwraca zdjętą ilość
+    private int take(int slot, int wanted, SaleFillConsumer fills) {
+        int available = quantities[slot];
+        int taken = Math.min(available, wanted);
+        if (fills != null) fills.accept(epochDays[slot], taken, unitPrices[slot]);
+        if (available <= wanted) {
+            remove(slot); // zamykamy całą partię
+        } else {
+            // sprzedaż częściowa: partia zostaje z mniejszą ilością (cena bez zmian - kopiec nietknięty)
+            quantities[slot] = available - wanted;
+        }
+        return taken;
+    }
+
+    private void remove(int slot) {
+        // lista w kolejności zakupu
+        int p = prev[slot];
+        int n = next[slot];
+        if (p == NONE) head = n; else next[p] = n;
+        if (n == NONE) tail = p; else prev[n] = p;
+
+        // kopiec: ostatni element na miejsce usuwanego, potem naprawa w górę albo w dół
+        int i = heapPos[slot];
+        size--;
+        if (i != size) {
+            int last = heap[size];
+            heap[i] = last;
+            heapPos[last] = i;
+            if (!siftUp(i)) siftDown(i);
+        }
+
+        slotById.remove(ids[slot]);
+        next[slot] = freeHead;
+        freeHead = slot;
+    }
+
+    // Czy slot a ma być w kopcu wyżej niż b (droższa partia; przy równej cenie starsza)
+    private boolean before(int a, int b) {
+        double pa = unitPrices[a];
+        double pb = unitPrices[b];
+        if (pa != pb) return pa > pb;
+        return ids[a] < ids[b];
+    }
+
+    // Zwraca true, jeśli element się przesunął
+    private boolean siftUp(int i) {
+        int slot = heap[i];
+        int start = i;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int p = heap[parent];
+            if (!before(slot, p)) break;
+            heap[i] = p;
+            heapPos[p] = i;
+            i = parent;
+        }
+        heap[i] = slot;
+        heapPos[slot] = i;
+        return i != start;
+    }
+
+    private void siftDown(int i) {
+        int slot = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int c = heap[child];
+            int right = child + 1;
+            if (right < size && before(heap[right], c)) {
+                child = right;
+                c = heap[child];
+            }
+            if (!before(c, slot)) break;
+            heap[i] = c;
+            heapPos[c] = i;
+            i = child;
+        }
+        heap[i] = slot;
+        heapPos[slot] = i;
+    }
+
+    @Override
+    public void forEach(LotVisitor visitor) {
+        for (int s = head; s != NONE; s = next[s]) {
+            visitor.visit(epochDays[s], quantities[s], unitPrices[s]);
+        }
+    }
+
+    @Override
+    public Deque<PurchaseLot> snapshot() {
+        Deque<PurchaseLot> copy = new ArrayDeque<>(size);
+        for (int s = head; s != NONE; s = next[s]) {
+            copy.addLast(new PurchaseLot(ids[s], LocalDate.ofEpochDay(epochDays[s]), quantities[s], unitPrices[s]));
+        }
+        return copy;
+    }
+
+    // Podwojenie pojemności (sloty zachowują numery, więc lista i kopiec pozostają poprawne)
+    private void grow() {
+        int newCapacity = quantities.length << 1;
+        if (newCapacity <= 0) throw new IllegalStateException("Too many lots in position");
+        epochDays = Arrays.copyOf(epochDays, newCapacity);
+        quantities = Arrays.copyOf(quantities, newCapacity);
+        unitPrices = Arrays.copyOf(unitPrices, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        prev = Arrays.copyOf(prev, newCapacity);
+        next = Arrays.copyOf(next, newCapacity);
+        heapPos = Arrays.copyOf(heapPos, newCapacity);
+        heap = Arrays.copyOf(heap, newCapacity);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.stockmarket.domain;
+
+/**
+ Scalanie nowej partii z ostatnią partią pozycji w Position.addLot (domyślnie wyłączone - NONE).
+
+ Nowa partia trafia do ostatniej (najnowszej), gdy:
+ - obie daty leżą w tym samym przedziale dayBucket dni (epochDay / dayBucket; 1 = ten sam dzień),
+ - ceny różnią się najwyżej o priceTolerance (0 = identyczna cena).
+
+ Scalona partia zachowuje datę i id ostatniej partii, a jej cena to średnia ważona ilością -
+ koszt nabycia pozycji się nie zmienia. Przy priceTolerance == 0 raport FIFO (SaleResult) jest
+ taki sam jak bez scalania; przy tolerancji > 0 sprzedaż części scalonej partii liczy P&L
+ od średniej ceny z przedziału.
+ */
+public final class LotCoalescing {
+    // każdy zakup to osobna partia
+    public static final LotCoalescing NONE = new LotCoalescing(false, 0.0, 1);
+
+    // ten sam dzień i ta sama cena
+    public static final LotCoalescing EXACT = new LotCoalescing(true, 0.0, 1);
+
+    private final boolean enabled;
+    private final double priceTolerance;
+    private final int dayBucket;
+
+    private LotCoalescing(boolean enabled, double priceTolerance, int dayBucket) {
+        this.enabled = enabled;
+        this.priceTolerance = priceTolerance;
+        this.dayBucket = dayBucket;
+    }
+
+    public static LotCoalescing within(double priceTolerance, int dayBucket) {
+        if (!(priceTolerance >= 0.0) || Double.isInfinite(priceTolerance)) {
+            throw new IllegalArgumentException("priceTolerance must be a finite non-negative number");
+        }
+        if (dayBucket <= 0) throw new IllegalArgumentException("dayBucket must be positive");
+        return new LotCoalescing(true, priceTolerance, dayBucket);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getPriceTolerance() {
+        return priceTolerance;
+    }
+
+    public int getDayBucket() {
+        return dayBucket;
+    }
+
+    // Czy nowa partia (epochDay, unitPrice) może zostać scalona z ostatnią (lastEpochDay, lastUnitPrice)
+    boolean accepts(long lastEpochDay, double lastUnitPrice, long epochDay, double unitPrice) {
+        if (!enabled) return false;
+        if (Math.floorDiv(lastEpochDay, dayBucket) != Math.floorDiv(epochDay, dayBucket)) return false;
+        return Math.abs(unitPrice - lastUnitPrice) <= priceTolerance;
+    }
+
+    // Cena scalonej partii - średnia ważona ilością (bez zmian przy identycznej cenie)
+    static double mergedPrice(int lastQuantity, double lastUnitPrice, int quantity, double unitPrice) {
+        if (unitPrice == lastUnitPrice) return lastUnitPrice;
+        return (lastQuantity * lastUnitPrice + quantity * unitPrice) / ((long) lastQuantity + quantity);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.stockmarket.domain;
+
+/**
+ Metoda zdejmowania partii przy sprzedaży (lot relief).
+ Sprzedaż wskazanej partii (specific lot) to osobna operacja: Position.sellLot / Portfolio.sellLot.
+ */
+public enum LotRelief {
+    FIFO, // najstarsza partia najpierw
+    LIFO, // najnowsza partia najpierw
+    HIFO  // najdroższa partia najpierw (przy równej cenie - starsza)
+}
\ No newline at end of file
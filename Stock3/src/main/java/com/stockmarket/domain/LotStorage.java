@@ -0,0 +1,12 @@
+package com.stockmarket.domain;
+
+/**
+ Sposób przechowywania partii zakupowych w pozycji.
+ */
+public enum LotStorage {
+    DEQUE,    // obiekty PurchaseLot w ArrayDeque (małe pozycje)
+    COLUMNAR, // tablice prymitywów: epoch-day / ilość / cena w buforze cyklicznym
+    AUTO,     // DEQUE, a po przekroczeniu progu liczby partii - COLUMNAR
+    INDEXED   // tablice + indeksy (kolejność zakupu, kopiec cen, id partii) - LIFO/HIFO/wskazana partia;
+              // pozycja przechodzi na ten układ sama przy pierwszej sprzedaży inną metodą niż FIFO
+}
\ No newline at end of file
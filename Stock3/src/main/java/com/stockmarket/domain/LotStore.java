@@ -0,0 +1,39 @@
+package com.stockmarket.domain;
+
+import java.time.LocalDate;
+import java.util.Deque;
+
+/**
+ Partie zakupowe jednej pozycji (wewnętrzna struktura Position).
+ Każda partia ma id = numer kolejny zakupu w pozycji (0, 1, 2, ...), id nie są używane ponownie.
+ */
+interface LotStore {
+
+    // Dopisuje partię jako najnowszą; zwraca jej id
+    long add(LocalDate date, int quantity, double unitPrice);
+
+    int size();
+
+    // Id najstarszej partii; w magazynach FIFO (DEQUE/COLUMNAR) kolejne partie mają kolejne id
+    long firstLotId();
+
+    /**
+     Scala partię z ostatnią partią, jeśli pozwala na to policy (i suma ilości mieści się w int).
+     Zwraca id ostatniej partii albo -1, gdy scalenie nie jest możliwe (wtedy nic się nie zmienia).
+     */
+    long mergeIntoLast(LotCoalescing policy, long epochDay, int quantity, double unitPrice);
+
+    // Nadaje partiom id 0..size-1 w kolejności zakupu - tak jak po wczytaniu ze snapshotu
+    void renumber();
+
+    /**
+     Zdejmuje quantity sztuk od najstarszej partii; każdą część partii zgłasza do fills (może być null)
+     i dolicza do totals (koszt zdjętych partii i P&L; totals nie jest zerowane).
+     */
+    void consumeFifo(int quantity, double sellUnitPrice, SaleFillConsumer fills, ReliefTotals totals);
+
+    // Partie w kolejności zakupu (od najstarszej)
+    void forEach(LotVisitor visitor);
+
+    Deque<PurchaseLot> snapshot();
+}
\ No newline at end of file
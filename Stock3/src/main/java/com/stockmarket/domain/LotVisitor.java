@@ -0,0 +1,9 @@
+package com.stockmarket.domain;
+
+/**
+ Odwiedzanie partii zakupowych pozycji w kolejności FIFO (od najstarszej),
+ bez tworzenia obiektów PurchaseLot/LocalDate dla każdej partii.
+ */
+public interface LotVisitor {
+    void visit(long epochDay, int quantity, double unitPrice);
+}
\ No newline at end of file
@@ -10,6 +10,11 @@ import java.time.LocalDateTime;
  - typ (BUY/SELL)
  - limitPrice (dla BUY wyższy = bardziej atrakcyjny)
  - createdAt + sequence (tie-breaker przy równym limicie)
+
+ Zlecenie może być realizowane częściowo (księga zleceń) - pozostały wolumen
+ przechowujemy w remainingQuantity, a quantity zostaje wolumenem pierwotnym.
+
+ Ważność (TimeInForce): GTC bez terminu, DAY do północy po createdAt, GTD do expiresAt.
  */
 public class Order {
     private final OrderType type;                // BUY lub SELL
@@ -19,7 +24,10 @@ public class Order {
     private final double limitPrice;             // cena limit
     private final double marketPriceAtCreation;  // cena rynkowa w momencie złożenia (informacyjnie)
     private final LocalDateTime createdAt;       // czas złożenia
-    private final long sequence;                 // licznik do rozstrzygania remisów
+    private final long sequence;                 // licznik do rozstrzygania remisów (jednocześnie id zlecenia)
+    private final TimeInForce timeInForce;       // ważność zlecenia
+    private final LocalDateTime expiresAt;       // chwila wygaśnięcia (null dla GTC)
+    private int remainingQuantity;               // wolumen jeszcze niezrealizowany
 
     public Order(OrderType type,
                  AssetType assetType,
@@ -29,6 +37,23 @@ public class Order {
                  double marketPriceAtCreation,
                  LocalDateTime createdAt,
                  long sequence) {
+        this(type, assetType, symbol, quantity, limitPrice, marketPriceAtCreation, createdAt, sequence, TimeInForce.GTC, null);
+    }
+
+    /**
+     expiresAt podawane tylko dla GTD (musi być późniejsze niż createdAt);
+     dla DAY wyliczane z createdAt, dla GTC musi być null.
+     */
+    public Order(OrderType type,
+                 AssetType assetType,
+                 String symbol,
+                 int quantity,
+                 double limitPrice,
+                 double marketPriceAtCreation,
+                 LocalDateTime createdAt,
+                 long sequence,
+                 TimeInForce timeInForce,
+                 LocalDateTime expiresAt) {
 
         if (type == null) throw new IllegalArgumentException("type cannot be null");
         if (assetType == null) throw new IllegalArgumentException("assetType cannot be null");
@@ -37,6 +62,13 @@ public class Order {
         if (limitPrice < 0) throw new IllegalArgumentException("limitPrice must be non-negative");
         if (marketPriceAtCreation < 0) throw new IllegalArgumentException("marketPriceAtCreation must be non-negative");
         if (createdAt == null) throw new IllegalArgumentException("createdAt cannot be null");
+        if (timeInForce == null) throw new IllegalArgumentException("timeInForce cannot be null");
+        if (timeInForce == TimeInForce.GTD) {
+            if (expiresAt == null) throw new IllegalArgumentException("expiresAt is required for GTD");
+            if (!expiresAt.isAfter(createdAt)) throw new IllegalArgumentException("expiresAt must be after createdAt");
+        } else if (expiresAt != null) {
+            throw new IllegalArgumentException("expiresAt is allowed only for GTD");
+        }
 
         this.type = type;
         this.assetType = assetType;
@@ -46,6 +78,9 @@ public class Order {
         this.marketPriceAtCreation = marketPriceAtCreation;
         this.createdAt = createdAt;
         this.sequence = sequence;
+        this.timeInForce = timeInForce;
+        this.expiresAt = timeInForce == TimeInForce.DAY ? createdAt.toLocalDate().plusDays(1).atStartOfDay() : expiresAt;
+        this.remainingQuantity = quantity;
     }
 
     public OrderType getType() {
@@ -79,4 +114,40 @@ public class Order {
     public long getSequence() {
         return sequence;
     }
+
+    // Id zlecenia (to samo co sequence) - do cancel/amend w portfelu
+    public long getId() {
+        return sequence;
+    }
+
+    public TimeInForce getTimeInForce() {
+        return timeInForce;
+    }
+
+    // Chwila wygaśnięcia albo null (GTC)
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public int getRemainingQuantity() {
+        return remainingQuantity;
+    }
+
+    public boolean isFilled() {
+        return remainingQuantity == 0;
+    }
+
+    // Realizacja (częściowa lub pełna) - zmniejsza pozostały wolumen
+    public void fill(int delta) {
+        if (delta <= 0) throw new IllegalArgumentException("delta must be positive");
+        if (delta > remainingQuantity) throw new IllegalArgumentException("delta cannot exceed remaining quantity");
+        this.remainingQuantity -= delta;
+    }
+
+    // Zmniejszenie pozostałego wolumenu bez realizacji (amend w księdze)
+    public void reduceRemainingQuantity(int newRemainingQuantity) {
+        if (newRemainingQuantity <= 0) throw new IllegalArgumentException("newRemainingQuantity must be positive");
+        if (newRemainingQuantity > remainingQuantity) throw new IllegalArgumentException("newRemainingQuantity cannot exceed remaining quantity");
+        this.remainingQuantity = newRemainingQuantity;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.stockmarket.domain;
+
+import java.util.Arrays;
+
+/**
+ Koszyk zleceń z limitem do złożenia jednym wywołaniem (Portfolio.submitLimitOrders).
+
+ - wiersze trzymane w kolumnach (tablice prymitywów + symbole), bez obiektu na wiersz,
+ - poprawność wiersza sprawdzana przy add() - niepoprawny koszyk nie dotyka ksiąg,
+ - zlecenia składane są w kolejności dodania wierszy,
+ - koszyk można wyczyścić (clear) i wypełnić ponownie bez nowych tablic.
+ */
+public final class OrderBasket {
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final AssetType[] ASSET_TYPES = AssetType.values();
+
+    private byte[] types;
+    private byte[] assetTypes;
+    private String[] symbols;
+    private int[] quantities;
+    private double[] limitPrices;
+    private double[] marketPrices;
+    private int size;
+
+    public OrderBasket() {
+        this(16);
+    }
+
+    public OrderBasket(int initialCapacity) {
+        if (initialCapacity <= 0) throw new IllegalArgumentException("initialCapacity must be positive");
+        this.types = new byte[initialCapacity];
+        this.assetTypes = new byte[initialCapacity];
+        this.symbols = new String[initialCapacity];
+        this.quantities = new int[initialCapacity];
+        this.limitPrices = new double[initialCapacity];
+        this.marketPrices = new double[initialCapacity];
+    }
+
+    public OrderBasket add(OrderType type, AssetType assetType, String symbol, int quantity, double limitPrice, double marketPrice) {
+        if (type == null) throw new IllegalArgumentException("type cannot be null");
+        if (assetType == null) throw new IllegalArgumentException("assetType cannot be null");
+        if (symbol == null || symbol.trim().isEmpty()) throw new IllegalArgumentException("symbol cannot be null/empty");
+        if (quantity <= 0) throw new IllegalArgumentException("quantity must be positive");
+        if (limitPrice < 0) throw new IllegalArgumentException("limitPrice must be non-negative");
+        if (marketPrice < 0) throw new IllegalArgumentException("marketPrice must be non-negative");
+
+        if (size == types.length) grow();
+        types[size] = (byte) type.ordinal();
+        assetTypes[size] = (byte) assetType.ordinal();
+        symbols[size] = symbol;
+        quantities[size] = quantity;
+        limitPrices[size] = limitPrice;
+        marketPrices[size] = marketPrice;
+        size++;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(symbols, 0, size, null);
+        size = 0;
+    }
+
+    public OrderType getType(int row) {
+        checkRow(row);
+        return ORDER_TYPES[types[row]];
+    }
+
+    public AssetType getAssetType(int row) {
+        checkRow(row);
+        return ASSET_TYPES[assetTypes[row]];
+    }
+
+    public String getSymbol(int row) {
+        checkRow(row);
+        return symbols[row];
+    }
+
+    public int getQuantity(int row) {
+        checkRow(row);
+        return quantities[row];
+    }
+
+    public double getLimitPrice(int row) {
+        checkRow(row);
+        return limitPrices[row];
+    }
+
+    public double getMarketPrice(int row) {
+        checkRow(row);
+        return marketPrices[row];
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("row " + row + " out of bounds for size " + size);
+    }
+
+    private void grow() {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        assetTypes = Arrays.copyOf(assetTypes, capacity);
+        symbols = Arrays.copyOf(symbols, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        limitPrices = Arrays.copyOf(limitPrices, capacity);
+        marketPrices = Arrays.copyOf(marketPrices, capacity);
+    }
+}
\ No newline at end of file
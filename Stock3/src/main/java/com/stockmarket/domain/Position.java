@@ -1,41 +1,140 @@
 package com.stockmarket.domain;
 
 import java.time.LocalDate;
-import java.util.ArrayDeque;
 import java.util.Deque;
 
 /**
  Pozycja w portfelu dla jednego aktywa.
  Zawiera:
  - referencję do aktywa (Share/Currency/Commodity),
- - kolejkę partii zakupowych (PurchaseLot) w kolejności FIFO.
+ - kolejkę partii zakupowych w kolejności FIFO (LotStorage: obiekty PurchaseLot
+   albo tablice prymitywów; AUTO przechodzi na tablice przy dużej liczbie partii),
+ - sprzedaż FIFO/LIFO/HIFO (LotRelief) albo ze wskazanej partii (id z addLot / PurchaseLot.getId());
+   pierwsza sprzedaż inna niż FIFO przełącza pozycję na INDEXED (na stałe),
+ - opcjonalne scalanie zakupów z ostatnią partią (LotCoalescing) z licznikiem scalonych partii,
+ - sumy bieżące (ilość, koszt nabycia = suma qty * unitPrice) aktualizowane
+   przy addLot/sellFifo, dzięki czemu wycena nie przechodzi po wszystkich partiach,
+ - opcjonalnego słuchacza wyceny (portfel): po zmianie ilości lub ceny aktywa
+   pozycja zgłasza różnicę wartości rzeczywistej i rynkowej.
  */
 public class Position {
+    // od tylu partii AUTO przechodzi na układ kolumnowy
+    static final int COLUMNAR_THRESHOLD = 256;
+
     private final Asset asset;
-    private final Deque<PurchaseLot> lots; // FIFO: najstarsza partia jest na początku kolejki
+    private final LotStorage storage;
+    private LotStore lots;     // FIFO: najstarsza partia jest na początku kolejki
+    private LotStorage active; // faktyczny układ lots (DEQUE, COLUMNAR albo INDEXED)
+
+    private LotCoalescing coalescing = LotCoalescing.NONE;
+    private long mergedLots;   // zakupy scalone z ostatnią partią zamiast nowej partii
+    private final ReliefTotals reliefTotals = new ReliefTotals(); // sumy bieżącej sprzedaży (bez alokacji)
+
+    private int totalQuantity; // suma ilości ze wszystkich partii
+    private double costBasis;  // suma qty * unitPrice ze wszystkich partii
+
+    // wycena ostatnio zgłoszona słuchaczowi (tylko gdy słuchacz jest podpięty)
+    private PositionValueListener valueListener;
+    private boolean followPrices; // czy pozycja jest zarejestrowana w Asset jako PriceListener
+    private double reportedRealValue;
+    private double reportedMarketValue;
+
+    // reakcja na zmianę ceny aktywa - rejestrowana w Asset tylko na czas podpięcia słuchacza
+    private final PriceListener priceListener = new PriceListener() {
+        @Override
+        public void onPriceChanged(Asset changed, double oldPrice, double newPrice) {
+            revalue();
+        }
+    };
 
     public Position(Asset asset) {
+        this(asset, LotStorage.AUTO);
+    }
+
+    public Position(Asset asset, LotStorage storage) {
         if (asset == null) throw new IllegalArgumentException("asset cannot be null");
+        if (storage == null) throw new IllegalArgumentException("storage cannot be null");
         this.asset = asset;
-        this.lots = new ArrayDeque<>();
+        this.storage = storage;
+        this.active = storage == LotStorage.AUTO ? LotStorage.DEQUE : storage;
+        switch (active) {
+            case COLUMNAR: this.lots = new ColumnarLotStore(); break;
+            case INDEXED: this.lots = new IndexedLotStore(); break;
+            default: this.lots = new DequeLotStore(); break;
+        }
+        this.totalQuantity = 0;
+        this.costBasis = 0.0;
     }
 
     public Asset getAsset() {
         return asset;
     }
 
-    // Dodanie nowej partii zakupowej na koniec kolejki (nowsze zakupy)
-    public void addLot(LocalDate date, int quantity, double unitPrice) {
-        lots.addLast(new PurchaseLot(date, quantity, unitPrice));
+    /**
+     Dodanie nowej partii zakupowej na koniec kolejki (nowsze zakupy); zwraca id partii (do sellLot).
+     Przy włączonym LotCoalescing zakup może zostać scalony z ostatnią partią - zwracane jest wtedy jej id.
+     */
+    public long addLot(LocalDate date, int quantity, double unitPrice) {
+        if (coalescing.isEnabled()) {
+            if (date == null) throw new IllegalArgumentException("date cannot be null");
+            if (quantity <= 0) throw new IllegalArgumentException("quantity must be positive");
+            if (unitPrice < 0) throw new IllegalArgumentException("unitPrice must be non-negative");
+
+            long mergedId = lots.mergeIntoLast(coalescing, date.toEpochDay(), quantity, unitPrice);
+            if (mergedId >= 0) {
+                mergedLots++;
+                totalQuantity += quantity;
+                costBasis += quantity * unitPrice;
+                revalue();
+                return mergedId;
+            }
+        }
+
+        long id = lots.add(date, quantity, unitPrice);
+        if (active == LotStorage.DEQUE && storage == LotStorage.AUTO && lots.size() > COLUMNAR_THRESHOLD) {
+            lots = ColumnarLotStore.copyOf(lots);
+            active = LotStorage.COLUMNAR;
+        }
+        totalQuantity += quantity;
+        costBasis += quantity * unitPrice;
+        revalue();
+        return id;
+    }
+
+    // Scalanie kolejnych zakupów z ostatnią partią (dotyczy tylko przyszłych addLot)
+    public void setLotCoalescing(LotCoalescing coalescing) {
+        if (coalescing == null) throw new IllegalArgumentException("coalescing cannot be null");
+        this.coalescing = coalescing;
+    }
+
+    public LotCoalescing getLotCoalescing() {
+        return coalescing;
+    }
+
+    // Ile zakupów zostało scalonych z istniejącą partią (nie utworzyło nowej)
+    public long getMergedLotCount() {
+        return mergedLots;
     }
 
-    // Suma ilości ze wszystkich partii
+    // Suma ilości ze wszystkich partii (O(1) - suma bieżąca)
     public int getTotalQuantity() {
-        int sum = 0;
-        for (PurchaseLot lot : lots) {
-            sum += lot.getQuantity();
-        }
-        return sum;
+        return totalQuantity;
+    }
+
+    // Koszt nabycia pozostałych partii = suma qty * unitPrice
+    public double getCostBasis() {
+        return costBasis;
+    }
+
+    // Średnia cena zakupu pozostałych partii (0 dla pustej pozycji)
+    public double getAverageCost() {
+        if (totalQuantity == 0) return 0.0;
+        return costBasis / totalQuantity;
+    }
+
+    // Niezrealizowany zysk/strata = wartość rynkowa - koszt nabycia
+    public double getUnrealizedProfit() {
+        return getMarketValue() - costBasis;
     }
 
     // Wartość rynkowa (bez ukrytych kosztów) = marketPrice * ilość
@@ -56,43 +155,163 @@ public class Position {
      - zwracamy raport P&L (SaleResult + SaleLine).
      */
     public SaleResult sellFifo(int quantityToSell, double sellUnitPrice) {
+        return sell(quantityToSell, sellUnitPrice, LotRelief.FIFO);
+    }
+
+    /**
+     Sprzedaż z partii wybieranych według relief (FIFO/LIFO/HIFO), raport jak w sellFifo.
+     LIFO i HIFO przełączają pozycję na układ INDEXED (jednorazowe przepisanie partii).
+     */
+    public SaleResult sell(int quantityToSell, double sellUnitPrice, LotRelief relief) {
+        SaleResult result = new SaleResult(asset.getSymbol(), asset.getType(), quantityToSell, sellUnitPrice);
+        sellStreaming(quantityToSell, sellUnitPrice, relief, result.lineCollector());
+        return result;
+    }
+
+    /**
+     Sprzedaż jak sell(...), ale bez raportu: zwraca zrealizowany P&L (sprzedana ilość = quantityToSell),
+     a każdą zdjętą część partii (data, ilość, cena zakupu) przekazuje do fills (null - bez szczegółów).
+     Nie tworzy obiektów na realizację - dla masowej likwidacji pozycji.
+     */
+    public double sellStreaming(int quantityToSell, double sellUnitPrice, LotRelief relief, SaleFillConsumer fills) {
+        if (relief == null) throw new IllegalArgumentException("relief cannot be null");
         if (quantityToSell <= 0) throw new IllegalArgumentException("quantityToSell must be positive");
         if (sellUnitPrice < 0) throw new IllegalArgumentException("sellUnitPrice must be non-negative");
 
-        int total = getTotalQuantity();
-        if (quantityToSell > total) {
-            throw new InsufficientHoldingsException("Not enough holdings to sell. Have=" + total + " want=" + quantityToSell);
+        if (quantityToSell > totalQuantity) {
+            throw new InsufficientHoldingsException("Not enough holdings to sell. Have=" + totalQuantity + " want=" + quantityToSell);
         }
 
-        SaleResult result = new SaleResult(asset.getSymbol(), asset.getType(), quantityToSell, sellUnitPrice);
+        reliefTotals.reset();
+        if (relief == LotRelief.FIFO) {
+            lots.consumeFifo(quantityToSell, sellUnitPrice, fills, reliefTotals);
+        } else {
+            indexedLots().consume(quantityToSell, sellUnitPrice, relief, fills, reliefTotals);
+        }
+        afterSale(quantityToSell);
+        return reliefTotals.profit;
+    }
 
-        int remaining = quantityToSell;
-
-        // dopóki nie sprzedamy całej wymaganej ilości:
-        while (remaining > 0) {
-            PurchaseLot lot = lots.peekFirst();
-            if (lot == null) throw new IllegalStateException("Internal error: lots empty during sell");
-
-            int available = lot.getQuantity();
-
-            if (available <= remaining) {
-                // zamykamy cały najstarszy lot
-                lots.removeFirst();
-                result.addLine(new SaleLine(lot.getDate(), available, lot.getUnitPrice(), sellUnitPrice));
-                remaining -= available;
-            } else {
-                // sprzedaż częściowa: lot zostaje, ale quantity się zmniejsza
-                lot.decreaseQuantity(remaining);
-                result.addLine(new SaleLine(lot.getDate(), remaining, lot.getUnitPrice(), sellUnitPrice));
-                remaining = 0;
-            }
+    /**
+     Sprzedaż ze wskazanej partii (specific lot). lotId pochodzi z addLot albo PurchaseLot.getId()
+     w getLotsSnapshot(); nieznane lub już sprzedane id -> IllegalArgumentException.
+     Przełącza pozycję na układ INDEXED.
+     */
+    public SaleResult sellLot(long lotId, int quantityToSell, double sellUnitPrice) {
+        if (quantityToSell <= 0) throw new IllegalArgumentException("quantityToSell must be positive");
+        if (sellUnitPrice < 0) throw new IllegalArgumentException("sellUnitPrice must be non-negative");
+
+        IndexedLotStore indexed = indexedLots();
+        int available = indexed.quantityOf(lotId);
+        if (available < 0) throw new IllegalArgumentException("Unknown lot id: " + lotId);
+        if (quantityToSell > available) {
+            throw new InsufficientHoldingsException("Not enough holdings in lot " + lotId + ". Have=" + available + " want=" + quantityToSell);
         }
 
+        SaleResult result = new SaleResult(asset.getSymbol(), asset.getType(), quantityToSell, sellUnitPrice);
+        reliefTotals.reset();
+        indexed.consumeLot(lotId, quantityToSell, sellUnitPrice, result.lineCollector(), reliefTotals);
+        afterSale(quantityToSell);
         return result;
     }
 
+    // Układ INDEXED - przy pierwszym użyciu przepisujemy partie (id zostają te same)
+    private IndexedLotStore indexedLots() {
+        if (active != LotStorage.INDEXED) {
+            lots = IndexedLotStore.copyOf(lots);
+            active = LotStorage.INDEXED;
+        }
+        return (IndexedLotStore) lots;
+    }
+
+    private void afterSale(int quantityToSell) {
+        totalQuantity -= quantityToSell;
+        // dokładnie koszt zdjętych partii policzony przez magazyn (bez ponownego przejścia po partiach)
+        costBasis -= reliefTotals.cost;
+        if (totalQuantity == 0) costBasis = 0.0; // brak dryfu zmiennoprzecinkowego dla pustej pozycji
+        revalue();
+    }
+
+    /**
+     Podpina (lub odpina dla null) słuchacza wyceny.
+     - po podpięciu słuchacz od razu dostaje pełną bieżącą wycenę jako deltę,
+     - po odpięciu dostaje deltę ujemną (wycena pozycji znika z jego sumy),
+     - pozycja jest zarejestrowana w Asset tylko dopóki ma słuchacza.
+     */
+    public void setValueListener(PositionValueListener listener) {
+        setValueListener(listener, true);
+    }
+
+    /**
+     Jak setValueListener(listener), ale przy followPrices == false pozycja nie rejestruje się w Asset:
+     zmiana ceny nie jest zgłaszana od razu, tylko przy refreshValuation() albo kolejnej zmianie ilości
+     (delta obejmuje wtedy też zmianę ceny). Dla aktywów współdzielonych przez bardzo wiele portfeli.
+     */
+    public void setValueListener(PositionValueListener listener, boolean followPrices) {
+        if (valueListener == listener && (listener == null || this.followPrices == followPrices)) return;
+
+        if (valueListener != null) {
+            if (this.followPrices) asset.removePriceListener(priceListener);
+            valueListener.onValueChanged(this, -reportedRealValue, -reportedMarketValue);
+            reportedRealValue = 0.0;
+            reportedMarketValue = 0.0;
+        }
+
+        valueListener = listener;
+        this.followPrices = listener != null && followPrices;
+
+        if (listener != null) {
+            if (followPrices) asset.addPriceListener(priceListener);
+            revalue();
+        }
+    }
+
+    // Zgłasza słuchaczowi zmianę wyceny od ostatniego zgłoszenia (np. po zmianach cen bez followPrices)
+    public void refreshValuation() {
+        revalue();
+    }
+
+    // Przelicza wycenę (O(1)) i zgłasza słuchaczowi różnicę względem poprzedniego zgłoszenia
+    private void revalue() {
+        if (valueListener == null) return;
+
+        double real = getRealValue();
+        double market = getMarketValue();
+        double realDelta = real - reportedRealValue;
+        double marketDelta = market - reportedMarketValue;
+        reportedRealValue = real;
+        reportedMarketValue = market;
+
+        if (realDelta != 0.0 || marketDelta != 0.0) {
+            valueListener.onValueChanged(this, realDelta, marketDelta);
+        }
+    }
+
     // Snapshot do persystencji/raportów (żeby nie wystawiać bezpośrednio wewnętrznej kolejki)
     public Deque<PurchaseLot> getLotsSnapshot() {
-        return new ArrayDeque<>(lots);
+        return lots.snapshot();
+    }
+
+    /**
+     Nadaje partiom id 0..n-1 w kolejności zakupu - tak jak po wczytaniu pozycji ze snapshotu
+     (snapshot nie przechowuje id). Używane przy kompaktowaniu dziennika.
+     */
+    public void renumberLots() {
+        lots.renumber();
+    }
+
+    public int getLotCount() {
+        return lots.size();
+    }
+
+    // Przejście po partiach (FIFO) bez kopiowania - dla dużych pozycji zamiast getLotsSnapshot()
+    public void forEachLot(LotVisitor visitor) {
+        if (visitor == null) throw new IllegalArgumentException("visitor cannot be null");
+        lots.forEach(visitor);
+    }
+
+    // Faktycznie używany układ partii (DEQUE, COLUMNAR albo INDEXED)
+    public LotStorage getActiveLotStorage() {
+        return active;
     }
 }
\ No newline at end of file
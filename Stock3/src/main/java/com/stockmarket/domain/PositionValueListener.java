@@ -0,0 +1,10 @@
+package com.stockmarket.domain;
+
+/**
+ Odbiorca zmian wyceny pozycji.
+ Dostaje tylko różnice (delta) względem poprzednio zgłoszonej wyceny,
+ dzięki czemu portfel może trzymać sumę bieżącą bez ponownego liczenia wszystkich pozycji.
+ */
+public interface PositionValueListener {
+    void onValueChanged(Position position, double realValueDelta, double marketValueDelta);
+}
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.stockmarket.domain;
+
+/**
+ Odbiorca zmian ceny rynkowej aktywa (Asset.setMarketPrice).
+ */
+public interface PriceListener {
+    void onPriceChanged(Asset asset, double oldPrice, double newPrice);
+}
\ No newline at end of file
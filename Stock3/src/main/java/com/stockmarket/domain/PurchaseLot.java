@@ -11,19 +11,30 @@ import java.time.LocalDate;
  - historia zakupu jest niezbędna do FIFO przy sprzedaży.
  */
 public class PurchaseLot {
+    private final long id;          // numer kolejny zakupu w pozycji (-1: partia spoza pozycji)
     private final LocalDate date;   // data zakupu
     private int quantity;           // ile sztuk zostało w tej partii (może maleć przy sprzedaży częściowej)
     private final double unitPrice; // cena zakupu za 1 sztukę
 
     public PurchaseLot(LocalDate date, int quantity, double unitPrice) {
+        this(-1, date, quantity, unitPrice);
+    }
+
+    public PurchaseLot(long id, LocalDate date, int quantity, double unitPrice) {
         if (date == null) throw new IllegalArgumentException("date cannot be null");
         if (quantity <= 0) throw new IllegalArgumentException("quantity must be positive");
         if (unitPrice < 0) throw new IllegalArgumentException("unitPrice must be non-negative");
+        this.id = id;
         this.date = date;
         this.quantity = quantity;
         this.unitPrice = unitPrice;
     }
 
+    // Id do sprzedaży wskazanej partii (Position.sellLot)
+    public long getId() {
+        return id;
+    }
+
     public LocalDate getDate() {
         return date;
     }
@@ -32,6 +43,12 @@ public class PurchaseLot {
         return quantity;
     }
 
+    // Zwiększa ilość w partii - scalenie zakupu w tej samej cenie (LotCoalescing), tylko wewnątrz pozycji
+    void increaseQuantity(int delta) {
+        if (delta <= 0) throw new IllegalArgumentException("delta must be positive");
+        this.quantity += delta;
+    }
+
     // Zmniejsza ilość w partii (sprzedaż częściowa)
     public void decreaseQuantity(int delta) {
         if (delta <= 0) throw new IllegalArgumentException("delta must be positive");
@@ -0,0 +1,22 @@
+package com.stockmarket.domain;
+
+/**
+ Sumy jednej sprzedaży liczone przez magazyn partii (wewnętrzna struktura Position, używana wielokrotnie):
+ - cost: koszt nabycia zdjętych części partii = suma qty * buyUnitPrice,
+ - profit: zrealizowany P&L = suma qty * (sellUnitPrice - buyUnitPrice).
+ Position odejmuje od costBasis dokładnie cost (zamiast przychód - P&L, co przy dużych cenach traci precyzję).
+ */
+final class ReliefTotals {
+    double cost;
+    double profit;
+
+    void reset() {
+        cost = 0.0;
+        profit = 0.0;
+    }
+
+    void add(int quantity, double buyUnitPrice, double sellUnitPrice) {
+        cost += quantity * buyUnitPrice;
+        profit += quantity * (sellUnitPrice - buyUnitPrice);
+    }
+}
\ No newline at end of file
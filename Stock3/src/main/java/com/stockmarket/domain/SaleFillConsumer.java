@@ -0,0 +1,9 @@
+package com.stockmarket.domain;
+
+/**
+ Odbiorca pojedynczych realizacji sprzedaży (część jednej partii) - bez obiektów SaleLine/LocalDate.
+ Jedna instancja może być używana wielokrotnie (Position.sellStreaming / Portfolio.sellStreaming).
+ */
+public interface SaleFillConsumer {
+    void accept(long buyEpochDay, int quantity, double buyUnitPrice);
+}
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.stockmarket.domain;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -19,6 +21,7 @@ public class SaleResult {
     private final double sellUnitPrice;  // cena sprzedaży za sztukę
 
     private final List<SaleLine> lines;  // szczegóły FIFO (z jakich partii sprzedano)
+    private final List<SaleLine> linesView;
     private double totalProfit;          // suma profit ze wszystkich linii
 
     public SaleResult(String symbol, AssetType type, int quantitySold, double sellUnitPrice) {
@@ -27,6 +30,7 @@ public class SaleResult {
         this.quantitySold = quantitySold;
         this.sellUnitPrice = sellUnitPrice;
         this.lines = new ArrayList<>();
+        this.linesView = Collections.unmodifiableList(lines);
         this.totalProfit = 0.0;
     }
 
@@ -57,8 +61,18 @@ public class SaleResult {
         return totalProfit;
     }
 
-    // Zwracamy kopię listy, żeby nie dało się modyfikować wnętrza SaleResult z zewnątrz
+    // Widok tylko do odczytu (bez kopiowania przy każdym wywołaniu) - modyfikacja rzuca UnsupportedOperationException
     public List<SaleLine> getLines() {
-        return new ArrayList<>(lines);
+        return linesView;
+    }
+
+    // Zamienia realizacje z magazynu partii na linie raportu (Position.sell / sellLot)
+    SaleFillConsumer lineCollector() {
+        return new SaleFillConsumer() {
+            @Override
+            public void accept(long buyEpochDay, int quantity, double buyUnitPrice) {
+                addLine(new SaleLine(LocalDate.ofEpochDay(buyEpochDay), quantity, buyUnitPrice, sellUnitPrice));
+            }
+        };
     }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.stockmarket.domain;
+
+/**
+ Ważność zlecenia oczekującego w księdze (enum).
+ */
+public enum TimeInForce {
+    GTC, // do odwołania (Good Till Cancelled)
+    DAY, // do końca dnia złożenia (północ po createdAt)
+    GTD  // do wskazanej chwili (Good Till Date)
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.stockmarket.ledger;
+
+import com.stockmarket.domain.AssetType;
+
+/**
+ Odwiedzanie wpisów dziennika P&L w kolejności zapisu (najpierw część zrzucona na dysk, potem pamięć).
+ */
+public interface LedgerEntryVisitor {
+    void visit(long epochDay, String symbol, AssetType type, int quantity, double sellUnitPrice, double realizedProfit);
+}
\ No newline at end of file
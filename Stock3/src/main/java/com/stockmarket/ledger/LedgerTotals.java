@@ -0,0 +1,37 @@
+package com.stockmarket.ledger;
+
+/**
+ Sumy zrealizowanych sprzedaży dla jednego klucza (symbol / typ aktywa / dzień / całość).
+ Migawka - nie zmienia się po kolejnych sprzedażach.
+ */
+public final class LedgerTotals {
+    static final LedgerTotals EMPTY = new LedgerTotals(0, 0, 0.0, 0.0);
+
+    private final long count;         // liczba sprzedaży
+    private final long quantity;      // sprzedany wolumen
+    private final double turnover;    // suma qty * cena sprzedaży
+    private final double realizedProfit;
+
+    LedgerTotals(long count, long quantity, double turnover, double realizedProfit) {
+        this.count = count;
+        this.quantity = quantity;
+        this.turnover = turnover;
+        this.realizedProfit = realizedProfit;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public double getTurnover() {
+        return turnover;
+    }
+
+    public double getRealizedProfit() {
+        return realizedProfit;
+    }
+}
\ No newline at end of file
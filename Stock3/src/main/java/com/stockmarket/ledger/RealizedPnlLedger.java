@@ -0,0 +1,314 @@
+package com.stockmarket.ledger;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioListener;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ Dziennik zrealizowanego P&L (np. do rozliczenia rocznego) - podpinany do portfela jak PortfolioJournal.
+
+ - każda sprzedaż (sell / sellLot / sellStreaming, także po przekroczeniu limitu przez cenę)
+   dopisywana jest jako wiersz w tablicach kolumnowych: dzień, id symbolu, typ, ilość, cena, P&L,
+ - sumy bieżące (liczba, wolumen, obrót = qty * cena, P&L) per (typ, symbol), per AssetType, per dzień
+   i łącznie - zapytania getTotals(...) to odczyt O(1), bez przechodzenia po wierszach,
+ - opcjonalnie (spill) po memoryRows wierszach blok trafia do pliku, a pamięć jest zwalniana;
+   plik jest przedłużeniem pamięci tego dziennika (słownik symboli zostaje w pamięci), nie formatem trwałym.
+
+ Dzień sprzedaży bierzemy z zegara (Clock) w chwili zgłoszenia. Wiersze pochodzą z onRealized, zgłaszanego
+ z rozliczenia każdej sprzedaży w portfelu - także nogi sprzedaży realizacji z księgi zleceń (obrót po cenie
+ realizacji, P&L zero, bo zdejmowana jest partia kupiona w tej samej realizacji).
+ */
+public final class RealizedPnlLedger implements PortfolioListener, Closeable {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int ROW_BYTES = 4 + 4 + 4 + 8 + 8; // dzień, id symbolu, ilość, cena, P&L
+
+    private final Clock clock;
+    private final File spillFile;   // null: tylko pamięć
+    private final int memoryRows;   // ile wierszy trzymamy w pamięci przed zrzutem (przy spill)
+    private FileChannel spill;
+    private ByteBuffer spillBuffer; // cały blok kodowany w pamięci i zapisywany jednym write
+    private long spilledRows;
+    private Portfolio portfolio;
+
+    // wiersze w pamięci (kolumny)
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private int[] symbolIds = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private double[] sellPrices = new double[INITIAL_CAPACITY];
+    private double[] profits = new double[INITIAL_CAPACITY];
+    private int size;
+
+    // słownik symboli: id -> symbol/typ, (typ, symbol) -> sumy (osobna mapa dla każdego typu, indeks = ordinal)
+    private final List<String> symbols = new ArrayList<>();
+    private final List<AssetType> symbolTypes = new ArrayList<>();
+    private final List<Map<String, SymbolTotals>> bySymbol = new ArrayList<>();
+
+    private final Totals[] byType = new Totals[AssetType.values().length];
+    private final Map<Long, Totals> byDay = new HashMap<>();
+    private long lastEpochDay;   // sprzedaże przychodzą zwykle dniami - ostatni dzień bez szukania w mapie
+    private Totals lastDayTotals;
+    private final Totals total = new Totals();
+
+    private RealizedPnlLedger(Clock clock, File spillFile, int memoryRows) {
+        this.clock = clock;
+        this.spillFile = spillFile;
+        this.memoryRows = memoryRows;
+        for (int i = 0; i < byType.length; i++) {
+            byType[i] = new Totals();
+            bySymbol.add(new HashMap<String, SymbolTotals>());
+        }
+    }
+
+    // Dziennik tylko w pamięci, dni według zegara systemowego
+    public RealizedPnlLedger() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public RealizedPnlLedger(Clock clock) {
+        this(requireClock(clock), null, 0);
+    }
+
+    /**
+     Dziennik ze zrzutem na dysk: co memoryRows wierszy blok z pamięci dopisywany jest do file
+     (plik jest tworzony od nowa). Błąd zapisu w trakcie sprzedaży zgłaszany jest jako UncheckedIOException.
+     */
+    public static RealizedPnlLedger withSpill(File file, int memoryRows, Clock clock) throws IOException {
+        if (file == null) throw new IllegalArgumentException("file cannot be null");
+        if (memoryRows <= 0) throw new IllegalArgumentException("memoryRows must be positive");
+        if (memoryRows > Integer.MAX_VALUE / ROW_BYTES) throw new IllegalArgumentException("memoryRows too large: " + memoryRows);
+        RealizedPnlLedger ledger = new RealizedPnlLedger(requireClock(clock), file, memoryRows);
+        ledger.spill = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return ledger;
+    }
+
+    private static Clock requireClock(Clock clock) {
+        if (clock == null) throw new IllegalArgumentException("clock cannot be null");
+        return clock;
+    }
+
+    // Podpina dziennik do portfela - od tej chwili każda sprzedaż jest zapisywana
+    public void attach(Portfolio portfolio) {
+        if (portfolio == null) throw new IllegalArgumentException("portfolio cannot be null");
+        if (this.portfolio != null) throw new IllegalStateException("Ledger is already attached");
+        this.portfolio = portfolio;
+        portfolio.addPortfolioListener(this);
+    }
+
+    // --- PortfolioListener ---
+
+    // Zgłaszane z rozliczenia każdej sprzedaży portfela (wszystkie warianty sell i zlecenia po przekroczeniu limitu)
+    @Override
+    public void onRealized(Asset asset, int quantity, double sellUnitPrice, double realizedProfit) {
+        record(LocalDate.now(clock), asset.getSymbol(), asset.getType(), quantity, sellUnitPrice, realizedProfit);
+    }
+
+    /**
+     Dopisuje sprzedaż (np. z ConcurrentPortfolio albo z SaleResult spoza podpiętego portfela)
+     i aktualizuje wszystkie sumy.
+     */
+    public void record(LocalDate date, String symbol, AssetType type, int quantity, double sellUnitPrice, double realizedProfit) {
+        if (date == null) throw new IllegalArgumentException("date cannot be null");
+        if (symbol == null || symbol.trim().isEmpty()) throw new IllegalArgumentException("symbol cannot be null/empty");
+        if (type == null) throw new IllegalArgumentException("type cannot be null");
+        if (quantity <= 0) throw new IllegalArgumentException("quantity must be positive");
+        if (sellUnitPrice < 0) throw new IllegalArgumentException("sellUnitPrice must be non-negative");
+        long epochDay = date.toEpochDay();
+        if (epochDay < Integer.MIN_VALUE || epochDay > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("date out of supported range: " + date);
+        }
+
+        Map<String, SymbolTotals> typeSymbols = bySymbol.get(type.ordinal());
+        SymbolTotals symbolTotals = typeSymbols.get(symbol);
+        if (symbolTotals == null) {
+            symbolTotals = new SymbolTotals(symbols.size());
+            symbols.add(symbol);
+            symbolTypes.add(type);
+            typeSymbols.put(symbol, symbolTotals);
+        }
+
+        if (spill != null && size == memoryRows) spillRows();
+        if (size == quantities.length) grow();
+        epochDays[size] = (int) epochDay;
+        symbolIds[size] = symbolTotals.id;
+        quantities[size] = quantity;
+        sellPrices[size] = sellUnitPrice;
+        profits[size] = realizedProfit;
+        size++;
+
+        double turnover = quantity * sellUnitPrice;
+        symbolTotals.add(quantity, turnover, realizedProfit);
+        byType[type.ordinal()].add(quantity, turnover, realizedProfit);
+        if (lastDayTotals == null || lastEpochDay != epochDay) {
+            Totals day = byDay.get(epochDay);
+            if (day == null) {
+                day = new Totals();
+                byDay.put(epochDay, day);
+            }
+            lastEpochDay = epochDay;
+            lastDayTotals = day;
+        }
+        lastDayTotals.add(quantity, turnover, realizedProfit);
+        total.add(quantity, turnover, realizedProfit);
+    }
+
+    // --- Zapytania O(1) ---
+
+    public LedgerTotals getTotals() {
+        return total.snapshot();
+    }
+
+    // Symbol łącznie po typach aktywa (ten sam symbol może występować np. jako akcja i surowiec)
+    public LedgerTotals getTotals(String symbol) {
+        Totals sum = null;
+        for (int i = 0; i < bySymbol.size(); i++) {
+            Totals t = bySymbol.get(i).get(symbol);
+            if (t == null) continue;
+            if (sum == null) sum = new Totals();
+            sum.merge(t);
+        }
+        return sum == null ? LedgerTotals.EMPTY : sum.snapshot();
+    }
+
+    public LedgerTotals getTotals(AssetType type, String symbol) {
+        if (type == null) throw new IllegalArgumentException("type cannot be null");
+        Totals t = bySymbol.get(type.ordinal()).get(symbol);
+        return t == null ? LedgerTotals.EMPTY : t.snapshot();
+    }
+
+    public LedgerTotals getTotals(AssetType type) {
+        if (type == null) throw new IllegalArgumentException("type cannot be null");
+        return byType[type.ordinal()].snapshot();
+    }
+
+    public LedgerTotals getTotals(LocalDate day) {
+        if (day == null) throw new IllegalArgumentException("day cannot be null");
+        Totals t = byDay.get(day.toEpochDay());
+        return t == null ? LedgerTotals.EMPTY : t.snapshot();
+    }
+
+    // Liczba wszystkich wpisów (w pamięci + zrzuconych na dysk)
+    public long size() {
+        return spilledRows + size;
+    }
+
+    // Wpisy w pamięci (przy spill - najwyżej memoryRows)
+    public int getMemoryRows() {
+        return size;
+    }
+
+    // --- Odczyt wpisów ---
+
+    // Przejście po wszystkich wpisach w kolejności zapisu (przy spill - najpierw czyta plik)
+    public void forEach(LedgerEntryVisitor visitor) throws IOException {
+        if (visitor == null) throw new IllegalArgumentException("visitor cannot be null");
+
+        if (spill != null && spilledRows > 0) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile)))) {
+                for (long i = 0; i < spilledRows; i++) {
+                    int epochDay = in.readInt();
+                    int symbolId = in.readInt();
+                    int quantity = in.readInt();
+                    double price = in.readDouble();
+                    double profit = in.readDouble();
+                    visitor.visit(epochDay, symbols.get(symbolId), symbolTypes.get(symbolId), quantity, price, profit);
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            int symbolId = symbolIds[i];
+            visitor.visit(epochDays[i], symbols.get(symbolId), symbolTypes.get(symbolId), quantities[i], sellPrices[i], profits[i]);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (spill != null) spill.close();
+        } finally {
+            if (portfolio != null) portfolio.removePortfolioListener(this);
+        }
+    }
+
+    // --- Wewnętrzne ---
+
+    // Blok z pamięci na koniec pliku; tablice zostają (kolejny blok nadpisze je od początku)
+    private void spillRows() {
+        if (spillBuffer == null) spillBuffer = ByteBuffer.allocate(memoryRows * ROW_BYTES);
+        spillBuffer.clear();
+        for (int i = 0; i < size; i++) {
+            spillBuffer.putInt(epochDays[i]);
+            spillBuffer.putInt(symbolIds[i]);
+            spillBuffer.putInt(quantities[i]);
+            spillBuffer.putDouble(sellPrices[i]);
+            spillBuffer.putDouble(profits[i]);
+        }
+        spillBuffer.flip();
+        try {
+            while (spillBuffer.hasRemaining()) {
+                spill.write(spillBuffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot spill ledger rows to " + spillFile, e);
+        }
+        spilledRows += size;
+        size = 0;
+    }
+
+    private void grow() {
+        int capacity = quantities.length << 1;
+        if (spill != null) capacity = Math.min(capacity, memoryRows);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        symbolIds = Arrays.copyOf(symbolIds, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        sellPrices = Arrays.copyOf(sellPrices, capacity);
+        profits = Arrays.copyOf(profits, capacity);
+    }
+
+    // Sumy bieżące jednego klucza
+    private static class Totals {
+        long count;
+        long quantity;
+        double turnover;
+        double realizedProfit;
+
+        void add(int qty, double turnover, double profit) {
+            count++;
+            quantity += qty;
+            this.turnover += turnover;
+            realizedProfit += profit;
+        }
+
+        void merge(Totals other) {
+            count += other.count;
+            quantity += other.quantity;
+            turnover += other.turnover;
+            realizedProfit += other.realizedProfit;
+        }
+
+        LedgerTotals snapshot() {
+            return new LedgerTotals(count, quantity, turnover, realizedProfit);
+        }
+    }
+
+    private static final class SymbolTotals extends Totals {
+        final int id; // indeks w słowniku symboli (kolumna symbolIds)
+
+        SymbolTotals(int id) {
+            this.id = id;
+        }
+    }
+}
\ No newline at end of file
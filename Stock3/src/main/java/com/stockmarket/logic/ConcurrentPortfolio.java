@@ -0,0 +1,214 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.*;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ Wariant portfela bezpieczny wątkowo (acquire/sell z wielu wątków naraz).
+
+ - pozycje podzielone są na paski (lock striping): symbol -> pasek, każdy pasek ma własny
+   ReentrantLock i własną mapę pozycji; operacje na symbolach z różnych pasków nie czekają na siebie,
+ - gotówka to bity double w AtomicLong: rezerwacja kosztu zakupu (sprawdzenie salda + obciążenie)
+   jest jednym CAS, więc nie ma zgubionych aktualizacji ani ujemnego salda,
+ - odczyty (wycena, ilości) nie biorą blokad: po każdej zmianie pozycji publikowany jest niezmienny
+   Holding (aktywo + ilość) w ConcurrentHashMap, a cena aktywa jest volatile.
+
+ Wycena jest słabo spójna (jak metody zbiorcze ConcurrentHashMap): każda pozycja jest odczytana
+ w stanie po pełnej operacji, ale bez wspólnego punktu w czasie dla całego portfela.
+ Księgi zleceń i watchlista pozostają w jednowątkowym Portfolio.
+ */
+public class ConcurrentPortfolio {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final AtomicLong cashBits;                       // Double.doubleToRawLongBits(cash)
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final ConcurrentHashMap<String, Holding> holdings; // widok do odczytu bez blokad
+
+    public ConcurrentPortfolio(double initialCash) {
+        this(initialCash, DEFAULT_STRIPES);
+    }
+
+    // Liczba pasków zaokrąglana w górę do potęgi 2 (indeks paska = hash & maska)
+    public ConcurrentPortfolio(double initialCash, int stripeCount) {
+        if (initialCash < 0) throw new IllegalArgumentException("initialCash cannot be negative");
+        if (stripeCount <= 0) throw new IllegalArgumentException("stripeCount must be positive");
+
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) size <<= 1;
+
+        this.cashBits = new AtomicLong(Double.doubleToRawLongBits(initialCash));
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = size - 1;
+        this.holdings = new ConcurrentHashMap<>();
+    }
+
+    public double getCash() {
+        return Double.longBitsToDouble(cashBits.get());
+    }
+
+    public int getPositionsCount() {
+        return holdings.size();
+    }
+
+    // Ilość posiadana w danym symbolu (0, gdy brak pozycji) - bez blokady
+    public int getQuantity(String symbol) {
+        Holding h = holdings.get(symbol);
+        return h == null ? 0 : h.quantity;
+    }
+
+    // Kopia partii zakupowych (pod blokadą paska, bo kolejka FIFO jest zmieniana przez sell)
+    public Deque<PurchaseLot> getLotsSnapshot(String symbol) {
+        Stripe stripe = stripeFor(symbol);
+        stripe.lock.lock();
+        try {
+            Position pos = stripe.positions.get(symbol);
+            return pos == null ? new ArrayDeque<>() : pos.getLotsSnapshot();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // --- Zakup ---
+
+    /**
+     Zakup aktywa:
+     - koszt jest rezerwowany atomowo (brak środków -> wyjątek, stan bez zmian),
+     - partia jest dopisywana pod blokadą paska danego symbolu,
+     - gdy dopisanie się nie powiedzie, rezerwacja wraca do gotówki.
+     */
+    public void acquire(Asset asset, int quantity, LocalDate date, double unitPrice) {
+        if (asset == null) throw new IllegalArgumentException("asset cannot be null");
+        if (quantity <= 0) throw new IllegalArgumentException("quantity must be positive");
+        if (date == null) throw new IllegalArgumentException("date cannot be null");
+        if (unitPrice < 0) throw new IllegalArgumentException("unitPrice must be non-negative");
+
+        double cost = asset.getAcquisitionCost(quantity);
+        reserveCash(cost);
+
+        String symbol = asset.getSymbol();
+        Stripe stripe = stripeFor(symbol);
+        boolean done = false;
+        stripe.lock.lock();
+        try {
+            Position pos = stripe.positions.get(symbol);
+            if (pos == null) {
+                pos = new Position(asset);
+                stripe.positions.put(symbol, pos);
+            }
+            pos.addLot(date, quantity, unitPrice);
+            holdings.put(symbol, new Holding(pos.getAsset(), pos.getTotalQuantity()));
+            done = true;
+        } finally {
+            stripe.lock.unlock();
+            if (!done) addCash(cost);
+        }
+    }
+
+    // --- Sprzedaż ---
+
+    /**
+     Sprzedaż FIFO pod blokadą paska symbolu; wpływ ze sprzedaży dopisywany atomowo do gotówki.
+     */
+    public SaleResult sell(String symbol, int quantity, double sellUnitPrice) {
+        if (symbol == null || symbol.trim().isEmpty()) throw new IllegalArgumentException("symbol cannot be null/empty");
+        if (quantity <= 0) throw new IllegalArgumentException("quantity must be positive");
+        if (sellUnitPrice < 0) throw new IllegalArgumentException("sellUnitPrice must be non-negative");
+
+        SaleResult result;
+        Stripe stripe = stripeFor(symbol);
+        stripe.lock.lock();
+        try {
+            Position pos = stripe.positions.get(symbol);
+            if (pos == null) throw new InsufficientHoldingsException("No position for symbol: " + symbol);
+
+            result = pos.sellFifo(quantity, sellUnitPrice);
+
+            if (pos.getTotalQuantity() == 0) {
+                stripe.positions.remove(symbol);
+                holdings.remove(symbol);
+            } else {
+                holdings.put(symbol, new Holding(pos.getAsset(), pos.getTotalQuantity()));
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        // przepływ gotówki ze sprzedaży (uprościenie): qty * sellPrice
+        addCash(sellUnitPrice * quantity);
+        return result;
+    }
+
+    // --- Majątek (odczyt bez blokad) ---
+
+    public double calculateTotalRealValue() {
+        double sum = getCash();
+        for (Holding h : holdings.values()) {
+            sum += h.asset.getRealValue(h.quantity);
+        }
+        return sum;
+    }
+
+    public double calculateTotalMarketValue() {
+        double sum = getCash();
+        for (Holding h : holdings.values()) {
+            sum += h.asset.getMarketPrice() * h.quantity;
+        }
+        return sum;
+    }
+
+    // --- Gotówka ---
+
+    // Sprawdzenie salda i obciążenie w jednym CAS - równoległe zakupy nie zejdą poniżej zera
+    private void reserveCash(double amount) {
+        while (true) {
+            long bits = cashBits.get();
+            double cash = Double.longBitsToDouble(bits);
+            if (cash < amount) throw new InsufficientFundsException("Not enough cash. Have=" + cash + " need=" + amount);
+            if (cashBits.compareAndSet(bits, Double.doubleToRawLongBits(cash - amount))) return;
+        }
+    }
+
+    private void addCash(double amount) {
+        while (true) {
+            long bits = cashBits.get();
+            double cash = Double.longBitsToDouble(bits) + amount;
+            if (cashBits.compareAndSet(bits, Double.doubleToRawLongBits(cash))) return;
+        }
+    }
+
+    // --- Paski ---
+
+    private Stripe stripeFor(String symbol) {
+        int h = symbol.hashCode();
+        h ^= (h >>> 16); // jak w HashMap - starsze bity też wpływają na wybór paska
+        return stripes[h & stripeMask];
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<String, Position> positions = new HashMap<>(); // tylko pod lock
+    }
+
+    // Niezmienny obraz pozycji publikowany dla czytelników
+    private static final class Holding {
+        final Asset asset;
+        final int quantity;
+
+        Holding(Asset asset, int quantity) {
+            this.asset = asset;
+            this.quantity = quantity;
+        }
+    }
+}
\ No newline at end of file
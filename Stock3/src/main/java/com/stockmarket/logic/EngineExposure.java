@@ -0,0 +1,41 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.AssetType;
+
+import java.util.Map;
+
+/**
+ Ekspozycja łączna po wszystkich rachunkach PortfolioEngine (niezmienny obraz z chwili obliczenia):
+ - ilość i wartość rynkowa per symbol,
+ - wartość rynkowa per typ aktywa.
+ */
+public final class EngineExposure {
+    private final Map<String, Long> quantityBySymbol;
+    private final Map<String, Double> marketValueBySymbol;
+    private final Map<AssetType, Double> marketValueByType;
+
+    EngineExposure(Map<String, Long> quantityBySymbol, Map<String, Double> marketValueBySymbol, Map<AssetType, Double> marketValueByType) {
+        this.quantityBySymbol = quantityBySymbol;
+        this.marketValueBySymbol = marketValueBySymbol;
+        this.marketValueByType = marketValueByType;
+    }
+
+    public long getQuantity(String symbol) {
+        Long qty = quantityBySymbol.get(symbol);
+        return qty == null ? 0L : qty;
+    }
+
+    public double getMarketValue(String symbol) {
+        Double value = marketValueBySymbol.get(symbol);
+        return value == null ? 0.0 : value;
+    }
+
+    public double getMarketValue(AssetType type) {
+        Double value = marketValueByType.get(type);
+        return value == null ? 0.0 : value;
+    }
+
+    public int getSymbolCount() {
+        return quantityBySymbol.size();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Execution;
+
+/**
+ Odbiorca raportów z realizacji (Execution Report) wygenerowanych przez księgę zleceń.
+ */
+public interface ExecutionListener {
+    void onExecution(Execution execution);
+}
\ No newline at end of file
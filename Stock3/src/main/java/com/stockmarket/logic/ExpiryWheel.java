@@ -0,0 +1,96 @@
+package com.stockmarket.logic;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ Koło czasowe (hashed timing wheel) terminów ważności zleceń.
+
+ - SLOTS slotów po 1 s; zlecenie trafia do slotu (sekunda wygaśnięcia mod SLOTS),
+   terminy dalsze niż jeden obrót czekają w tym samym slocie na kolejne okrążenia,
+ - zaplanowanie i usunięcie (cancel, realizacja) to O(1) - listy dwukierunkowe w węzłach,
+ - expire(now) odwiedza tylko sloty sekund od poprzedniego przeglądu do now
+   (albo wszystkie, gdy przerwa była dłuższa niż obrót) - bez przeglądania całej księgi,
+ - rozdzielczość 1 s: termin z ułamkiem sekundy jest zaokrąglany w górę.
+ */
+final class ExpiryWheel {
+    static final int SLOTS = 4096;
+    private static final int MASK = SLOTS - 1;
+    private static final int OVERDUE = SLOTS; // dodatkowa lista: termin już minął w chwili planowania
+
+    private final OrderNode[] heads = new OrderNode[SLOTS + 1];
+    private long currentTick = Long.MIN_VALUE; // ostatnia przejrzana sekunda (MIN_VALUE: jeszcze bez przeglądu)
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void schedule(OrderNode node, LocalDateTime expiresAt) {
+        long tick = expiresAt.toEpochSecond(ZoneOffset.UTC);
+        if (expiresAt.getNano() > 0) tick++;
+        node.expiryTick = tick;
+
+        int slot = currentTick != Long.MIN_VALUE && tick <= currentTick ? OVERDUE : (int) (tick & MASK);
+        link(node, slot);
+        size++;
+    }
+
+    void cancel(OrderNode node) {
+        if (node.wheelSlot < 0) return;
+        unlink(node);
+        size--;
+    }
+
+    // Wypina z koła i dopisuje do out węzły z terminem <= now
+    void expire(LocalDateTime now, List<OrderNode> out) {
+        long nowTick = now.toEpochSecond(ZoneOffset.UTC);
+
+        collect(OVERDUE, nowTick, out);
+        if (currentTick == Long.MIN_VALUE || nowTick - currentTick >= SLOTS) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                collect(slot, nowTick, out);
+            }
+        } else {
+            for (long tick = currentTick + 1; tick <= nowTick; tick++) {
+                collect((int) (tick & MASK), nowTick, out);
+            }
+        }
+        if (nowTick > currentTick) currentTick = nowTick;
+    }
+
+    private void collect(int slot, long nowTick, List<OrderNode> out) {
+        OrderNode node = heads[slot];
+        while (node != null) {
+            OrderNode next = node.wheelNext;
+            if (node.expiryTick <= nowTick) {
+                unlink(node);
+                size--;
+                out.add(node);
+            }
+            node = next;
+        }
+    }
+
+    private void link(OrderNode node, int slot) {
+        OrderNode head = heads[slot];
+        node.wheelSlot = slot;
+        node.wheelPrev = null;
+        node.wheelNext = head;
+        if (head != null) head.wheelPrev = node;
+        heads[slot] = node;
+    }
+
+    private void unlink(OrderNode node) {
+        if (node.wheelPrev != null) {
+            node.wheelPrev.wheelNext = node.wheelNext;
+        } else {
+            heads[node.wheelSlot] = node.wheelNext;
+        }
+        if (node.wheelNext != null) node.wheelNext.wheelPrev = node.wheelPrev;
+        node.wheelPrev = null;
+        node.wheelNext = null;
+        node.wheelSlot = -1;
+    }
+}
\ No newline at end of file
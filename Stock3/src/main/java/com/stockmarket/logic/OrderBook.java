@@ -0,0 +1,291 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Execution;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ Księga zleceń (Limit Order Book) dla jednego symbolu.
+
+ - osobne strony: BID (kupno) i ASK (sprzedaż),
+ - zlecenia pogrupowane w poziomy cenowe (TreeMap: cena -> PriceLevel),
+ - w obrębie poziomu priorytet czasowy (FIFO),
+ - najlepszy BID/ASK trzymany w polach -> odczyt O(1),
+ - zlecenie przychodzące jest kojarzone z oczekującymi (price-time priority),
+ - transakcja zawierana jest po cenie zlecenia oczekującego,
+ - niezrealizowana reszta zlecenia trafia do księgi,
+ - zlecenia oczekujące są w indeksie id -> węzeł: cancel O(1) (+ O(log n) przy usunięciu pustego poziomu),
+   amend (zmniejszenie wolumenu) O(1) z zachowaniem priorytetu czasowego.
+ */
+public class OrderBook {
+    private final String symbol;
+
+    // BID: najwyższa cena najpierw, ASK: najniższa cena najpierw
+    private final NavigableMap<Double, PriceLevel> bids;
+    private final NavigableMap<Double, PriceLevel> asks;
+
+    // cache najlepszych poziomów (null gdy strona jest pusta)
+    private PriceLevel bestBid;
+    private PriceLevel bestAsk;
+
+    private int restingOrders; // liczba zleceń oczekujących (obie strony)
+
+    // id -> węzeł zlecenia oczekującego (Portfolio współdzieli jeden indeks między księgami)
+    private final RestingOrderIndex index;
+
+    public OrderBook(String symbol) {
+        this(symbol, new RestingOrderIndex());
+    }
+
+    OrderBook(String symbol, RestingOrderIndex index) {
+        if (symbol == null || symbol.trim().isEmpty()) throw new IllegalArgumentException("symbol cannot be null/empty");
+        this.symbol = symbol;
+        this.index = index;
+        this.bids = new TreeMap<>(Collections.reverseOrder());
+        this.asks = new TreeMap<>();
+        this.restingOrders = 0;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getRestingOrdersCount() {
+        return restingOrders;
+    }
+
+    public boolean isEmpty() {
+        return restingOrders == 0;
+    }
+
+    // --- Odczyt najlepszych cen (O(1)) ---
+
+    public Order peekBestBid() {
+        return bestBid == null ? null : bestBid.peekFirst();
+    }
+
+    public Order peekBestAsk() {
+        return bestAsk == null ? null : bestAsk.peekFirst();
+    }
+
+    // Najlepsza cena kupna lub Double.NaN, gdy brak zleceń BUY
+    public double getBestBidPrice() {
+        return bestBid == null ? Double.NaN : bestBid.getPrice();
+    }
+
+    // Najlepsza cena sprzedaży lub Double.NaN, gdy brak zleceń SELL
+    public double getBestAskPrice() {
+        return bestAsk == null ? Double.NaN : bestAsk.getPrice();
+    }
+
+    // Łączny wolumen oczekujący na danym poziomie cenowym
+    public long getQuantityAt(OrderType side, double price) {
+        if (side == null) throw new IllegalArgumentException("side cannot be null");
+        PriceLevel level = sideOf(side).get(price);
+        return level == null ? 0 : level.getTotalQuantity();
+    }
+
+    public Order peekBest(OrderType side) {
+        if (side == null) throw new IllegalArgumentException("side cannot be null");
+        return side == OrderType.BUY ? peekBestBid() : peekBestAsk();
+    }
+
+    // Zdejmuje najlepsze zlecenie danej strony (bez realizacji)
+    public Order pollBest(OrderType side) {
+        if (side == null) throw new IllegalArgumentException("side cannot be null");
+        PriceLevel level = side == OrderType.BUY ? bestBid : bestAsk;
+        if (level == null) return null;
+
+        OrderNode node = level.firstNode();
+        removeNode(node);
+        return node.order;
+    }
+
+    // Zlecenie oczekujące o danym id albo null
+    public Order findOrder(long orderId) {
+        OrderNode node = index.get(orderId);
+        return node == null || node.book != this ? null : node.order;
+    }
+
+    // Usuwa zlecenie oczekujące z księgi; null, gdy takiego zlecenia nie ma (np. już zrealizowane)
+    public Order cancel(long orderId) {
+        OrderNode node = index.get(orderId);
+        if (node == null || node.book != this) return null;
+        removeNode(node);
+        return node.order;
+    }
+
+    /**
+     Zmniejsza pozostały wolumen zlecenia oczekującego (zlecenie zostaje na swoim miejscu w kolejce).
+     Zwiększenie wolumenu nie jest wspierane - to nowe zlecenie (cancel + submit, bez priorytetu).
+     Zwraca false, gdy zlecenia nie ma w księdze.
+     */
+    public boolean amendQuantity(long orderId, int newRemainingQuantity) {
+        OrderNode node = index.get(orderId);
+        if (node == null || node.book != this) return false;
+        node.level.reduce(node, newRemainingQuantity);
+        return true;
+    }
+
+    /**
+     Najlepsze zlecenie oczekujące, którego limit przekroczyła cena rynkowa, albo null:
+     BUY z limitem >= cena albo SELL z limitem <= cena (księga nie jest skrzyżowana,
+     więc naraz może to dotyczyć tylko jednej strony). O(1) - patrzymy tylko na najlepsze poziomy.
+     */
+    public Order peekTriggered(double marketPrice) {
+        OrderNode node = firstTriggered(marketPrice);
+        return node == null ? null : node.order;
+    }
+
+    OrderNode firstTriggered(double marketPrice) {
+        if (bestBid != null && bestBid.getPrice() >= marketPrice) return bestBid.firstNode();
+        if (bestAsk != null && bestAsk.getPrice() <= marketPrice) return bestAsk.firstNode();
+        return null;
+    }
+
+    // --- Kojarzenie ---
+
+    // Czy zlecenie przychodzące skojarzy się z co najmniej jednym oczekującym
+    public boolean wouldCross(Order incoming) {
+        if (incoming == null) throw new IllegalArgumentException("incoming cannot be null");
+        if (incoming.getType() == OrderType.BUY) {
+            return bestAsk != null && incoming.getLimitPrice() >= bestAsk.getPrice();
+        }
+        return bestBid != null && incoming.getLimitPrice() <= bestBid.getPrice();
+    }
+
+    /**
+     Przyjmuje zlecenie do księgi:
+     - dopóki zlecenie krzyżuje się z najlepszym poziomem strony przeciwnej, zawieramy transakcje,
+     - każda transakcja jest najpierw przekazywana do listenera (rozliczenie), a dopiero potem
+       zmienia stan księgi - wyjątek z rozliczenia nie zostawia księgi w stanie pośrednim,
+     - reszta niezrealizowana zostaje w księdze.
+     Zwraca listę raportów z realizacji (pusta, gdy zlecenie tylko czeka).
+     */
+    public List<Execution> submit(Order incoming, ExecutionListener listener) {
+        if (incoming == null) throw new IllegalArgumentException("incoming cannot be null");
+        if (!symbol.equals(incoming.getSymbol())) {
+            throw new IllegalArgumentException("Order symbol " + incoming.getSymbol() + " does not match book " + symbol);
+        }
+
+        List<Execution> executions = new ArrayList<>();
+        OrderType restingSide = incoming.getType() == OrderType.BUY ? OrderType.SELL : OrderType.BUY;
+
+        while (incoming.getRemainingQuantity() > 0 && wouldCross(incoming)) {
+            PriceLevel level = restingSide == OrderType.SELL ? bestAsk : bestBid;
+            OrderNode restingNode = level.firstNode();
+            Order resting = restingNode.order;
+
+            int qty = Math.min(incoming.getRemainingQuantity(), resting.getRemainingQuantity());
+
+            Execution execution = executionOf(incoming, resting, qty, level.getPrice());
+
+            if (listener != null) listener.onExecution(execution);
+
+            incoming.fill(qty);
+            level.fillFirst(qty);
+            if (resting.isFilled()) {
+                restingOrders--;
+                index.remove(restingNode);
+            }
+            if (level.isEmpty()) removeLevel(restingSide, level);
+
+            executions.add(execution);
+        }
+
+        if (incoming.getRemainingQuantity() > 0) {
+            rest(incoming);
+        }
+        return executions;
+    }
+
+    /**
+     Realizacje, które zawarłby submit(incoming), w tej samej kolejności - bez zmiany księgi i zlecenia.
+     Pozwala sprawdzić z góry, czy da się rozliczyć całe przejście przez kilka poziomów.
+     */
+    void previewCrossing(Order incoming, ExecutionListener listener) {
+        boolean buy = incoming.getType() == OrderType.BUY;
+        int remaining = incoming.getRemainingQuantity();
+        for (PriceLevel level : sideOf(buy ? OrderType.SELL : OrderType.BUY).values()) {
+            if (buy ? incoming.getLimitPrice() < level.getPrice() : incoming.getLimitPrice() > level.getPrice()) return;
+
+            for (OrderNode node = level.firstNode(); node != null; node = node.next) {
+                int qty = Math.min(remaining, node.order.getRemainingQuantity());
+                listener.onExecution(executionOf(incoming, node.order, qty, level.getPrice()));
+                remaining -= qty;
+                if (remaining == 0) return;
+            }
+        }
+    }
+
+    // Dopisuje zlecenia oczekujące obu stron (BID, potem ASK; poziomy od najlepszego, w poziomie FIFO)
+    void collectRestingOrders(List<Order> out) {
+        for (PriceLevel level : bids.values()) {
+            level.collect(out);
+        }
+        for (PriceLevel level : asks.values()) {
+            level.collect(out);
+        }
+    }
+
+    // Wyjęcie węzła z poziomu i indeksu (cancel, poll, wygaśnięcie)
+    void removeNode(OrderNode node) {
+        PriceLevel level = node.level;
+        level.remove(node);
+        index.remove(node);
+        restingOrders--;
+        if (level.isEmpty()) removeLevel(node.order.getType(), level);
+    }
+
+    // --- Helpers ---
+
+    // Zlecenie niekrzyżujące się (wouldCross == false) trafia od razu na swój poziom - bez listy realizacji
+    void rest(Order order) {
+        NavigableMap<Double, PriceLevel> side = sideOf(order.getType());
+        PriceLevel level = side.get(order.getLimitPrice());
+        if (level == null) {
+            level = new PriceLevel(order.getLimitPrice());
+            side.put(order.getLimitPrice(), level);
+        }
+        OrderNode node = new OrderNode(order, this);
+        index.add(node);
+        level.add(node);
+        restingOrders++;
+
+        if (order.getType() == OrderType.BUY) {
+            if (bestBid == null || level.getPrice() > bestBid.getPrice()) bestBid = level;
+        } else {
+            if (bestAsk == null || level.getPrice() < bestAsk.getPrice()) bestAsk = level;
+        }
+    }
+
+    private void removeLevel(OrderType sideType, PriceLevel level) {
+        NavigableMap<Double, PriceLevel> side = sideOf(sideType);
+        side.remove(level.getPrice());
+
+        // odświeżenie cache tylko gdy usuwamy poziom najlepszy
+        if (sideType == OrderType.BUY) {
+            if (bestBid == level) bestBid = side.isEmpty() ? null : side.firstEntry().getValue();
+        } else {
+            if (bestAsk == level) bestAsk = side.isEmpty() ? null : side.firstEntry().getValue();
+        }
+    }
+
+    // Transakcja po cenie zlecenia oczekującego, z czasem zlecenia przychodzącego
+    private Execution executionOf(Order incoming, Order resting, int qty, double price) {
+        long buyId = incoming.getType() == OrderType.BUY ? incoming.getSequence() : resting.getSequence();
+        long sellId = incoming.getType() == OrderType.SELL ? incoming.getSequence() : resting.getSequence();
+        return new Execution(symbol, incoming.getAssetType(), buyId, sellId,
+                qty, price, incoming.getType(), incoming.getCreatedAt());
+    }
+
+    private NavigableMap<Double, PriceLevel> sideOf(OrderType type) {
+        return type == OrderType.BUY ? bids : asks;
+    }
+}
\ No newline at end of file
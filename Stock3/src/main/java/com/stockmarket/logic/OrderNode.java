@@ -0,0 +1,27 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Order;
+
+/**
+ Węzeł zlecenia oczekującego - łączy zlecenie z miejscem w strukturach księgi.
+ - prev/next: kolejka FIFO w PriceLevel (lista dwukierunkowa - usunięcie ze środka O(1)),
+ - wheelPrev/wheelNext/wheelSlot: lista w slocie ExpiryWheel (tylko zlecenia z terminem ważności).
+ */
+final class OrderNode {
+    final Order order;
+    final OrderBook book;
+
+    PriceLevel level;
+    OrderNode prev;
+    OrderNode next;
+
+    long expiryTick;        // sekunda (UTC), od której zlecenie jest wygasłe
+    int wheelSlot = -1;     // -1: zlecenie nie jest w kole
+    OrderNode wheelPrev;
+    OrderNode wheelNext;
+
+    OrderNode(Order order, OrderBook book) {
+        this.order = order;
+        this.book = book;
+    }
+}
\ No newline at end of file
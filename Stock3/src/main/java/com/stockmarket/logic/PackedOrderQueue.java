@@ -0,0 +1,156 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ Kolejka priorytetowa zleceń bez komparatora obiektowego - ten sam porządek co
+ OrderComparators.byAttractiveness() (BUY przed SELL, lepszy limit, starszy createdAt, mniejsza sekwencja).
+
+ - typ i limit zakodowane w jednym kluczu long porównywanym jako liczba ze znakiem:
+   BUY -> ~v (wyższy limit = mniejszy klucz, zawsze ujemny), SELL -> v (niższy limit = mniejszy klucz),
+   gdzie v to bity double przesunięte o 1 (-0.0 przed 0.0, NaN na końcu - jak Double.compare),
+ - remis rozstrzygają prymitywy: sekunda i nanosekunda createdAt, potem sekwencja,
+ - kopiec 4-arny (płytszy niż binarny, dzieci węzła obok siebie w pamięci),
+ - klucze, czasy i zlecenia w tablicach równoległych - add/poll nie alokują
+   (poza powiększeniem tablic, amortyzowane).
+ Nie jest bezpieczna wątkowo.
+ */
+public final class PackedOrderQueue {
+    private long[] keys;
+    private long[] seconds;
+    private int[] nanos;
+    private long[] sequences;
+    private Order[] orders;
+    private int size;
+
+    public PackedOrderQueue() {
+        this(16);
+    }
+
+    public PackedOrderQueue(int initialCapacity) {
+        if (initialCapacity <= 0) throw new IllegalArgumentException("initialCapacity must be positive");
+        keys = new long[initialCapacity];
+        seconds = new long[initialCapacity];
+        nanos = new int[initialCapacity];
+        sequences = new long[initialCapacity];
+        orders = new Order[initialCapacity];
+    }
+
+    // Klucz typu i limitu: mniejszy = bardziej atrakcyjny
+    static long priorityKey(OrderType type, double limitPrice) {
+        long bits = Double.doubleToLongBits(limitPrice); // NaN w postaci kanonicznej
+        long v = bits < 0 ? 0 : bits + 1;                // limit >= 0, więc ujemne bity ma tylko -0.0
+        return type == OrderType.BUY ? ~v : v;
+    }
+
+    public void add(Order order) {
+        if (order == null) throw new IllegalArgumentException("order cannot be null");
+        if (size == keys.length) grow();
+
+        LocalDateTime createdAt = order.getCreatedAt();
+        long key = priorityKey(order.getType(), order.getLimitPrice());
+        long sec = createdAt.toEpochSecond(ZoneOffset.UTC);
+        int nano = createdAt.getNano();
+        long seq = order.getSequence();
+
+        // przesiewanie w górę: przesuwamy rodziców w dół, wstawiamy raz na końcu
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 2;
+            if (!less(key, sec, nano, seq, parent)) break;
+            move(parent, i);
+            i = parent;
+        }
+        set(i, key, sec, nano, seq, order);
+    }
+
+    public Order peek() {
+        return size == 0 ? null : orders[0];
+    }
+
+    public Order poll() {
+        if (size == 0) return null;
+        Order top = orders[0];
+
+        int last = --size;
+        if (last > 0) {
+            siftDown(keys[last], seconds[last], nanos[last], sequences[last], orders[last]);
+        }
+        orders[last] = null;
+        return top;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(orders, 0, size, null);
+        size = 0;
+    }
+
+    // Wstawia element na miejsce korzenia i przesiewa w dół (4 dzieci: 4i+1 .. 4i+4)
+    private void siftDown(long key, long sec, int nano, long seq, Order order) {
+        int i = 0;
+        while (true) {
+            int first = (i << 2) + 1;
+            if (first >= size) break;
+
+            int best = first;
+            int end = Math.min(first + 4, size);
+            for (int c = first + 1; c < end; c++) {
+                if (less(keys[c], seconds[c], nanos[c], sequences[c], best)) best = c;
+            }
+            if (!less(keys[best], seconds[best], nanos[best], sequences[best], key, sec, nano, seq)) break;
+            move(best, i);
+            i = best;
+        }
+        set(i, key, sec, nano, seq, order);
+    }
+
+    // Czy element (key, sec, nano, seq) jest przed elementem na pozycji j
+    private boolean less(long key, long sec, int nano, long seq, int j) {
+        return less(key, sec, nano, seq, keys[j], seconds[j], nanos[j], sequences[j]);
+    }
+
+    private static boolean less(long key, long sec, int nano, long seq, long key2, long sec2, int nano2, long seq2) {
+        if (key != key2) return key < key2;
+        if (sec != sec2) return sec < sec2;
+        if (nano != nano2) return nano < nano2;
+        return seq < seq2;
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        seconds[to] = seconds[from];
+        nanos[to] = nanos[from];
+        sequences[to] = sequences[from];
+        orders[to] = orders[from];
+    }
+
+    private void set(int i, long key, long sec, int nano, long seq, Order order) {
+        keys[i] = key;
+        seconds[i] = sec;
+        nanos[i] = nano;
+        sequences[i] = seq;
+        orders[i] = order;
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        seconds = Arrays.copyOf(seconds, capacity);
+        nanos = Arrays.copyOf(nanos, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+        orders = Arrays.copyOf(orders, capacity);
+    }
+}
\ No newline at end of file
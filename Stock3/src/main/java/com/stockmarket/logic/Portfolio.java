@@ -1,23 +1,36 @@
 package com.stockmarket.logic;
 
 import com.stockmarket.domain.*;
+import com.stockmarket.metrics.Gauge;
+import com.stockmarket.metrics.MetricsRegistry;
+import com.stockmarket.metrics.Operation;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Set;
 
 /**
  Portfel
 
  - pozycje przechowują historię partii zakupowych (PurchaseLot)
- - sprzedaż rozliczana jest FIFO
+ - sprzedaż rozliczana jest FIFO (domyślnie), LIFO/HIFO (LotRelief) albo ze wskazanej partii (sellLot)
+ - opcjonalne scalanie zakupów w istniejącą partię (setLotCoalescing) - dla wielu drobnych zakupów
  - lookup pozycji po symbolu (HashMap)
  - watchlist bez duplikatów (HashSet)
- - kolejka priorytetowa zleceń (PriorityQueue)
+ - księgi zleceń per symbol (OrderBook) z kojarzeniem price-time,
+   realizacje są rozliczane przez acquire/sell
+ - opcjonalnie (setPriceTriggersEnabled) zmiana ceny aktywa realizuje zlecenia,
+   których limit przekroczyła - przez acquire/sell po nowej cenie
+ - wycena przyrostowa: pozycje zgłaszają różnice wartości po zmianie ceny/ilości,
+   portfel trzyma sumy bieżące (odczyt wartości całkowitej O(1))
+ - czasy operacji handlowych trafiają do MetricsRegistry.global() (gdy metryki są włączone)
  */
 public class Portfolio {
     private double cash; // dostępna gotówka
@@ -25,21 +38,106 @@ public class Portfolio {
     // lookup po symbolu:
     private final Map<String, Position> positionsBySymbol;
 
+    // opcjonalny rejestr aktywów: instancje kanoniczne + pozycje w tablicy indeksowanej id aktywa
+    // (API po symbolu jest nakładką: symbol -> aktywo kanoniczne -> id -> positionsById)
+    private final AssetRegistry registry;
+    private Position[] positionsById;
+    private Asset[] assetsById; // aktywa już zapamiętane w assetsBySymbol - kolejny zakup nie haszuje symbolu
+
+    // sumy bieżące wyceny pozycji (bez gotówki), aktualizowane deltami z PositionValueListener
+    private double positionsRealValue;
+    private double positionsMarketValue;
+    private final PositionValueListener valuation;
+    private final boolean trackPrices; // false: pozycje nie słuchają cen, wycena odświeżana przez refreshValuation()
+
     // watchlist - brak duplikatów na poziomie struktury:
     private final Set<String> watchlist;
 
-    // kolejka zleceń oczekujących na realizację, priorytet wg "atrakcyjności":
-    private final PriorityQueue<Order> orders;
+    // księgi zleceń - osobna dla każdego symbolu:
+    private final Map<String, OrderBook> orderBooks;
+
+    // id -> zlecenie oczekujące (wspólne dla wszystkich ksiąg) + terminy ważności DAY/GTD
+    private final RestingOrderIndex restingIndex;
+
+    // aktywa znane portfelowi (potrzebne do rozliczenia obu nóg realizacji)
+    private final Map<String, Asset> assetsBySymbol;
+
+    // odbiorcy raportów z realizacji
+    private final List<ExecutionListener> executionListeners;
+
+    // odbiorcy zmian stanu portfela (np. journal)
+    private final List<PortfolioListener> portfolioListeners;
+
+    // rozliczenie realizacji z księgi -> noga kupna jak acquire, noga sprzedaży jak sell (po cenie realizacji, patrz settle)
+    private final ExecutionListener settlement;
 
-    // licznik do tie-breakera w PriorityQueue (stabilność przy remisach)
+    // realizacja zleceń po przekroczeniu limitu przez cenę - podpięta do aktywów z assetsBySymbol, gdy włączona
+    private final PriceListener priceTrigger;
+    private boolean priceTriggers;
+
+    // scalanie zakupów z ostatnią partią pozycji (wspólne dla wszystkich pozycji portfela)
+    private LotCoalescing lotCoalescing = LotCoalescing.NONE;
+    private long closedPositionsMergedLots; // scalenia w pozycjach już zamkniętych
+
+    // licznik do tie-breakera (stabilność przy remisach) - jednocześnie id zlecenia
     private long orderSequence;
 
+    private static final Comparator<Order> ATTRACTIVENESS = OrderComparators.byAttractiveness();
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.global();
+
     public Portfolio(double initialCash) {
+        this(initialCash, true);
+    }
+
+    /**
+     trackPrices == false: pozycje nie rejestrują się jako PriceListener w aktywach.
+     Dla aktywów współdzielonych przez tysiące portfeli (PortfolioEngine) zmiana ceny nie rozsyła
+     wtedy powiadomień do wszystkich pozycji - sumy bieżące uzupełnia refreshValuation().
+     */
+    public Portfolio(double initialCash, boolean trackPrices) {
+        this(initialCash, trackPrices, null);
+    }
+
+    /**
+     registry != null: acquire/registerAsset zamieniają aktywo na instancję kanoniczną z rejestru
+     (wspólną np. dla wszystkich rachunków PortfolioEngine), a pozycje są szukane po id aktywa.
+     */
+    public Portfolio(double initialCash, boolean trackPrices, AssetRegistry registry) {
         if (initialCash < 0) throw new IllegalArgumentException("initialCash cannot be negative");
         this.cash = initialCash;
+        this.trackPrices = trackPrices;
         this.positionsBySymbol = new HashMap<>();
+        this.registry = registry;
+        this.positionsById = registry == null ? null : new Position[Math.max(16, registry.size())];
+        this.assetsById = registry == null ? null : new Asset[positionsById.length];
+        this.positionsRealValue = 0.0;
+        this.positionsMarketValue = 0.0;
+        this.valuation = new PositionValueListener() {
+            @Override
+            public void onValueChanged(Position position, double realValueDelta, double marketValueDelta) {
+                positionsRealValue += realValueDelta;
+                positionsMarketValue += marketValueDelta;
+            }
+        };
         this.watchlist = new HashSet<>();
-        this.orders = new PriorityQueue<>(OrderComparators.byAttractiveness());
+        this.orderBooks = new HashMap<>();
+        this.restingIndex = new RestingOrderIndex();
+        this.assetsBySymbol = new HashMap<>();
+        this.executionListeners = new ArrayList<>();
+        this.portfolioListeners = new ArrayList<>();
+        this.settlement = new ExecutionListener() {
+            @Override
+            public void onExecution(Execution execution) {
+                settle(execution);
+            }
+        };
+        this.priceTrigger = new PriceListener() {
+            @Override
+            public void onPriceChanged(Asset asset, double oldPrice, double newPrice) {
+                fireTriggeredOrders(asset, newPrice);
+            }
+        };
         this.orderSequence = 0;
     }
 
@@ -71,23 +169,38 @@ public class Portfolio {
      - dodajemy nową partię zakupową do pozycji (data + ilość + cena zakupu).
      */
     public void acquire(Asset asset, int quantity, LocalDate date, double unitPrice) {
+        long t0 = METRICS.startTimer();
+        asset = canonical(asset);
         if (asset == null) throw new IllegalArgumentException("asset cannot be null");
         if (quantity <= 0) throw new IllegalArgumentException("quantity must be positive");
+        requireSymbolType(asset);
+        acquireInternal(asset, quantity, date, unitPrice, asset.getAcquisitionCost(quantity));
+
+        for (int i = 0; i < portfolioListeners.size(); i++) {
+            portfolioListeners.get(i).onAcquire(asset, quantity, date, unitPrice);
+        }
+        METRICS.record(Operation.ACQUIRE, asset.getType(), t0);
+    }
+
+    // cost - gotówka pobierana za zakup (acquire: koszt nabycia po cenie rynkowej, realizacja z księgi: po cenie realizacji)
+    private void acquireInternal(Asset asset, int quantity, LocalDate date, double unitPrice, double cost) {
         if (date == null) throw new IllegalArgumentException("date cannot be null");
         if (unitPrice < 0) throw new IllegalArgumentException("unitPrice must be non-negative");
 
-        double cost = asset.getAcquisitionCost(quantity);
         if (cash < cost) throw new InsufficientFundsException("Not enough cash. Have=" + cash + " need=" + cost);
 
         // znajdź lub utwórz pozycję
-        Position pos = positionsBySymbol.get(asset.getSymbol());
+        Position pos = positionOf(asset);
         if (pos == null) {
             pos = new Position(asset);
-            positionsBySymbol.put(asset.getSymbol(), pos);
+            pos.setLotCoalescing(lotCoalescing);
+            putPosition(pos);
+            pos.setValueListener(valuation, trackPrices);
         }
 
         // dopiero gdy pozycja istnieje, modyfikujemy stan portfela
         cash -= cost;
+        rememberAsset(asset);
 
         // zapisujemy partię zakupową (do FIFO)
         pos.addLot(date, quantity, unitPrice);
@@ -102,54 +215,712 @@ public class Portfolio {
      - zwraca raport P&L (SaleResult).
      */
     public SaleResult sell(String symbol, int quantity, double sellUnitPrice) {
+        return sell(symbol, quantity, sellUnitPrice, LotRelief.FIFO);
+    }
+
+    // Sprzedaż z partii wybieranych według relief (FIFO/LIFO/HIFO)
+    public SaleResult sell(String symbol, int quantity, double sellUnitPrice, LotRelief relief) {
+        if (relief == null) throw new IllegalArgumentException("relief cannot be null");
+        long t0 = METRICS.startTimer();
+        Position pos = positionForSale(symbol, quantity, sellUnitPrice);
+        SaleResult result = pos.sell(quantity, sellUnitPrice, relief);
+        settleSale(pos, quantity, sellUnitPrice, result.getTotalProfit());
+
+        if (!portfolioListeners.isEmpty()) {
+            Asset asset = pos.getAsset();
+            for (int i = 0; i < portfolioListeners.size(); i++) {
+                portfolioListeners.get(i).onSell(asset, quantity, sellUnitPrice, result.getTotalProfit(), relief);
+            }
+        }
+        METRICS.record(Operation.SELL, result.getType(), t0);
+        return result;
+    }
+
+    /**
+     Sprzedaż ze wskazanej partii (id z PurchaseLot.getId() w snapshocie partii pozycji).
+     Nieznane lub sprzedane już id -> IllegalArgumentException.
+     */
+    public SaleResult sellLot(String symbol, long lotId, int quantity, double sellUnitPrice) {
+        long t0 = METRICS.startTimer();
+        Position pos = positionForSale(symbol, quantity, sellUnitPrice);
+        SaleResult result = pos.sellLot(lotId, quantity, sellUnitPrice);
+        settleSale(pos, quantity, sellUnitPrice, result.getTotalProfit());
+
+        if (!portfolioListeners.isEmpty()) {
+            Asset asset = pos.getAsset();
+            for (int i = 0; i < portfolioListeners.size(); i++) {
+                portfolioListeners.get(i).onSellLot(asset, lotId, quantity, sellUnitPrice, result.getTotalProfit());
+            }
+        }
+        METRICS.record(Operation.SELL, result.getType(), t0);
+        return result;
+    }
+
+    /**
+     Sprzedaż bez SaleResult: zwraca zrealizowany P&L (sprzedana ilość = quantity), a zdjęte części partii
+     przekazuje do fills (może być null). Bez alokacji na realizację - dla masowej likwidacji.
+     Słuchacze i metryki jak w sell(symbol, quantity, sellUnitPrice, relief).
+     */
+    public double sellStreaming(String symbol, int quantity, double sellUnitPrice, LotRelief relief, SaleFillConsumer fills) {
+        if (relief == null) throw new IllegalArgumentException("relief cannot be null");
+        long t0 = METRICS.startTimer();
+        Position pos = positionForSale(symbol, quantity, sellUnitPrice);
+        double profit = pos.sellStreaming(quantity, sellUnitPrice, relief, fills);
+        settleSale(pos, quantity, sellUnitPrice, profit);
+
+        if (!portfolioListeners.isEmpty()) {
+            Asset asset = pos.getAsset();
+            for (int i = 0; i < portfolioListeners.size(); i++) {
+                portfolioListeners.get(i).onSell(asset, quantity, sellUnitPrice, profit, relief);
+            }
+        }
+        METRICS.record(Operation.SELL, pos.getAsset().getType(), t0);
+        return profit;
+    }
+
+    private Position positionForSale(String symbol, int quantity, double sellUnitPrice) {
         if (symbol == null || symbol.trim().isEmpty()) throw new IllegalArgumentException("symbol cannot be null/empty");
         if (quantity <= 0) throw new IllegalArgumentException("quantity must be positive");
         if (sellUnitPrice < 0) throw new IllegalArgumentException("sellUnitPrice must be non-negative");
 
-        Position pos = positionsBySymbol.get(symbol);
+        // z rejestrem: symbol -> aktywo kanoniczne -> id -> positionsById (jedno haszowanie symbolu)
+        Position pos;
+        if (registry != null) {
+            Asset asset = assetsBySymbol.get(symbol);
+            pos = asset == null ? null : positionOf(asset);
+        } else {
+            pos = positionsBySymbol.get(symbol);
+        }
         if (pos == null) throw new InsufficientHoldingsException("No position for symbol: " + symbol);
+        return pos;
+    }
 
-        SaleResult result = pos.sellFifo(quantity, sellUnitPrice);
-
+    private void settleSale(Position pos, int quantity, double sellUnitPrice, double realizedProfit) {
         // przepływ gotówki ze sprzedaży (uprościenie): qty * sellPrice
         cash += sellUnitPrice * quantity;
 
+        // wspólny punkt każdej sprzedaży - tu zgłaszany jest zrealizowany P&L (np. RealizedPnlLedger)
+        for (int i = 0; i < portfolioListeners.size(); i++) {
+            portfolioListeners.get(i).onRealized(pos.getAsset(), quantity, sellUnitPrice, realizedProfit);
+        }
+
         // jeśli po sprzedaży nic nie zostało, usuwamy pozycję
         if (pos.getTotalQuantity() == 0) {
-            positionsBySymbol.remove(symbol);
+            removePosition(pos);
+            pos.setValueListener(null);
+            closedPositionsMergedLots += pos.getMergedLotCount();
         }
+    }
 
-        return result;
+    /**
+     Scalanie kolejnych zakupów z ostatnią partią pozycji (LotCoalescing; domyślnie NONE).
+     Dotyczy wszystkich obecnych i przyszłych pozycji; istniejące partie nie są przebudowywane.
+     */
+    public void setLotCoalescing(LotCoalescing coalescing) {
+        if (coalescing == null) throw new IllegalArgumentException("coalescing cannot be null");
+        this.lotCoalescing = coalescing;
+        for (Position pos : positionsBySymbol.values()) {
+            pos.setLotCoalescing(coalescing);
+        }
+
+        for (int i = 0; i < portfolioListeners.size(); i++) {
+            portfolioListeners.get(i).onLotCoalescingSet(coalescing);
+        }
+    }
+
+    public LotCoalescing getLotCoalescing() {
+        return lotCoalescing;
+    }
+
+    // Ile zakupów zostało scalonych z istniejącą partią (łącznie z pozycjami już zamkniętymi)
+    public long getMergedLotCount() {
+        long merged = closedPositionsMergedLots;
+        for (Position pos : positionsBySymbol.values()) {
+            merged += pos.getMergedLotCount();
+        }
+        return merged;
     }
 
     // --- Majątek ---
 
-    // Całkowita wartość portfela: gotówka + wartość rzeczywista wszystkich pozycji
+    // Całkowita wartość portfela: gotówka + wartość rzeczywista wszystkich pozycji (suma bieżąca, O(1))
     public double calculateTotalRealValue() {
-        double sum = cash;
+        return cash + positionsRealValue;
+    }
+
+    // Gotówka + wartość rynkowa wszystkich pozycji (suma bieżąca, O(1))
+    public double calculateTotalMarketValue() {
+        return cash + positionsMarketValue;
+    }
+
+    /**
+     Pełne przeliczenie sum bieżących od zera (O(pozycje)).
+     Sumy są aktualizowane deltami, więc przy bardzo długiej sesji można usunąć
+     skumulowany błąd zaokrągleń zmiennoprzecinkowych.
+     */
+    public void recalculateValuation() {
+        double real = 0.0;
+        double market = 0.0;
         for (Position pos : positionsBySymbol.values()) {
-            sum += pos.getRealValue();
+            real += pos.getRealValue();
+            market += pos.getMarketValue();
         }
-        return sum;
+        positionsRealValue = real;
+        positionsMarketValue = market;
+    }
+
+    /**
+     Uzupełnia sumy bieżące o zmiany cen od ostatniego zgłoszenia każdej pozycji (O(pozycje)).
+     Potrzebne tylko przy trackPrices == false; przy śledzeniu cen niczego nie zmienia.
+     */
+    public void refreshValuation() {
+        for (Position pos : positionsBySymbol.values()) {
+            pos.refreshValuation();
+        }
+    }
+
+    public boolean isTrackingPrices() {
+        return trackPrices;
+    }
+
+    // --- Księgi zleceń ---
+
+    // Rejestruje aktywo, żeby realizacje BUY na tym symbolu mogły zostać rozliczone przez acquire
+    public void registerAsset(Asset asset) {
+        if (asset == null) throw new IllegalArgumentException("asset cannot be null");
+        asset = canonical(asset);
+        requireSymbolType(asset);
+        rememberAsset(asset);
+
+        for (int i = 0; i < portfolioListeners.size(); i++) {
+            portfolioListeners.get(i).onAssetRegistered(asset);
+        }
+    }
+
+    // Aktywo znane portfelowi (z pozycji lub rejestracji) albo null
+    public Asset getRegisteredAsset(String symbol) {
+        return assetsBySymbol.get(symbol);
+    }
+
+    public AssetRegistry getAssetRegistry() {
+        return registry;
+    }
+
+    private Asset canonical(Asset asset) {
+        return registry == null || asset == null ? asset : registry.register(asset);
+    }
+
+    // Aktywo kanoniczne rejestru portfela, które jest już w assetsBySymbol (odczyt z tablicy po id)
+    private boolean isRemembered(Asset asset) {
+        if (registry == null || asset.getRegistry() != registry) return false;
+        int id = asset.getId();
+        return id < assetsById.length && assetsById[id] == asset;
+    }
+
+    // Pozycja aktywa: z tablicy po id (aktywo z rejestru portfela) albo z mapy po symbolu
+    private Position positionOf(Asset asset) {
+        if (registry != null && asset.getRegistry() == registry) {
+            int id = asset.getId();
+            return id < positionsById.length ? positionsById[id] : null;
+        }
+        return positionsBySymbol.get(asset.getSymbol());
+    }
+
+    private void putPosition(Position pos) {
+        Asset asset = pos.getAsset();
+        positionsBySymbol.put(asset.getSymbol(), pos);
+        if (registry != null && asset.getRegistry() == registry) {
+            int id = asset.getId();
+            if (id >= positionsById.length) {
+                positionsById = Arrays.copyOf(positionsById, Math.max(id + 1, positionsById.length * 2));
+            }
+            positionsById[id] = pos;
+        }
+    }
+
+    private void removePosition(Position pos) {
+        Asset asset = pos.getAsset();
+        positionsBySymbol.remove(asset.getSymbol());
+        if (registry != null && asset.getRegistry() == registry) positionsById[asset.getId()] = null;
+    }
+
+    /**
+     Symbol należy w portfelu do jednego typu aktywa: pozycje po symbolu, sprzedaż, zapis i księgi zleceń
+     są adresowane samym symbolem, więc aktywo innego typu pod znanym symbolem jest odrzucane.
+     */
+    private void requireSymbolType(Asset asset) {
+        if (isRemembered(asset)) return;
+        Asset known = assetsBySymbol.get(asset.getSymbol());
+        if (known != null && known.getType() != asset.getType()) {
+            throw new IllegalArgumentException("Symbol " + asset.getSymbol() + " is already registered as " + known.getType());
+        }
+    }
+
+    // Zapamiętuje aktywo symbolu; przy włączonych wyzwalaczach przenosi słuchacza ceny na nową instancję
+    private void rememberAsset(Asset asset) {
+        if (isRemembered(asset)) return;
+        Asset previous = assetsBySymbol.put(asset.getSymbol(), asset);
+        if (registry != null && asset.getRegistry() == registry) {
+            int id = asset.getId();
+            if (id >= assetsById.length) assetsById = Arrays.copyOf(assetsById, Math.max(id + 1, assetsById.length * 2));
+            assetsById[id] = asset;
+        }
+        if (!priceTriggers || previous == asset) return;
+        if (previous != null) previous.removePriceListener(priceTrigger);
+        asset.addPriceListener(priceTrigger);
     }
 
-    // --- Kolejka zleceń ---
+    public void addExecutionListener(ExecutionListener listener) {
+        if (listener == null) throw new IllegalArgumentException("listener cannot be null");
+        executionListeners.add(listener);
+    }
+
+    public void addPortfolioListener(PortfolioListener listener) {
+        if (listener == null) throw new IllegalArgumentException("listener cannot be null");
+        portfolioListeners.add(listener);
+    }
 
-    public void submitLimitOrder(OrderType type, AssetType assetType, String symbol, int quantity, double limitPrice, double marketPrice) {
+    public boolean removePortfolioListener(PortfolioListener listener) {
+        return portfolioListeners.remove(listener);
+    }
+
+    /**
+     Składa zlecenie z limitem do księgi danego symbolu.
+     - jeśli zlecenie krzyżuje się z oczekującymi, zawierane są transakcje (także częściowe),
+       a każda realizacja jest rozliczana: noga kupna przez acquire, noga sprzedaży przez sell (po cenie realizacji - patrz settle),
+     - SELL może czekać bez pokrycia, ale realizacja wymaga posiadanej ilości (InsufficientHoldingsException),
+     - przejście, którego nie da się rozliczyć w całości (gotówka, pokrycie nogi sprzedaży), jest odrzucane
+       przed pierwszą realizacją - portfel i księga bez zmian,
+     - reszta niezrealizowana czeka w księdze.
+     Zwraca złożone zlecenie (getId() = id do cancelOrder/amendOrderQuantity, remainingQuantity = wolumen oczekujący).
+     */
+    public Order submitLimitOrder(OrderType type, AssetType assetType, String symbol, int quantity, double limitPrice, double marketPrice) {
+        return submitLimitOrder(type, assetType, symbol, quantity, limitPrice, marketPrice, LocalDateTime.now());
+    }
+
+    // Wariant z jawnym czasem złożenia (data realizacji = data zlecenia, np. przy odtwarzaniu z dziennika)
+    public Order submitLimitOrder(OrderType type, AssetType assetType, String symbol, int quantity, double limitPrice, double marketPrice,
+                                  LocalDateTime createdAt) {
+        return submitLimitOrder(type, assetType, symbol, quantity, limitPrice, marketPrice, createdAt, TimeInForce.GTC, null);
+    }
+
+    // Wariant z ważnością: DAY wygasa o północy po createdAt, GTD o expiresAt (expiresAt tylko dla GTD)
+    public Order submitLimitOrder(OrderType type, AssetType assetType, String symbol, int quantity, double limitPrice, double marketPrice,
+                                  LocalDateTime createdAt, TimeInForce timeInForce, LocalDateTime expiresAt) {
+        if (createdAt == null) throw new IllegalArgumentException("createdAt cannot be null");
         Order order = new Order(
                 type, assetType, symbol, quantity, limitPrice, marketPrice,
-                LocalDateTime.now(),
-                orderSequence++
+                createdAt,
+                orderSequence,
+                timeInForce,
+                expiresAt
         );
-        orders.add(order);
+        orderSequence++;
+        return submit(order);
+    }
+
+    /**
+     Ponowne złożenie zlecenia z zachowanym id (odtwarzanie z dziennika) - id pozostaje ważne dla cancel/amend.
+     Kolejne zlecenia dostają id większe niż odtworzone.
+     */
+    public Order submitLimitOrderForPersistence(Order order) {
+        if (order == null) throw new IllegalArgumentException("order cannot be null");
+        if (order.getRemainingQuantity() != order.getQuantity()) throw new IllegalArgumentException("order is already partially filled");
+        if (restingIndex.get(order.getId()) != null) throw new IllegalArgumentException("Duplicate resting order id: " + order.getId());
+        if (order.getId() >= orderSequence) orderSequence = order.getId() + 1;
+        return submit(order);
+    }
+
+    private Order submit(Order order) {
+        long t0 = METRICS.startTimer();
+        place(bookFor(order.getSymbol()), order);
+
+        for (int i = 0; i < portfolioListeners.size(); i++) {
+            portfolioListeners.get(i).onLimitOrderSubmitted(order);
+        }
+        METRICS.record(Operation.SUBMIT_LIMIT_ORDER, order.getAssetType(), t0);
+        return order;
+    }
+
+    public List<Order> submitLimitOrders(OrderBasket basket) {
+        return submitLimitOrders(basket, LocalDateTime.now());
+    }
+
+    /**
+     Składa cały koszyk jednym wywołaniem - stan ksiąg i zdarzenia słuchaczy jak przy kolejnych
+     submitLimitOrder w kolejności wierszy, ale:
+     - jeden znacznik czasu createdAt dla całego koszyka i ciągły zakres id,
+     - wszystkie wiersze są zamieniane na zlecenia przed zmianą ksiąg,
+     - zlecenie, które się nie krzyżuje, trafia od razu na swój poziom (bez listy realizacji),
+     - księga jest szukana raz dla serii wierszy z tym samym symbolem,
+     - jeden pomiar SUBMIT_ORDER_BATCH zamiast pomiaru każdego zlecenia.
+     Błąd kojarzenia (nieznane aktywo) przerywa koszyk - wcześniejsze wiersze zostają złożone.
+     Zwraca złożone zlecenia w kolejności wierszy.
+     */
+    public List<Order> submitLimitOrders(OrderBasket basket, LocalDateTime createdAt) {
+        if (basket == null) throw new IllegalArgumentException("basket cannot be null");
+        if (createdAt == null) throw new IllegalArgumentException("createdAt cannot be null");
+        long t0 = METRICS.startTimer();
+
+        int n = basket.size();
+        List<Order> orders = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            orders.add(new Order(basket.getType(i), basket.getAssetType(i), basket.getSymbol(i), basket.getQuantity(i),
+                    basket.getLimitPrice(i), basket.getMarketPrice(i), createdAt, orderSequence + i));
+        }
+        orderSequence += n;
+
+        OrderBook book = null;
+        for (int i = 0; i < n; i++) {
+            Order order = orders.get(i);
+            if (book == null || !book.getSymbol().equals(order.getSymbol())) book = bookFor(order.getSymbol());
+            place(book, order);
+            if (book.isEmpty()) book = null; // pusta księga zniknęła z mapy
+
+            for (int j = 0; j < portfolioListeners.size(); j++) {
+                portfolioListeners.get(j).onLimitOrderSubmitted(order);
+            }
+        }
+        METRICS.record(Operation.SUBMIT_ORDER_BATCH, null, t0);
+        return orders;
+    }
+
+    private OrderBook bookFor(String symbol) {
+        OrderBook book = orderBooks.get(symbol);
+        if (book == null) {
+            book = new OrderBook(symbol, restingIndex);
+            orderBooks.put(symbol, book);
+        }
+        return book;
+    }
+
+    // Kojarzenie z księgą (rozliczenie przez settle) albo od razu oczekiwanie; pusta księga znika z mapy
+    private void place(OrderBook book, Order order) {
+        if (!book.wouldCross(order)) {
+            book.rest(order);
+            return;
+        }
+
+        // rozliczenie nogi kupna wymaga aktywa - sprawdzamy przed jakąkolwiek zmianą księgi
+        String symbol = order.getSymbol();
+        Asset asset = assetsBySymbol.get(symbol);
+        if (asset == null) {
+            if (book.isEmpty()) orderBooks.remove(symbol);
+            throw new IllegalStateException("Unknown asset for symbol " + symbol + " - register it before matching");
+        }
+
+        // całe przejście przez poziomy musi się rozliczyć - brak gotówki przy dalszym poziomie odrzuca zlecenie
+        // przed pierwszą realizacją, zamiast zostawić wcześniejsze rozliczone bez zgłoszenia zlecenia
+        book.previewCrossing(order, new SweepCheck(asset));
+        book.submit(order, settlement);
+        if (book.isEmpty()) orderBooks.remove(symbol);
+    }
+
+    // Zlecenie oczekujące o danym id (O(1)) albo null
+    public Order findRestingOrder(long orderId) {
+        OrderNode node = restingIndex.get(orderId);
+        return node == null ? null : node.order;
+    }
+
+    /**
+     Anuluje zlecenie oczekujące po id - O(1) (indeks id -> węzeł na liście poziomu cenowego),
+     plus O(log n) w TreeMap, gdy znika ostatnie zlecenie poziomu.
+     Zwraca anulowane zlecenie albo null, gdy nie oczekuje (zrealizowane, anulowane, wygasłe).
+     */
+    public Order cancelOrder(long orderId) {
+        OrderNode node = restingIndex.get(orderId);
+        if (node == null) return null;
+
+        removeResting(node);
+        for (int i = 0; i < portfolioListeners.size(); i++) {
+            portfolioListeners.get(i).onOrderCancelled(node.order);
+        }
+        return node.order;
+    }
+
+    /**
+     Zmniejsza pozostały wolumen zlecenia oczekującego (O(1), priorytet czasowy zachowany).
+     Zwraca false, gdy zlecenie nie oczekuje.
+     */
+    public boolean amendOrderQuantity(long orderId, int newRemainingQuantity) {
+        OrderNode node = restingIndex.get(orderId);
+        if (node == null) return false;
+
+        node.book.amendQuantity(orderId, newRemainingQuantity);
+        for (int i = 0; i < portfolioListeners.size(); i++) {
+            portfolioListeners.get(i).onOrderAmended(node.order, newRemainingQuantity);
+        }
+        return true;
+    }
+
+    /**
+     Usuwa zlecenia DAY/GTD, których termin minął do chwili now.
+     Koło czasowe odwiedza tylko sekundy od poprzedniego przeglądu - koszt zależy od liczby
+     wygasających zleceń, a nie od wielkości ksiąg. Słuchacze dostają onOrderCancelled dla każdego.
+     */
+    public List<Order> expireOrders(LocalDateTime now) {
+        if (now == null) throw new IllegalArgumentException("now cannot be null");
+        List<OrderNode> expired = new ArrayList<>();
+        restingIndex.collectExpired(now, expired);
+
+        List<Order> result = new ArrayList<>(expired.size());
+        for (int i = 0; i < expired.size(); i++) {
+            OrderNode node = expired.get(i);
+            removeResting(node);
+            result.add(node.order);
+            for (int j = 0; j < portfolioListeners.size(); j++) {
+                portfolioListeners.get(j).onOrderCancelled(node.order);
+            }
+        }
+        return result;
+    }
+
+    /**
+     Realizacja zleceń przy zmianie ceny aktywa (Asset.setMarketPrice, np. MarketDataReplay):
+     - BUY z limitem >= nowa cena i SELL z limitem <= nowa cena są zdejmowane z księgi
+       i rozliczane w całości po nowej cenie przez acquire/sell (słuchacze: onAcquire/onSell + onOrderTriggered),
+     - zlecenie, którego nie da się rozliczyć (brak gotówki lub pozycji), jest anulowane (onOrderCancelled),
+     - odwiedzane są tylko najlepsze poziomy księgi - koszt zmiany ceny proporcjonalny do liczby
+       realizowanych zleceń, a nie do wielkości księgi,
+     - zlecenie przekroczone już w chwili złożenia czeka na kolejną zmianę ceny.
+     Domyślnie wyłączone: odtwarzanie dziennika ustawia ceny aktywów i nie może realizować zleceń drugi raz.
+     */
+    public void setPriceTriggersEnabled(boolean enabled) {
+        if (enabled == priceTriggers) return;
+        priceTriggers = enabled;
+        for (Asset asset : assetsBySymbol.values()) {
+            if (enabled) {
+                asset.addPriceListener(priceTrigger);
+            } else {
+                asset.removePriceListener(priceTrigger);
+            }
+        }
+    }
+
+    public boolean isPriceTriggersEnabled() {
+        return priceTriggers;
     }
 
+    private void fireTriggeredOrders(Asset asset, double price) {
+        OrderBook book = orderBooks.get(asset.getSymbol());
+        if (book == null) return;
+
+        OrderNode node;
+        while ((node = book.firstTriggered(price)) != null) {
+            Order order = node.order;
+            int quantity = order.getRemainingQuantity();
+            removeResting(node);
+
+            try {
+                if (order.getType() == OrderType.BUY) {
+                    // data partii z chwili złożenia zlecenia (jak settle() z chwili realizacji), a nie z zegara w momencie zmiany ceny
+                    acquire(asset, quantity, order.getCreatedAt().toLocalDate(), price);
+                } else {
+                    sellStreaming(order.getSymbol(), quantity, price, LotRelief.FIFO, null);
+                }
+            } catch (InsufficientFundsException | InsufficientHoldingsException e) {
+                for (int i = 0; i < portfolioListeners.size(); i++) {
+                    portfolioListeners.get(i).onOrderCancelled(order);
+                }
+                continue;
+            }
+
+            order.fill(quantity);
+            for (int i = 0; i < portfolioListeners.size(); i++) {
+                portfolioListeners.get(i).onOrderTriggered(order, price);
+            }
+        }
+    }
+
+    private void removeResting(OrderNode node) {
+        OrderBook book = node.book;
+        book.removeNode(node);
+        if (book.isEmpty()) orderBooks.remove(book.getSymbol());
+    }
+
+    public Order peekBestBid(String symbol) {
+        OrderBook book = orderBooks.get(symbol);
+        return book == null ? null : book.peekBestBid();
+    }
+
+    public Order peekBestAsk(String symbol) {
+        OrderBook book = orderBooks.get(symbol);
+        return book == null ? null : book.peekBestAsk();
+    }
+
+    // Księga zleceń symbolu (null, gdy brak zleceń oczekujących)
+    public OrderBook getOrderBook(String symbol) {
+        return orderBooks.get(symbol);
+    }
+
+    public int getRestingOrdersCount() {
+        int sum = 0;
+        for (OrderBook book : orderBooks.values()) {
+            sum += book.getRestingOrdersCount();
+        }
+        return sum;
+    }
+
+    // Wszystkie zlecenia oczekujące w kolejności złożenia (sequence) - kopia
+    public List<Order> getRestingOrders() {
+        List<Order> result = new ArrayList<>(getRestingOrdersCount());
+        for (OrderBook book : orderBooks.values()) {
+            book.collectRestingOrders(result);
+        }
+        result.sort(new Comparator<Order>() {
+            @Override
+            public int compare(Order a, Order b) {
+                return Long.compare(a.getSequence(), b.getSequence());
+            }
+        });
+        return result;
+    }
+
+    /**
+     Rejestruje wskaźniki portfela pod nazwami prefix.positions / prefix.lots / prefix.mergedLots / prefix.restingOrders.
+     Wartości liczone są przy snapshot() rejestru - Portfolio nie jest bezpieczne wątkowo,
+     więc snapshot należy robić z wątku, który obsługuje portfel (albo godzić się na odczyt przybliżony).
+     */
+    public void registerGauges(MetricsRegistry registry, String prefix) {
+        if (registry == null) throw new IllegalArgumentException("registry cannot be null");
+        if (prefix == null || prefix.trim().isEmpty()) throw new IllegalArgumentException("prefix cannot be null/empty");
+
+        registry.registerGauge(prefix + ".positions", new Gauge() {
+            @Override
+            public long value() {
+                return positionsBySymbol.size();
+            }
+        });
+        registry.registerGauge(prefix + ".lots", new Gauge() {
+            @Override
+            public long value() {
+                long lots = 0;
+                for (Position pos : positionsBySymbol.values()) {
+                    lots += pos.getLotCount();
+                }
+                return lots;
+            }
+        });
+        registry.registerGauge(prefix + ".mergedLots", new Gauge() {
+            @Override
+            public long value() {
+                return getMergedLotCount();
+            }
+        });
+        registry.registerGauge(prefix + ".restingOrders", new Gauge() {
+            @Override
+            public long value() {
+                return getRestingOrdersCount();
+            }
+        });
+    }
+
+    // Najlepsze zlecenie spośród wszystkich ksiąg (ten sam porządek co OrderComparators.byAttractiveness)
     public Order peekBestOrder() {
-        return orders.peek();
+        OrderBook book = findBookWithBestOrder();
+        return book == null ? null : bestOf(book);
     }
 
     public Order pollBestOrder() {
-        return orders.poll();
+        long t0 = METRICS.startTimer();
+        OrderBook book = findBookWithBestOrder();
+        if (book == null) return null;
+
+        Order best = bestOf(book);
+        book.pollBest(best.getType());
+        if (book.isEmpty()) orderBooks.remove(book.getSymbol());
+
+        for (int i = 0; i < portfolioListeners.size(); i++) {
+            portfolioListeners.get(i).onOrderPolled(best);
+        }
+        METRICS.record(Operation.POLL_BEST_ORDER, best.getAssetType(), t0);
+        return best;
+    }
+
+    private OrderBook findBookWithBestOrder() {
+        OrderBook bestBook = null;
+        Order best = null;
+        for (OrderBook book : orderBooks.values()) {
+            Order candidate = bestOf(book);
+            if (candidate != null && (best == null || ATTRACTIVENESS.compare(candidate, best) < 0)) {
+                best = candidate;
+                bestBook = book;
+            }
+        }
+        return bestBook;
+    }
+
+    // Najlepsze zlecenie jednej księgi - BUY przed SELL, jak w komparatorze
+    private Order bestOf(OrderBook book) {
+        Order bid = book.peekBestBid();
+        if (bid != null) return bid;
+        return book.peekBestAsk();
+    }
+
+    /**
+     Rozliczenie realizacji: portfel jest stroną kupującą i sprzedającą jednocześnie.
+     - noga sprzedaży wymaga pokrycia: posiadana ilość przed realizacją >= ilość realizacji,
+     - noga kupna jak acquire, ale po cenie realizacji: partia qty @ cena realizacji z datą realizacji,
+       gotówka qty * cena + opłata zakupu danego typu aktywa (executionCost),
+     - noga sprzedaży jak sell po cenie realizacji, z LotRelief.LIFO - zdejmuje partię właśnie dodaną,
+       więc starsze partie, koszt nabycia i zrealizowany P&L zostają bez zmian (netto portfel płaci opłatę zakupu).
+     */
+    private void settle(Execution execution) {
+        String symbol = execution.getSymbol();
+        Asset asset = assetsBySymbol.get(symbol);
+        if (asset == null) throw new IllegalStateException("Unknown asset for symbol " + symbol);
+        int quantity = execution.getQuantity();
+        double price = execution.getPrice();
+        requireHoldings(symbol, quantity);
+
+        acquireInternal(asset, quantity, execution.getExecutedAt().toLocalDate(), price, executionCost(asset, quantity, price));
+
+        Position pos = positionsBySymbol.get(symbol);
+        double profit = pos.sellStreaming(quantity, price, LotRelief.LIFO, null);
+        settleSale(pos, quantity, price, profit);
+
+        for (int i = 0; i < executionListeners.size(); i++) {
+            executionListeners.get(i).onExecution(execution);
+        }
+    }
+
+    // Noga sprzedaży realizacji z księgi wymaga posiadanej ilości
+    private void requireHoldings(String symbol, int quantity) {
+        Position pos = positionsBySymbol.get(symbol);
+        int held = pos == null ? 0 : pos.getTotalQuantity();
+        if (held < quantity) {
+            throw new InsufficientHoldingsException("Not enough holdings to settle sell leg of " + symbol + ". Have=" + held + " need=" + quantity);
+        }
+    }
+
+    // Koszt nogi kupna: qty * cena realizacji + opłata zakupu typu aktywa (koszt nabycia ponad wartość rynkową, np. handlingFee)
+    private static double executionCost(Asset asset, int quantity, double price) {
+        return price * quantity + (asset.getAcquisitionCost(quantity) - asset.getMarketPrice() * quantity);
+    }
+
+    // Gotówka i pokrycie po kolejnych realizacjach przejścia policzone jak w settle, bez zmiany portfela
+    private final class SweepCheck implements ExecutionListener {
+        private final Asset asset;
+        private double available;
+
+        SweepCheck(Asset asset) {
+            this.asset = asset;
+            this.available = cash;
+        }
+
+        @Override
+        public void onExecution(Execution execution) {
+            int quantity = execution.getQuantity();
+            double price = execution.getPrice();
+            // realizacja nie zmienia posiadanej ilości (kupno i sprzedaż tej samej ilości)
+            requireHoldings(execution.getSymbol(), quantity);
+
+            double cost = executionCost(asset, quantity, price);
+            if (available < cost) {
+                throw new InsufficientFundsException("Not enough cash to settle the whole order sweep. Have=" + available + " need=" + cost);
+            }
+            available += price * quantity - cost;
+        }
     }
 
     // --- Persystencja ---
@@ -162,10 +933,24 @@ public class Portfolio {
     public void setCashForPersistence(double cash) {
         if (cash < 0) throw new IllegalArgumentException("cash cannot be negative");
         this.cash = cash;
+
+        for (int i = 0; i < portfolioListeners.size(); i++) {
+            portfolioListeners.get(i).onCashSet(cash);
+        }
     }
 
     public void putPositionForPersistence(Position position) {
         if (position == null) throw new IllegalArgumentException("position cannot be null");
-        positionsBySymbol.put(position.getAsset().getSymbol(), position);
+        if (canonical(position.getAsset()) != position.getAsset()) {
+            throw new IllegalArgumentException("Position asset " + position.getAsset().getSymbol() + " is not the registry's canonical instance");
+        }
+        requireSymbolType(position.getAsset());
+        Position previous = positionsBySymbol.get(position.getAsset().getSymbol());
+        if (previous != null) removePosition(previous);
+        putPosition(position);
+        position.setLotCoalescing(lotCoalescing);
+        if (previous != null && previous != position) previous.setValueListener(null);
+        position.setValueListener(valuation, trackPrices);
+        rememberAsset(position.getAsset());
     }
 }
\ No newline at end of file
@@ -0,0 +1,262 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetRegistry;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Position;
+import com.stockmarket.domain.SaleResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ Silnik wielu portfeli (jeden Portfolio na rachunek klienta).
+
+ - jedna instancja Asset na symbol, wspólna dla wszystkich rachunków (registerAsset zwraca instancję kanoniczną),
+   z gęstym id z AssetRegistry - pozycje rachunków i liczniki ekspozycji są tablicami indeksowanymi id,
+ - portfele rachunków nie śledzą cen (Portfolio(cash, false)): zmiana ceny nie rozsyła powiadomień
+   do dziesiątek tysięcy pozycji, tylko cała paczka cen jest przeliczana naraz,
+ - applyPriceBatch: ustawia ceny, potem jedno przejście fork-join po rachunkach (refreshValuation),
+ - calculateExposure: ekspozycja (ilość, wartość rynkowa) per symbol i per AssetType łącznie po rachunkach,
+   liczona redukcją fork-join (każda gałąź sumuje do long[] po id aktywa).
+
+ Silnik nie jest bezpieczny wątkowo: operacje na rachunkach i paczki cen muszą być wywoływane z jednego wątku
+ (równoległość jest tylko wewnątrz applyPriceBatch / revalueAll / calculateExposure).
+ */
+public class PortfolioEngine {
+    // poniżej tylu rachunków zadanie fork-join liczy sekwencyjnie zamiast się dzielić
+    static final int SPLIT_THRESHOLD = 256;
+
+    private final ForkJoinPool pool;
+    private final AssetRegistry registry;
+    private final Map<String, Portfolio> accountsById;
+    private final List<Portfolio> accounts; // kolejność otwarcia - podział na zakresy dla fork-join
+
+    public PortfolioEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public PortfolioEngine(ForkJoinPool pool) {
+        if (pool == null) throw new IllegalArgumentException("pool cannot be null");
+        this.pool = pool;
+        this.registry = new AssetRegistry();
+        this.accountsById = new HashMap<>();
+        this.accounts = new ArrayList<>();
+    }
+
+    // --- Aktywa ---
+
+    /**
+     Rejestruje aktywo; dla znanego symbolu zwraca instancję już zarejestrowaną (wspólną dla rachunków).
+     Rachunki, paczki cen i ekspozycja są adresowane samym symbolem, więc symbol może należeć tylko do jednego typu -
+     ten sam symbol innego typu jest odrzucany.
+     */
+    public Asset registerAsset(Asset asset) {
+        if (asset == null) throw new IllegalArgumentException("asset cannot be null");
+        Asset existing = registry.findBySymbol(asset.getSymbol());
+        if (existing == null) return registry.register(asset);
+        if (existing.getType() != asset.getType()) {
+            throw new IllegalArgumentException("Symbol " + asset.getSymbol() + " is already registered as " + existing.getType());
+        }
+        return existing;
+    }
+
+    public Asset getAsset(String symbol) {
+        return registry.findBySymbol(symbol);
+    }
+
+    public Asset getAsset(AssetType type, String symbol) {
+        return registry.find(type, symbol);
+    }
+
+    public AssetRegistry getAssetRegistry() {
+        return registry;
+    }
+
+    // --- Rachunki ---
+
+    public Portfolio openAccount(String accountId, double initialCash) {
+        if (accountId == null || accountId.trim().isEmpty()) throw new IllegalArgumentException("accountId cannot be null/empty");
+        if (accountsById.containsKey(accountId)) throw new IllegalArgumentException("Account already exists: " + accountId);
+
+        Portfolio portfolio = new Portfolio(initialCash, false, registry);
+        accountsById.put(accountId, portfolio);
+        accounts.add(portfolio);
+        return portfolio;
+    }
+
+    public Portfolio getAccount(String accountId) {
+        return accountsById.get(accountId);
+    }
+
+    public int getAccountCount() {
+        return accounts.size();
+    }
+
+    // Zakup na rachunku po symbolu - zawsze na wspólnej instancji aktywa
+    public void acquire(String accountId, String symbol, int quantity, LocalDate date, double unitPrice) {
+        requireAccount(accountId).acquire(requireAsset(symbol), quantity, date, unitPrice);
+    }
+
+    public SaleResult sell(String accountId, String symbol, int quantity, double sellUnitPrice) {
+        return requireAccount(accountId).sell(symbol, quantity, sellUnitPrice);
+    }
+
+    // --- Wycena ---
+
+    /**
+     Paczka cen: najpierw walidacja wszystkich symboli (nieznany symbol -> wyjątek, nic nie zmienione),
+     potem ustawienie cen na wspólnych aktywach i jedno przeliczenie wszystkich rachunków.
+     */
+    public void applyPriceBatch(Map<String, Double> pricesBySymbol) {
+        if (pricesBySymbol == null) throw new IllegalArgumentException("pricesBySymbol cannot be null");
+        for (Map.Entry<String, Double> e : pricesBySymbol.entrySet()) {
+            requireAsset(e.getKey());
+            Double price = e.getValue();
+            if (price == null || price < 0) throw new IllegalArgumentException("Invalid price for " + e.getKey() + ": " + price);
+        }
+
+        for (Map.Entry<String, Double> e : pricesBySymbol.entrySet()) {
+            registry.findBySymbol(e.getKey()).setMarketPrice(e.getValue());
+        }
+        revalueAll();
+    }
+
+    // Przeliczenie sum bieżących wszystkich rachunków (fork-join po zakresach rachunków)
+    public void revalueAll() {
+        if (accounts.isEmpty()) return;
+        pool.invoke(new RevalueTask(accounts, 0, accounts.size()));
+    }
+
+    // Suma wartości rzeczywistej wszystkich rachunków (z gotówką) - O(rachunki), sumy bieżące portfeli
+    public double calculateTotalRealValue() {
+        double sum = 0.0;
+        for (int i = 0; i < accounts.size(); i++) {
+            sum += accounts.get(i).calculateTotalRealValue();
+        }
+        return sum;
+    }
+
+    public double calculateTotalMarketValue() {
+        double sum = 0.0;
+        for (int i = 0; i < accounts.size(); i++) {
+            sum += accounts.get(i).calculateTotalMarketValue();
+        }
+        return sum;
+    }
+
+    /**
+     Ekspozycja łączna: ilości sumowane równolegle do long[] indeksowanego gęstym id aktywa
+     (każda gałąź fork-join ma własną tablicę, przy powrocie tablice są dodawane element po elemencie),
+     wartości rynkowe liczone raz na aktywo po bieżącej cenie.
+     */
+    public EngineExposure calculateExposure() {
+        int assetCount = registry.size();
+        long[] quantities = accounts.isEmpty()
+                ? new long[assetCount]
+                : pool.invoke(new ExposureTask(accounts, 0, accounts.size(), assetCount));
+
+        Map<String, Long> quantityBySymbol = new HashMap<>();
+        Map<String, Double> valueBySymbol = new HashMap<>();
+        Map<AssetType, Double> valueByType = new EnumMap<>(AssetType.class);
+        for (int id = 0; id < assetCount; id++) {
+            long qty = quantities[id];
+            if (qty == 0) continue;
+            Asset asset = registry.get(id);
+            double value = asset.getMarketPrice() * qty;
+
+            quantityBySymbol.put(asset.getSymbol(), qty);
+            valueBySymbol.put(asset.getSymbol(), value);
+            Double typeValue = valueByType.get(asset.getType());
+            valueByType.put(asset.getType(), typeValue == null ? value : typeValue + value);
+        }
+        return new EngineExposure(quantityBySymbol, valueBySymbol, valueByType);
+    }
+
+    private Portfolio requireAccount(String accountId) {
+        Portfolio portfolio = accountsById.get(accountId);
+        if (portfolio == null) throw new IllegalArgumentException("Unknown account: " + accountId);
+        return portfolio;
+    }
+
+    private Asset requireAsset(String symbol) {
+        Asset asset = registry.findBySymbol(symbol);
+        if (asset == null) throw new IllegalArgumentException("Unknown symbol: " + symbol);
+        return asset;
+    }
+
+    // --- Zadania fork-join ---
+
+    private static final class RevalueTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Portfolio> accounts;
+        private final int from;
+        private final int to;
+
+        RevalueTask(List<Portfolio> accounts, int from, int to) {
+            this.accounts = accounts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    accounts.get(i).refreshValuation();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RevalueTask(accounts, from, mid), new RevalueTask(accounts, mid, to));
+        }
+    }
+
+    // Wynik: id aktywa -> łączna ilość (aktywa rachunków są instancjami kanonicznymi rejestru silnika)
+    private static final class ExposureTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Portfolio> accounts;
+        private final int from;
+        private final int to;
+        private final int assetCount;
+
+        ExposureTask(List<Portfolio> accounts, int from, int to, int assetCount) {
+            this.accounts = accounts;
+            this.from = from;
+            this.to = to;
+            this.assetCount = assetCount;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                long[] result = new long[assetCount];
+                for (int i = from; i < to; i++) {
+                    for (Position pos : accounts.get(i).getPositionsView().values()) {
+                        result[pos.getAsset().getId()] += pos.getTotalQuantity();
+                    }
+                }
+                return result;
+            }
+
+            int mid = (from + to) >>> 1;
+            ExposureTask left = new ExposureTask(accounts, from, mid, assetCount);
+            left.fork();
+            long[] right = new ExposureTask(accounts, mid, to, assetCount).compute();
+            long[] merged = left.join();
+            for (int id = 0; id < assetCount; id++) {
+                merged[id] += right[id];
+            }
+            return merged;
+        }
+    }
+}
\ No newline at end of file
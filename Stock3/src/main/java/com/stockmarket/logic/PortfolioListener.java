@@ -0,0 +1,59 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.LotCoalescing;
+import com.stockmarket.domain.LotRelief;
+import com.stockmarket.domain.Order;
+
+import java.time.LocalDate;
+
+/**
+ Odbiorca zmian stanu portfela (np. dziennik zapisu - journal).
+
+ Zdarzenia zgłaszane są dopiero po udanej operacji i tylko dla wywołań z zewnątrz:
+ rozliczenie realizacji wewnątrz submitLimitOrder nie generuje osobnych onAcquire/onSell,
+ bo powtórzenie samego zlecenia odtwarza je deterministycznie.
+ */
+public interface PortfolioListener {
+
+    default void onAcquire(Asset asset, int quantity, LocalDate date, double unitPrice) {}
+
+    default void onSell(Asset asset, int quantity, double sellUnitPrice, double realizedProfit) {}
+
+    // Sprzedaż z metodą zdejmowania partii (Portfolio.sell zgłasza ten wariant; domyślnie - jak onSell bez relief)
+    default void onSell(Asset asset, int quantity, double sellUnitPrice, double realizedProfit, LotRelief relief) {
+        onSell(asset, quantity, sellUnitPrice, realizedProfit);
+    }
+
+    // Sprzedaż ze wskazanej partii (Portfolio.sellLot; domyślnie - jak onSell bez relief)
+    default void onSellLot(Asset asset, long lotId, int quantity, double sellUnitPrice, double realizedProfit) {
+        onSell(asset, quantity, sellUnitPrice, realizedProfit);
+    }
+
+    default void onAssetRegistered(Asset asset) {}
+
+    // order.getQuantity() to wolumen złożony (przed ewentualnym kojarzeniem)
+    default void onLimitOrderSubmitted(Order order) {}
+
+    default void onOrderPolled(Order order) {}
+
+    // Anulowanie przez cancelOrder albo wygaśnięcie w expireOrders
+    default void onOrderCancelled(Order order) {}
+
+    default void onOrderAmended(Order order, int newRemainingQuantity) {}
+
+    /**
+     Zrealizowany P&L - zgłaszany z rozliczenia sprzedaży w portfelu, więc obejmuje każdą ścieżkę zdejmującą partie
+     (sell, sellLot, sellStreaming, zlecenia zrealizowane po przekroczeniu limitu przez cenę, noga sprzedaży
+     realizacji z księgi - ta zdejmuje partię dodaną przez nogę kupna, więc jej P&L wynosi zero).
+     */
+    default void onRealized(Asset asset, int quantity, double sellUnitPrice, double realizedProfit) {}
+
+    // Zlecenie zdjęte z księgi po przekroczeniu limitu przez cenę (rozliczenie zgłoszone wcześniej przez onAcquire/onSell)
+    default void onOrderTriggered(Order order, double price) {}
+
+    default void onCashSet(double cash) {}
+
+    // Zmiana scalania partii - wpływa na id partii, więc odtworzenie musi ją powtórzyć
+    default void onLotCoalescingSet(LotCoalescing coalescing) {}
+}
\ No newline at end of file
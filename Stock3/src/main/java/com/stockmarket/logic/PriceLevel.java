@@ -0,0 +1,102 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Order;
+
+import java.util.List;
+
+/**
+ Poziom cenowy w księdze zleceń.
+ Wszystkie zlecenia z tym samym limitem, w kolejności złożenia (priorytet czasowy - FIFO).
+ Kolejka to lista dwukierunkowa węzłów (OrderNode), więc anulowanie ze środka kolejki jest O(1).
+ */
+final class PriceLevel {
+    private final double price;
+    private OrderNode head; // najstarsze zlecenie
+    private OrderNode tail;
+    private int orderCount;
+    private long totalQuantity; // suma pozostałego wolumenu na poziomie
+
+    PriceLevel(double price) {
+        this.price = price;
+        this.totalQuantity = 0;
+    }
+
+    double getPrice() {
+        return price;
+    }
+
+    long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    int getOrderCount() {
+        return orderCount;
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+
+    void add(OrderNode node) {
+        node.level = this;
+        node.prev = tail;
+        node.next = null;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        orderCount++;
+        totalQuantity += node.order.getRemainingQuantity();
+    }
+
+    OrderNode firstNode() {
+        return head;
+    }
+
+    Order peekFirst() {
+        return head == null ? null : head.order;
+    }
+
+    // Wypina węzeł z kolejki (dowolne miejsce, O(1))
+    void remove(OrderNode node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            head = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else {
+            tail = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.level = null;
+        orderCount--;
+        totalQuantity -= node.order.getRemainingQuantity();
+    }
+
+    // Zmniejszenie wolumenu zlecenia w miejscu (zachowuje priorytet czasowy)
+    void reduce(OrderNode node, int newRemainingQuantity) {
+        int delta = node.order.getRemainingQuantity() - newRemainingQuantity;
+        node.order.reduceRemainingQuantity(newRemainingQuantity);
+        totalQuantity -= delta;
+    }
+
+    void collect(List<Order> out) {
+        for (OrderNode node = head; node != null; node = node.next) {
+            out.add(node.order);
+        }
+    }
+
+    // Realizacja pierwszego zlecenia na poziomie; w pełni zrealizowane zlecenie opuszcza kolejkę
+    void fillFirst(int quantity) {
+        OrderNode first = head;
+        if (first == null) throw new IllegalStateException("Internal error: fill on empty price level");
+        first.order.fill(quantity);
+        totalQuantity -= quantity;
+        if (first.order.isFilled()) remove(first);
+    }
+}
\ No newline at end of file
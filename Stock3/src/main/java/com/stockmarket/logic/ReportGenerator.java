@@ -1,54 +1,315 @@
 package com.stockmarket.logic;
 
+import com.stockmarket.domain.AssetType;
 import com.stockmarket.domain.Position;
+import com.stockmarket.metrics.MetricsRegistry;
+import com.stockmarket.metrics.Operation;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  Generator  raportu tekstowego o pozycjach w portfelu.
- - sortowanie aktywów wg złożonego klucza: Typ Aktywa -> Wartość Rynkowa (malejąco)
- - bez Stream API (zamiast tego Comparator + Collections.sort)
+ - sortowanie aktywów wg złożonego klucza: Typ Aktywa -> Wartość Rynkowa (malejąco) -> Symbol
+ - klucze (ordinal typu, wartość rynkowa) liczone raz do tablic prymitywnych, sortowane są indeksy
+ - bez Stream API; indeksy sortowane jako int[] (merge sort, dla dużych zbiorów równolegle na puli ForkJoin)
+ - wiersze są pisane od razu do Appendable/Writer/OutputStream (bez budowania całego raportu w pamięci),
+ - tryb top-N: N największych pozycji w każdym typie aktywa (kopiec ograniczony do N zamiast pełnego sortowania)
  */
 public class ReportGenerator {
+    private static final MetricsRegistry METRICS = MetricsRegistry.global();
+
+    private static final String HEADER = "SYMBOL|TYPE|QTY|MARKET_PRICE|MARKET_VALUE|REAL_VALUE\n";
+    private static final int WRITER_BUFFER = 1 << 13; // bufor dla Writer/OutputStream - stały, niezależny od liczby pozycji
+    private static final AssetType[] TYPES = AssetType.values();
+
+    // od tylu wierszy sortowanie idzie równolegle (mniejsze zbiory - jeden wątek, bez narzutu puli)
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+    // zakresy nie większe niż ten sortowane przez wstawianie
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    // kopiec top-N: na szczycie najsłabszy wiersz, czyli ostatni w kolejności pełnego raportu
+    private static final Comparator<RankedPosition> WEAKEST_FIRST = new Comparator<RankedPosition>() {
+        @Override
+        public int compare(RankedPosition a, RankedPosition b) {
+            return compareRows(b.type, b.marketValue, b.symbol, a.type, a.marketValue, a.symbol);
+        }
+    };
+
+    /**
+     Kolejność wierszy wspólna dla pełnego raportu i top-N:
+     typ aktywa (ordinal) rosnąco, wartość rynkowa malejąco, przy remisie symbol rosnąco.
+     */
+    static int compareRows(int typeA, double valueA, String symbolA, int typeB, double valueB, String symbolB) {
+        if (typeA != typeB) return typeA < typeB ? -1 : 1;
+        int c = Double.compare(valueB, valueA);
+        if (c != 0) return c;
+        return symbolA.compareTo(symbolB);
+    }
 
     public String generatePositionsReport(Map<String, Position> positionsBySymbol) {
         if (positionsBySymbol == null) throw new IllegalArgumentException("positionsBySymbol cannot be null");
 
-        // przepisujemy mapę do listy, żeby dało się sortować
-        List<Position> positions = new ArrayList<>();
-        for (Position p : positionsBySymbol.values()) {
-            positions.add(p);
-        }
-
-        // sortowanie: najpierw typ aktywa, potem market value malejąco
-        Collections.sort(positions, new Comparator<Position>() {
-            @Override
-            public int compare(Position a, Position b) {
-                int t = a.getAsset().getType().compareTo(b.getAsset().getType());
-                if (t != 0) return t;
-
-                // market value desc:
-                return Double.compare(b.getMarketValue(), a.getMarketValue());
-            }
-        });
-
-        // raport separatorowy
-        StringBuilder sb = new StringBuilder();
-        sb.append("SYMBOL|TYPE|QTY|MARKET_PRICE|MARKET_VALUE|REAL_VALUE\n");
-        for (int i = 0; i < positions.size(); i++) {
-            Position p = positions.get(i);
-            sb.append(p.getAsset().getSymbol()).append("|")
-                    .append(p.getAsset().getType()).append("|")
-                    .append(p.getTotalQuantity()).append("|")
-                    .append(p.getAsset().getMarketPrice()).append("|")
-                    .append(p.getMarketValue()).append("|")
-                    .append(p.getRealValue())
-                    .append("\n");
+        StringBuilder sb = new StringBuilder(HEADER.length() + positionsBySymbol.size() * 64);
+        try {
+            writePositionsReport(positionsBySymbol, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder nie rzuca IOException
         }
         return sb.toString();
     }
+
+    /**
+     Raport pisany wiersz po wierszu do out.
+     Jedyna struktura pomocnicza to tablica referencji do pozycji (do sortowania) - bez kopii tekstu.
+     Buforowanie zostaje po stronie wywołującego (np. StringBuilder, BufferedWriter).
+     */
+    public void writePositionsReport(Map<String, Position> positionsBySymbol, Appendable out) throws IOException {
+        if (positionsBySymbol == null) throw new IllegalArgumentException("positionsBySymbol cannot be null");
+        if (out == null) throw new IllegalArgumentException("out cannot be null");
+        long t0 = METRICS.startTimer();
+
+        Position[] positions = positionsBySymbol.values().toArray(new Position[0]);
+        int[] order = sortedOrder(positions);
+
+        out.append(HEADER);
+        for (int i = 0; i < order.length; i++) {
+            writeRow(positions[order[i]], out);
+        }
+        METRICS.record(Operation.REPORT, null, t0);
+    }
+
+    // Writer opakowany stałym buforem; po zapisie flush, ale bez zamykania (strumień należy do wywołującego)
+    public void writePositionsReport(Map<String, Position> positionsBySymbol, Writer out) throws IOException {
+        if (out == null) throw new IllegalArgumentException("out cannot be null");
+        BufferedWriter buffered = new BufferedWriter(out, WRITER_BUFFER);
+        writePositionsReport(positionsBySymbol, (Appendable) buffered);
+        buffered.flush();
+    }
+
+    // Raport w UTF-8
+    public void writePositionsReport(Map<String, Position> positionsBySymbol, OutputStream out) throws IOException {
+        if (out == null) throw new IllegalArgumentException("out cannot be null");
+        writePositionsReport(positionsBySymbol, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    // --- Top-N per typ aktywa ---
+
+    public String generateTopPositionsReport(Map<String, Position> positionsBySymbol, int topN) {
+        if (positionsBySymbol == null) throw new IllegalArgumentException("positionsBySymbol cannot be null");
+
+        StringBuilder sb = new StringBuilder(HEADER.length() + Math.min(positionsBySymbol.size(), topN * TYPES.length) * 64);
+        try {
+            writeTopPositionsReport(positionsBySymbol, topN, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     Raport z co najwyżej topN największymi (wg wartości rynkowej) pozycjami każdego typu aktywa.
+     - dla każdego typu kopiec (PriorityQueue) trzyma najwyżej topN kandydatów: O(n log N) zamiast O(n log n),
+     - kandydat słabszy od szczytu pełnego kopca jest odrzucany bez alokacji,
+     - kolejność wierszy jak w pełnym raporcie: typ aktywa, potem wartość malejąco (remis: symbol rosnąco).
+     */
+    public void writeTopPositionsReport(Map<String, Position> positionsBySymbol, int topN, Appendable out) throws IOException {
+        if (positionsBySymbol == null) throw new IllegalArgumentException("positionsBySymbol cannot be null");
+        if (topN <= 0) throw new IllegalArgumentException("topN must be positive");
+        if (out == null) throw new IllegalArgumentException("out cannot be null");
+        long t0 = METRICS.startTimer();
+
+        List<PriorityQueue<RankedPosition>> heaps = new ArrayList<>(TYPES.length);
+        for (int t = 0; t < TYPES.length; t++) {
+            heaps.add(null); // kopiec tworzony dopiero dla typu, który występuje
+        }
+
+        for (Position p : positionsBySymbol.values()) {
+            int type = p.getAsset().getType().ordinal();
+            PriorityQueue<RankedPosition> heap = heaps.get(type);
+            if (heap == null) {
+                heap = new PriorityQueue<>(Math.min(topN, 1024), WEAKEST_FIRST);
+                heaps.set(type, heap);
+            }
+
+            double value = p.getMarketValue();
+            if (heap.size() < topN) {
+                heap.add(new RankedPosition(p, type, value));
+                continue;
+            }
+            RankedPosition weakest = heap.peek();
+            if (value < weakest.marketValue) continue;
+
+            RankedPosition candidate = new RankedPosition(p, type, value);
+            if (WEAKEST_FIRST.compare(candidate, weakest) > 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+
+        out.append(HEADER);
+        for (int t = 0; t < TYPES.length; t++) {
+            PriorityQueue<RankedPosition> heap = heaps.get(t);
+            if (heap == null) continue;
+
+            // kopiec oddaje od najsłabszej - wypełniamy tablicę od końca
+            RankedPosition[] ranked = new RankedPosition[heap.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = heap.poll();
+            }
+            for (int i = 0; i < ranked.length; i++) {
+                writeRow(ranked[i].position, out);
+            }
+        }
+        METRICS.record(Operation.REPORT, null, t0);
+    }
+
+    public void writeTopPositionsReport(Map<String, Position> positionsBySymbol, int topN, Writer out) throws IOException {
+        if (out == null) throw new IllegalArgumentException("out cannot be null");
+        BufferedWriter buffered = new BufferedWriter(out, WRITER_BUFFER);
+        writeTopPositionsReport(positionsBySymbol, topN, (Appendable) buffered);
+        buffered.flush();
+    }
+
+    public void writeTopPositionsReport(Map<String, Position> positionsBySymbol, int topN, OutputStream out) throws IOException {
+        if (out == null) throw new IllegalArgumentException("out cannot be null");
+        writeTopPositionsReport(positionsBySymbol, topN, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     Kolejność wierszy pełnego raportu (compareRows) jako permutacja indeksów.
+     - typ (ordinal), wartość i symbol liczone raz na pozycję - porównania czytają już tylko tablice,
+     - sortowana jest tablica int[] (merge sort z buforem), bez pakowania indeksów w Integer,
+     - duże zbiory: połówki sortowane równolegle na wspólnej puli ForkJoin.
+     */
+    static int[] sortedOrder(Position[] positions) {
+        int n = positions.length;
+        int[] types = new int[n];
+        double[] values = new double[n];
+        String[] symbols = new String[n];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            types[i] = positions[i].getAsset().getType().ordinal();
+            values[i] = positions[i].getMarketValue();
+            symbols[i] = positions[i].getAsset().getSymbol();
+            order[i] = i;
+        }
+
+        SortTask task = new SortTask(order, new int[n], 0, n, types, values, symbols);
+        if (n >= PARALLEL_SORT_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(task);
+        } else {
+            task.compute();
+        }
+        return order;
+    }
+
+    // Merge sort indeksów na [from, to); tmp - bufor tej samej długości co order
+    private static final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] order;
+        private final int[] tmp;
+        private final int from;
+        private final int to;
+        private final int[] types;
+        private final double[] values;
+        private final String[] symbols;
+
+        SortTask(int[] order, int[] tmp, int from, int to, int[] types, double[] values, String[] symbols) {
+            this.order = order;
+            this.tmp = tmp;
+            this.from = from;
+            this.to = to;
+            this.types = types;
+            this.values = values;
+            this.symbols = symbols;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= INSERTION_SORT_THRESHOLD) {
+                insertionSort();
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            SortTask left = new SortTask(order, tmp, from, mid, types, values, symbols);
+            SortTask right = new SortTask(order, tmp, mid, to, types, values, symbols);
+            if (to - from >= PARALLEL_SORT_THRESHOLD && getPool() != null) {
+                invokeAll(left, right);
+            } else {
+                left.compute();
+                right.compute();
+            }
+            merge(mid);
+        }
+
+        private void insertionSort() {
+            for (int i = from + 1; i < to; i++) {
+                int idx = order[i];
+                int k = i - 1;
+                while (k >= from && compare(order[k], idx) > 0) {
+                    order[k + 1] = order[k];
+                    k--;
+                }
+                order[k + 1] = idx;
+            }
+        }
+
+        private void merge(int mid) {
+            if (compare(order[mid - 1], order[mid]) <= 0) return; // połówki już w kolejności
+            System.arraycopy(order, from, tmp, from, to - from);
+            int i = from;
+            int j = mid;
+            for (int k = from; k < to; k++) {
+                if (j >= to || (i < mid && compare(tmp[i], tmp[j]) <= 0)) {
+                    order[k] = tmp[i++];
+                } else {
+                    order[k] = tmp[j++];
+                }
+            }
+        }
+
+        private int compare(int i, int j) {
+            return compareRows(types[i], values[i], symbols[i], types[j], values[j], symbols[j]);
+        }
+    }
+
+    // raport separatorowy - jeden wiersz na pozycję
+    private static void writeRow(Position p, Appendable out) throws IOException {
+        out.append(p.getAsset().getSymbol()).append('|')
+                .append(p.getAsset().getType().name()).append('|')
+                .append(Integer.toString(p.getTotalQuantity())).append('|')
+                .append(Double.toString(p.getAsset().getMarketPrice())).append('|')
+                .append(Double.toString(p.getMarketValue())).append('|')
+                .append(Double.toString(p.getRealValue()))
+                .append('\n');
+    }
+
+    // Pozycja z wartością policzoną raz (porównania w kopcu nie przeliczają wyceny)
+    private static final class RankedPosition {
+        final Position position;
+        final String symbol;
+        final int type;
+        final double marketValue;
+
+        RankedPosition(Position position, int type, double marketValue) {
+            this.position = position;
+            this.symbol = position.getAsset().getSymbol();
+            this.type = type;
+            this.marketValue = marketValue;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.stockmarket.logic;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ Indeks zleceń oczekujących: id -> węzeł (O(1)) oraz koło terminów ważności.
+ Wspólny dla wszystkich ksiąg portfela, więc cancel/amend po samym id nie szuka księgi.
+ Księgi dopisują węzeł przy wejściu zlecenia do księgi i usuwają przy każdym wyjściu
+ (realizacja, poll, cancel, wygaśnięcie).
+ */
+final class RestingOrderIndex {
+    private final Map<Long, OrderNode> nodesById = new HashMap<>();
+    private final ExpiryWheel expiries = new ExpiryWheel();
+
+    OrderNode get(long orderId) {
+        return nodesById.get(orderId);
+    }
+
+    int size() {
+        return nodesById.size();
+    }
+
+    void add(OrderNode node) {
+        long id = node.order.getId();
+        if (nodesById.containsKey(id)) throw new IllegalArgumentException("Duplicate resting order id: " + id);
+        nodesById.put(id, node);
+        if (node.order.getExpiresAt() != null) expiries.schedule(node, node.order.getExpiresAt());
+    }
+
+    void remove(OrderNode node) {
+        nodesById.remove(node.order.getId());
+        expiries.cancel(node);
+    }
+
+    // Węzły wygasłe do chwili now (wypięte z koła; usunięcie z księgi po stronie wywołującego)
+    void collectExpired(LocalDateTime now, List<OrderNode> out) {
+        expiries.expire(now, out);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.stockmarket.marketdata;
+
+import com.stockmarket.domain.Asset;
+
+/**
+ Odwzorowanie symbolu z pliku notowań na instancję Asset trzymaną przez portfele.
+ Wywoływane raz na symbol w danym odtworzeniu; null = symbol nieznany (ticki są pomijane).
+ */
+public interface AssetResolver {
+    Asset resolve(String symbol);
+}
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.stockmarket.marketdata;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetRegistry;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioEngine;
+
+import java.util.Map;
+
+/**
+ Gotowe AssetResolver dla typowych źródeł aktywów.
+ */
+public final class AssetResolvers {
+    private AssetResolvers() {}
+
+    // Aktywa z pozycji i rejestracji portfela
+    public static AssetResolver of(final Portfolio portfolio) {
+        if (portfolio == null) throw new IllegalArgumentException("portfolio cannot be null");
+        return new AssetResolver() {
+            @Override
+            public Asset resolve(String symbol) {
+                return portfolio.getRegisteredAsset(symbol);
+            }
+        };
+    }
+
+    // Wspólne aktywa wszystkich rachunków silnika
+    public static AssetResolver of(final PortfolioEngine engine) {
+        if (engine == null) throw new IllegalArgumentException("engine cannot be null");
+        return new AssetResolver() {
+            @Override
+            public Asset resolve(String symbol) {
+                return engine.getAsset(symbol);
+            }
+        };
+    }
+
+    // Instancje kanoniczne rejestru (po samym symbolu)
+    public static AssetResolver of(final AssetRegistry registry) {
+        if (registry == null) throw new IllegalArgumentException("registry cannot be null");
+        return new AssetResolver() {
+            @Override
+            public Asset resolve(String symbol) {
+                return registry.findBySymbol(symbol);
+            }
+        };
+    }
+
+    public static AssetResolver of(final Map<String, ? extends Asset> assetsBySymbol) {
+        if (assetsBySymbol == null) throw new IllegalArgumentException("assetsBySymbol cannot be null");
+        return new AssetResolver() {
+            @Override
+            public Asset resolve(String symbol) {
+                return assetsBySymbol.get(symbol);
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.stockmarket.marketdata;
+
+import com.stockmarket.domain.DataIntegrityException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Odtwarzanie notowań z pliku (backtesty, symulacje) - ustawia ceny aktywów przez Asset.setMarketPrice.
+
+ - plik jest mapowany oknami (FileChannel.map, limit 2 GB na okno), bez kopiowania do tablic,
+ - symbole z pliku są rozwiązywane przez AssetResolver raz na odtworzenie (instancje trzymane przez portfele),
+ - ticki są stosowane paczkami (ReplayConfig.batchSize): w paczce każde aktywo dostaje tylko ostatnią
+   cenę, po paczce wywoływane są ReplayListener (np. PortfolioEngine.revalueAll, uruchamianie zleceń),
+ - tempo względem czasu z pliku ustawia ReplayConfig.speed (0 = bez czekania).
+
+ Odtwarzanie działa w wątku wywołującym; błędny plik -> DataIntegrityException (z numerem linii/rekordu).
+ */
+public class MarketDataReplay {
+    static final long DEFAULT_WINDOW = 1L << 30; // 1 GB
+
+    private final AssetResolver resolver;
+    private final ReplayConfig config;
+    private final List<ReplayListener> listeners;
+    private final long window;
+
+    public MarketDataReplay(AssetResolver resolver, ReplayConfig config) {
+        this(resolver, config, DEFAULT_WINDOW);
+    }
+
+    // Rozmiar okna konfigurowalny (testy granic okien)
+    MarketDataReplay(AssetResolver resolver, ReplayConfig config, long window) {
+        if (resolver == null) throw new IllegalArgumentException("resolver cannot be null");
+        if (config == null) throw new IllegalArgumentException("config cannot be null");
+        if (window < TickFormat.RECORD_BYTES || window > Integer.MAX_VALUE) throw new IllegalArgumentException("window out of range");
+        this.resolver = resolver;
+        this.config = config;
+        this.listeners = new ArrayList<>();
+        this.window = window;
+    }
+
+    public void addListener(ReplayListener listener) {
+        if (listener == null) throw new IllegalArgumentException("listener cannot be null");
+        listeners.add(listener);
+    }
+
+    public boolean removeListener(ReplayListener listener) {
+        return listeners.remove(listener);
+    }
+
+    public ReplayStats replay(File file, TickFileFormat format) throws IOException {
+        if (file == null) throw new IllegalArgumentException("file cannot be null");
+        if (format == null) throw new IllegalArgumentException("format cannot be null");
+
+        long t0 = System.nanoTime();
+        PriceBatcher batcher = new PriceBatcher(config, listeners);
+        SymbolIndex symbols = new SymbolIndex(resolver, batcher);
+
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (format == TickFileFormat.TEXT) {
+                replayText(ch, new TickTextParser(symbols, batcher));
+            } else {
+                replayBinary(ch, symbols, batcher);
+            }
+        }
+        batcher.flush();
+        return batcher.stats(System.nanoTime() - t0);
+    }
+
+    // --- Tekst ---
+
+    private void replayText(FileChannel ch, TickTextParser parser) throws IOException {
+        long size = ch.size();
+        long pos = 0;
+        while (pos < size) {
+            long len = Math.min(window, size - pos);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+
+            int end = (int) len;
+            if (pos + len < size) {
+                // okno nie jest ostatnie - tniemy na ostatniej pełnej linii
+                end = lastNewline(buf, end) + 1;
+                if (end == 0) throw new DataIntegrityException("Line longer than " + window + " bytes at offset " + pos);
+            }
+
+            parser.parse(buf, 0, end);
+            pos += end;
+        }
+        parser.finish();
+    }
+
+    // --- Binarny ---
+
+    private void replayBinary(FileChannel ch, SymbolIndex symbols, PriceBatcher batcher) throws IOException {
+        long size = ch.size();
+        // nagłówek ze słownikiem jest mały - mapujemy go osobno (najwyżej jedno okno)
+        MappedByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, window));
+        if (head.remaining() < 10 || head.getInt() != TickFormat.MAGIC) throw new DataIntegrityException("Not a binary tick file");
+        short version = head.getShort();
+        if (version != TickFormat.VERSION) throw new DataIntegrityException("Unsupported tick file version: " + version);
+
+        int count = head.getInt();
+        if (count < 0) throw new DataIntegrityException("Invalid symbol count: " + count);
+        int[] slotsById = new int[count];
+        for (int id = 0; id < count; id++) {
+            if (head.remaining() < 2) throw new DataIntegrityException("Truncated symbol dictionary");
+            int len = head.getShort() & 0xFFFF;
+            if (head.remaining() < len) throw new DataIntegrityException("Truncated symbol dictionary");
+            byte[] bytes = new byte[len];
+            head.get(bytes);
+            slotsById[id] = symbols.slotOf(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        long pos = head.position();
+        long records = (size - pos) / TickFormat.RECORD_BYTES;
+        if (pos + records * TickFormat.RECORD_BYTES != size) {
+            throw new DataIntegrityException("Truncated tick record at offset " + (pos + records * TickFormat.RECORD_BYTES));
+        }
+
+        // okna są wielokrotnością długości rekordu - rekord nigdy nie przechodzi przez granicę okna
+        long recordsPerWindow = window / TickFormat.RECORD_BYTES;
+        long record = 0;
+        while (record < records) {
+            int n = (int) Math.min(recordsPerWindow, records - record);
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, (long) n * TickFormat.RECORD_BYTES);
+            for (int i = 0, off = 0; i < n; i++, off += TickFormat.RECORD_BYTES) {
+                long timestamp = buf.getLong(off);
+                int id = buf.getInt(off + 8);
+                double price = buf.getDouble(off + 12);
+                if (id < 0 || id >= count) throw new DataIntegrityException("Invalid symbol id " + id + " in record #" + (record + i + 1));
+                batcher.tick(timestamp, slotsById[id], price);
+            }
+            record += n;
+            pos += (long) n * TickFormat.RECORD_BYTES;
+        }
+    }
+
+    private static int lastNewline(MappedByteBuffer buf, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (buf.get(i) == '\n') return i;
+        }
+        return -1;
+    }
+}
\ No newline at end of file
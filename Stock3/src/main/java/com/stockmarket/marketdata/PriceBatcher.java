@@ -0,0 +1,140 @@
+package com.stockmarket.marketdata;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.DataIntegrityException;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ Zbieranie ticków w paczki i stosowanie ich do aktywów (jedno odtworzenie pliku).
+
+ - aktywa dostają gęste numery (slot) przy pierwszym tiku - dalej tylko indeksy w tablicach,
+ - w paczce cena czekająca na zastosowanie jest nadpisywana, więc setMarketPrice (i rozesłanie
+   do PriceListener) wykonuje się raz na aktywo na paczkę, a nie raz na tick,
+ - tempo: przed zastosowaniem paczki czekamy, aż od startu minie (czas z pliku) / speed.
+ */
+final class PriceBatcher {
+    private final ReplayConfig config;
+    private final List<ReplayListener> listeners;
+
+    private final Map<Asset, Integer> slotsByAsset = new IdentityHashMap<>();
+    private Asset[] assets = new Asset[64];
+    private double[] pendingPrices = new double[64];
+    private boolean[] dirty = new boolean[64];
+    private int[] dirtySlots = new int[64];
+    private int dirtyCount;
+
+    private final ReplayBatch batch = new ReplayBatch();
+
+    private long ticks;
+    private long skipped;
+    private long priceUpdates;
+    private long batches;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    private long firstTimestamp;   // pierwszy tick pliku - punkt odniesienia dla tempa
+    private long startNanos;
+
+    PriceBatcher(ReplayConfig config, List<ReplayListener> listeners) {
+        this.config = config;
+        this.listeners = listeners;
+        this.startNanos = System.nanoTime();
+    }
+
+    // Numer aktywa; dwa symbole wskazujące to samo aktywo dzielą slot
+    int slotFor(Asset asset) {
+        Integer slot = slotsByAsset.get(asset);
+        if (slot != null) return slot;
+
+        int s = slotsByAsset.size();
+        if (s == assets.length) grow();
+        assets[s] = asset;
+        slotsByAsset.put(asset, s);
+        return s;
+    }
+
+    // slot < 0 -> symbol nieznany (tick liczony jako pominięty)
+    void tick(long timestamp, int slot, double price) {
+        if (timestamp < lastTimestamp) {
+            throw new DataIntegrityException("Timestamps must be non-decreasing: tick #" + (ticks + 1) + " at " + timestamp + " after " + lastTimestamp);
+        }
+        if (!(price >= 0) || Double.isInfinite(price)) {
+            throw new DataIntegrityException("Invalid price " + price + " in tick #" + (ticks + 1));
+        }
+        if (ticks == 0) {
+            firstTimestamp = timestamp;
+            startNanos = System.nanoTime();
+        }
+        lastTimestamp = timestamp;
+        ticks++;
+
+        if (batch.getTickCount() == 0) batch.start(timestamp);
+        batch.tick(timestamp);
+
+        if (slot < 0) {
+            skipped++;
+        } else {
+            pendingPrices[slot] = price;
+            if (!dirty[slot]) {
+                dirty[slot] = true;
+                dirtySlots[dirtyCount++] = slot;
+            }
+        }
+
+        if (batch.getTickCount() >= config.getBatchSize()) flush();
+    }
+
+    // Stosuje bieżącą paczkę (wywołać też na końcu pliku)
+    void flush() {
+        if (batch.getTickCount() == 0) return;
+        if (config.isPaced()) pace(batch.getLastTimestamp());
+
+        for (int i = 0; i < dirtyCount; i++) {
+            int slot = dirtySlots[i];
+            dirty[slot] = false;
+            assets[slot].setMarketPrice(pendingPrices[slot]);
+            batch.addUpdated(assets[slot]);
+        }
+        priceUpdates += dirtyCount;
+        dirtyCount = 0;
+        batches++;
+
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onBatch(batch);
+        }
+        batch.clear();
+    }
+
+    ReplayStats stats(long elapsedNanos) {
+        return new ReplayStats(ticks, skipped, priceUpdates, batches, elapsedNanos);
+    }
+
+    private void pace(long timestamp) {
+        long targetNanos = startNanos + (long) ((timestamp - firstTimestamp) * 1_000_000.0 / config.getSpeed());
+        while (true) {
+            long wait = targetNanos - System.nanoTime();
+            if (wait <= 0) return;
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    private void grow() {
+        int capacity = assets.length << 1;
+        Asset[] a = new Asset[capacity];
+        System.arraycopy(assets, 0, a, 0, assets.length);
+        double[] p = new double[capacity];
+        System.arraycopy(pendingPrices, 0, p, 0, pendingPrices.length);
+        boolean[] d = new boolean[capacity];
+        System.arraycopy(dirty, 0, d, 0, dirty.length);
+        int[] ds = new int[capacity];
+        System.arraycopy(dirtySlots, 0, ds, 0, dirtySlots.length);
+
+        assets = a;
+        pendingPrices = p;
+        dirty = d;
+        dirtySlots = ds;
+    }
+}
\ No newline at end of file
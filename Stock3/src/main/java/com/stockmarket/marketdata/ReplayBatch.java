@@ -0,0 +1,68 @@
+package com.stockmarket.marketdata;
+
+import com.stockmarket.domain.Asset;
+
+/**
+ Widok na właśnie zastosowaną paczkę cen.
+ Obiekt jest wielokrotnego użytku - ważny tylko w trakcie ReplayListener.onBatch.
+ */
+public final class ReplayBatch {
+    private Asset[] updated = new Asset[16];
+    private int updatedCount;
+    private int tickCount;
+    private long firstTimestamp;
+    private long lastTimestamp;
+
+    ReplayBatch() {}
+
+    // Liczba ticków w paczce (łącznie z nadpisanymi cenami tego samego aktywa)
+    public int getTickCount() {
+        return tickCount;
+    }
+
+    public long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    // Liczba aktywów, którym w tej paczce zmieniono cenę
+    public int getUpdatedAssetCount() {
+        return updatedCount;
+    }
+
+    public Asset getUpdatedAsset(int index) {
+        if (index < 0 || index >= updatedCount) throw new IndexOutOfBoundsException("index: " + index);
+        return updated[index];
+    }
+
+    void addUpdated(Asset asset) {
+        if (updatedCount == updated.length) {
+            Asset[] bigger = new Asset[updated.length << 1];
+            System.arraycopy(updated, 0, bigger, 0, updatedCount);
+            updated = bigger;
+        }
+        updated[updatedCount++] = asset;
+    }
+
+    void start(long timestamp) {
+        tickCount = 0;
+        firstTimestamp = timestamp;
+        lastTimestamp = timestamp;
+    }
+
+    void tick(long timestamp) {
+        tickCount++;
+        lastTimestamp = timestamp;
+    }
+
+    void clear() {
+        for (int i = 0; i < updatedCount; i++) {
+            updated[i] = null;
+        }
+        updatedCount = 0;
+        tickCount = 0;
+    }
+}
\ No newline at end of file
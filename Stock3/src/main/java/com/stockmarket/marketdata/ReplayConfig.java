@@ -0,0 +1,35 @@
+package com.stockmarket.marketdata;
+
+/**
+ Ustawienia odtwarzania notowań.
+ - batchSize: liczba ticków w paczce; w paczce każde aktywo dostaje tylko ostatnią cenę,
+   a słuchacze ReplayListener są wołani raz po paczce (1 = tick po ticku),
+ - speed: tempo względem czasu z pliku (1.0 = czas rzeczywisty, 10.0 = 10x szybciej),
+   0 = bez czekania (tak szybko, jak się da).
+ */
+public final class ReplayConfig {
+    public static final ReplayConfig AS_FAST_AS_POSSIBLE = new ReplayConfig(4096, 0.0);
+    public static final ReplayConfig REAL_TIME = new ReplayConfig(1, 1.0);
+
+    private final int batchSize;
+    private final double speed;
+
+    public ReplayConfig(int batchSize, double speed) {
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive");
+        if (!(speed >= 0) || Double.isInfinite(speed)) throw new IllegalArgumentException("speed must be finite and non-negative");
+        this.batchSize = batchSize;
+        this.speed = speed;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public boolean isPaced() {
+        return speed > 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.stockmarket.marketdata;
+
+/**
+ Hak wywoływany po zastosowaniu każdej paczki cen (np. przeliczenie wyceny, uruchamianie zleceń).
+ */
+public interface ReplayListener {
+    void onBatch(ReplayBatch batch);
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.stockmarket.marketdata;
+
+/**
+ Podsumowanie jednego odtworzenia pliku notowań.
+ */
+public final class ReplayStats {
+    private final long ticks;
+    private final long skippedTicks;
+    private final long priceUpdates;
+    private final long batches;
+    private final long elapsedNanos;
+
+    ReplayStats(long ticks, long skippedTicks, long priceUpdates, long batches, long elapsedNanos) {
+        this.ticks = ticks;
+        this.skippedTicks = skippedTicks;
+        this.priceUpdates = priceUpdates;
+        this.batches = batches;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // Wszystkie ticki z pliku (łącznie z pominiętymi)
+    public long getTicks() {
+        return ticks;
+    }
+
+    // Ticki dla symboli, których AssetResolver nie zna
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    // Faktyczne wywołania setMarketPrice (po scaleniu ticków w paczkach)
+    public long getPriceUpdates() {
+        return priceUpdates;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getTicksPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : ticks * 1e9 / elapsedNanos;
+    }
+}
\ No newline at end of file
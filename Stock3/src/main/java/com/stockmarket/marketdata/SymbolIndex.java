@@ -0,0 +1,107 @@
+package com.stockmarket.marketdata;
+
+import com.stockmarket.domain.Asset;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ Symbol (bajty z bufora) -> slot aktywa w PriceBatcher, bez tworzenia String na tick.
+
+ - tablica z adresowaniem otwartym (próbkowanie liniowe), klucze jako byte[],
+ - String i AssetResolver.resolve tylko przy pierwszym wystąpieniu symbolu,
+ - symbole nieznane też są zapamiętywane (slot -1), żeby nie pytać resolvera ponownie.
+ */
+final class SymbolIndex {
+    private final AssetResolver resolver;
+    private final PriceBatcher batcher;
+
+    private byte[][] keys = new byte[64][];
+    private int[] slots = new int[64];
+    private int size;
+
+    SymbolIndex(AssetResolver resolver, PriceBatcher batcher) {
+        this.resolver = resolver;
+        this.batcher = batcher;
+    }
+
+    // Slot dla symbolu z bufora [s, e) albo -1 dla nieznanego symbolu
+    int slotOf(ByteBuffer buf, int s, int e) {
+        int h = hash(buf, s, e);
+        int mask = keys.length - 1;
+        for (int i = h & mask; ; i = (i + 1) & mask) {
+            byte[] key = keys[i];
+            if (key == null) break;
+            if (matches(key, buf, s, e)) return slots[i];
+        }
+
+        byte[] key = new byte[e - s];
+        for (int k = 0; k < key.length; k++) {
+            key[k] = buf.get(s + k);
+        }
+        return add(key, h, resolve(new String(key, StandardCharsets.UTF_8)));
+    }
+
+    // Slot dla symbolu ze słownika pliku binarnego
+    int slotOf(String symbol) {
+        byte[] key = symbol.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.wrap(key);
+        return slotOf(buf, 0, key.length);
+    }
+
+    private int resolve(String symbol) {
+        Asset asset = resolver.resolve(symbol);
+        return asset == null ? -1 : batcher.slotFor(asset);
+    }
+
+    private int add(byte[] key, int h, int slot) {
+        if ((size + 1) * 2 > keys.length) rehash();
+        int mask = keys.length - 1;
+        int i = h & mask;
+        while (keys[i] != null) i = (i + 1) & mask;
+        keys[i] = key;
+        slots[i] = slot;
+        size++;
+        return slot;
+    }
+
+    private void rehash() {
+        byte[][] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new byte[oldKeys.length << 1][];
+        slots = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            byte[] key = oldKeys[j];
+            if (key == null) continue;
+            int i = hash(key) & mask;
+            while (keys[i] != null) i = (i + 1) & mask;
+            keys[i] = key;
+            slots[i] = oldSlots[j];
+        }
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer buf, int s, int e) {
+        if (key.length != e - s) return false;
+        for (int k = 0; k < key.length; k++) {
+            if (key[k] != buf.get(s + k)) return false;
+        }
+        return true;
+    }
+
+    private static int hash(ByteBuffer buf, int s, int e) {
+        int h = 0;
+        for (int i = s; i < e; i++) {
+            h = 31 * h + buf.get(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash(byte[] key) {
+        int h = 0;
+        for (int i = 0; i < key.length; i++) {
+            h = 31 * h + key[i];
+        }
+        return h ^ (h >>> 16);
+    }
+}
\ No newline at end of file
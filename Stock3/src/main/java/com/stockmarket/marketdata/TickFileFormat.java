@@ -0,0 +1,9 @@
+package com.stockmarket.marketdata;
+
+/**
+ Format pliku z notowaniami (tickami).
+ */
+public enum TickFileFormat {
+    TEXT,   // linie "epochMillis|SYMBOL|price" (czytelny dla człowieka)
+    BINARY  // słownik symboli + rekordy stałej długości (szybki odczyt)
+}
\ No newline at end of file
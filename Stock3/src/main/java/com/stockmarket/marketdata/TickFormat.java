@@ -0,0 +1,25 @@
+package com.stockmarket.marketdata;
+
+/**
+ Stałe formatów pliku z tickami.
+
+ Tekst (UTF-8):
+   TICKS
+   EPOCH_MILLIS|SYMBOL|PRICE     (jedna linia na tick, czas niemalejący)
+
+ Binarny (big-endian), wersja 1:
+ MAGIC(int) VERSION(short) SYMBOL_COUNT(int)
+ słownik symboli, SYMBOL_COUNT razy: LEN(short) SYMBOL(LEN bajtów UTF-8)
+ rekordy do końca pliku: EPOCH_MILLIS(long) SYMBOL_ID(int, indeks w słowniku) PRICE(double)
+ */
+public final class TickFormat {
+    private TickFormat() {}
+
+    public static final String TEXT_HEADER = "TICKS";
+    public static final String OUT_SEP = "|";
+
+    public static final int MAGIC = 0x5449434B;  // "TICK"
+    public static final short VERSION = 1;
+
+    public static final int RECORD_BYTES = 8 + 4 + 8; // epochMillis + symbolId + price
+}
\ No newline at end of file
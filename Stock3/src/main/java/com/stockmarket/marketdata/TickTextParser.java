@@ -0,0 +1,176 @@
+package com.stockmarket.marketdata;
+
+import com.stockmarket.domain.DataIntegrityException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ Parser tekstowego pliku ticków działający bezpośrednio na bajtach (np. MappedByteBuffer).
+
+ - linie i pola wyznaczane indeksami w buforze, symbol rozpoznawany przez SymbolIndex (bez String na tick),
+ - czas (long) i cena parsowane w miejscu; cena: szybka ścieżka [cyfry][.cyfry] do 15 cyfr znaczących
+   (wynik identyczny z Double.parseDouble), pozostałe zapisy przez Double.parseDouble,
+ - numer linii przechodzi między wywołaniami parse(), więc plik można podawać oknami zakończonymi na '\n'.
+
+ Błędy -> DataIntegrityException z numerem linii.
+ */
+final class TickTextParser {
+    private static final byte SEP = '|';
+    private static final byte NL = '\n';
+    private static final byte CR = '\r';
+
+    private static final byte[] HEADER = TickFormat.TEXT_HEADER.getBytes(StandardCharsets.US_ASCII);
+
+    // dokładne potęgi dziesięciu (mantysa < 10^15 i dzielnik 10^k, k <= 22 - dzielenie IEEE poprawnie zaokrągla)
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final int MAX_FAST_LONG_DIGITS = 18; // 10^18 < Long.MAX_VALUE
+
+    private final SymbolIndex symbols;
+    private final PriceBatcher batcher;
+
+    private boolean expectHeader = true;
+    private long lineNumber;
+
+    TickTextParser(SymbolIndex symbols, PriceBatcher batcher) {
+        this.symbols = symbols;
+        this.batcher = batcher;
+    }
+
+    void parse(ByteBuffer buf, int start, int end) {
+        int i = start;
+        while (i < end) {
+            int nl = indexOf(buf, NL, i, end);
+            int lineEnd = nl < 0 ? end : nl;
+            int le = lineEnd;
+            if (le > i && buf.get(le - 1) == CR) le--;
+
+            lineNumber++;
+            if (expectHeader) {
+                if (!equalsAscii(buf, i, le, HEADER)) throw error("Missing " + TickFormat.TEXT_HEADER + " header");
+                expectHeader = false;
+            } else if (le > i) {
+                parseTick(buf, i, le);
+            }
+            i = lineEnd + 1;
+        }
+    }
+
+    void finish() {
+        if (expectHeader) throw new DataIntegrityException("Empty tick file");
+    }
+
+    private void parseTick(ByteBuffer buf, int s, int e) {
+        int sep1 = indexOf(buf, SEP, s, e);
+        int sep2 = sep1 < 0 ? -1 : indexOf(buf, SEP, sep1 + 1, e);
+        if (sep2 < 0 || indexOf(buf, SEP, sep2 + 1, e) >= 0) {
+            throw error("Expected EPOCH_MILLIS|SYMBOL|PRICE: " + string(buf, s, e));
+        }
+        if (sep2 == sep1 + 1) throw error("Empty symbol: " + string(buf, s, e));
+
+        long timestamp = parseLong(buf, s, sep1, s, e);
+        int slot = symbols.slotOf(buf, sep1 + 1, sep2);
+        double price = parsePrice(buf, sep2 + 1, e, s, e);
+        batcher.tick(timestamp, slot, price);
+    }
+
+    private long parseLong(ByteBuffer buf, int s, int e, int ls, int le) {
+        int digits = e - s;
+        if (digits > 0 && digits <= MAX_FAST_LONG_DIGITS) {
+            long v = 0;
+            int i = s;
+            for (; i < e; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9) break;
+                v = v * 10 + d;
+            }
+            if (i == e) return v;
+        }
+
+        // ścieżka wolna - znak, długie liczby, błędy
+        String str = string(buf, s, e);
+        try {
+            return Long.parseLong(str);
+        } catch (NumberFormatException ex) {
+            throw error("Invalid timestamp: " + str + " in line: " + string(buf, ls, le), ex);
+        }
+    }
+
+    private double parsePrice(ByteBuffer buf, int s, int e, int ls, int le) {
+        long mantissa = 0;
+        int significant = 0;
+        int fraction = 0;
+        boolean anyDigit = false;
+        boolean fast = true;
+
+        int i = s;
+        for (; i < e; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) break;
+            anyDigit = true;
+            if (mantissa != 0 || d != 0) {
+                if (++significant > MAX_FAST_DIGITS) fast = false;
+                mantissa = mantissa * 10 + d;
+            }
+        }
+        if (i < e && buf.get(i) == '.') {
+            i++;
+            for (; i < e; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9) break;
+                anyDigit = true;
+                fraction++;
+                if (mantissa != 0 || d != 0) {
+                    if (++significant > MAX_FAST_DIGITS) fast = false;
+                    mantissa = mantissa * 10 + d;
+                }
+            }
+        }
+        if (fast && anyDigit && i == e && fraction < POW10.length) {
+            return mantissa / POW10[fraction];
+        }
+
+        // ścieżka wolna - wykładnik, długie mantysy, znak, błędy
+        String str = string(buf, s, e);
+        try {
+            return Double.parseDouble(str);
+        } catch (NumberFormatException ex) {
+            throw error("Invalid price: " + str + " in line: " + string(buf, ls, le), ex);
+        }
+    }
+
+    private DataIntegrityException error(String message) {
+        return new DataIntegrityException("Line " + lineNumber + ": " + message);
+    }
+
+    private DataIntegrityException error(String message, Throwable cause) {
+        return new DataIntegrityException("Line " + lineNumber + ": " + message, cause);
+    }
+
+    private static int indexOf(ByteBuffer buf, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == b) return i;
+        }
+        return -1;
+    }
+
+    private static boolean equalsAscii(ByteBuffer buf, int s, int e, byte[] expected) {
+        if (e - s != expected.length) return false;
+        for (int i = 0; i < expected.length; i++) {
+            if (buf.get(s + i) != expected[i]) return false;
+        }
+        return true;
+    }
+
+    private static String string(ByteBuffer buf, int s, int e) {
+        byte[] bytes = new byte[e - s];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buf.get(s + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.stockmarket.marketdata;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ Zapis pliku ticków (TEXT albo BINARY) - np. do przygotowania danych do backtestu.
+ - słownik symboli podawany z góry (w formacie binarnym trafia do nagłówka),
+ - czas ticków musi być niemalejący (tak jak wymaga odtwarzanie).
+ */
+public final class TickWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final TickFileFormat format;
+    private final Map<String, Integer> idsBySymbol;
+    private final Writer text;
+    private final DataOutputStream binary;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    private TickWriter(TickFileFormat format, Map<String, Integer> idsBySymbol, Writer text, DataOutputStream binary) {
+        this.format = format;
+        this.idsBySymbol = idsBySymbol;
+        this.text = text;
+        this.binary = binary;
+    }
+
+    public static TickWriter open(File file, TickFileFormat format, List<String> symbols) throws IOException {
+        if (file == null) throw new IllegalArgumentException("file cannot be null");
+        if (format == null) throw new IllegalArgumentException("format cannot be null");
+        if (symbols == null) throw new IllegalArgumentException("symbols cannot be null");
+
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < symbols.size(); i++) {
+            String symbol = symbols.get(i);
+            if (symbol == null || symbol.isEmpty()) throw new IllegalArgumentException("symbol cannot be null/empty");
+            if (symbol.indexOf('|') >= 0 || symbol.indexOf('\n') >= 0 || symbol.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("Invalid symbol: " + symbol);
+            }
+            if (ids.put(symbol, i) != null) throw new IllegalArgumentException("Duplicate symbol: " + symbol);
+        }
+
+        if (format == TickFileFormat.TEXT) {
+            Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE);
+            w.write(TickFormat.TEXT_HEADER);
+            w.write('\n');
+            return new TickWriter(format, ids, w, null);
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+        out.writeInt(TickFormat.MAGIC);
+        out.writeShort(TickFormat.VERSION);
+        out.writeInt(symbols.size());
+        for (int i = 0; i < symbols.size(); i++) {
+            byte[] bytes = symbols.get(i).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > Short.MAX_VALUE) throw new IllegalArgumentException("Symbol too long: " + symbols.get(i));
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+        return new TickWriter(format, ids, null, out);
+    }
+
+    public void write(long timestampMillis, String symbol, double price) throws IOException {
+        Integer id = idsBySymbol.get(symbol);
+        if (id == null) throw new IllegalArgumentException("Unknown symbol: " + symbol);
+        if (timestampMillis < lastTimestamp) throw new IllegalArgumentException("timestamps must be non-decreasing");
+        if (!(price >= 0) || Double.isInfinite(price)) throw new IllegalArgumentException("price must be finite and non-negative");
+        lastTimestamp = timestampMillis;
+
+        if (format == TickFileFormat.TEXT) {
+            text.write(Long.toString(timestampMillis));
+            text.write(TickFormat.OUT_SEP);
+            text.write(symbol);
+            text.write(TickFormat.OUT_SEP);
+            text.write(Double.toString(price));
+            text.write('\n');
+        } else {
+            binary.writeLong(timestampMillis);
+            binary.writeInt(id);
+            binary.writeDouble(price);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (text != null) text.close();
+        if (binary != null) binary.close();
+    }
+}
\ No newline at end of file
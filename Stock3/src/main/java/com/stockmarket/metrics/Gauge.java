@@ -0,0 +1,8 @@
+package com.stockmarket.metrics;
+
+/**
+ Wartość chwilowa (np. liczba partii, głębokość ksiąg) odczytywana dopiero przy snapshot().
+ */
+public interface Gauge {
+    long value();
+}
\ No newline at end of file
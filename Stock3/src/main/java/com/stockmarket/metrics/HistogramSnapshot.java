@@ -0,0 +1,68 @@
+package com.stockmarket.metrics;
+
+/**
+ Niezmienny odczyt histogramu (liczniki przedziałów + suma + maksimum).
+ */
+public final class HistogramSnapshot {
+    private final long count;
+    private final long sumNanos;
+    private final long maxNanos;
+    private final long[] buckets;
+
+    HistogramSnapshot(long count, long sumNanos, long maxNanos, long[] buckets) {
+        this.count = count;
+        this.sumNanos = sumNanos;
+        this.maxNanos = maxNanos;
+        this.buckets = buckets;
+    }
+
+    static HistogramSnapshot empty() {
+        return new HistogramSnapshot(0, 0, 0, new long[LatencyHistogram.BUCKETS]);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSumNanos() {
+        return sumNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getMeanNanos() {
+        return count == 0 ? 0.0 : (double) sumNanos / count;
+    }
+
+    public long getBucketCount(int bucket) {
+        return buckets[bucket];
+    }
+
+    /**
+     Przybliżony percentyl (0 < percentile <= 100): górna granica przedziału,
+     w którym wypada dana pozycja, ograniczona z góry przez maksimum.
+     */
+    public long getPercentileNanos(double percentile) {
+        if (!(percentile > 0 && percentile <= 100)) throw new IllegalArgumentException("percentile must be in (0, 100]");
+        if (count == 0) return 0;
+
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) return Math.min(LatencyHistogram.upperBoundOf(i), maxNanos);
+        }
+        return maxNanos;
+    }
+
+    // Suma dwóch odczytów (np. wszystkie typy aktywów jednej operacji)
+    HistogramSnapshot merge(HistogramSnapshot other) {
+        long[] merged = new long[buckets.length];
+        for (int i = 0; i < merged.length; i++) {
+            merged[i] = buckets[i] + other.buckets[i];
+        }
+        return new HistogramSnapshot(count + other.count, sumNanos + other.sumNanos, Math.max(maxNanos, other.maxNanos), merged);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.stockmarket.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ Histogram czasów w przedziałach potęg dwójki (log2):
+ przedział i obejmuje [2^(i-1), 2^i - 1] ns, przedział 0 to dokładnie 0 ns.
+
+ - zapis bez blokad: LongAdder na przedział (rozproszenie przy wielu wątkach),
+ - maksimum przez CAS tylko gdy nowa wartość jest większa (rzadko),
+ - dokładność percentyli: górna granica przedziału (błąd < 2x), wystarczająca do monitoringu.
+ */
+public final class LatencyHistogram {
+    static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets;
+    private final LongAdder sum;
+    private final AtomicLong max;
+
+    public LatencyHistogram() {
+        this.buckets = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+        this.sum = new LongAdder();
+        this.max = new AtomicLong();
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0; // nanoTime może się cofnąć między rdzeniami
+        buckets[bucketOf(nanos)].increment();
+        sum.add(nanos);
+
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos)) {
+            current = max.get();
+        }
+    }
+
+    static int bucketOf(long nanos) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    // Górna granica przedziału (w ns)
+    static long upperBoundOf(int bucket) {
+        if (bucket == 0) return 0;
+        if (bucket >= 63) return Long.MAX_VALUE;
+        return (1L << bucket) - 1;
+    }
+
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        return new HistogramSnapshot(count, sum.sum(), max.get(), counts);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i].reset();
+        }
+        sum.reset();
+        max.set(0);
+    }
+}
\ No newline at end of file
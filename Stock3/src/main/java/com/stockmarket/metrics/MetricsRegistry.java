@@ -0,0 +1,107 @@
+package com.stockmarket.metrics;
+
+import com.stockmarket.domain.AssetType;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ Rejestr metryk: histogramy czasów per operacja i typ aktywa + wskaźniki chwilowe (Gauge).
+
+ Wzorzec użycia w kodzie mierzonym:
+   long t0 = metrics.startTimer();
+   ... operacja ...
+   metrics.record(Operation.ACQUIRE, asset.getType(), t0);
+
+ Wyłączony rejestr (domyślnie) kosztuje jeden odczyt pola volatile na operację:
+ startTimer() zwraca 0 bez wywołania System.nanoTime(), a record() z t0 == 0 nic nie robi.
+ Rejestr globalny (global()) jest współdzielony przez Portfolio, PortfolioPersistence i ReportGenerator.
+ */
+public final class MetricsRegistry {
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final AssetType[] TYPES = AssetType.values();
+
+    // po OPERATIONS i TYPES - konstruktor z nich korzysta
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private volatile boolean enabled;
+
+    // [operacja][typ aktywa]; ostatnia kolumna dla operacji bez typu (zapis/odczyt pliku, raport)
+    private final LatencyHistogram[][] histograms;
+    private final Map<String, Gauge> gauges;
+
+    public MetricsRegistry() {
+        this.histograms = new LatencyHistogram[OPERATIONS.length][TYPES.length + 1];
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            for (int j = 0; j <= TYPES.length; j++) {
+                histograms[i][j] = new LatencyHistogram();
+            }
+        }
+        this.gauges = new ConcurrentHashMap<>();
+    }
+
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // Znacznik startu pomiaru (0, gdy rejestr jest wyłączony)
+    public long startTimer() {
+        if (!enabled) return 0L;
+        long now = System.nanoTime();
+        return now == 0L ? 1L : now; // 0 jest zarezerwowane dla "nie mierzymy"
+    }
+
+    /**
+     Zapisuje czas od startNanos do teraz. assetType == null -> operacja bez typu aktywa.
+     Operacje zakończone wyjątkiem nie są zapisywane (wywołanie po udanej operacji).
+     */
+    public void record(Operation operation, AssetType assetType, long startNanos) {
+        if (startNanos == 0L) return;
+        long elapsed = System.nanoTime() - startNanos;
+        histograms[operation.ordinal()][assetType == null ? TYPES.length : assetType.ordinal()].record(elapsed);
+    }
+
+    public void registerGauge(String name, Gauge gauge) {
+        if (name == null || name.trim().isEmpty()) throw new IllegalArgumentException("name cannot be null/empty");
+        if (gauge == null) throw new IllegalArgumentException("gauge cannot be null");
+        gauges.put(name, gauge);
+    }
+
+    public boolean unregisterGauge(String name) {
+        return gauges.remove(name) != null;
+    }
+
+    // Odczyt wszystkich metryk; wskaźniki Gauge są wywoływane w tym momencie
+    public MetricsSnapshot snapshot() {
+        HistogramSnapshot[][] copy = new HistogramSnapshot[OPERATIONS.length][TYPES.length + 1];
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            for (int j = 0; j <= TYPES.length; j++) {
+                copy[i][j] = histograms[i][j].snapshot();
+            }
+        }
+
+        Map<String, Long> gaugeValues = new TreeMap<>();
+        for (Map.Entry<String, Gauge> e : gauges.entrySet()) {
+            gaugeValues.put(e.getKey(), e.getValue().value());
+        }
+        return new MetricsSnapshot(copy, gaugeValues);
+    }
+
+    // Zeruje histogramy (wskaźniki Gauge zostają zarejestrowane)
+    public void reset() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            for (int j = 0; j <= TYPES.length; j++) {
+                histograms[i][j].reset();
+            }
+        }
+    }
+}
\ No newline at end of file
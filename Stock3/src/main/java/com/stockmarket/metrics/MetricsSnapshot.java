@@ -0,0 +1,40 @@
+package com.stockmarket.metrics;
+
+import com.stockmarket.domain.AssetType;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ Niezmienny odczyt rejestru metryk w jednej chwili.
+ */
+public final class MetricsSnapshot {
+    private static final int NO_TYPE = AssetType.values().length;
+
+    private final HistogramSnapshot[][] histograms; // [operacja][typ aktywa | bez typu]
+    private final Map<String, Long> gauges;          // posortowane po nazwie
+
+    MetricsSnapshot(HistogramSnapshot[][] histograms, Map<String, Long> gauges) {
+        this.histograms = histograms;
+        this.gauges = Collections.unmodifiableMap(gauges);
+    }
+
+    // Histogram operacji dla danego typu aktywa (null -> wywołania bez typu)
+    public HistogramSnapshot getHistogram(Operation operation, AssetType assetType) {
+        return histograms[operation.ordinal()][assetType == null ? NO_TYPE : assetType.ordinal()];
+    }
+
+    // Histogram operacji łącznie dla wszystkich typów
+    public HistogramSnapshot getTotal(Operation operation) {
+        HistogramSnapshot total = HistogramSnapshot.empty();
+        HistogramSnapshot[] row = histograms[operation.ordinal()];
+        for (int i = 0; i < row.length; i++) {
+            total = total.merge(row[i]);
+        }
+        return total;
+    }
+
+    public Map<String, Long> getGauges() {
+        return gauges;
+    }
+}
\ No newline at end of file
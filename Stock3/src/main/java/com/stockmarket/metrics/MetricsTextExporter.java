@@ -0,0 +1,64 @@
+package com.stockmarket.metrics;
+
+import com.stockmarket.domain.AssetType;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ Eksport snapshotu metryk do tekstu (separator '|', jak raporty i pliki portfela):
+
+ OPERATION|ASSET_TYPE|COUNT|MEAN_NS|P50_NS|P90_NS|P99_NS|MAX_NS
+ ACQUIRE|ALL|1200|850.5|1023|2047|4095|15321
+ ACQUIRE|SHARE|1000|...
+ GAUGE|NAME|VALUE
+ GAUGE|portfolio.lots|5400
+
+ Pomijane są wiersze bez pomiarów. Percentyle to górne granice przedziałów log2.
+ */
+public final class MetricsTextExporter {
+
+    public void write(MetricsSnapshot snapshot, Appendable out) throws IOException {
+        if (snapshot == null) throw new IllegalArgumentException("snapshot cannot be null");
+        if (out == null) throw new IllegalArgumentException("out cannot be null");
+
+        out.append("OPERATION|ASSET_TYPE|COUNT|MEAN_NS|P50_NS|P90_NS|P99_NS|MAX_NS\n");
+        for (Operation op : Operation.values()) {
+            HistogramSnapshot total = snapshot.getTotal(op);
+            if (total.getCount() == 0) continue;
+
+            row(out, op, "ALL", total);
+            for (AssetType type : AssetType.values()) {
+                HistogramSnapshot h = snapshot.getHistogram(op, type);
+                if (h.getCount() > 0) row(out, op, type.name(), h);
+            }
+        }
+
+        out.append("GAUGE|NAME|VALUE\n");
+        for (Map.Entry<String, Long> e : snapshot.getGauges().entrySet()) {
+            out.append("GAUGE|").append(e.getKey()).append('|').append(String.valueOf(e.getValue())).append('\n');
+        }
+    }
+
+    public String toText(MetricsSnapshot snapshot) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            write(snapshot, sb);
+        } catch (IOException e) {
+            throw new IllegalStateException("StringBuilder cannot throw IOException", e);
+        }
+        return sb.toString();
+    }
+
+    private void row(Appendable out, Operation op, String type, HistogramSnapshot h) throws IOException {
+        out.append(op.name()).append('|')
+                .append(type).append('|')
+                .append(String.valueOf(h.getCount())).append('|')
+                .append(String.valueOf(Math.round(h.getMeanNanos() * 10) / 10.0)).append('|')
+                .append(String.valueOf(h.getPercentileNanos(50))).append('|')
+                .append(String.valueOf(h.getPercentileNanos(90))).append('|')
+                .append(String.valueOf(h.getPercentileNanos(99))).append('|')
+                .append(String.valueOf(h.getMaxNanos()))
+                .append('\n');
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.stockmarket.metrics;
+
+/**
+ Operacje mierzone przez MetricsRegistry (enum).
+ */
+public enum Operation {
+    ACQUIRE,            // Portfolio.acquire
+    SELL,               // Portfolio.sell
+    SUBMIT_LIMIT_ORDER, // Portfolio.submitLimitOrder
+    SUBMIT_ORDER_BATCH, // Portfolio.submitLimitOrders (cały koszyk)
+    POLL_BEST_ORDER,    // Portfolio.pollBestOrder
+    SAVE,               // PortfolioPersistence.save
+    LOAD,               // PortfolioPersistence.load / loadMapped / loadParallel
+    REPORT              // ReportGenerator
+}
\ No newline at end of file
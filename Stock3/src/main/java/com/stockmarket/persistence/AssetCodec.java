@@ -0,0 +1,26 @@
+package com.stockmarket.persistence;
+
+import com.stockmarket.domain.*;
+
+/**
+ Wspólne dla formatów snapshotu odwzorowanie aktywa:
+ parametr specyficzny dla typu (EXTRA) <-> konkretna klasa aktywa.
+ */
+final class AssetCodec {
+    private AssetCodec() {}
+
+    // EXTRA: opłata manipulacyjna / spread / koszt magazynowania
+    static double extraOf(Asset a) {
+        if (a.getType() == AssetType.SHARE) return ((Share) a).getHandlingFee();
+        if (a.getType() == AssetType.CURRENCY) return ((Currency) a).getSpreadRate();
+        if (a.getType() == AssetType.COMMODITY) return ((Commodity) a).getStorageCostRate();
+        return 0.0;
+    }
+
+    static Asset build(AssetType type, String symbol, String name, double marketPrice, double extra) {
+        if (type == AssetType.SHARE) return new Share(symbol, name, marketPrice, extra);
+        if (type == AssetType.CURRENCY) return new Currency(symbol, name, marketPrice, extra);
+        if (type == AssetType.COMMODITY) return new Commodity(symbol, name, marketPrice, extra);
+        throw new DataIntegrityException("Unsupported type: " + type);
+    }
+}
\ No newline at end of file
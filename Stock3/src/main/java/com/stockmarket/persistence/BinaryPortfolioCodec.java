@@ -0,0 +1,165 @@
+package com.stockmarket.persistence;
+
+import com.stockmarket.domain.*;
+import com.stockmarket.logic.Portfolio;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Zapis/odczyt binarnego formatu snapshotu (opis układu w PortfolioBinaryFormat).
+ Liczby zapisywane są bezpośrednio (bez konwersji na tekst), daty jako epoch-day.
+ */
+final class BinaryPortfolioCodec {
+
+    void write(Portfolio portfolio, DataOutputStream out) throws IOException {
+        out.writeInt(PortfolioBinaryFormat.MAGIC);
+        out.writeShort(PortfolioBinaryFormat.VERSION);
+        out.writeDouble(portfolio.getCash());
+
+        // ta sama kolejność pozycji w słowniku i w sekcji partii
+        List<Position> positions = new ArrayList<>(portfolio.getPositionsView().values());
+
+        out.writeInt(positions.size());
+        for (int i = 0; i < positions.size(); i++) {
+            Position pos = positions.get(i);
+            Asset a = pos.getAsset();
+
+            out.writeByte(a.getType().ordinal());
+            out.writeUTF(a.getSymbol());
+            out.writeUTF(a.getName());
+            out.writeDouble(a.getMarketPrice());
+            out.writeDouble(AssetCodec.extraOf(a));
+            out.writeInt(pos.getTotalQuantity());
+            out.writeInt(pos.getLotCount());
+        }
+
+        // partie czytane wprost z pozycji (bez kopii PurchaseLot)
+        LotRecordWriter lotWriter = new LotRecordWriter(out);
+        for (int i = 0; i < positions.size(); i++) {
+            positions.get(i).forEachLot(lotWriter);
+            lotWriter.rethrow();
+        }
+    }
+
+    // Zapis rekordów LOT; IOException z visit() jest zapamiętywany i zgłaszany przez rethrow()
+    private static final class LotRecordWriter implements LotVisitor {
+        private final DataOutputStream out;
+        private IOException error;
+
+        LotRecordWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void visit(long epochDay, int quantity, double unitPrice) {
+            if (error != null) return;
+            try {
+                out.writeInt((int) epochDay);
+                out.writeInt(quantity);
+                out.writeDouble(unitPrice);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        void rethrow() throws IOException {
+            if (error != null) throw error;
+        }
+    }
+
+    /**
+     Zakłada, że MAGIC został już odczytany i sprawdzony przez wywołującego.
+     length - liczba bajtów pliku za MAGIC: liczniki z nagłówka i słownika są z nią porównywane przed alokacją,
+     więc uszkodzony licznik daje DataIntegrityException zamiast tablic na setki milionów elementów.
+     */
+    Portfolio read(DataInputStream in, long length) throws IOException {
+        try {
+            short version = in.readShort();
+            if (version != PortfolioBinaryFormat.VERSION) {
+                throw new DataIntegrityException("Unsupported binary snapshot version: " + version);
+            }
+
+            double cash = nonNegative(in.readDouble(), "cash", "HEADER");
+            Portfolio portfolio = new Portfolio(0.0);
+            portfolio.setCashForPersistence(cash);
+
+            int assetCount = in.readInt();
+            if (assetCount < 0) throw new DataIntegrityException("Invalid asset count: " + assetCount);
+            long bodyBytes = length - PortfolioBinaryFormat.HEADER_BYTES;
+            if ((long) assetCount * PortfolioBinaryFormat.MIN_ASSET_RECORD_BYTES > bodyBytes) {
+                throw new DataIntegrityException("Asset count " + assetCount + " exceeds snapshot size of " + length + " bytes");
+            }
+            // górna granica miejsca na partie: wszystko poza najkrótszym możliwym słownikiem
+            long lotBytesLeft = bodyBytes - (long) assetCount * PortfolioBinaryFormat.MIN_ASSET_RECORD_BYTES;
+
+            Position[] positions = new Position[assetCount];
+            int[] declaredQty = new int[assetCount];
+            int[] lotCount = new int[assetCount];
+
+            AssetType[] types = AssetType.values();
+            for (int i = 0; i < assetCount; i++) {
+                int ordinal = in.readUnsignedByte();
+                if (ordinal >= types.length) throw new DataIntegrityException("Invalid AssetType ordinal: " + ordinal);
+
+                String symbol = in.readUTF();
+                String name = in.readUTF();
+                double marketPrice = nonNegative(in.readDouble(), "marketPrice", symbol);
+                double extra = nonNegative(in.readDouble(), "extra", symbol);
+                declaredQty[i] = in.readInt();
+                lotCount[i] = in.readInt();
+                if (declaredQty[i] < 0) throw new DataIntegrityException("qty cannot be negative for " + symbol);
+                if (lotCount[i] < 0) throw new DataIntegrityException("lot count cannot be negative for " + symbol);
+                lotBytesLeft -= (long) lotCount[i] * PortfolioBinaryFormat.LOT_RECORD_BYTES;
+                if (lotBytesLeft < 0) {
+                    throw new DataIntegrityException("Lot count " + lotCount[i] + " for " + symbol + " exceeds snapshot size of " + length + " bytes");
+                }
+
+                positions[i] = new Position(buildAsset(types[ordinal], symbol, name, marketPrice, extra));
+            }
+
+            for (int i = 0; i < assetCount; i++) {
+                Position pos = positions[i];
+                long lotsQtySum = 0;
+                for (int j = 0; j < lotCount[i]; j++) {
+                    LocalDate date = LocalDate.ofEpochDay(in.readInt());
+                    int qty = in.readInt();
+                    double unitPrice = in.readDouble();
+                    if (qty <= 0) throw new DataIntegrityException("lotQty must be positive for " + pos.getAsset().getSymbol());
+                    nonNegative(unitPrice, "unitPrice", pos.getAsset().getSymbol());
+
+                    pos.addLot(date, qty, unitPrice);
+                    lotsQtySum += qty;
+                }
+                if (lotsQtySum != declaredQty[i]) {
+                    throw new DataIntegrityException("LOT quantity sum mismatch for " + pos.getAsset().getSymbol()
+                            + ". declared=" + declaredQty[i] + " lotsSum=" + lotsQtySum);
+                }
+                portfolio.putPositionForPersistence(pos);
+            }
+
+            if (in.read() != -1) throw new DataIntegrityException("Unexpected trailing data in binary snapshot");
+            return portfolio;
+        } catch (EOFException e) {
+            throw new DataIntegrityException("Truncated binary snapshot", e);
+        }
+    }
+
+    private Asset buildAsset(AssetType type, String symbol, String name, double marketPrice, double extra) {
+        try {
+            return AssetCodec.build(type, symbol, name, marketPrice, extra);
+        } catch (IllegalArgumentException e) {
+            throw new DataIntegrityException("Invalid ASSET record for " + symbol + ": " + e.getMessage(), e);
+        }
+    }
+
+    private double nonNegative(double v, String field, String context) {
+        if (!(v >= 0)) throw new DataIntegrityException(field + " cannot be negative for " + context);
+        return v;
+    }
+}
\ No newline at end of file
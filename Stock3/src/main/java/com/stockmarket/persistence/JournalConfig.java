@@ -0,0 +1,36 @@
+package com.stockmarket.persistence;
+
+/**
+ Ustawienia zapisu dziennika (PortfolioJournal).
+
+ - batchRecords: ile rekordów zbieramy w pamięci, zanim trafią do pliku jednym write (group commit),
+ - syncEveryBatches: co ile zapisanych paczek wykonujemy fsync (FileChannel.force);
+   0 = fsync tylko przy sync()/close().
+
+ Rekordy z niezapisanej paczki (i paczek bez fsync) mogą zginąć przy awarii -
+ to świadomy kompromis między trwałością a przepustowością.
+ */
+public final class JournalConfig {
+    // każdy rekord od razu trwały na dysku
+    public static final JournalConfig DURABLE = new JournalConfig(1, 1);
+
+    public static final JournalConfig DEFAULT = new JournalConfig(64, 1);
+
+    private final int batchRecords;
+    private final int syncEveryBatches;
+
+    public JournalConfig(int batchRecords, int syncEveryBatches) {
+        if (batchRecords <= 0) throw new IllegalArgumentException("batchRecords must be positive");
+        if (syncEveryBatches < 0) throw new IllegalArgumentException("syncEveryBatches cannot be negative");
+        this.batchRecords = batchRecords;
+        this.syncEveryBatches = syncEveryBatches;
+    }
+
+    public int getBatchRecords() {
+        return batchRecords;
+    }
+
+    public int getSyncEveryBatches() {
+        return syncEveryBatches;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.stockmarket.persistence;
+
+import com.stockmarket.domain.DataIntegrityException;
+import com.stockmarket.domain.Position;
+import com.stockmarket.logic.Portfolio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Loader formatu tekstowego oparty o FileChannel.map.
+
+ - plik jest mapowany oknami (MappedByteBuffer ma limit 2 GB), każde okno kończy się na '\n',
+ - rekordy ASSET/LOT parsowane są bezpośrednio z mapowanych bajtów (TextRecordParser),
+ - walidacja identyczna jak w PortfolioPersistence.load (m.in. suma LOT == QTY).
+ */
+final class MappedPortfolioLoader {
+    static final long DEFAULT_WINDOW = 1L << 30; // 1 GB
+
+    private final long window;
+
+    MappedPortfolioLoader() {
+        this(DEFAULT_WINDOW);
+    }
+
+    // Rozmiar okna konfigurowalny (testy granic okien)
+    MappedPortfolioLoader(long window) {
+        if (window <= 0 || window > Integer.MAX_VALUE) throw new IllegalArgumentException("window must be in (0, 2^31)");
+        this.window = window;
+    }
+
+    Portfolio load(File file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) throw new DataIntegrityException("Empty file");
+
+            List<Position> positions = new ArrayList<>();
+            TextRecordParser parser = new TextRecordParser(positions, true, 1);
+
+            long pos = 0;
+            while (pos < size) {
+                long len = Math.min(window, size - pos);
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+
+                int end = (int) len;
+                if (pos + len < size) {
+                    // okno nie jest ostatnie - tniemy na ostatniej pełnej linii
+                    end = lastNewline(buf, end) + 1;
+                    if (end == 0) throw new DataIntegrityException("Line longer than " + window + " bytes at offset " + pos);
+                }
+
+                parser.parse(buf, 0, end);
+                pos += end;
+            }
+            parser.finish();
+
+            Portfolio portfolio = new Portfolio(0.0);
+            portfolio.setCashForPersistence(parser.getCash());
+            for (int i = 0; i < positions.size(); i++) {
+                portfolio.putPositionForPersistence(positions.get(i));
+            }
+            return portfolio;
+        }
+    }
+
+    private static int lastNewline(MappedByteBuffer buf, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (buf.get(i) == '\n') return i;
+        }
+        return -1;
+    }
+}
\ No newline at end of file
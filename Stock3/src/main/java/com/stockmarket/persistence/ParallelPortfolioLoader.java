@@ -0,0 +1,232 @@
+package com.stockmarket.persistence;
+
+import com.stockmarket.domain.DataIntegrityException;
+import com.stockmarket.domain.Position;
+import com.stockmarket.logic.Portfolio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ Równoległy odczyt formatu tekstowego.
+
+ Blok ASSET + jego linie LOT da się sparsować niezależnie od reszty pliku, więc:
+ 1) plik dzielimy na fragmenty, których granice wypadają na początku linii "ASSET|",
+ 2) każdy fragment jest mapowany (FileChannel.map) i liczymy w nim linie (równolegle),
+ 3) z sum prefiksowych wynika numer pierwszej linii każdego fragmentu,
+ 4) fragmenty parsowane są równolegle na ForkJoinPool (TextRecordParser),
+ 5) pozycje scalane są do Portfolio w kolejności z pliku.
+
+ Błąd z najwcześniejszego uszkodzonego fragmentu jest zgłaszany z numerem linii liczonym od początku pliku.
+ */
+final class ParallelPortfolioLoader {
+    private static final long MAX_CHUNK = 1L << 30;        // limit pojedynczego mapowania
+    private static final long MIN_CHUNK = 1L << 20;        // mniejszych fragmentów nie opłaca się dzielić
+    private static final int CHUNKS_PER_THREAD = 4;        // zapas na nierówne fragmenty (work stealing)
+    private static final int SCAN_BUFFER = 1 << 16;
+
+    private static final byte[] ASSET_LINE = {'\n', 'A', 'S', 'S', 'E', 'T', '|'};
+
+    private final long minChunk;
+
+    ParallelPortfolioLoader() {
+        this(MIN_CHUNK);
+    }
+
+    // Minimalny rozmiar fragmentu konfigurowalny (testy na małych plikach)
+    ParallelPortfolioLoader(long minChunk) {
+        if (minChunk <= 0) throw new IllegalArgumentException("minChunk must be positive");
+        this.minChunk = minChunk;
+    }
+
+    Portfolio load(File file, ForkJoinPool pool) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) throw new DataIntegrityException("Empty file");
+
+            long[] bounds = split(ch, size, pool.getParallelism());
+            int n = bounds.length - 1;
+
+            // faza 1: mapowanie + liczenie linii
+            Chunk[] chunks = new Chunk[n];
+            List<MapTask> mapTasks = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                chunks[i] = new Chunk(i, bounds[i], bounds[i + 1]);
+                mapTasks.add(new MapTask(ch, chunks[i]));
+            }
+            joinAllInOrder(pool, mapTasks);
+
+            long line = 1;
+            for (int i = 0; i < n; i++) {
+                chunks[i].firstLine = line;
+                line += chunks[i].newlines;
+            }
+
+            // faza 2: parsowanie
+            List<ParseTask> parseTasks = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                parseTasks.add(new ParseTask(chunks[i]));
+            }
+            joinAllInOrder(pool, parseTasks);
+
+            // scalanie (Portfolio nie jest bezpieczne wątkowo - robimy to w jednym wątku)
+            Portfolio portfolio = new Portfolio(0.0);
+            portfolio.setCashForPersistence(chunks[0].cash);
+            for (int i = 0; i < n; i++) {
+                List<Position> positions = chunks[i].positions;
+                for (int j = 0; j < positions.size(); j++) {
+                    portfolio.putPositionForPersistence(positions.get(j));
+                }
+            }
+            return portfolio;
+        }
+    }
+
+    // --- Podział pliku ---
+
+    // Granice fragmentów: [0, b1, b2, ..., size], każda wewnętrzna granica to początek linii "ASSET|"
+    private long[] split(FileChannel ch, long size, int parallelism) throws IOException {
+        long wanted = Math.max(1, (long) parallelism * CHUNKS_PER_THREAD);
+        long chunkSize = Math.max(minChunk, (size + wanted - 1) / wanted);
+        chunkSize = Math.min(chunkSize, MAX_CHUNK);
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long last = 0;
+        while (true) {
+            long target = last + chunkSize;
+            if (target >= size) break;
+            long b = findAssetLine(ch, target, size);
+            if (b >= size) break;
+            if (b - last > Integer.MAX_VALUE) {
+                throw new DataIntegrityException("ASSET block too large to map starting at offset " + last);
+            }
+            bounds.add(b);
+            last = b;
+        }
+        if (size - last > Integer.MAX_VALUE) {
+            throw new DataIntegrityException("ASSET block too large to map starting at offset " + last);
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    // Pierwszy początek linii "ASSET|" na pozycji >= from (szukamy "\nASSET|" od from - 1) lub size
+    private long findAssetLine(FileChannel ch, long from, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(SCAN_BUFFER);
+        long pos = from - 1;
+        while (pos < size) {
+            buf.clear();
+            int read = ch.read(buf, pos);
+            if (read <= 0) break;
+
+            for (int i = 0; i + ASSET_LINE.length <= read; i++) {
+                if (matches(buf, i)) return pos + i + 1;
+            }
+            if (pos + read >= size) break;
+            // nakładka, żeby nie zgubić wzorca przeciętego granicą bufora
+            pos += read - (ASSET_LINE.length - 1);
+        }
+        return size;
+    }
+
+    private static boolean matches(ByteBuffer buf, int at) {
+        for (int k = 0; k < ASSET_LINE.length; k++) {
+            if (buf.get(at + k) != ASSET_LINE[k]) return false;
+        }
+        return true;
+    }
+
+    // Uruchamia wszystkie zadania i odbiera wyniki po kolei - zgłaszany jest błąd najwcześniejszego fragmentu
+    private static <T extends RecursiveTask<Void>> void joinAllInOrder(ForkJoinPool pool, List<T> tasks) {
+        for (int i = 0; i < tasks.size(); i++) {
+            pool.execute(tasks.get(i));
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).join();
+        }
+    }
+
+    // --- Fragment i zadania ---
+
+    private static final class Chunk {
+        final int index;
+        final long start;
+        final long end;
+
+        MappedByteBuffer buf;
+        long newlines;
+        long firstLine;
+
+        final List<Position> positions = new ArrayList<>();
+        double cash;
+
+        Chunk(int index, long start, long end) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final class MapTask extends RecursiveTask<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel ch;
+        private final Chunk chunk;
+
+        MapTask(FileChannel ch, Chunk chunk) {
+            this.ch = ch;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected Void compute() {
+            try {
+                int len = (int) (chunk.end - chunk.start);
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, chunk.start, len);
+                long count = 0;
+                for (int i = 0; i < len; i++) {
+                    if (buf.get(i) == '\n') count++;
+                }
+                chunk.buf = buf;
+                chunk.newlines = count;
+                return null;
+            } catch (IOException e) {
+                throw new DataIntegrityException("Cannot map file region at offset " + chunk.start, e);
+            }
+        }
+    }
+
+    private static final class ParseTask extends RecursiveTask<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final Chunk chunk;
+
+        ParseTask(Chunk chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected Void compute() {
+            // tylko pierwszy fragment zawiera HEADER
+            TextRecordParser parser = new TextRecordParser(chunk.positions, chunk.index == 0, chunk.firstLine);
+            parser.parse(chunk.buf, 0, chunk.buf.capacity());
+            parser.finish();
+            chunk.cash = parser.getCash();
+            return null;
+        }
+    }
+}
\ No newline at end of file
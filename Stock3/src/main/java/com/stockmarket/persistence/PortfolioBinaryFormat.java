@@ -0,0 +1,28 @@
+package com.stockmarket.persistence;
+
+/**
+ Stałe binarnego formatu snapshotu portfela (big-endian, DataOutputStream).
+
+ Układ pliku (wersja 1):
+ MAGIC(int) VERSION(short) CASH(double)
+ ASSET_COUNT(int)
+ słownik aktywów, ASSET_COUNT razy:
+   TYPE(byte, ordinal AssetType) SYMBOL(UTF) NAME(UTF) MARKET_PRICE(double) EXTRA(double) QTY(int) LOT_COUNT(int)
+ partie zakupowe, w kolejności słownika, LOT_COUNT razy dla każdego aktywa:
+   EPOCH_DAY(int) QTY(int) UNIT_PRICE(double)
+
+ Plik tekstowy zawsze zaczyna się od "HEADER", więc MAGIC jednoznacznie rozróżnia formaty.
+ */
+public final class PortfolioBinaryFormat {
+    private PortfolioBinaryFormat() {}
+
+    public static final int MAGIC = 0x50465342;  // "PFSB" - Portfolio Snapshot Binary
+    public static final short VERSION = 1;
+
+    public static final int LOT_RECORD_BYTES = 4 + 4 + 8; // epochDay + qty + unitPrice
+
+    // VERSION + CASH + ASSET_COUNT (po MAGIC)
+    static final int HEADER_BYTES = 2 + 8 + 4;
+    // najkrótszy rekord słownika: TYPE, SYMBOL (UTF, co najmniej 1 znak), pusty NAME, ceny, QTY, LOT_COUNT
+    static final int MIN_ASSET_RECORD_BYTES = 1 + (2 + 1) + 2 + 8 + 8 + 4 + 4;
+}
\ No newline at end of file
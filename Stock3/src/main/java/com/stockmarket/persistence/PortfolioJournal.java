@@ -0,0 +1,625 @@
+package com.stockmarket.persistence;
+
+import com.stockmarket.domain.*;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioListener;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ Dziennik zmian portfela (write-ahead journal) - uzupełnienie pełnego snapshotu.
+
+ Podpięty do portfela (attach) dopisuje zwięzły rekord
+ dla każdej udanej operacji: acquire, sell (FIFO/LIFO/HIFO i wskazana partia), registerAsset, submitLimitOrder, pollBestOrder,
+ cancelOrder/expireOrders, amendOrderQuantity, realizacje po zmianie ceny (setPriceTriggersEnabled), zmiany gotówki,
+ setLotCoalescing (scalanie zmienia id partii, do których odwołuje się SELL_LOT).
+ Realizacje z księgi nie są zapisywane osobno - odtworzenie zlecenia odtwarza je deterministycznie.
+
+ Układ pliku:
+ MAGIC (int) | VERSION (short) | rekordy...
+ rekord: LEN (int) | CRC32 treści (int) | treść (TYPE byte + pola)
+
+ Zapis:
+ - rekordy zbierane są w buforze i zapisywane paczkami (group commit, JournalConfig.batchRecords),
+ - fsync co JournalConfig.syncEveryBatches paczek oraz przy sync()/close(),
+ - błąd I/O w trakcie operacji portfela zgłaszany jest jako UncheckedIOException.
+
+ Odtwarzanie (recover): ostatni snapshot + rekordy dziennika. Urwany lub uszkodzony ogon
+ (niepełny rekord, zła suma CRC) kończy odtwarzanie - to ślad po awarii w trakcie zapisu.
+
+ Kompaktowanie (compact): nowy snapshot + nowy dziennik zawierający tylko zlecenia oczekujące
+ (snapshot ich nie przechowuje). Oba pliki powstają jako *.tmp; zamiana snapshotu jest punktem
+ zatwierdzenia, a recover dokańcza lub wycofuje przerwane kompaktowanie.
+ */
+public final class PortfolioJournal implements PortfolioListener, Closeable {
+    static final int MAGIC = 0x50464A31; // "PFJ1"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 6;
+
+    private static final int RECORD_HEADER_BYTES = 8;  // LEN + CRC
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // typy rekordów
+    static final byte ACQUIRE = 1;
+    static final byte SELL = 2;
+    static final byte REGISTER_ASSET = 3;
+    static final byte ORDER_SUBMIT = 4;
+    static final byte ORDER_POLL = 5;
+    static final byte CASH = 6;
+    static final byte ORDER_CANCEL = 7;
+    static final byte ORDER_AMEND = 8;
+    static final byte ORDER_TRIGGER = 9;
+    static final byte SELL_LOT = 10;
+    static final byte LOT_COALESCING = 11;
+
+    private final File file;
+    private final JournalConfig config;
+    private FileChannel channel;
+    private Portfolio portfolio; // portfel, do którego dziennik jest podpięty
+
+    private ByteBuffer record = ByteBuffer.allocate(256);        // treść bieżącego rekordu
+    private ByteBuffer batch = ByteBuffer.allocate(BUFFER_SIZE); // paczka czekająca na zapis
+    private final CRC32 crc = new CRC32();
+    private int pendingRecords;
+    private int unsyncedBatches;
+
+    private PortfolioJournal(File file, JournalConfig config, FileChannel channel) {
+        this.file = file;
+        this.config = config;
+        this.channel = channel;
+    }
+
+    /**
+     Otwiera dziennik do dopisywania (tworzy nowy, jeśli nie istnieje).
+     Urwany ogon po awarii jest obcinany, żeby nowe rekordy nie trafiły za uszkodzone bajty.
+     Przed otwarciem po awarii należy wywołać recover() - dokańcza ono przerwane kompaktowanie.
+     */
+    public static PortfolioJournal open(File file, JournalConfig config) throws IOException {
+        if (file == null) throw new IllegalArgumentException("file cannot be null");
+        if (config == null) throw new IllegalArgumentException("config cannot be null");
+        return new PortfolioJournal(file, config, openForAppend(file));
+    }
+
+    // Podpina dziennik do portfela - od tej chwili każda operacja portfela jest zapisywana
+    public void attach(Portfolio portfolio) {
+        if (portfolio == null) throw new IllegalArgumentException("portfolio cannot be null");
+        if (this.portfolio != null) throw new IllegalStateException("Journal is already attached");
+        this.portfolio = portfolio;
+        portfolio.addPortfolioListener(this);
+    }
+
+    // --- PortfolioListener ---
+
+    @Override
+    public void onAcquire(Asset asset, int quantity, LocalDate date, double unitPrice) {
+        beginRecord(ACQUIRE);
+        putAsset(asset);
+        ensureRecord(20);
+        record.putInt(quantity);
+        record.putLong(date.toEpochDay());
+        record.putDouble(unitPrice);
+        commitRecord();
+    }
+
+    @Override
+    public void onSell(Asset asset, int quantity, double sellUnitPrice, double realizedProfit, LotRelief relief) {
+        beginRecord(SELL);
+        putString(asset.getSymbol());
+        ensureRecord(13);
+        record.putInt(quantity);
+        record.putDouble(sellUnitPrice);
+        record.put((byte) relief.ordinal());
+        commitRecord();
+    }
+
+    @Override
+    public void onSellLot(Asset asset, long lotId, int quantity, double sellUnitPrice, double realizedProfit) {
+        // id partii są zgodne z odtworzonym portfelem: snapshot numeruje partie od 0, a compact() renumeruje żywy portfel
+        beginRecord(SELL_LOT);
+        putString(asset.getSymbol());
+        ensureRecord(20);
+        record.putLong(lotId);
+        record.putInt(quantity);
+        record.putDouble(sellUnitPrice);
+        commitRecord();
+    }
+
+    @Override
+    public void onAssetRegistered(Asset asset) {
+        beginRecord(REGISTER_ASSET);
+        putAsset(asset);
+        commitRecord();
+    }
+
+    @Override
+    public void onLimitOrderSubmitted(Order order) {
+        // cena aktywa w chwili złożenia - od niej zależy koszt rozliczenia realizacji przy odtwarzaniu
+        putOrder(order, order.getQuantity(), registeredPriceOf(order));
+        commitRecord();
+    }
+
+    @Override
+    public void onOrderPolled(Order order) {
+        // pollBestOrder jest deterministyczne - wystarczy sam typ rekordu
+        beginRecord(ORDER_POLL);
+        commitRecord();
+    }
+
+    @Override
+    public void onOrderCancelled(Order order) {
+        // anulowanie i wygaśnięcie odtwarzamy tak samo - po id zlecenia
+        beginRecord(ORDER_CANCEL);
+        record.putLong(order.getId());
+        commitRecord();
+    }
+
+    @Override
+    public void onOrderAmended(Order order, int newRemainingQuantity) {
+        beginRecord(ORDER_AMEND);
+        record.putLong(order.getId());
+        record.putInt(newRemainingQuantity);
+        commitRecord();
+    }
+
+    @Override
+    public void onOrderTriggered(Order order, double price) {
+        // rozliczenie jest już w dzienniku (ACQUIRE/SELL) - zostaje zdjęcie zlecenia z księgi
+        beginRecord(ORDER_TRIGGER);
+        record.putLong(order.getId());
+        commitRecord();
+    }
+
+    @Override
+    public void onCashSet(double cash) {
+        beginRecord(CASH);
+        record.putDouble(cash);
+        commitRecord();
+    }
+
+    @Override
+    public void onLotCoalescingSet(LotCoalescing coalescing) {
+        putLotCoalescing(coalescing);
+        commitRecord();
+    }
+
+    private void putLotCoalescing(LotCoalescing coalescing) {
+        beginRecord(LOT_COALESCING);
+        record.put((byte) (coalescing.isEnabled() ? 1 : 0));
+        record.putDouble(coalescing.getPriceTolerance());
+        record.putInt(coalescing.getDayBucket());
+    }
+
+    // --- Zapis paczek ---
+
+    // Zapisuje zebraną paczkę do pliku (fsync zgodnie z JournalConfig)
+    public void flush() throws IOException {
+        if (pendingRecords == 0 && batch.position() == 0) return;
+        writeBatch(channel);
+        pendingRecords = 0;
+        unsyncedBatches++;
+        if (config.getSyncEveryBatches() > 0 && unsyncedBatches >= config.getSyncEveryBatches()) {
+            channel.force(false);
+            unsyncedBatches = 0;
+        }
+    }
+
+    // Zapis + fsync niezależnie od konfiguracji
+    public void sync() throws IOException {
+        flush();
+        channel.force(false);
+        unsyncedBatches = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+            if (portfolio != null) portfolio.removePortfolioListener(this);
+        }
+    }
+
+    // --- Kompaktowanie ---
+
+    /**
+     Zwija dziennik do nowego snapshotu podpiętego portfela (format binarny):
+     1) snapshot.tmp <- stan portfela (fsync),
+     2) dziennik.tmp <- aktywa i zlecenia oczekujące w kolejności złożenia (fsync),
+     3) snapshot.tmp -> snapshot (punkt zatwierdzenia),
+     4) dziennik.tmp -> dziennik, dalsze rekordy dopisywane są do nowego dziennika.
+     */
+    public void compact(File snapshot) throws IOException {
+        if (portfolio == null) throw new IllegalStateException("Journal is not attached to a portfolio");
+        if (snapshot == null) throw new IllegalArgumentException("snapshot cannot be null");
+
+        flush();
+        File snapshotTmp = tempOf(snapshot);
+        File journalTmp = tempOf(file);
+
+        new PortfolioPersistence().save(portfolio, snapshotTmp, SnapshotFormat.BINARY);
+        try (FileChannel ch = FileChannel.open(snapshotTmp.toPath(), StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+
+        try (FileChannel ch = FileChannel.open(journalTmp.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeHeader(ch);
+            writeRestingOrders(portfolio, ch);
+            ch.force(true);
+        }
+
+        Files.move(snapshotTmp.toPath(), snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        // snapshot nie przechowuje id partii - po wczytaniu są numerowane od 0, więc żywy portfel też
+        // (kolejne rekordy SELL_LOT muszą wskazywać te same partie co w odtworzonym portfelu)
+        for (Position pos : portfolio.getPositionsView().values()) {
+            pos.renumberLots();
+        }
+
+        channel.close();
+        Files.move(journalTmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        channel = openForAppend(file);
+        unsyncedBatches = 0;
+    }
+
+    // Snapshot nie zawiera ksiąg zleceń ani scalania partii - przenosimy je (z aktywami bez pozycji) do nowego dziennika
+    private void writeRestingOrders(Portfolio portfolio, FileChannel ch) throws IOException {
+        if (portfolio.getLotCoalescing().isEnabled()) {
+            putLotCoalescing(portfolio.getLotCoalescing());
+            appendRecord(ch);
+        }
+
+        List<Order> resting = portfolio.getRestingOrders();
+        Set<String> registered = new HashSet<>();
+
+        for (int i = 0; i < resting.size(); i++) {
+            Order order = resting.get(i);
+            String symbol = order.getSymbol();
+            Asset asset = portfolio.getRegisteredAsset(symbol);
+            if (asset != null && !portfolio.getPositionsView().containsKey(symbol) && registered.add(symbol)) {
+                beginRecord(REGISTER_ASSET);
+                putAsset(asset);
+                appendRecord(ch);
+            }
+            putOrder(order, order.getRemainingQuantity(), asset == null ? Double.NaN : asset.getMarketPrice());
+            appendRecord(ch);
+        }
+        writeBatch(ch);
+    }
+
+    // --- Odtwarzanie ---
+
+    /**
+     Odtwarza portfel: snapshot (jeśli istnieje) + rekordy dziennika (jeśli istnieje).
+     Wcześniej dokańcza (lub wycofuje) kompaktowanie przerwane awarią.
+     */
+    public static Portfolio recover(File snapshot, File journal) throws IOException {
+        if (snapshot == null) throw new IllegalArgumentException("snapshot cannot be null");
+        if (journal == null) throw new IllegalArgumentException("journal cannot be null");
+
+        finishCompaction(snapshot, journal);
+
+        Portfolio portfolio = snapshot.exists() ? new PortfolioPersistence().load(snapshot) : new Portfolio(0.0);
+        if (journal.exists()) scan(journal, portfolio);
+        return portfolio;
+    }
+
+    private static void finishCompaction(File snapshot, File journal) throws IOException {
+        File snapshotTmp = tempOf(snapshot);
+        File journalTmp = tempOf(journal);
+
+        if (snapshotTmp.exists()) {
+            // awaria przed zatwierdzeniem - obowiązuje stary snapshot i stary dziennik
+            Files.deleteIfExists(snapshotTmp.toPath());
+            Files.deleteIfExists(journalTmp.toPath());
+        } else if (journalTmp.exists()) {
+            // nowy snapshot już obowiązuje - brakuje tylko podmiany dziennika
+            Files.move(journalTmp.toPath(), journal.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     Czyta rekordy aż do końca pliku lub pierwszego uszkodzonego rekordu.
+     Gdy target != null, rekordy są stosowane do portfela.
+     Zwraca przesunięcie końca poprawnej części pliku.
+     */
+    private static long scan(File journal, Portfolio target) throws IOException {
+        if (journal.length() < HEADER_BYTES) return 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal), BUFFER_SIZE))) {
+            int magic = in.readInt();
+            if (magic != MAGIC) throw new DataIntegrityException("Not a portfolio journal: " + journal);
+            short version = in.readShort();
+            if (version != VERSION) throw new DataIntegrityException("Unsupported journal version: " + version);
+
+            CRC32 crc = new CRC32();
+            byte[] payload = new byte[256];
+            long offset = HEADER_BYTES;
+            long index = 0;
+
+            while (true) {
+                int len;
+                int expectedCrc;
+                try {
+                    len = in.readInt();
+                    if (len <= 0 || len > MAX_RECORD_BYTES) break;
+                    expectedCrc = in.readInt();
+                    if (payload.length < len) payload = new byte[Math.max(len, payload.length * 2)];
+                    in.readFully(payload, 0, len);
+                } catch (EOFException e) {
+                    break; // urwany ogon
+                }
+
+                crc.reset();
+                crc.update(payload, 0, len);
+                if ((int) crc.getValue() != expectedCrc) break;
+
+                if (target != null) apply(target, ByteBuffer.wrap(payload, 0, len), index);
+                offset += RECORD_HEADER_BYTES + len;
+                index++;
+            }
+            return offset;
+        }
+    }
+
+    private static void apply(Portfolio portfolio, ByteBuffer r, long index) {
+        try {
+            byte type = r.get();
+            switch (type) {
+                case ACQUIRE: {
+                    Asset asset = readAsset(portfolio, r);
+                    int quantity = r.getInt();
+                    LocalDate date = LocalDate.ofEpochDay(r.getLong());
+                    portfolio.acquire(asset, quantity, date, r.getDouble());
+                    break;
+                }
+                case SELL: {
+                    String symbol = readString(r);
+                    int quantity = r.getInt();
+                    double price = r.getDouble();
+                    // rekordy sprzed LotRelief nie mają metody - zawsze FIFO
+                    LotRelief relief = r.hasRemaining() ? LotRelief.values()[r.get()] : LotRelief.FIFO;
+                    portfolio.sell(symbol, quantity, price, relief);
+                    break;
+                }
+                case SELL_LOT: {
+                    String symbol = readString(r);
+                    long lotId = r.getLong();
+                    int quantity = r.getInt();
+                    portfolio.sellLot(symbol, lotId, quantity, r.getDouble());
+                    break;
+                }
+                case REGISTER_ASSET:
+                    portfolio.registerAsset(readAsset(portfolio, r));
+                    break;
+                case ORDER_SUBMIT: {
+                    OrderType orderType = OrderType.values()[r.get()];
+                    AssetType assetType = AssetType.values()[r.get()];
+                    String symbol = readString(r);
+                    int quantity = r.getInt();
+                    double limitPrice = r.getDouble();
+                    double marketPrice = r.getDouble();
+                    LocalDateTime createdAt = LocalDate.ofEpochDay(r.getLong()).atStartOfDay().plusNanos(r.getLong());
+                    double registeredPrice = r.getDouble();
+
+                    Asset asset = portfolio.getRegisteredAsset(symbol);
+                    if (asset != null && !Double.isNaN(registeredPrice)) asset.setMarketPrice(registeredPrice);
+                    if (r.hasRemaining()) {
+                        // id i ważność zlecenia - cancel/amend w dalszej części dziennika odwołują się do id
+                        long id = r.getLong();
+                        TimeInForce timeInForce = TimeInForce.values()[r.get()];
+                        LocalDateTime expiresAt = timeInForce == TimeInForce.GTD
+                                ? LocalDate.ofEpochDay(r.getLong()).atStartOfDay().plusNanos(r.getLong())
+                                : null;
+                        portfolio.submitLimitOrderForPersistence(new Order(orderType, assetType, symbol, quantity, limitPrice,
+                                marketPrice, createdAt, id, timeInForce, expiresAt));
+                    } else {
+                        portfolio.submitLimitOrder(orderType, assetType, symbol, quantity, limitPrice, marketPrice, createdAt);
+                    }
+                    break;
+                }
+                case ORDER_POLL:
+                    if (portfolio.pollBestOrder() == null) throw new DataIntegrityException("No resting order to poll");
+                    break;
+                case ORDER_CANCEL: {
+                    long id = r.getLong();
+                    if (portfolio.cancelOrder(id) == null) throw new DataIntegrityException("No resting order to cancel: " + id);
+                    break;
+                }
+                case ORDER_AMEND: {
+                    long id = r.getLong();
+                    if (!portfolio.amendOrderQuantity(id, r.getInt())) throw new DataIntegrityException("No resting order to amend: " + id);
+                    break;
+                }
+                case ORDER_TRIGGER: {
+                    long id = r.getLong();
+                    if (portfolio.cancelOrder(id) == null) throw new DataIntegrityException("No resting order to trigger: " + id);
+                    break;
+                }
+                case CASH:
+                    portfolio.setCashForPersistence(r.getDouble());
+                    break;
+                case LOT_COALESCING: {
+                    boolean enabled = r.get() != 0;
+                    double priceTolerance = r.getDouble();
+                    int dayBucket = r.getInt();
+                    portfolio.setLotCoalescing(enabled ? LotCoalescing.within(priceTolerance, dayBucket) : LotCoalescing.NONE);
+                    break;
+                }
+                default:
+                    throw new DataIntegrityException("Unknown journal record type: " + type);
+            }
+        } catch (RuntimeException e) {
+            throw new DataIntegrityException("Cannot apply journal record #" + index, e);
+        }
+    }
+
+    // Aktywo znane portfelowi dostaje cenę z rekordu; nieznane jest tworzone z opisu
+    private static Asset readAsset(Portfolio portfolio, ByteBuffer r) {
+        AssetType type = AssetType.values()[r.get()];
+        String symbol = readString(r);
+        String name = readString(r);
+        double marketPrice = r.getDouble();
+        double extra = r.getDouble();
+
+        Asset known = portfolio.getRegisteredAsset(symbol);
+        if (known != null && known.getType() == type) {
+            known.setMarketPrice(marketPrice);
+            return known;
+        }
+        return AssetCodec.build(type, symbol, name, marketPrice, extra);
+    }
+
+    private static String readString(ByteBuffer r) {
+        int len = r.getInt();
+        if (len < 0 || len > r.remaining()) throw new DataIntegrityException("Invalid string length: " + len);
+        String s = new String(r.array(), r.arrayOffset() + r.position(), len, StandardCharsets.UTF_8);
+        r.position(r.position() + len);
+        return s;
+    }
+
+    // --- Kodowanie rekordów ---
+
+    private void beginRecord(byte type) {
+        record.clear();
+        record.put(type);
+    }
+
+    private void putAsset(Asset asset) {
+        ensureRecord(1);
+        record.put((byte) asset.getType().ordinal());
+        putString(asset.getSymbol());
+        putString(asset.getName());
+        ensureRecord(16);
+        record.putDouble(asset.getMarketPrice());
+        record.putDouble(AssetCodec.extraOf(asset));
+    }
+
+    private void putOrder(Order order, int quantity, double registeredPrice) {
+        beginRecord(ORDER_SUBMIT);
+        record.put((byte) order.getType().ordinal());
+        record.put((byte) order.getAssetType().ordinal());
+        putString(order.getSymbol());
+        ensureRecord(52);
+        record.putInt(quantity);
+        record.putDouble(order.getLimitPrice());
+        record.putDouble(order.getMarketPriceAtCreation());
+        record.putLong(order.getCreatedAt().toLocalDate().toEpochDay());
+        record.putLong(order.getCreatedAt().toLocalTime().toNanoOfDay());
+        record.putDouble(registeredPrice);
+        ensureRecord(25);
+        record.putLong(order.getId());
+        record.put((byte) order.getTimeInForce().ordinal());
+        if (order.getTimeInForce() == TimeInForce.GTD) {
+            record.putLong(order.getExpiresAt().toLocalDate().toEpochDay());
+            record.putLong(order.getExpiresAt().toLocalTime().toNanoOfDay());
+        }
+    }
+
+    private void putString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        ensureRecord(4 + bytes.length);
+        record.putInt(bytes.length);
+        record.put(bytes);
+    }
+
+    private void ensureRecord(int n) {
+        if (record.remaining() >= n) return;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(record.capacity() * 2, record.position() + n));
+        record.flip();
+        bigger.put(record);
+        record = bigger;
+    }
+
+    private double registeredPriceOf(Order order) {
+        Asset asset = portfolio == null ? null : portfolio.getRegisteredAsset(order.getSymbol());
+        return asset == null ? Double.NaN : asset.getMarketPrice();
+    }
+
+    // Rekord trafia do paczki; po batchRecords rekordach paczka jest zapisywana
+    private void commitRecord() {
+        try {
+            appendRecord(channel);
+            pendingRecords++;
+            if (pendingRecords >= config.getBatchRecords()) flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write portfolio journal " + file, e);
+        }
+    }
+
+    // Ramka LEN | CRC | treść w buforze paczki (przepełniona paczka jest najpierw zapisywana do target)
+    private void appendRecord(FileChannel target) throws IOException {
+        int len = record.position();
+        if (len > MAX_RECORD_BYTES) throw new IllegalArgumentException("Journal record too large: " + len + " bytes");
+
+        crc.reset();
+        crc.update(record.array(), 0, len);
+
+        int frame = RECORD_HEADER_BYTES + len;
+        if (batch.remaining() < frame) {
+            writeBatch(target);
+            if (batch.capacity() < frame) batch = ByteBuffer.allocate(frame);
+        }
+        batch.putInt(len);
+        batch.putInt((int) crc.getValue());
+        batch.put(record.array(), 0, len);
+    }
+
+    private void writeBatch(FileChannel target) throws IOException {
+        batch.flip();
+        while (batch.hasRemaining()) {
+            target.write(batch);
+        }
+        batch.clear();
+    }
+
+    // --- Pliki ---
+
+    private static FileChannel openForAppend(File file) throws IOException {
+        long validEnd = file.exists() ? scan(file, null) : 0;
+        FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (validEnd < HEADER_BYTES) {
+                ch.truncate(0);
+                writeHeader(ch);
+                ch.force(true);
+            } else {
+                ch.truncate(validEnd);
+                ch.position(validEnd);
+            }
+            return ch;
+        } catch (IOException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    private static void writeHeader(FileChannel ch) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC);
+        header.putShort(VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+            ch.write(header);
+        }
+    }
+
+    private static File tempOf(File file) {
+        return new File(file.getPath() + TEMP_SUFFIX);
+    }
+}
\ No newline at end of file
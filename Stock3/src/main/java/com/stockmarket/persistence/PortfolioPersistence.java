@@ -2,9 +2,11 @@ package com.stockmarket.persistence;
 
 import com.stockmarket.domain.*;
 import com.stockmarket.logic.Portfolio;
+import com.stockmarket.metrics.MetricsRegistry;
+import com.stockmarket.metrics.Operation;
 
 import java.io.*;
-import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  Moduł persystencji (I/O) portfela.
@@ -15,199 +17,129 @@ import java.time.LocalDate;
  LOT|2023-05-10|10|150.00
  LOT|2023-06-12|5|155.00
 
+ Drugi, wersjonowany format binarny (SnapshotFormat.BINARY, opis w PortfolioBinaryFormat)
+ przeznaczony jest dla dużych snapshotów. load() rozpoznaje format automatycznie po nagłówku.
+ Dla bardzo dużych plików tekstowych loadMapped() czyta plik przez FileChannel.map bez Stringów na linię,
+ a loadParallel() dodatkowo dzieli plik na granicach linii ASSET i parsuje fragmenty na wielu rdzeniach.
+
  Walidacja:
  - suma ilości w LOT musi się zgadzać z QTY zadeklarowanym w ASSET,
  - błędy formatu/parsowania -> DataIntegrityException.
  */
 public class PortfolioPersistence {
 
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final MetricsRegistry METRICS = MetricsRegistry.global();
+
+    private final PortfolioTextCodec textCodec = new PortfolioTextCodec();
+    private final BinaryPortfolioCodec binaryCodec = new BinaryPortfolioCodec();
+    private final MappedPortfolioLoader mappedLoader = new MappedPortfolioLoader();
+    private final ParallelPortfolioLoader parallelLoader = new ParallelPortfolioLoader();
+
+    // Zapis w formacie tekstowym (domyślny, czytelny dla człowieka)
     public void save(Portfolio portfolio, File file) throws IOException {
+        save(portfolio, file, SnapshotFormat.TEXT);
+    }
+
+    public void save(Portfolio portfolio, File file, SnapshotFormat format) throws IOException {
         if (portfolio == null) throw new IllegalArgumentException("portfolio cannot be null");
         if (file == null) throw new IllegalArgumentException("file cannot be null");
+        if (format == null) throw new IllegalArgumentException("format cannot be null");
+        long t0 = METRICS.startTimer();
 
-        // try-with-resources -> bezpieczne zamykanie zasobów
-        try (BufferedWriter w = new BufferedWriter(new FileWriter(file))) {
-            w.write(PortfolioFileFormat.HEADER + PortfolioFileFormat.OUT_SEP + PortfolioFileFormat.CASH + PortfolioFileFormat.OUT_SEP + portfolio.getCash());
-            w.newLine();
-
-            for (Position pos : portfolio.getPositionsView().values()) {
-                Asset a = pos.getAsset();
-                int qty = pos.getTotalQuantity();
-
-                // EXTRA: parametr specyficzny dla typu (fee/spread/storageRate)
-                String extra = buildExtra(a);
-
-                // ASSET|TYPE|SYMBOL|NAME|MARKET_PRICE|QTY|EXTRA
-                w.write(PortfolioFileFormat.ASSET + PortfolioFileFormat.OUT_SEP
-                        + a.getType() + PortfolioFileFormat.OUT_SEP
-                        + a.getSymbol() + PortfolioFileFormat.OUT_SEP
-                        + escape(a.getName()) + PortfolioFileFormat.OUT_SEP
-                        + a.getMarketPrice() + PortfolioFileFormat.OUT_SEP
-                        + qty + PortfolioFileFormat.OUT_SEP
-                        + extra);
-                w.newLine();
-
-                // LOT|DATE|QTY|UNIT_PRICE (każda partia zakupowa osobno)
-                for (PurchaseLot lot : pos.getLotsSnapshot()) {
-                    w.write(PortfolioFileFormat.LOT + PortfolioFileFormat.OUT_SEP
-                            + lot.getDate() + PortfolioFileFormat.OUT_SEP
-                            + lot.getQuantity() + PortfolioFileFormat.OUT_SEP
-                            + lot.getUnitPrice());
-                    w.newLine();
-                }
+        if (format == SnapshotFormat.BINARY) {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+                binaryCodec.write(portfolio, out);
+            }
+        } else {
+            // try-with-resources -> bezpieczne zamykanie zasobów
+            try (Writer w = new FileWriter(file)) {
+                textCodec.write(portfolio, w);
             }
         }
+        METRICS.record(Operation.SAVE, null, t0);
     }
 
-    public Portfolio load(File file) throws IOException {
+    // Rozpoznaje format pliku po pierwszych 4 bajtach (MAGIC formatu binarnego)
+    public SnapshotFormat detectFormat(File file) throws IOException {
         if (file == null) throw new IllegalArgumentException("file cannot be null");
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return readMagic(in) == PortfolioBinaryFormat.MAGIC ? SnapshotFormat.BINARY : SnapshotFormat.TEXT;
+        }
+    }
 
-        try (BufferedReader r = new BufferedReader(new FileReader(file))) {
-            String line = r.readLine();
-            if (line == null) throw new DataIntegrityException("Empty file");
-
-            double cash = parseHeader(line);
-            Portfolio portfolio = new Portfolio(0.0);
-            portfolio.setCashForPersistence(cash);
-
-            Position currentPosition = null;
-            String currentSymbol = null;
-
-            int declaredQty = 0; // ilość zadeklarowana w ASSET
-            int lotsQtySum = 0;  // suma ilości z linii LOT
-
-            while ((line = r.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-
-                String[] parts = line.split(PortfolioFileFormat.SEP, -1);
-                String tag = parts[0];
-
-                if (PortfolioFileFormat.ASSET.equals(tag)) {
-                    // Zanim zaczniemy nowy ASSET, walidujemy poprzedni
-                    if (currentPosition != null) {
-                        if (lotsQtySum != declaredQty) {
-                            throw new DataIntegrityException("LOT quantity sum mismatch for " + currentSymbol
-                                    + ". declared=" + declaredQty + " lotsSum=" + lotsQtySum);
-                        }
-                    }
-
-                    // ASSET|TYPE|SYMBOL|NAME|MARKET_PRICE|QTY|EXTRA
-                    if (parts.length != 7) {
-                        throw new DataIntegrityException("Invalid ASSET line (expected 7 fields): " + line);
-                    }
-
-                    AssetType type = parseAssetType(parts[1], line);
-                    String symbol = parts[2];
-                    String name = unescape(parts[3]);
-                    double marketPrice = parseDouble(parts[4], "marketPrice", line);
-                    declaredQty = parseInt(parts[5], "qty", line);
-                    String extra = parts[6];
-
-                    Asset asset = buildAsset(type, symbol, name, marketPrice, extra);
-
-                    currentPosition = new Position(asset);
-                    portfolio.putPositionForPersistence(currentPosition);
-
-                    currentSymbol = symbol;
-                    lotsQtySum = 0;
-
-                } else if (PortfolioFileFormat.LOT.equals(tag)) {
-                    // LOT musi wystąpić po ASSET (inaczej błąd formatu)
-                    if (currentPosition == null) throw new DataIntegrityException("LOT without ASSET context: " + line);
-                    if (parts.length != 4) throw new DataIntegrityException("Invalid LOT line (expected 4 fields): " + line);
-
-                    LocalDate date = parseDate(parts[1], line);
-                    int qty = parseInt(parts[2], "lotQty", line);
-                    double unitPrice = parseDouble(parts[3], "unitPrice", line);
-
-                    currentPosition.addLot(date, qty, unitPrice);
-                    lotsQtySum += qty;
-
-                } else {
-                    throw new DataIntegrityException("Unknown line tag: " + tag);
-                }
-            }
-
-            // walidacja ostatniego aktywa
-            if (currentPosition != null) {
-                if (lotsQtySum != declaredQty) {
-                    throw new DataIntegrityException("LOT quantity sum mismatch for " + currentSymbol
-                            + ". declared=" + declaredQty + " lotsSum=" + lotsQtySum);
-                }
+    public Portfolio load(File file) throws IOException {
+        if (file == null) throw new IllegalArgumentException("file cannot be null");
+        long t0 = METRICS.startTimer();
+
+        Portfolio portfolio;
+        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+            in.mark(4);
+            if (readMagic(new DataInputStream(in)) == PortfolioBinaryFormat.MAGIC) {
+                portfolio = binaryCodec.read(new DataInputStream(in), file.length() - 4);
+            } else {
+                in.reset();
+                portfolio = textCodec.read(in);
             }
-
-            return portfolio;
         }
+        METRICS.record(Operation.LOAD, null, t0);
+        return portfolio;
     }
 
-    // --- Helpers ---
+    /**
+     Odczyt przez mapowanie pliku w pamięć (FileChannel.map) - dla wielogigabajtowych snapshotów.
+     Rekordy tekstowe parsowane są wprost z bajtów, błędy zawierają numer linii.
+     Plik binarny jest czytany tak jak w load().
+     */
+    public Portfolio loadMapped(File file) throws IOException {
+        if (file == null) throw new IllegalArgumentException("file cannot be null");
+        if (detectFormat(file) == SnapshotFormat.BINARY) return load(file);
 
-    private double parseHeader(String line) {
-        String[] parts = line.split(PortfolioFileFormat.SEP, -1);
-        if (parts.length != 3) throw new DataIntegrityException("Invalid HEADER line: " + line);
-        if (!PortfolioFileFormat.HEADER.equals(parts[0])) throw new DataIntegrityException("Missing HEADER: " + line);
-        if (!PortfolioFileFormat.CASH.equals(parts[1])) throw new DataIntegrityException("Missing CASH header: " + line);
-        return parseDouble(parts[2], "cash", line);
+        long t0 = METRICS.startTimer();
+        Portfolio portfolio = mappedLoader.load(file);
+        METRICS.record(Operation.LOAD, null, t0);
+        return portfolio;
     }
 
-    private AssetType parseAssetType(String s, String line) {
-        try {
-            return AssetType.valueOf(s);
-        } catch (Exception e) {
-            throw new DataIntegrityException("Invalid AssetType: " + s + " in line: " + line, e);
-        }
-    }
+    // Równoległy odczyt na wspólnej puli ForkJoinPool.commonPool()
+    public Portfolio loadParallel(File file) throws IOException {
+        if (file == null) throw new IllegalArgumentException("file cannot be null");
+        if (detectFormat(file) == SnapshotFormat.BINARY) return load(file);
 
-    private int parseInt(String s, String field, String line) {
-        try {
-            int v = Integer.parseInt(s);
-            if (v < 0) throw new DataIntegrityException(field + " cannot be negative in line: " + line);
-            return v;
-        } catch (NumberFormatException e) {
-            throw new DataIntegrityException("Invalid int for " + field + ": " + s + " in line: " + line, e);
-        }
+        long t0 = METRICS.startTimer();
+        Portfolio portfolio = parallelLoader.load(file, ForkJoinPool.commonPool());
+        METRICS.record(Operation.LOAD, null, t0);
+        return portfolio;
     }
 
-    private double parseDouble(String s, String field, String line) {
+    /**
+     Równoległy odczyt na dedykowanej puli o zadanej liczbie wątków.
+     Fragmenty pliku (granice na liniach ASSET) parsowane są niezależnie, a pozycje scalane
+     w kolejności z pliku. Błędy zawierają numer linii liczony od początku pliku.
+     */
+    public Portfolio loadParallel(File file, int parallelism) throws IOException {
+        if (file == null) throw new IllegalArgumentException("file cannot be null");
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be positive");
+        if (detectFormat(file) == SnapshotFormat.BINARY) return load(file);
+
+        long t0 = METRICS.startTimer();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Portfolio portfolio;
         try {
-            double v = Double.parseDouble(s);
-            if (v < 0) throw new DataIntegrityException(field + " cannot be negative in line: " + line);
-            return v;
-        } catch (NumberFormatException e) {
-            throw new DataIntegrityException("Invalid double for " + field + ": " + s + " in line: " + line, e);
+            portfolio = parallelLoader.load(file, pool);
+        } finally {
+            pool.shutdown();
         }
+        METRICS.record(Operation.LOAD, null, t0);
+        return portfolio;
     }
 
-    private LocalDate parseDate(String s, String line) {
+    // Pierwsze 4 bajty jako int lub -1, gdy plik jest krótszy
+    private int readMagic(DataInputStream in) throws IOException {
         try {
-            return LocalDate.parse(s);
-        } catch (Exception e) {
-            throw new DataIntegrityException("Invalid date: " + s + " in line: " + line, e);
+            return in.readInt();
+        } catch (EOFException e) {
+            return -1;
         }
     }
-
-    private Asset buildAsset(AssetType type, String symbol, String name, double marketPrice, String extra) {
-        // EXTRA to 1 liczba w zależności od typu
-        double x = parseDouble(extra, "extra", "ASSET extra");
-        if (type == AssetType.SHARE) return new Share(symbol, name, marketPrice, x);
-        if (type == AssetType.CURRENCY) return new Currency(symbol, name, marketPrice, x);
-        if (type == AssetType.COMMODITY) return new Commodity(symbol, name, marketPrice, x);
-        throw new DataIntegrityException("Unsupported type: " + type);
-    }
-
-    private String buildExtra(Asset a) {
-        if (a.getType() == AssetType.SHARE) return String.valueOf(((Share) a).getHandlingFee());
-        if (a.getType() == AssetType.CURRENCY) return String.valueOf(((Currency) a).getSpreadRate());
-        if (a.getType() == AssetType.COMMODITY) return String.valueOf(((Commodity) a).getStorageCostRate());
-        return "0";
-    }
-
-    // escape, żeby '|' nie psuł formatu
-    private String escape(String s) {
-        return s.replace("|", "/");
-    }
-
-    private String unescape(String s) {
-        return s;
-    }
 }
\ No newline at end of file
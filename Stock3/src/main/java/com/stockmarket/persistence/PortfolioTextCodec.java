@@ -0,0 +1,274 @@
+package com.stockmarket.persistence;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.DataIntegrityException;
+import com.stockmarket.domain.LotVisitor;
+import com.stockmarket.domain.Position;
+import com.stockmarket.logic.Portfolio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Ręcznie napisany kodek formatu tekstowego (HEADER/ASSET/LOT).
+
+ Zapis:
+ - linie składane są w jednym buforze char[] (bez konkatenacji Stringów),
+ - int i data ISO (rok 0..9999) zapisywane cyfra po cyfrze,
+ - double: szybka ścieżka dla wartości całkowitych, pozostałe przez StringBuilder.append(double)
+   (ten sam algorytm co String.valueOf) - plik jest bajt w bajt taki sam jak z konkatenacji.
+
+ Odczyt:
+ - plik czytany blokami do bufora byte[], który jest przesuwany/powiększany tylko gdy linia się nie mieści,
+ - pełne linie parsowane są w miejscu przez TextRecordParser (bez split i bez String na linię).
+
+ Bufory są zakładane raz na plik i używane dla wszystkich linii - instancja PortfolioPersistence
+ pozostaje bezstanowa i może być używana z wielu wątków.
+ */
+final class PortfolioTextCodec {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // --- Zapis ---
+
+    void write(Portfolio portfolio, Writer out) throws IOException {
+        LineWriter w = new LineWriter(out);
+        LotLineWriter lotWriter = new LotLineWriter(w);
+
+        w.text(PortfolioFileFormat.HEADER).sep().text(PortfolioFileFormat.CASH).sep().decimal(portfolio.getCash()).newLine();
+
+        for (Position pos : portfolio.getPositionsView().values()) {
+            Asset a = pos.getAsset();
+
+            // ASSET|TYPE|SYMBOL|NAME|MARKET_PRICE|QTY|EXTRA
+            w.text(PortfolioFileFormat.ASSET).sep()
+                    .text(a.getType().name()).sep()
+                    .text(a.getSymbol()).sep()
+                    .escaped(a.getName()).sep()
+                    .decimal(a.getMarketPrice()).sep()
+                    .integer(pos.getTotalQuantity()).sep()
+                    .decimal(AssetCodec.extraOf(a))
+                    .newLine();
+
+            // LOT|DATE|QTY|UNIT_PRICE (każda partia zakupowa osobno)
+            pos.forEachLot(lotWriter);
+            lotWriter.rethrow();
+        }
+        w.flush();
+    }
+
+    // Linie LOT wprost z pozycji; IOException z visit() jest zapamiętywany i zgłaszany przez rethrow()
+    private static final class LotLineWriter implements LotVisitor {
+        private final LineWriter w;
+        private IOException error;
+
+        LotLineWriter(LineWriter w) {
+            this.w = w;
+        }
+
+        @Override
+        public void visit(long epochDay, int quantity, double unitPrice) {
+            if (error != null) return;
+            try {
+                w.text(PortfolioFileFormat.LOT).sep()
+                        .date(LocalDate.ofEpochDay(epochDay)).sep()
+                        .integer(quantity).sep()
+                        .decimal(unitPrice)
+                        .newLine();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        void rethrow() throws IOException {
+            if (error != null) throw error;
+        }
+    }
+
+    /**
+     Bufor linii wyjściowej. Znaki trafiają do char[] i są oddawane do Writer blokami.
+     */
+    static final class LineWriter {
+        private static final String LINE_SEPARATOR = System.lineSeparator(); // jak BufferedWriter.newLine()
+        private static final double MAX_FAST_INTEGRAL = 1e7; // od 10^7 Double.toString przechodzi na zapis z E
+
+        private final Writer out;
+        private final char[] buf = new char[BUFFER_SIZE];
+        private int pos;
+
+        private final StringBuilder number = new StringBuilder(32); // wielokrotnego użytku dla double
+
+        LineWriter(Writer out) {
+            this.out = out;
+        }
+
+        LineWriter text(String s) throws IOException {
+            int len = s.length();
+            if (len > buf.length) {
+                // wartość dłuższa niż cały bufor - oddajemy bufor i piszemy wprost
+                out.write(buf, 0, pos);
+                pos = 0;
+                out.write(s);
+                return this;
+            }
+            ensure(len);
+            s.getChars(0, len, buf, pos);
+            pos += len;
+            return this;
+        }
+
+        // '|' w wartości zepsułby format - zamieniamy na '/'
+        LineWriter escaped(String s) throws IOException {
+            int len = s.length();
+            if (len > buf.length) return text(s.replace('|', '/'));
+            ensure(len);
+            for (int i = 0; i < len; i++) {
+                char c = s.charAt(i);
+                buf[pos++] = c == '|' ? '/' : c;
+            }
+            return this;
+        }
+
+        LineWriter sep() throws IOException {
+            ensure(1);
+            buf[pos++] = '|';
+            return this;
+        }
+
+        LineWriter newLine() throws IOException {
+            return text(LINE_SEPARATOR);
+        }
+
+        LineWriter integer(long v) throws IOException {
+            if (v == Long.MIN_VALUE) return text(String.valueOf(v));
+            ensure(20);
+            if (v < 0) {
+                buf[pos++] = '-';
+                v = -v;
+            }
+            int digits = 1;
+            for (long t = v; t >= 10; t /= 10) digits++;
+            for (int i = pos + digits - 1; i >= pos; i--) {
+                buf[i] = (char) ('0' + (v % 10));
+                v /= 10;
+            }
+            pos += digits;
+            return this;
+        }
+
+        // Identycznie jak LocalDate.toString(); szybka ścieżka dla lat 0..9999
+        LineWriter date(LocalDate d) throws IOException {
+            int y = d.getYear();
+            if (y < 0 || y > 9999) return text(d.toString());
+            ensure(10);
+            put4(y);
+            buf[pos++] = '-';
+            put2(d.getMonthValue());
+            buf[pos++] = '-';
+            put2(d.getDayOfMonth());
+            return this;
+        }
+
+        // Identycznie jak String.valueOf(double)
+        LineWriter decimal(double v) throws IOException {
+            double abs = Math.abs(v);
+            if (abs >= 1.0 && abs < MAX_FAST_INTEGRAL && abs == Math.rint(abs)) {
+                integer((long) v);
+                return text(".0");
+            }
+            if (v == 0.0) {
+                return text(Double.doubleToRawLongBits(v) == 0L ? "0.0" : "-0.0");
+            }
+            number.setLength(0);
+            number.append(v);
+            int len = number.length();
+            ensure(len);
+            number.getChars(0, len, buf, pos);
+            pos += len;
+            return this;
+        }
+
+        void flush() throws IOException {
+            out.write(buf, 0, pos);
+            pos = 0;
+            out.flush();
+        }
+
+        private void put4(int v) {
+            buf[pos++] = (char) ('0' + v / 1000);
+            buf[pos++] = (char) ('0' + (v / 100) % 10);
+            buf[pos++] = (char) ('0' + (v / 10) % 10);
+            buf[pos++] = (char) ('0' + v % 10);
+        }
+
+        private void put2(int v) {
+            buf[pos++] = (char) ('0' + v / 10);
+            buf[pos++] = (char) ('0' + v % 10);
+        }
+
+        // Zapewnia miejsce na n znaków (n <= rozmiar bufora), w razie potrzeby opróżnia bufor
+        private void ensure(int n) throws IOException {
+            if (pos + n <= buf.length) return;
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
+
+    // --- Odczyt ---
+
+    Portfolio read(InputStream in) throws IOException {
+        List<Position> positions = new ArrayList<>();
+        TextRecordParser parser = new TextRecordParser(positions, true, 1);
+
+        byte[] buf = new byte[BUFFER_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(buf); // widok odtwarzany tylko po powiększeniu bufora
+        int filled = 0;
+        boolean any = false;
+
+        while (true) {
+            if (filled == buf.length) {
+                // linia dłuższa niż bufor - powiększamy
+                byte[] bigger = new byte[buf.length * 2];
+                System.arraycopy(buf, 0, bigger, 0, filled);
+                buf = bigger;
+                view = ByteBuffer.wrap(buf);
+            }
+
+            int n = in.read(buf, filled, buf.length - filled);
+            if (n < 0) break;
+            any = true;
+            int scanFrom = filled;
+            filled += n;
+
+            int lastNl = -1;
+            for (int i = filled - 1; i >= scanFrom; i--) {
+                if (buf[i] == '\n') {
+                    lastNl = i;
+                    break;
+                }
+            }
+            if (lastNl < 0) continue;
+
+            // parsujemy pełne linie, niepełną resztę przesuwamy na początek bufora
+            parser.parse(view, 0, lastNl + 1);
+            int rest = filled - (lastNl + 1);
+            System.arraycopy(buf, lastNl + 1, buf, 0, rest);
+            filled = rest;
+        }
+
+        if (!any) throw new DataIntegrityException("Empty file");
+        if (filled > 0) parser.parse(view, 0, filled);
+        parser.finish();
+
+        Portfolio portfolio = new Portfolio(0.0);
+        portfolio.setCashForPersistence(parser.getCash());
+        for (int i = 0; i < positions.size(); i++) {
+            portfolio.putPositionForPersistence(positions.get(i));
+        }
+        return portfolio;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.stockmarket.persistence;
+
+/**
+ Format pliku ze stanem portfela.
+ */
+public enum SnapshotFormat {
+    TEXT,   // format tekstowy z separatorem '|' (czytelny dla człowieka)
+    BINARY  // wersjonowany format binarny (duże snapshoty, szybki odczyt)
+}
\ No newline at end of file
@@ -0,0 +1,405 @@
+package com.stockmarket.persistence;
+
+import com.stockmarket.domain.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ Parser formatu tekstowego działający bezpośrednio na bajtach (ByteBuffer, np. MappedByteBuffer).
+
+ - linie i pola wyznaczane są przez indeksy w buforze (bez String.split i bez String na linię),
+ - liczby i daty parsowane są w miejscu; ścieżka wolna (String + parse z JDK) tylko dla
+   nietypowych zapisów, które szybka ścieżka odrzuca - wynik jest zawsze taki sam jak w JDK,
+ - String powstaje tylko dla SYMBOL/NAME w linii ASSET oraz przy zgłaszaniu błędu,
+ - stan (bieżące aktywo, suma LOT, numer linii) przechodzi między kolejnymi wywołaniami parse(),
+   więc plik można podawać we fragmentach (okna mapowania), byle zakończonych na '\n'.
+
+ Błędy -> DataIntegrityException z numerem linii.
+ */
+final class TextRecordParser {
+    private static final byte SEP = '|';
+    private static final byte NL = '\n';
+    private static final byte CR = '\r';
+
+    private static final byte[] HEADER = ascii(PortfolioFileFormat.HEADER);
+    private static final byte[] CASH = ascii(PortfolioFileFormat.CASH);
+    private static final byte[] ASSET = ascii(PortfolioFileFormat.ASSET);
+    private static final byte[] LOT = ascii(PortfolioFileFormat.LOT);
+
+    private static final AssetType[] TYPES = AssetType.values();
+    private static final byte[][] TYPE_NAMES = new byte[TYPES.length][];
+
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            TYPE_NAMES[i] = ascii(TYPES[i].name());
+        }
+    }
+
+    // dokładne potęgi dziesięciu (10^22 to największa dokładnie reprezentowalna w double)
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_FAST_DIGITS = 15; // mantysa < 10^15 < 2^53 -> dokładna w double
+
+    // to samo kodowanie co FileWriter/FileReader w PortfolioPersistence
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    private static final int MAX_FIELDS = 8;
+
+    private final List<Position> out; // gotowe pozycje w kolejności z pliku
+
+    private boolean expectHeader;
+    private double cash;
+
+    private long lineNumber;
+    private Position current;
+    private long currentAssetLine;
+    private int declaredQty;
+    private long lotsQtySum;
+
+    // bufory wielokrotnego użytku
+    private final int[] fieldStart = new int[MAX_FIELDS];
+    private final int[] fieldEnd = new int[MAX_FIELDS];
+    private byte[] scratch = new byte[128];
+
+    /**
+     @param out             lista, do której trafiają kompletne pozycje
+     @param expectHeader    czy pierwsza linia to HEADER (początek pliku)
+     @param firstLineNumber numer pierwszej linii podawanego fragmentu (liczony od 1)
+     */
+    TextRecordParser(List<Position> out, boolean expectHeader, long firstLineNumber) {
+        this.out = out;
+        this.expectHeader = expectHeader;
+        this.lineNumber = firstLineNumber - 1;
+    }
+
+    double getCash() {
+        return cash;
+    }
+
+    // Parsuje wszystkie linie w [start, end); ostatnia linia może nie mieć '\n' tylko na końcu danych
+    void parse(ByteBuffer buf, int start, int end) {
+        int i = start;
+        while (i < end) {
+            int nl = indexOf(buf, NL, i, end);
+            int lineEnd = nl < 0 ? end : nl;
+            int le = lineEnd;
+            if (le > i && buf.get(le - 1) == CR) le--;
+
+            lineNumber++;
+            if (expectHeader) {
+                parseHeader(buf, i, le);
+                expectHeader = false;
+            } else if (!isBlank(buf, i, le)) {
+                parseRecord(buf, i, le);
+            }
+            i = lineEnd + 1;
+        }
+    }
+
+    // Walidacja ostatniego aktywa - wywołać po podaniu wszystkich danych
+    void finish() {
+        if (expectHeader) throw new DataIntegrityException("Empty file");
+        closeCurrent();
+    }
+
+    // --- Linie ---
+
+    private void parseHeader(ByteBuffer buf, int s, int e) {
+        int n = split(buf, s, e);
+        if (n != 3) throw error("Invalid HEADER line: " + string(buf, s, e));
+        if (!equalsAscii(buf, fieldStart[0], fieldEnd[0], HEADER)) throw error("Missing HEADER: " + string(buf, s, e));
+        if (!equalsAscii(buf, fieldStart[1], fieldEnd[1], CASH)) throw error("Missing CASH header: " + string(buf, s, e));
+        cash = parseDouble(buf, fieldStart[2], fieldEnd[2], "cash", s, e);
+    }
+
+    private void parseRecord(ByteBuffer buf, int s, int e) {
+        int n = split(buf, s, e);
+
+        if (equalsAscii(buf, fieldStart[0], fieldEnd[0], LOT)) {
+            // LOT musi wystąpić po ASSET (inaczej błąd formatu)
+            if (current == null) throw error("LOT without ASSET context: " + string(buf, s, e));
+            if (n != 4) throw error("Invalid LOT line (expected 4 fields): " + string(buf, s, e));
+
+            LocalDate date = parseDate(buf, fieldStart[1], fieldEnd[1], s, e);
+            int qty = parseInt(buf, fieldStart[2], fieldEnd[2], "lotQty", s, e);
+            double unitPrice = parseDouble(buf, fieldStart[3], fieldEnd[3], "unitPrice", s, e);
+
+            current.addLot(date, qty, unitPrice);
+            lotsQtySum += qty;
+
+        } else if (equalsAscii(buf, fieldStart[0], fieldEnd[0], ASSET)) {
+            closeCurrent();
+
+            // ASSET|TYPE|SYMBOL|NAME|MARKET_PRICE|QTY|EXTRA
+            if (n != 7) throw error("Invalid ASSET line (expected 7 fields): " + string(buf, s, e));
+
+            AssetType type = parseAssetType(buf, fieldStart[1], fieldEnd[1], s, e);
+            String symbol = string(buf, fieldStart[2], fieldEnd[2]);
+            String name = string(buf, fieldStart[3], fieldEnd[3]);
+            double marketPrice = parseDouble(buf, fieldStart[4], fieldEnd[4], "marketPrice", s, e);
+            int qty = parseInt(buf, fieldStart[5], fieldEnd[5], "qty", s, e);
+            double extra = parseDouble(buf, fieldStart[6], fieldEnd[6], "extra", s, e);
+
+            current = new Position(AssetCodec.build(type, symbol, name, marketPrice, extra));
+            currentAssetLine = lineNumber;
+            declaredQty = qty;
+            lotsQtySum = 0;
+
+        } else {
+            throw error("Unknown line tag: " + string(buf, fieldStart[0], fieldEnd[0]));
+        }
+    }
+
+    private void closeCurrent() {
+        if (current == null) return;
+        if (lotsQtySum != declaredQty) {
+            throw new DataIntegrityException("LOT quantity sum mismatch for " + current.getAsset().getSymbol()
+                    + " (ASSET at line " + currentAssetLine + "). declared=" + declaredQty + " lotsSum=" + lotsQtySum);
+        }
+        out.add(current);
+        current = null;
+    }
+
+    // Wyznacza granice pól; zwraca liczbę pól (może być większa niż MAX_FIELDS - wtedy linia i tak jest błędna)
+    private int split(ByteBuffer buf, int s, int e) {
+        int n = 0;
+        int fs = s;
+        for (int i = s; i < e; i++) {
+            if (buf.get(i) == SEP) {
+                if (n < MAX_FIELDS) {
+                    fieldStart[n] = fs;
+                    fieldEnd[n] = i;
+                }
+                n++;
+                fs = i + 1;
+            }
+        }
+        if (n < MAX_FIELDS) {
+            fieldStart[n] = fs;
+            fieldEnd[n] = e;
+        }
+        return n + 1;
+    }
+
+    // --- Pola ---
+
+    private AssetType parseAssetType(ByteBuffer buf, int s, int e, int ls, int le) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (equalsAscii(buf, s, e, TYPE_NAMES[i])) return TYPES[i];
+        }
+        throw error("Invalid AssetType: " + string(buf, s, e) + " in line: " + string(buf, ls, le));
+    }
+
+    private int parseInt(ByteBuffer buf, int s, int e, String field, int ls, int le) {
+        int i = s;
+        boolean negative = false;
+        if (i < e && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+
+        // szybka ścieżka: do 9 cyfr nie ma ryzyka przepełnienia int
+        int digits = e - i;
+        if (digits > 0 && digits <= 9) {
+            int v = 0;
+            for (; i < e; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9) break;
+                v = v * 10 + d;
+            }
+            if (i == e) {
+                if (negative && v != 0) throw error(field + " cannot be negative in line: " + string(buf, ls, le));
+                return v;
+            }
+        }
+
+        // ścieżka wolna - pełna semantyka Integer.parseInt (przepełnienie, błędne znaki)
+        String str = string(buf, s, e);
+        try {
+            int v = Integer.parseInt(str);
+            if (v < 0) throw error(field + " cannot be negative in line: " + string(buf, ls, le));
+            return v;
+        } catch (NumberFormatException ex) {
+            throw error("Invalid int for " + field + ": " + str + " in line: " + string(buf, ls, le), ex);
+        }
+    }
+
+    /**
+     Szybka ścieżka (Clinger): [+-]cyfry[.cyfry][(e|E)[+-]cyfry], najwyżej 15 cyfr znaczących
+     i wykładnik dziesiętny |k| <= 22. Mantysa i 10^k są wtedy dokładne w double, a jedno
+     mnożenie/dzielenie IEEE daje poprawnie zaokrąglony wynik - identyczny z Double.parseDouble.
+     */
+    private double parseDouble(ByteBuffer buf, int s, int e, String field, int ls, int le) {
+        int i = s;
+        boolean negative = false;
+        if (i < e && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significant = 0;
+        int exp10 = 0;
+        boolean anyDigit = false;
+        boolean fast = true;
+
+        for (; i < e; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) break;
+            anyDigit = true;
+            if (mantissa != 0 || d != 0) {
+                if (++significant > MAX_FAST_DIGITS) fast = false;
+                mantissa = mantissa * 10 + d;
+            }
+        }
+        if (i < e && buf.get(i) == '.') {
+            i++;
+            for (; i < e; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9) break;
+                anyDigit = true;
+                exp10--;
+                if (mantissa != 0 || d != 0) {
+                    if (++significant > MAX_FAST_DIGITS) fast = false;
+                    mantissa = mantissa * 10 + d;
+                }
+            }
+        }
+        if (i < e && (buf.get(i) == 'e' || buf.get(i) == 'E')) {
+            i++;
+            boolean expNegative = false;
+            if (i < e && (buf.get(i) == '-' || buf.get(i) == '+')) {
+                expNegative = buf.get(i) == '-';
+                i++;
+            }
+            int exp = 0;
+            int expDigits = 0;
+            for (; i < e; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9) break;
+                if (++expDigits > 4) fast = false;
+                else exp = exp * 10 + d;
+            }
+            if (expDigits == 0) fast = false;
+            exp10 += expNegative ? -exp : exp;
+        }
+
+        if (fast && anyDigit && i == e) {
+            double v;
+            if (mantissa == 0) {
+                v = 0.0;
+            } else if (exp10 >= 0 && exp10 < POW10.length) {
+                v = mantissa * POW10[exp10];
+            } else if (exp10 < 0 && -exp10 < POW10.length) {
+                v = mantissa / POW10[-exp10];
+            } else {
+                v = Double.NaN; // poza zakresem szybkiej ścieżki
+            }
+            if (v == v) {
+                if (negative) v = -v;
+                if (v < 0) throw error(field + " cannot be negative in line: " + string(buf, ls, le));
+                return v;
+            }
+        }
+
+        // ścieżka wolna - pełna semantyka Double.parseDouble (NaN, Infinity, hex, długie mantysy...)
+        String str = string(buf, s, e);
+        try {
+            double v = Double.parseDouble(str);
+            if (v < 0) throw error(field + " cannot be negative in line: " + string(buf, ls, le));
+            return v;
+        } catch (NumberFormatException ex) {
+            throw error("Invalid double for " + field + ": " + str + " in line: " + string(buf, ls, le), ex);
+        }
+    }
+
+    // Szybka ścieżka dla ISO yyyy-MM-dd, pozostałe zapisy (np. rok z znakiem) przez LocalDate.parse
+    private LocalDate parseDate(ByteBuffer buf, int s, int e, int ls, int le) {
+        if (e - s == 10 && buf.get(s + 4) == '-' && buf.get(s + 7) == '-') {
+            int y = digits(buf, s, s + 4);
+            int m = digits(buf, s + 5, s + 7);
+            int d = digits(buf, s + 8, s + 10);
+            if (y >= 0 && m >= 0 && d >= 0) {
+                try {
+                    return LocalDate.of(y, m, d);
+                } catch (DateTimeException ex) {
+                    throw error("Invalid date: " + string(buf, s, e) + " in line: " + string(buf, ls, le), ex);
+                }
+            }
+        }
+
+        String str = string(buf, s, e);
+        try {
+            return LocalDate.parse(str);
+        } catch (Exception ex) {
+            throw error("Invalid date: " + str + " in line: " + string(buf, ls, le), ex);
+        }
+    }
+
+    // Liczba z samych cyfr lub -1
+    private static int digits(ByteBuffer buf, int s, int e) {
+        int v = 0;
+        for (int i = s; i < e; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) return -1;
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    // --- Helpers ---
+
+    static int indexOf(ByteBuffer buf, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == b) return i;
+        }
+        return -1;
+    }
+
+    // Odpowiednik line.trim().isEmpty()
+    private static boolean isBlank(ByteBuffer buf, int s, int e) {
+        for (int i = s; i < e; i++) {
+            if ((buf.get(i) & 0xFF) > ' ') return false;
+        }
+        return true;
+    }
+
+    private static boolean equalsAscii(ByteBuffer buf, int s, int e, byte[] expected) {
+        if (e - s != expected.length) return false;
+        for (int i = 0; i < expected.length; i++) {
+            if (buf.get(s + i) != expected[i]) return false;
+        }
+        return true;
+    }
+
+    private String string(ByteBuffer buf, int s, int e) {
+        int len = e - s;
+        if (scratch.length < len) scratch = new byte[Math.max(len, scratch.length * 2)];
+        for (int i = 0; i < len; i++) {
+            scratch[i] = buf.get(s + i);
+        }
+        return new String(scratch, 0, len, CHARSET);
+    }
+
+    private DataIntegrityException error(String message) {
+        return new DataIntegrityException(message + " (line " + lineNumber + ")");
+    }
+
+    private DataIntegrityException error(String message, Throwable cause) {
+        return new DataIntegrityException(message + " (line " + lineNumber + ")", cause);
+    }
+
+    private static byte[] ascii(String s) {
+        byte[] b = new byte[s.length()];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) s.charAt(i);
+        }
+        return b;
+    }
+}
\ No newline at end of file
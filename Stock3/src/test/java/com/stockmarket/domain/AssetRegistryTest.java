@@ -0,0 +1,72 @@
+package com.stockmarket.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetRegistryTest {
+
+    @Test
+    void idsShouldBeDenseInRegistrationOrder() {
+        AssetRegistry registry = new AssetRegistry();
+        registry.register(new Share("AAPL", "Apple", 100.0, 0.0));
+        Asset second = registry.register(new Share("MSFT", "Microsoft", 300.0, 0.0));
+        assertEquals(1, second.getId());
+    }
+
+    @Test
+    void sameTypeAndSymbolShouldReturnCanonicalInstance() {
+        AssetRegistry registry = new AssetRegistry();
+        Asset first = registry.register(new Share("AAPL", "Apple", 100.0, 0.0));
+        assertSame(first, registry.register(new Share("AAPL", "Apple Inc.", 101.0, 0.0)));
+    }
+
+    @Test
+    void sameSymbolOfOtherTypeShouldGetOwnId() {
+        AssetRegistry registry = new AssetRegistry();
+        registry.register(new Share("GOLD", "Barrick", 20.0, 0.0));
+        registry.register(new Commodity("GOLD", "Gold", 2000.0, 0.01));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void findBySymbolShouldRejectSymbolOfSeveralTypes() {
+        AssetRegistry registry = new AssetRegistry();
+        registry.register(new Share("GOLD", "Barrick", 20.0, 0.0));
+        registry.register(new Commodity("GOLD", "Gold", 2000.0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> registry.findBySymbol("GOLD"));
+    }
+
+    @Test
+    void getShouldReturnAssetById() {
+        AssetRegistry registry = new AssetRegistry();
+        Asset asset = registry.register(new Share("AAPL", "Apple", 100.0, 0.0));
+        assertSame(asset, registry.get(asset.getId()));
+    }
+
+    @Test
+    void registryShouldGrowPastInitialCapacity() {
+        AssetRegistry registry = new AssetRegistry();
+        for (int i = 0; i < 100; i++) {
+            registry.register(new Share("S" + i, "S" + i, 10.0, 0.0));
+        }
+        assertEquals("S99", registry.get(99).getSymbol());
+    }
+
+    @Test
+    void assetOfAnotherRegistryShouldBeRejected() {
+        Asset asset = new AssetRegistry().register(new Share("AAPL", "Apple", 100.0, 0.0));
+        AssetRegistry other = new AssetRegistry();
+        assertThrows(IllegalArgumentException.class, () -> other.register(asset));
+    }
+
+    @Test
+    void unregisteredAssetShouldHaveNoId() {
+        assertEquals(-1, new Share("AAPL", "Apple", 100.0, 0.0).getId());
+    }
+
+    @Test
+    void equalAssetsShouldHaveEqualHashCodes() {
+        assertEquals(new Share("AAPL", "Apple", 100.0, 0.0).hashCode(), new Share("AAPL", "Other", 1.0, 0.0).hashCode());
+    }
+}
\ No newline at end of file
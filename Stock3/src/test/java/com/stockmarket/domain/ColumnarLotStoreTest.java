@@ -0,0 +1,107 @@
+package com.stockmarket.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarLotStoreTest {
+
+    private static final LocalDate START = LocalDate.parse("2020-01-01");
+
+    private Position newPosition(LotStorage storage) {
+        return new Position(new Share("XYZ", "XYZ", 100.0, 0.0), storage);
+    }
+
+    @Test
+    void autoShouldStayOnDequeForFewLots() {
+        Position pos = newPosition(LotStorage.AUTO);
+        pos.addLot(START, 1, 10.0);
+        assertEquals(LotStorage.DEQUE, pos.getActiveLotStorage());
+    }
+
+    @Test
+    void autoShouldSwitchToColumnarAboveThreshold() {
+        Position pos = newPosition(LotStorage.AUTO);
+        for (int i = 0; i <= Position.COLUMNAR_THRESHOLD; i++) {
+            pos.addLot(START.plusDays(i), 1, 10.0);
+        }
+        assertEquals(LotStorage.COLUMNAR, pos.getActiveLotStorage());
+    }
+
+    @Test
+    void switchToColumnarShouldKeepFifoOrder() {
+        Position pos = newPosition(LotStorage.AUTO);
+        for (int i = 0; i <= Position.COLUMNAR_THRESHOLD; i++) {
+            pos.addLot(START.plusDays(i), 1, 10.0 + i);
+        }
+        assertEquals(START, pos.sellFifo(1, 50.0).getLines().get(0).getBuyDate());
+    }
+
+    @Test
+    void ringShouldKeepFifoOrderAfterWrapAndGrow() {
+        Position pos = newPosition(LotStorage.COLUMNAR);
+        for (int i = 0; i < 16; i++) {
+            pos.addLot(START.plusDays(i), 2, 10.0);
+        }
+        pos.sellFifo(21, 10.0); // head przesunięty na środek, partia 10 częściowo sprzedana
+        for (int i = 16; i < 40; i++) {
+            pos.addLot(START.plusDays(i), 2, 10.0); // zawinięcie bufora, potem powiększenie
+        }
+        assertEquals(START.plusDays(10), pos.getLotsSnapshot().getFirst().getDate());
+    }
+
+    @Test
+    void forEachLotShouldVisitAllLotsInFifoOrder() {
+        Position pos = newPosition(LotStorage.COLUMNAR);
+        for (int i = 0; i < 40; i++) {
+            pos.addLot(START.plusDays(i), i + 1, 10.0);
+        }
+        pos.sellFifo(4, 10.0); // partie 1 i 2 zamknięte, z partii 3 zostają 2
+
+        final List<Integer> quantities = new ArrayList<>();
+        pos.forEachLot(new LotVisitor() {
+            @Override
+            public void visit(long epochDay, int quantity, double unitPrice) {
+                quantities.add(quantity);
+            }
+        });
+        assertEquals(List.of(2, 4, 5, 6), quantities.subList(0, 4));
+    }
+
+    @Test
+    void columnarSellFifoShouldMatchDequeProfit() {
+        Position deque = newPosition(LotStorage.DEQUE);
+        Position columnar = newPosition(LotStorage.COLUMNAR);
+        Random rnd = new Random(7);
+
+        double dequeProfit = 0.0;
+        double columnarProfit = 0.0;
+        for (int i = 0; i < 2_000; i++) {
+            int qty = 1 + rnd.nextInt(50);
+            double price = 50.0 + rnd.nextInt(10_000) / 100.0;
+            deque.addLot(START.plusDays(i), qty, price);
+            columnar.addLot(START.plusDays(i), qty, price);
+
+            if (i % 3 == 2) {
+                int toSell = 1 + rnd.nextInt(deque.getTotalQuantity());
+                dequeProfit += deque.sellFifo(toSell, price).getTotalProfit();
+                columnarProfit += columnar.sellFifo(toSell, price).getTotalProfit();
+            }
+        }
+        assertEquals(dequeProfit, columnarProfit, 0.0);
+    }
+
+    @Test
+    void lotCountShouldDropWhenWholeLotsAreSold() {
+        Position pos = newPosition(LotStorage.COLUMNAR);
+        pos.addLot(START, 5, 10.0);
+        pos.addLot(START.plusDays(1), 5, 10.0);
+        pos.sellFifo(6, 12.0);
+        assertEquals(1, pos.getLotCount());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,146 @@
+package com.stockmarket.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LotCoalescingTest {
+
+    private static final LocalDate DAY = LocalDate.parse("2024-01-03");
+
+    private Position newPosition(LotStorage storage, LotCoalescing coalescing) {
+        Position pos = new Position(new Share("XYZ", "XYZ", 100.0, 0.0), storage);
+        pos.setLotCoalescing(coalescing);
+        return pos;
+    }
+
+    @Test
+    void noneShouldKeepEverySeparateLot() {
+        Position pos = newPosition(LotStorage.DEQUE, LotCoalescing.NONE);
+        pos.addLot(DAY, 1, 10.0);
+        pos.addLot(DAY, 1, 10.0);
+        assertEquals(2, pos.getLotCount());
+    }
+
+    @Test
+    void exactShouldMergeSameDayAndPrice() {
+        Position pos = newPosition(LotStorage.DEQUE, LotCoalescing.EXACT);
+        pos.addLot(DAY, 1, 10.0);
+        pos.addLot(DAY, 2, 10.0);
+        assertEquals(3, pos.getLotsSnapshot().getFirst().getQuantity());
+    }
+
+    @Test
+    void exactShouldNotMergeDifferentPrice() {
+        Position pos = newPosition(LotStorage.DEQUE, LotCoalescing.EXACT);
+        pos.addLot(DAY, 1, 10.0);
+        pos.addLot(DAY, 1, 10.01);
+        assertEquals(2, pos.getLotCount());
+    }
+
+    @Test
+    void exactShouldNotMergeNextDay() {
+        Position pos = newPosition(LotStorage.COLUMNAR, LotCoalescing.EXACT);
+        pos.addLot(DAY, 1, 10.0);
+        pos.addLot(DAY.plusDays(1), 1, 10.0);
+        assertEquals(2, pos.getLotCount());
+    }
+
+    @Test
+    void shouldMergeOnlyIntoLastLot() {
+        Position pos = newPosition(LotStorage.DEQUE, LotCoalescing.EXACT);
+        pos.addLot(DAY, 1, 10.0);
+        pos.addLot(DAY, 1, 11.0);
+        pos.addLot(DAY, 1, 10.0);
+        assertEquals(3, pos.getLotCount());
+    }
+
+    @Test
+    void mergedAddLotShouldReturnLastLotId() {
+        Position pos = newPosition(LotStorage.DEQUE, LotCoalescing.EXACT);
+        pos.addLot(DAY, 1, 9.0);
+        pos.addLot(DAY, 1, 10.0);
+        assertEquals(1L, pos.addLot(DAY, 1, 10.0));
+    }
+
+    @Test
+    void mergedLotCountShouldCountMergedPurchases() {
+        Position pos = newPosition(LotStorage.COLUMNAR, LotCoalescing.EXACT);
+        for (int i = 0; i < 5; i++) {
+            pos.addLot(DAY, 1, 10.0);
+        }
+        assertEquals(4L, pos.getMergedLotCount());
+    }
+
+    @Test
+    void toleranceShouldUseQuantityWeightedPrice() {
+        Position pos = newPosition(LotStorage.DEQUE, LotCoalescing.within(0.5, 1));
+        pos.addLot(DAY, 1, 10.0);
+        pos.addLot(DAY, 3, 10.4);
+        assertEquals(10.3, pos.getLotsSnapshot().getFirst().getUnitPrice(), 1e-9);
+    }
+
+    @Test
+    void dayBucketShouldMergeWithinSameBucket() {
+        Position pos = newPosition(LotStorage.COLUMNAR, LotCoalescing.within(0.0, 7));
+        LocalDate weekStart = LocalDate.ofEpochDay(Math.floorDiv(DAY.toEpochDay(), 7) * 7);
+        pos.addLot(weekStart, 1, 10.0);
+        pos.addLot(weekStart.plusDays(6), 1, 10.0);
+        assertEquals(1, pos.getLotCount());
+    }
+
+    @Test
+    void dayBucketShouldNotMergeAcrossBuckets() {
+        Position pos = newPosition(LotStorage.COLUMNAR, LotCoalescing.within(0.0, 7));
+        LocalDate weekStart = LocalDate.ofEpochDay(Math.floorDiv(DAY.toEpochDay(), 7) * 7);
+        pos.addLot(weekStart.plusDays(6), 1, 10.0);
+        pos.addLot(weekStart.plusDays(7), 1, 10.0);
+        assertEquals(2, pos.getLotCount());
+    }
+
+    @Test
+    void mergedIndexedLotShouldMoveInHifoOrder() {
+        Position pos = newPosition(LotStorage.INDEXED, LotCoalescing.within(5.0, 1));
+        pos.addLot(DAY.minusDays(1), 10, 12.0);
+        pos.addLot(DAY, 1, 10.0);
+        pos.addLot(DAY, 1, 14.0); // partia 1 -> 2 szt. po 12.0, remis z partią 0 - starsza wygrywa
+        pos.addLot(DAY, 2, 15.0); // partia 1 -> 4 szt. po 13.5
+        assertEquals(13.5, pos.sell(1, 20.0, LotRelief.HIFO).getLines().get(0).getBuyUnitPrice(), 1e-9);
+    }
+
+    @Test
+    void withinShouldRejectNegativeTolerance() {
+        assertThrows(IllegalArgumentException.class, () -> LotCoalescing.within(-0.01, 1));
+    }
+
+    @Test
+    void withinShouldRejectNonPositiveDayBucket() {
+        assertThrows(IllegalArgumentException.class, () -> LotCoalescing.within(0.0, 0));
+    }
+
+    @Test
+    void exactCoalescingShouldKeepFifoProfit() {
+        Position plain = newPosition(LotStorage.DEQUE, LotCoalescing.NONE);
+        Position merged = newPosition(LotStorage.DEQUE, LotCoalescing.EXACT);
+        Random rnd = new Random(3);
+
+        double plainProfit = 0.0;
+        double mergedProfit = 0.0;
+        for (int i = 0; i < 2_000; i++) {
+            LocalDate date = DAY.plusDays(i / 50);
+            double price = 100.0 + rnd.nextInt(3);
+            int qty = 1 + rnd.nextInt(5);
+            plain.addLot(date, qty, price);
+            merged.addLot(date, qty, price);
+            if (i % 7 == 6) {
+                int toSell = 1 + rnd.nextInt(plain.getTotalQuantity());
+                plainProfit += plain.sellFifo(toSell, 101.0).getTotalProfit();
+                mergedProfit += merged.sellFifo(toSell, 101.0).getTotalProfit();
+            }
+        }
+        assertEquals(plainProfit, mergedProfit, 1e-6);
+    }
+}
\ No newline at end of file
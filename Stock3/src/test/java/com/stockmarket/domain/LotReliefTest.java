@@ -0,0 +1,172 @@
+package com.stockmarket.domain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LotReliefTest {
+
+    private static final LocalDate START = LocalDate.parse("2023-01-01");
+
+    private Position pos;
+
+    // partie: 10 @ 100 (id 0), 10 @ 130 (id 1), 10 @ 110 (id 2)
+    @BeforeEach
+    void setUp() {
+        pos = new Position(new Share("XYZ", "XYZ", 150.0, 0.0));
+        pos.addLot(START, 10, 100.0);
+        pos.addLot(START.plusDays(1), 10, 130.0);
+        pos.addLot(START.plusDays(2), 10, 110.0);
+    }
+
+    @Test
+    void addLotShouldReturnSequentialIds() {
+        assertEquals(3L, pos.addLot(START.plusDays(3), 1, 90.0));
+    }
+
+    @Test
+    void lifoShouldSellNewestLotFirst() {
+        assertEquals(START.plusDays(2), pos.sell(5, 150.0, LotRelief.LIFO).getLines().get(0).getBuyDate());
+    }
+
+    @Test
+    void hifoShouldSellMostExpensiveLotFirst() {
+        assertEquals(130.0, pos.sell(5, 150.0, LotRelief.HIFO).getLines().get(0).getBuyUnitPrice(), 1e-9);
+    }
+
+    @Test
+    void hifoShouldContinueWithNextMostExpensiveLot() {
+        assertEquals(110.0, pos.sell(15, 150.0, LotRelief.HIFO).getLines().get(1).getBuyUnitPrice(), 1e-9);
+    }
+
+    @Test
+    void hifoShouldPreferOlderLotAtEqualPrice() {
+        pos.addLot(START.plusDays(3), 10, 130.0);
+        assertEquals(START.plusDays(1), pos.sell(5, 150.0, LotRelief.HIFO).getLines().get(0).getBuyDate());
+    }
+
+    @Test
+    void hifoShouldReduceCostBasisByRelievedLots() {
+        pos.sell(15, 150.0, LotRelief.HIFO); // 10 @ 130 + 5 @ 110
+        assertEquals(3400.0 - 1300.0 - 550.0, pos.getCostBasis(), 1e-9);
+    }
+
+    @Test
+    void sellLotShouldUseSelectedLot() {
+        assertEquals(110.0, pos.sellLot(2, 4, 150.0).getLines().get(0).getBuyUnitPrice(), 1e-9);
+    }
+
+    @Test
+    void partialSellLotShouldKeepLotWithRemainingQuantity() {
+        pos.sellLot(1, 4, 150.0);
+        assertEquals(6, pos.getLotsSnapshot().toArray(new PurchaseLot[0])[1].getQuantity());
+    }
+
+    @Test
+    void sellLotShouldRejectUnknownId() {
+        assertThrows(IllegalArgumentException.class, () -> pos.sellLot(42, 1, 150.0));
+    }
+
+    @Test
+    void sellLotShouldRejectAlreadySoldLot() {
+        pos.sellFifo(10, 150.0);
+        assertThrows(IllegalArgumentException.class, () -> pos.sellLot(0, 1, 150.0));
+    }
+
+    @Test
+    void sellLotShouldRejectQuantityAboveLot() {
+        assertThrows(InsufficientHoldingsException.class, () -> pos.sellLot(0, 11, 150.0));
+    }
+
+    @Test
+    void lotIdsShouldSurviveSwitchToIndexedStorage() {
+        pos.sellFifo(10, 150.0); // partia 0 zamknięta przed przełączeniem
+        pos.sell(1, 150.0, LotRelief.LIFO);
+        assertEquals(1L, pos.getLotsSnapshot().getFirst().getId());
+    }
+
+    @Test
+    void nonFifoSellShouldSwitchToIndexedStorage() {
+        pos.sell(1, 150.0, LotRelief.HIFO);
+        assertEquals(LotStorage.INDEXED, pos.getActiveLotStorage());
+    }
+
+    @Test
+    void columnarIdsShouldFollowFifoOrder() {
+        Position columnar = new Position(new Share("XYZ", "XYZ", 150.0, 0.0), LotStorage.COLUMNAR);
+        columnar.addLot(START, 1, 10.0);
+        columnar.addLot(START, 1, 10.0);
+        columnar.sellFifo(1, 10.0);
+        assertEquals(1L, columnar.getLotsSnapshot().getFirst().getId());
+    }
+
+    @Test
+    void renumberLotsShouldStartIdsFromZero() {
+        pos.sellLot(0, 10, 150.0);
+        pos.renumberLots();
+        assertEquals(130.0, pos.sellLot(0, 1, 150.0).getLines().get(0).getBuyUnitPrice(), 1e-9);
+    }
+
+    @Test
+    void indexedFifoShouldMatchDequeAfterMixedSells() {
+        Position deque = new Position(new Share("XYZ", "XYZ", 150.0, 0.0), LotStorage.DEQUE);
+        Position indexed = new Position(new Share("XYZ", "XYZ", 150.0, 0.0), LotStorage.INDEXED);
+        Random rnd = new Random(11);
+
+        List<Double> dequeProfits = new ArrayList<>();
+        List<Double> indexedProfits = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            int qty = 1 + rnd.nextInt(20);
+            double price = 50.0 + rnd.nextInt(100);
+            deque.addLot(START.plusDays(i), qty, price);
+            indexed.addLot(START.plusDays(i), qty, price);
+            if (i % 4 == 3) {
+                int toSell = 1 + rnd.nextInt(deque.getTotalQuantity());
+                dequeProfits.add(deque.sellFifo(toSell, price).getTotalProfit());
+                indexedProfits.add(indexed.sellFifo(toSell, price).getTotalProfit());
+            }
+        }
+        assertEquals(dequeProfits, indexedProfits);
+    }
+
+    @Test
+    void hifoShouldMatchSortedSelectionOnRandomLots() {
+        Position indexed = new Position(new Share("XYZ", "XYZ", 150.0, 0.0), LotStorage.INDEXED);
+        List<double[]> reference = new ArrayList<>(); // {cena, ilość} w kolejności zakupu
+        Random rnd = new Random(5);
+
+        double expected = 0.0;
+        double actual = 0.0;
+        for (int i = 0; i < 500; i++) {
+            int qty = 1 + rnd.nextInt(10);
+            double price = 10.0 + rnd.nextInt(50);
+            indexed.addLot(START.plusDays(i), qty, price);
+            reference.add(new double[]{price, qty});
+
+            if (i % 3 == 2) {
+                int toSell = 1 + rnd.nextInt(indexed.getTotalQuantity());
+                actual += indexed.sell(toSell, 60.0, LotRelief.HIFO).getTotalProfit();
+                int remaining = toSell;
+                while (remaining > 0) {
+                    int best = 0;
+                    for (int k = 1; k < reference.size(); k++) {
+                        if (reference.get(k)[0] > reference.get(best)[0]) best = k;
+                    }
+                    double[] lot = reference.get(best);
+                    int take = (int) Math.min(lot[1], remaining);
+                    expected += take * (60.0 - lot[0]);
+                    remaining -= take;
+                    lot[1] -= take;
+                    if (lot[1] == 0) reference.remove(best);
+                }
+            }
+        }
+        assertEquals(expected, actual, 1e-6);
+    }
+}
\ No newline at end of file
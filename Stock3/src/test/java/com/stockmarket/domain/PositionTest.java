@@ -0,0 +1,73 @@
+package com.stockmarket.domain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionTest {
+
+    private Position pos;
+
+    @BeforeEach
+    void setUp() {
+        pos = new Position(new Share("XYZ", "XYZ", 150.0, 0.0));
+        pos.addLot(LocalDate.parse("2023-01-01"), 10, 100.0);
+        pos.addLot(LocalDate.parse("2023-02-01"), 10, 120.0);
+    }
+
+    @Test
+    void costBasisShouldSumAllLots() {
+        assertEquals(2200.0, pos.getCostBasis(), 1e-9);
+    }
+
+    @Test
+    void averageCostShouldBeWeightedByQuantity() {
+        assertEquals(110.0, pos.getAverageCost(), 1e-9);
+    }
+
+    @Test
+    void unrealizedProfitShouldCompareMarketValueWithCost() {
+        assertEquals(800.0, pos.getUnrealizedProfit(), 1e-9);
+    }
+
+    @Test
+    void sellFifoShouldDecreaseTotalQuantity() {
+        pos.sellFifo(15, 150.0);
+        assertEquals(5, pos.getTotalQuantity());
+    }
+
+    @Test
+    void sellFifoShouldRemoveConsumedCostFromBasis() {
+        pos.sellFifo(15, 150.0);
+        assertEquals(600.0, pos.getCostBasis(), 1e-9);
+    }
+
+    @Test
+    void averageCostOfEmptyPositionShouldBeZero() {
+        pos.sellFifo(20, 150.0);
+        assertEquals(0.0, pos.getAverageCost(), 1e-9);
+    }
+
+    @Test
+    void costBasisShouldMatchLotRescanAfterManyPartialSellsAtLargePrice() {
+        Position big = new Position(new Share("BIG", "BIG", 1.0e9, 0.0));
+        for (int i = 0; i < 2_000; i++) {
+            big.addLot(LocalDate.parse("2023-01-01").plusDays(i), 7, 0.01 + i * 0.37);
+        }
+        for (int i = 0; i < 1_500; i++) {
+            big.sellFifo(3, 1.0e9 + i * 0.123);
+        }
+
+        final double[] rescan = new double[1];
+        big.forEachLot(new LotVisitor() {
+            @Override
+            public void visit(long epochDay, int quantity, double unitPrice) {
+                rescan[0] += quantity * unitPrice;
+            }
+        });
+        assertEquals(rescan[0], big.getCostBasis(), rescan[0] * 1e-12);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,204 @@
+package com.stockmarket.ledger;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.LotRelief;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RealizedPnlLedgerTest {
+
+    private static final LocalDate DAY = LocalDate.parse("2024-06-03");
+    private static final Clock CLOCK = Clock.fixed(DAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+
+    private Portfolio p;
+    private Share xyz;
+    private RealizedPnlLedger ledger;
+
+    // XYZ: 10 @ 100 + 10 @ 120, GOLD: 5 @ 50
+    @BeforeEach
+    void setUp() {
+        p = new Portfolio(1_000_000.0);
+        xyz = new Share("XYZ", "XYZ", 150.0, 0.0);
+        p.acquire(xyz, 10, DAY.minusDays(30), 100.0);
+        p.acquire(xyz, 10, DAY.minusDays(20), 120.0);
+        p.acquire(new Commodity("GOLD", "Gold", 60.0, 0.0), 5, DAY.minusDays(10), 50.0);
+
+        ledger = new RealizedPnlLedger(CLOCK);
+        ledger.attach(p);
+    }
+
+    @Test
+    void sellShouldAddRealizedProfitToSymbolTotals() {
+        p.sell("XYZ", 15, 150.0); // 10 * 50 + 5 * 30
+        assertEquals(650.0, ledger.getTotals("XYZ").getRealizedProfit(), 1e-9);
+    }
+
+    @Test
+    void symbolTotalsShouldTrackTurnover() {
+        p.sell("XYZ", 5, 150.0);
+        p.sell("XYZ", 5, 110.0);
+        assertEquals(1300.0, ledger.getTotals("XYZ").getTurnover(), 1e-9);
+    }
+
+    @Test
+    void symbolTotalsShouldCountSales() {
+        p.sell("XYZ", 5, 150.0);
+        p.sell("XYZ", 5, 110.0);
+        assertEquals(2L, ledger.getTotals("XYZ").getCount());
+    }
+
+    @Test
+    void assetTypeTotalsShouldSeparateTypes() {
+        p.sell("XYZ", 5, 150.0);
+        p.sell("GOLD", 5, 60.0);
+        assertEquals(50.0, ledger.getTotals(AssetType.COMMODITY).getRealizedProfit(), 1e-9);
+    }
+
+    @Test
+    void dayTotalsShouldUseClockDate() {
+        p.sell("GOLD", 2, 60.0);
+        assertEquals(2L, ledger.getTotals(DAY).getQuantity());
+    }
+
+    @Test
+    void recordShouldKeepSeparateDayTotals() {
+        ledger.record(DAY.plusDays(1), "XYZ", AssetType.SHARE, 1, 10.0, 5.0);
+        p.sell("GOLD", 2, 60.0);
+        assertEquals(5.0, ledger.getTotals(DAY.plusDays(1)).getRealizedProfit(), 1e-9);
+    }
+
+    @Test
+    void unknownSymbolShouldHaveEmptyTotals() {
+        assertEquals(0L, ledger.getTotals("NOPE").getCount());
+    }
+
+    @Test
+    void hifoAndSpecificLotSellsShouldBeRecorded() {
+        p.sell("XYZ", 5, 150.0, LotRelief.HIFO);   // 5 @ 120
+        p.sellLot("XYZ", 0, 5, 150.0);             // 5 @ 100
+        assertEquals(150.0 + 250.0, ledger.getTotals().getRealizedProfit(), 1e-9);
+    }
+
+    @Test
+    void sellStreamingShouldBeRecorded() {
+        p.sellStreaming("XYZ", 20, 130.0, LotRelief.FIFO, null);
+        assertEquals(20L, ledger.getTotals(AssetType.SHARE).getQuantity());
+    }
+
+    @Test
+    void priceTriggeredSellShouldBeRecorded() {
+        p.setPriceTriggersEnabled(true);
+        p.submitLimitOrder(OrderType.SELL, AssetType.SHARE, "XYZ", 5, 160.0, 150.0);
+        xyz.setMarketPrice(160.0); // 5 @ 100 sprzedane po 160
+        assertEquals(300.0, ledger.getTotals(AssetType.SHARE, "XYZ").getRealizedProfit(), 1e-9);
+    }
+
+    @Test
+    void orderBookExecutionShouldRealizeNoProfit() {
+        p.submitLimitOrder(OrderType.SELL, AssetType.SHARE, "XYZ", 2, 140.0, 150.0);
+        p.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "XYZ", 2, 145.0, 150.0);
+        assertEquals(0.0, ledger.getTotals("XYZ").getRealizedProfit(), 1e-9);
+    }
+
+    @Test
+    void orderBookExecutionShouldRecordSellLegTurnover() {
+        p.submitLimitOrder(OrderType.SELL, AssetType.SHARE, "XYZ", 2, 140.0, 150.0);
+        p.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "XYZ", 2, 145.0, 150.0);
+        assertEquals(280.0, ledger.getTotals("XYZ").getTurnover(), 1e-9);
+    }
+
+    @Test
+    void sameSymbolOfOtherTypeShouldHaveOwnTotals() {
+        p.sell("XYZ", 5, 150.0);
+        ledger.record(DAY, "XYZ", AssetType.COMMODITY, 1, 10.0, 7.0);
+        assertEquals(7.0, ledger.getTotals(AssetType.COMMODITY, "XYZ").getRealizedProfit(), 1e-9);
+    }
+
+    @Test
+    void symbolTotalsShouldSumOverAssetTypes() {
+        p.sell("XYZ", 5, 150.0); // 5 * 50
+        ledger.record(DAY, "XYZ", AssetType.COMMODITY, 1, 10.0, 7.0);
+        assertEquals(257.0, ledger.getTotals("XYZ").getRealizedProfit(), 1e-9);
+    }
+
+    @Test
+    void forEachShouldReportTypeOfEachEntry() throws Exception {
+        p.sell("XYZ", 5, 150.0);
+        ledger.record(DAY, "XYZ", AssetType.COMMODITY, 1, 10.0, 7.0);
+        final List<AssetType> types = new ArrayList<>();
+        ledger.forEach((epochDay, symbol, type, quantity, price, profit) -> types.add(type));
+        assertEquals(List.of(AssetType.SHARE, AssetType.COMMODITY), types);
+    }
+
+    @Test
+    void forEachShouldVisitEntriesInOrder() throws Exception {
+        p.sell("XYZ", 5, 150.0);
+        p.sell("GOLD", 1, 60.0);
+        final List<String> symbols = new ArrayList<>();
+        ledger.forEach((epochDay, symbol, type, quantity, price, profit) -> symbols.add(symbol));
+        assertEquals(List.of("XYZ", "GOLD"), symbols);
+    }
+
+    @Test
+    void closeShouldDetachFromPortfolio() throws Exception {
+        ledger.close();
+        p.sell("XYZ", 5, 150.0);
+        assertEquals(0L, ledger.size());
+    }
+
+    @Test
+    void spillShouldKeepOnlyMemoryRowsInMemory() throws Exception {
+        File file = File.createTempFile("ledger", ".bin");
+        file.deleteOnExit();
+        try (RealizedPnlLedger spilled = RealizedPnlLedger.withSpill(file, 4, CLOCK)) {
+            for (int i = 0; i < 10; i++) {
+                spilled.record(DAY, "S" + (i % 3), AssetType.SHARE, 1, 10.0, i);
+            }
+            assertEquals(2, spilled.getMemoryRows());
+        }
+    }
+
+    @Test
+    void spillShouldVisitSpilledAndMemoryRowsInOrder() throws Exception {
+        File file = File.createTempFile("ledger", ".bin");
+        file.deleteOnExit();
+        final List<Double> profits = new ArrayList<>();
+        try (RealizedPnlLedger spilled = RealizedPnlLedger.withSpill(file, 4, CLOCK)) {
+            for (int i = 0; i < 10; i++) {
+                spilled.record(DAY.plusDays(i), "S" + (i % 3), AssetType.SHARE, 1, 10.0, i);
+            }
+            spilled.forEach((epochDay, symbol, type, quantity, price, profit) -> profits.add(profit));
+        }
+        assertEquals(List.of(0.0, 1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0), profits);
+    }
+
+    @Test
+    void spillShouldNotChangeTotals() throws Exception {
+        File file = File.createTempFile("ledger", ".bin");
+        file.deleteOnExit();
+        try (RealizedPnlLedger spilled = RealizedPnlLedger.withSpill(file, 4, CLOCK)) {
+            for (int i = 0; i < 10; i++) {
+                spilled.record(DAY, "S" + (i % 3), AssetType.SHARE, 1, 10.0, i);
+            }
+            assertEquals(0.0 + 3.0 + 6.0 + 9.0, spilled.getTotals("S0").getRealizedProfit(), 1e-9);
+        }
+    }
+
+    @Test
+    void recordShouldRejectNonPositiveQuantity() {
+        assertThrows(IllegalArgumentException.class, () -> ledger.record(DAY, "XYZ", AssetType.SHARE, 0, 10.0, 0.0));
+    }
+}
\ No newline at end of file
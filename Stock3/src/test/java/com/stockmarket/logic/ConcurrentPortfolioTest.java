@@ -0,0 +1,142 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.InsufficientFundsException;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentPortfolioTest {
+
+    private static final int THREADS = 8;
+    private static final int OPS = 2_000;
+    private static final LocalDate DATE = LocalDate.parse("2023-01-01");
+
+    // Uruchamia zadanie w THREADS wątkach jednocześnie (wspólny start) i czeka na koniec
+    private void runConcurrently(TaskBody body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private interface TaskBody {
+        void run(int thread) throws Exception;
+    }
+
+    @Test
+    void parallelAcquiresShouldNotLoseCashUpdates() throws Exception {
+        ConcurrentPortfolio p = new ConcurrentPortfolio(1_000_000.0, 4);
+        runConcurrently(thread -> {
+            Share s = new Share("S" + thread, "Share " + thread, 1.0, 0.0);
+            for (int i = 0; i < OPS; i++) {
+                p.acquire(s, 1, DATE, 1.0);
+            }
+        });
+        assertEquals(1_000_000.0 - THREADS * OPS, p.getCash(), 1e-9);
+    }
+
+    @Test
+    void parallelAcquiresOnSameSymbolShouldKeepAllLots() throws Exception {
+        ConcurrentPortfolio p = new ConcurrentPortfolio(1_000_000.0);
+        Share s = new Share("XYZ", "XYZ", 1.0, 0.0);
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPS; i++) {
+                p.acquire(s, 1, DATE, 1.0);
+            }
+        });
+        assertEquals(THREADS * OPS, p.getLotsSnapshot("XYZ").size());
+    }
+
+    @Test
+    void parallelAcquiresShouldNeverOverspendCash() throws Exception {
+        ConcurrentPortfolio p = new ConcurrentPortfolio(100.0);
+        Share s = new Share("XYZ", "XYZ", 1.0, 0.0);
+        AtomicInteger bought = new AtomicInteger();
+        runConcurrently(thread -> {
+            for (int i = 0; i < 50; i++) {
+                try {
+                    p.acquire(s, 1, DATE, 1.0);
+                    bought.incrementAndGet();
+                } catch (InsufficientFundsException ignored) {
+                    // oczekiwane po wyczerpaniu gotówki
+                }
+            }
+        });
+        assertEquals(100, bought.get());
+    }
+
+    @Test
+    void parallelBuyAndSellShouldBalanceCash() throws Exception {
+        ConcurrentPortfolio p = new ConcurrentPortfolio(10_000.0);
+        runConcurrently(thread -> {
+            Share s = new Share("S" + (thread % 3), "Share", 2.0, 0.0);
+            for (int i = 0; i < OPS; i++) {
+                p.acquire(s, 1, DATE, 2.0);
+                p.sell(s.getSymbol(), 1, 2.0);
+            }
+        });
+        assertEquals(10_000.0, p.getCash(), 1e-9);
+    }
+
+    @Test
+    void sellShouldRemovePositionWhenQuantityReachesZero() {
+        ConcurrentPortfolio p = new ConcurrentPortfolio(1000.0);
+        p.acquire(new Share("XYZ", "XYZ", 10.0, 0.0), 5, DATE, 10.0);
+        p.sell("XYZ", 5, 12.0);
+        assertEquals(0, p.getPositionsCount());
+    }
+
+    @Test
+    void acquireWithoutFundsShouldThrow() {
+        ConcurrentPortfolio p = new ConcurrentPortfolio(50.0);
+        Share s = new Share("XYZ", "XYZ", 10.0, 1.0);
+        assertThrows(InsufficientFundsException.class, () -> p.acquire(s, 5, DATE, 10.0));
+    }
+
+    @Test
+    void insufficientFundsShouldLeaveCashUnchanged() {
+        ConcurrentPortfolio p = new ConcurrentPortfolio(50.0);
+        Share s = new Share("XYZ", "XYZ", 10.0, 1.0);
+        try {
+            p.acquire(s, 5, DATE, 10.0);
+        } catch (InsufficientFundsException ignored) {
+            // sprawdzamy tylko stan po odrzuceniu
+        }
+        assertEquals(50.0, p.getCash(), 1e-9);
+    }
+
+    @Test
+    void totalRealValueShouldFollowPriceChange() {
+        ConcurrentPortfolio p = new ConcurrentPortfolio(1000.0);
+        Share s = new Share("XYZ", "XYZ", 10.0, 0.0);
+        p.acquire(s, 10, DATE, 10.0);
+        s.setMarketPrice(20.0);
+        assertEquals(1100.0, p.calculateTotalRealValue(), 1e-9);
+    }
+}
\ No newline at end of file
@@ -1,11 +1,16 @@
 package com.stockmarket.logic;
 
+import com.stockmarket.domain.LotRelief;
+import com.stockmarket.domain.SaleFillConsumer;
+import com.stockmarket.domain.SaleLine;
 import com.stockmarket.domain.SaleResult;
 import com.stockmarket.domain.Share;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -55,4 +60,68 @@ class FifoSellTest {
         SaleResult res = sell15At150();
         assertEquals(5, res.getLines().get(1).getQuantitySoldFromLot());
     }
+
+    @Test
+    void getLinesShouldBeReadOnly() {
+        SaleResult res = sell15At150();
+        assertThrows(UnsupportedOperationException.class, () -> res.getLines().add(null));
+    }
+
+    @Test
+    void sellStreamingShouldReturnSameProfitAsSell() {
+        assertEquals(650.0, p.sellStreaming("XYZ", 15, 150.0, LotRelief.FIFO, null), 1e-9);
+    }
+
+    @Test
+    void sellStreamingShouldPushEveryConsumedLot() {
+        final List<String> fills = new ArrayList<>();
+        p.sellStreaming("XYZ", 15, 150.0, LotRelief.FIFO, new SaleFillConsumer() {
+            @Override
+            public void accept(long buyEpochDay, int quantity, double buyUnitPrice) {
+                fills.add(LocalDate.ofEpochDay(buyEpochDay) + ":" + quantity + "@" + buyUnitPrice);
+            }
+        });
+        assertEquals(List.of("2023-01-01:10@100.0", "2023-02-01:5@120.0"), fills);
+    }
+
+    @Test
+    void sellStreamingShouldCreditCash() {
+        double before = p.getCash();
+        p.sellStreaming("XYZ", 15, 150.0, LotRelief.FIFO, null);
+        assertEquals(2_250.0, p.getCash() - before, 1e-9);
+    }
+
+    @Test
+    void sellStreamingShouldNotifyListenersLikeSell() {
+        final double[] profit = new double[1];
+        p.addPortfolioListener(new PortfolioListener() {
+            @Override
+            public void onSell(com.stockmarket.domain.Asset asset, int quantity, double sellUnitPrice, double realizedProfit) {
+                profit[0] = realizedProfit;
+            }
+        });
+        p.sellStreaming("XYZ", 15, 150.0, LotRelief.HIFO, null);
+        assertEquals(15 * 150.0 - 1200.0 - 500.0, profit[0], 1e-9);
+    }
+
+    @Test
+    void streamedFillsShouldMatchSaleLines() {
+        Portfolio other = new Portfolio(1_000_000.0);
+        Share xyz = new Share("XYZ", "XYZ", 150.0, 0.0);
+        other.acquire(xyz, 10, LocalDate.parse("2023-01-01"), 100.0);
+        other.acquire(xyz, 10, LocalDate.parse("2023-02-01"), 120.0);
+
+        final List<String> streamed = new ArrayList<>();
+        other.sellStreaming("XYZ", 15, 150.0, LotRelief.LIFO, new SaleFillConsumer() {
+            @Override
+            public void accept(long buyEpochDay, int quantity, double buyUnitPrice) {
+                streamed.add(buyEpochDay + ":" + quantity + "@" + buyUnitPrice);
+            }
+        });
+        List<String> lines = new ArrayList<>();
+        for (SaleLine line : p.sell("XYZ", 15, 150.0, LotRelief.LIFO).getLines()) {
+            lines.add(line.getBuyDate().toEpochDay() + ":" + line.getQuantitySoldFromLot() + "@" + line.getBuyUnitPrice());
+        }
+        assertEquals(lines, streamed);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderBasket;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBasketTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.parse("2024-03-01T10:00:00");
+
+    private OrderBasket ladder() {
+        return new OrderBasket(2)
+                .add(OrderType.BUY, AssetType.SHARE, "XYZ", 5, 99.0, 100.0)
+                .add(OrderType.BUY, AssetType.SHARE, "XYZ", 5, 98.0, 100.0)
+                .add(OrderType.BUY, AssetType.SHARE, "ABC", 3, 50.0, 51.0)
+                .add(OrderType.SELL, AssetType.SHARE, "XYZ", 4, 101.0, 100.0);
+    }
+
+    @Test
+    void basketShouldRestAllNonCrossingOrders() {
+        Portfolio p = new Portfolio(0.0);
+        p.submitLimitOrders(ladder(), T0);
+        assertEquals(4, p.getRestingOrdersCount());
+    }
+
+    @Test
+    void basketShouldUseConsecutiveIds() {
+        Portfolio p = new Portfolio(0.0);
+        p.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "XYZ", 1, 90.0, 100.0);
+        List<Order> orders = p.submitLimitOrders(ladder(), T0);
+        assertEquals(4, orders.get(3).getId());
+    }
+
+    @Test
+    void basketShouldStampOneTimestamp() {
+        Portfolio p = new Portfolio(0.0);
+        List<Order> orders = p.submitLimitOrders(ladder(), T0);
+        assertEquals(T0, orders.get(3).getCreatedAt());
+    }
+
+    @Test
+    void crossingRowShouldMatchEarlierRowOfSameBasket() {
+        Portfolio p = new Portfolio(10_000.0);
+        Share xyz = new Share("XYZ", "XYZ", 100.0, 0.0);
+        p.acquire(xyz, 10, LocalDate.parse("2024-01-02"), 90.0);
+        OrderBasket basket = new OrderBasket()
+                .add(OrderType.SELL, AssetType.SHARE, "XYZ", 4, 100.0, 100.0)
+                .add(OrderType.BUY, AssetType.SHARE, "XYZ", 6, 100.0, 100.0);
+        p.submitLimitOrders(basket, T0);
+        assertEquals(2, p.peekBestBid("XYZ").getRemainingQuantity());
+    }
+
+    @Test
+    void basketShouldMatchOneByOneSubmission() {
+        Portfolio batch = new Portfolio(0.0);
+        Portfolio single = new Portfolio(0.0);
+        OrderBasket basket = ladder();
+        batch.submitLimitOrders(basket, T0);
+        for (int i = 0; i < basket.size(); i++) {
+            single.submitLimitOrder(basket.getType(i), basket.getAssetType(i), basket.getSymbol(i),
+                    basket.getQuantity(i), basket.getLimitPrice(i), basket.getMarketPrice(i), T0);
+        }
+        assertEquals(describe(single), describe(batch));
+    }
+
+    // id:pozostały wolumen zleceń oczekujących w kolejności złożenia
+    private List<String> describe(Portfolio p) {
+        List<String> rows = new ArrayList<>();
+        for (Order order : p.getRestingOrders()) {
+            rows.add(order.getId() + ":" + order.getRemainingQuantity());
+        }
+        return rows;
+    }
+
+    @Test
+    void basketShouldNotifyListenersInRowOrder() {
+        Portfolio p = new Portfolio(0.0);
+        final List<Long> ids = new ArrayList<>();
+        p.addPortfolioListener(new PortfolioListener() {
+            @Override
+            public void onLimitOrderSubmitted(Order order) {
+                ids.add(order.getId());
+            }
+        });
+        p.submitLimitOrders(ladder(), T0);
+        assertEquals(List.of(0L, 1L, 2L, 3L), ids);
+    }
+
+    @Test
+    void invalidRowShouldBeRejectedByBasket() {
+        OrderBasket basket = new OrderBasket();
+        assertThrows(IllegalArgumentException.class,
+                () -> basket.add(OrderType.BUY, AssetType.SHARE, "XYZ", 0, 99.0, 100.0));
+    }
+
+    @Test
+    void clearedBasketShouldBeEmpty() {
+        OrderBasket basket = ladder();
+        basket.clear();
+        assertTrue(basket.isEmpty());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Execution;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    private long seq = 0;
+
+    private Order order(OrderType type, int qty, double limit) {
+        return new Order(type, AssetType.SHARE, "XYZ", qty, limit, 100.0, LocalDateTime.now(), seq++);
+    }
+
+    private OrderBook bookWithTwoAsks() {
+        OrderBook book = new OrderBook("XYZ");
+        book.submit(order(OrderType.SELL, 5, 101.0), null);
+        book.submit(order(OrderType.SELL, 5, 102.0), null);
+        return book;
+    }
+
+    @Test
+    void bestBidShouldBeHighestLimit() {
+        OrderBook book = new OrderBook("XYZ");
+        book.submit(order(OrderType.BUY, 1, 99.0), null);
+        book.submit(order(OrderType.BUY, 1, 100.0), null);
+        assertEquals(100.0, book.getBestBidPrice(), 1e-9);
+    }
+
+    @Test
+    void samePriceShouldKeepTimePriority() {
+        OrderBook book = new OrderBook("XYZ");
+        Order first = order(OrderType.SELL, 1, 101.0);
+        book.submit(first, null);
+        book.submit(order(OrderType.SELL, 1, 101.0), null);
+        assertSame(first, book.peekBestAsk());
+    }
+
+    @Test
+    void crossingBuyShouldSweepTwoLevels() {
+        OrderBook book = bookWithTwoAsks();
+        List<Execution> executions = book.submit(order(OrderType.BUY, 8, 102.0), null);
+        assertEquals(2, executions.size());
+    }
+
+    @Test
+    void executionShouldUseRestingPrice() {
+        OrderBook book = bookWithTwoAsks();
+        List<Execution> executions = book.submit(order(OrderType.BUY, 3, 105.0), null);
+        assertEquals(101.0, executions.get(0).getPrice(), 1e-9);
+    }
+
+    @Test
+    void partialFillShouldLeaveRestingRemainder() {
+        OrderBook book = bookWithTwoAsks();
+        book.submit(order(OrderType.BUY, 8, 102.0), null);
+        assertEquals(2, book.peekBestAsk().getRemainingQuantity());
+    }
+
+    @Test
+    void unfilledRemainderShouldRestAsBid() {
+        OrderBook book = bookWithTwoAsks();
+        book.submit(order(OrderType.BUY, 12, 102.0), null);
+        assertEquals(102.0, book.getBestBidPrice(), 1e-9);
+    }
+
+    @Test
+    void nonCrossingOrderShouldNotExecute() {
+        OrderBook book = bookWithTwoAsks();
+        List<Execution> executions = book.submit(order(OrderType.BUY, 1, 100.0), null);
+        assertTrue(executions.isEmpty());
+    }
+
+    @Test
+    void cancelShouldRemoveOrderAndEmptyLevel() {
+        OrderBook book = bookWithTwoAsks();
+        book.cancel(0);
+        assertEquals(102.0, book.getBestAskPrice(), 1e-9);
+    }
+
+    @Test
+    void cancelOfUnknownIdShouldReturnNull() {
+        OrderBook book = bookWithTwoAsks();
+        assertNull(book.cancel(42));
+    }
+
+    @Test
+    void cancelFromMiddleOfLevelShouldKeepNeighbours() {
+        OrderBook book = new OrderBook("XYZ");
+        book.submit(order(OrderType.BUY, 1, 100.0), null);
+        book.submit(order(OrderType.BUY, 2, 100.0), null);
+        book.submit(order(OrderType.BUY, 4, 100.0), null);
+        book.cancel(1);
+        assertEquals(5, book.getQuantityAt(OrderType.BUY, 100.0));
+    }
+
+    @Test
+    void amendShouldKeepTimePriority() {
+        OrderBook book = new OrderBook("XYZ");
+        Order first = order(OrderType.SELL, 5, 101.0);
+        book.submit(first, null);
+        book.submit(order(OrderType.SELL, 5, 101.0), null);
+        book.amendQuantity(first.getId(), 2);
+        assertSame(first, book.peekBestAsk());
+    }
+
+    @Test
+    void amendShouldUpdateLevelQuantity() {
+        OrderBook book = bookWithTwoAsks();
+        book.amendQuantity(0, 3);
+        assertEquals(3, book.getQuantityAt(OrderType.SELL, 101.0));
+    }
+
+    @Test
+    void amendAboveRemainingShouldBeRejected() {
+        OrderBook book = bookWithTwoAsks();
+        assertThrows(IllegalArgumentException.class, () -> book.amendQuantity(0, 6));
+    }
+
+    @Test
+    void filledRestingOrderShouldNoLongerBeFound() {
+        OrderBook book = bookWithTwoAsks();
+        book.submit(order(OrderType.BUY, 5, 101.0), null);
+        assertNull(book.findOrder(0));
+    }
+
+    @Test
+    void portfolioShouldSettleExecutionThroughAcquireAndSell() {
+        Portfolio p = new Portfolio(10_000.0);
+        Share xyz = new Share("XYZ", "XYZ", 100.0, 0.0);
+        p.acquire(xyz, 10, LocalDate.parse("2023-01-01"), 90.0);
+
+        p.submitLimitOrder(OrderType.SELL, AssetType.SHARE, "XYZ", 4, 100.0, 100.0);
+        p.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "XYZ", 4, 100.0, 100.0);
+
+        assertEquals(10, p.getPositionsView().get("XYZ").getTotalQuantity());
+    }
+
+    @Test
+    void portfolioShouldReportBestBidPerSymbol() {
+        Portfolio p = new Portfolio(0.0);
+        p.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "AAPL", 1, 150.0, 151.0);
+        p.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "XYZ", 1, 200.0, 201.0);
+        assertEquals(150.0, p.peekBestBid("AAPL").getLimitPrice(), 1e-9);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.TimeInForce;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderLifecycleTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.parse("2024-03-01T10:00:00");
+
+    private Order bid(Portfolio p, double limit, TimeInForce tif, LocalDateTime expiresAt) {
+        return p.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "XYZ", 10, limit, 100.0, T0, tif, expiresAt);
+    }
+
+    @Test
+    void cancelOrderShouldRemoveRestingOrder() {
+        Portfolio p = new Portfolio(0.0);
+        Order order = bid(p, 99.0, TimeInForce.GTC, null);
+        p.cancelOrder(order.getId());
+        assertEquals(0, p.getRestingOrdersCount());
+    }
+
+    @Test
+    void cancelOrderShouldDropEmptyBook() {
+        Portfolio p = new Portfolio(0.0);
+        Order order = bid(p, 99.0, TimeInForce.GTC, null);
+        p.cancelOrder(order.getId());
+        assertNull(p.getOrderBook("XYZ"));
+    }
+
+    @Test
+    void secondCancelShouldReturnNull() {
+        Portfolio p = new Portfolio(0.0);
+        Order order = bid(p, 99.0, TimeInForce.GTC, null);
+        p.cancelOrder(order.getId());
+        assertNull(p.cancelOrder(order.getId()));
+    }
+
+    @Test
+    void cancelShouldNotifyListener() {
+        Portfolio p = new Portfolio(0.0);
+        final List<Order> cancelled = new ArrayList<>();
+        p.addPortfolioListener(new PortfolioListener() {
+            @Override
+            public void onOrderCancelled(Order order) {
+                cancelled.add(order);
+            }
+        });
+        Order order = bid(p, 99.0, TimeInForce.GTC, null);
+        p.cancelOrder(order.getId());
+        assertEquals(List.of(order), cancelled);
+    }
+
+    @Test
+    void amendShouldReduceRemainingQuantity() {
+        Portfolio p = new Portfolio(0.0);
+        Order order = bid(p, 99.0, TimeInForce.GTC, null);
+        p.amendOrderQuantity(order.getId(), 4);
+        assertEquals(4, p.findRestingOrder(order.getId()).getRemainingQuantity());
+    }
+
+    @Test
+    void amendOfUnknownOrderShouldReturnFalse() {
+        Portfolio p = new Portfolio(0.0);
+        assertFalse(p.amendOrderQuantity(7, 1));
+    }
+
+    @Test
+    void dayOrderShouldExpireAtMidnight() {
+        Portfolio p = new Portfolio(0.0);
+        bid(p, 99.0, TimeInForce.DAY, null);
+        assertEquals(1, p.expireOrders(T0.toLocalDate().plusDays(1).atStartOfDay()).size());
+    }
+
+    @Test
+    void dayOrderShouldNotExpireBeforeMidnight() {
+        Portfolio p = new Portfolio(0.0);
+        bid(p, 99.0, TimeInForce.DAY, null);
+        assertTrue(p.expireOrders(T0.withHour(23).withMinute(59)).isEmpty());
+    }
+
+    @Test
+    void expiredOrderShouldNotBePolled() {
+        Portfolio p = new Portfolio(0.0);
+        bid(p, 101.0, TimeInForce.GTD, T0.plusMinutes(5));
+        Order gtc = bid(p, 99.0, TimeInForce.GTC, null);
+        p.expireOrders(T0.plusMinutes(5));
+        assertSame(gtc, p.pollBestOrder());
+    }
+
+    @Test
+    void gtdBeyondOneWheelRevolutionShouldWaitForItsTime() {
+        Portfolio p = new Portfolio(0.0);
+        p.expireOrders(T0);
+        bid(p, 99.0, TimeInForce.GTD, T0.plusSeconds(ExpiryWheel.SLOTS + 10));
+        p.expireOrders(T0.plusSeconds(ExpiryWheel.SLOTS)); // ten sam slot co termin, ale wcześniejsze okrążenie
+        assertEquals(1, p.getRestingOrdersCount());
+    }
+
+    @Test
+    void gtdBeyondOneWheelRevolutionShouldExpireOnTime() {
+        Portfolio p = new Portfolio(0.0);
+        p.expireOrders(T0);
+        bid(p, 99.0, TimeInForce.GTD, T0.plusSeconds(ExpiryWheel.SLOTS + 10));
+        p.expireOrders(T0.plusSeconds(ExpiryWheel.SLOTS));
+        assertEquals(1, p.expireOrders(T0.plusSeconds(ExpiryWheel.SLOTS + 10)).size());
+    }
+
+    @Test
+    void cancelledGtdOrderShouldNotExpireAgain() {
+        Portfolio p = new Portfolio(0.0);
+        Order order = bid(p, 99.0, TimeInForce.GTD, T0.plusMinutes(1));
+        p.cancelOrder(order.getId());
+        assertTrue(p.expireOrders(T0.plusHours(1)).isEmpty());
+    }
+
+    @Test
+    void gtdWithoutExpiryShouldBeRejected() {
+        Portfolio p = new Portfolio(0.0);
+        assertThrows(IllegalArgumentException.class, () -> bid(p, 99.0, TimeInForce.GTD, null));
+    }
+}
\ No newline at end of file
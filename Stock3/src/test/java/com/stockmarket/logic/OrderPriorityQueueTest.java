@@ -5,10 +5,24 @@ import com.stockmarket.domain.Order;
 import com.stockmarket.domain.OrderType;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class OrderPriorityQueueTest {
 
+    private static final LocalDateTime T0 = LocalDateTime.parse("2024-03-01T10:00:00");
+
+    private long seq = 0;
+
+    private Order order(OrderType type, double limit, LocalDateTime createdAt) {
+        return new Order(type, AssetType.SHARE, "XYZ", 1, limit, 110.0, createdAt, seq++);
+    }
+
     @Test
     void buyLimitOrderCloserToMarketShouldBeOnTop() {
         Portfolio p = new Portfolio(0.0);
@@ -21,4 +35,73 @@ class OrderPriorityQueueTest {
         Order best = p.peekBestOrder();
         assertEquals(105.0, best.getLimitPrice(), 1e-9);
     }
+
+    @Test
+    void packedQueueShouldPutHigherBuyLimitOnTop() {
+        PackedOrderQueue queue = new PackedOrderQueue();
+        queue.add(order(OrderType.BUY, 100.0, T0));
+        queue.add(order(OrderType.BUY, 105.0, T0));
+        assertEquals(105.0, queue.peek().getLimitPrice(), 1e-9);
+    }
+
+    @Test
+    void packedQueueShouldPutLowerSellLimitOnTop() {
+        PackedOrderQueue queue = new PackedOrderQueue();
+        queue.add(order(OrderType.SELL, 105.0, T0));
+        queue.add(order(OrderType.SELL, 100.0, T0));
+        assertEquals(100.0, queue.peek().getLimitPrice(), 1e-9);
+    }
+
+    @Test
+    void packedQueueShouldPutBuyBeforeSell() {
+        PackedOrderQueue queue = new PackedOrderQueue();
+        queue.add(order(OrderType.SELL, 1.0, T0));
+        queue.add(order(OrderType.BUY, 0.5, T0));
+        assertEquals(OrderType.BUY, queue.poll().getType());
+    }
+
+    @Test
+    void packedQueueShouldPreferOlderOrderAtSamePrice() {
+        PackedOrderQueue queue = new PackedOrderQueue();
+        Order younger = order(OrderType.BUY, 100.0, T0.plusNanos(1));
+        Order older = order(OrderType.BUY, 100.0, T0);
+        queue.add(younger);
+        queue.add(older);
+        assertSame(older, queue.poll());
+    }
+
+    @Test
+    void packedQueueShouldPollInComparatorOrder() {
+        Random rnd = new Random(11);
+        PackedOrderQueue packed = new PackedOrderQueue(4);
+        PriorityQueue<Order> reference = new PriorityQueue<>(OrderComparators.byAttractiveness());
+        List<Order> packedOrder = new ArrayList<>();
+        List<Order> referenceOrder = new ArrayList<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            OrderType type = rnd.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+            Order o = order(type, rnd.nextInt(50) / 4.0, T0.plusSeconds(rnd.nextInt(5)).plusNanos(rnd.nextInt(3)));
+            packed.add(o);
+            reference.add(o);
+            if (i % 3 == 0) {
+                packedOrder.add(packed.poll());
+                referenceOrder.add(reference.poll());
+            }
+        }
+        while (!reference.isEmpty()) {
+            packedOrder.add(packed.poll());
+            referenceOrder.add(reference.poll());
+        }
+        assertEquals(referenceOrder, packedOrder);
+    }
+
+    @Test
+    void negativeZeroShouldRankLikeDoubleCompare() {
+        assertTrue(PackedOrderQueue.priorityKey(OrderType.SELL, -0.0) < PackedOrderQueue.priorityKey(OrderType.SELL, 0.0));
+    }
+
+    @Test
+    void emptyQueueShouldPollNull() {
+        assertNull(new PackedOrderQueue().poll());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,161 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.InsufficientFundsException;
+import com.stockmarket.domain.InsufficientHoldingsException;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderSettlementTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.parse("2024-03-01T10:00:00");
+
+    // opłata 40 za każdy zakup - noga kupna i sprzedaży po tej samej cenie, więc netto realizacja kosztuje opłatę
+    private final Share xyz = new Share("XYZ", "XYZ", 100.0, 40.0);
+
+    private Order submit(Portfolio p, OrderType type, int qty, double limit) {
+        return p.submitLimitOrder(type, AssetType.SHARE, "XYZ", qty, limit, xyz.getMarketPrice(), T0);
+    }
+
+    /**
+     Pokrycie 10 (zakup za 1040) i dwa poziomy ASK (5 @ 50, 5 @ 60); cash - gotówka po zakupie pokrycia.
+     Przy 300: pierwsza realizacja kosztuje 290 (zostaje 260), druga potrzebuje 340.
+     */
+    private Portfolio twoAskLevels(double cash) {
+        Portfolio p = new Portfolio(cash + 1_040.0);
+        p.acquire(xyz, 10, LocalDate.parse("2024-01-02"), 100.0);
+        submit(p, OrderType.SELL, 5, 50.0);
+        submit(p, OrderType.SELL, 5, 60.0);
+        return p;
+    }
+
+    @Test
+    void sweepRunningOutOfCashShouldBeRejected() {
+        Portfolio p = twoAskLevels(300.0);
+        assertThrows(InsufficientFundsException.class, () -> submit(p, OrderType.BUY, 10, 60.0));
+    }
+
+    @Test
+    void rejectedSweepShouldNotSettleEarlierLevels() {
+        Portfolio p = twoAskLevels(300.0);
+        try {
+            submit(p, OrderType.BUY, 10, 60.0);
+        } catch (InsufficientFundsException ignored) {
+        }
+        assertEquals(300.0, p.getCash(), 1e-9);
+    }
+
+    @Test
+    void rejectedSweepShouldLeaveBookUntouched() {
+        Portfolio p = twoAskLevels(300.0);
+        try {
+            submit(p, OrderType.BUY, 10, 60.0);
+        } catch (InsufficientFundsException ignored) {
+        }
+        assertEquals(2, p.getRestingOrdersCount());
+    }
+
+    @Test
+    void rejectedSweepShouldNotReportExecutions() {
+        Portfolio p = twoAskLevels(300.0);
+        final List<Object> executions = new ArrayList<>();
+        p.addExecutionListener(executions::add);
+        try {
+            submit(p, OrderType.BUY, 10, 60.0);
+        } catch (InsufficientFundsException ignored) {
+        }
+        assertTrue(executions.isEmpty());
+    }
+
+    @Test
+    void affordableSweepShouldSettleEveryLevel() {
+        Portfolio p = twoAskLevels(1_000.0);
+        submit(p, OrderType.BUY, 10, 60.0);
+        assertEquals(0, p.getRestingOrdersCount());
+    }
+
+    // pozycja 10 @ 80 (dwie partie), potem kupno i sprzedaż 4 skojarzone po 90 w tym samym portfelu
+    private Portfolio washTrade() {
+        Portfolio p = new Portfolio(10_000.0);
+        p.acquire(xyz, 6, LocalDate.parse("2023-01-02"), 80.0);
+        p.acquire(xyz, 4, LocalDate.parse("2023-02-01"), 80.0);
+        submit(p, OrderType.SELL, 4, 90.0);
+        submit(p, OrderType.BUY, 4, 95.0);
+        return p;
+    }
+
+    @Test
+    void washTradeShouldChargeOnlyFee() {
+        Portfolio p = new Portfolio(10_000.0);
+        p.acquire(xyz, 10, LocalDate.parse("2023-01-02"), 80.0);
+        double before = p.getCash();
+        submit(p, OrderType.SELL, 4, 90.0);
+        submit(p, OrderType.BUY, 4, 95.0);
+        assertEquals(before - 40.0, p.getCash(), 1e-9);
+    }
+
+    @Test
+    void washTradeShouldLeaveCostBasisUntouched() {
+        assertEquals(800.0, washTrade().getPositionsView().get("XYZ").getCostBasis(), 1e-9);
+    }
+
+    @Test
+    void washTradeShouldLeaveLotsUntouched() {
+        assertEquals(2, washTrade().getPositionsView().get("XYZ").getLotCount());
+    }
+
+    @Test
+    void washTradeShouldKeepOldestLotDate() {
+        final long[] firstDay = {Long.MIN_VALUE};
+        washTrade().getPositionsView().get("XYZ").forEachLot((epochDay, quantity, unitPrice) -> {
+            if (firstDay[0] == Long.MIN_VALUE) firstDay[0] = epochDay;
+        });
+        assertEquals(LocalDate.parse("2023-01-02").toEpochDay(), firstDay[0]);
+    }
+
+    @Test
+    void sellWithoutHoldingsShouldNotMatch() {
+        Portfolio p = new Portfolio(1_000.0);
+        p.registerAsset(xyz);
+        submit(p, OrderType.SELL, 4, 90.0);
+        assertThrows(InsufficientHoldingsException.class, () -> submit(p, OrderType.BUY, 4, 95.0));
+    }
+
+    @Test
+    void unmatchedSellWithoutHoldingsShouldLeaveCashUntouched() {
+        Portfolio p = new Portfolio(1_000.0);
+        p.registerAsset(xyz);
+        submit(p, OrderType.SELL, 4, 90.0);
+        try {
+            submit(p, OrderType.BUY, 4, 95.0);
+        } catch (InsufficientHoldingsException ignored) {
+        }
+        assertEquals(1_000.0, p.getCash(), 1e-9);
+    }
+
+    @Test
+    void executionShouldSettleBothLegsAtExecutionPrice() {
+        Portfolio p = new Portfolio(10_000.0);
+        p.acquire(xyz, 10, LocalDate.parse("2023-01-02"), 80.0);
+        final List<Double> sellPrices = new ArrayList<>();
+        p.addPortfolioListener(new PortfolioListener() {
+            @Override
+            public void onRealized(Asset asset, int quantity, double sellUnitPrice, double realizedProfit) {
+                sellPrices.add(sellUnitPrice);
+            }
+        });
+        submit(p, OrderType.SELL, 4, 90.0);
+        submit(p, OrderType.BUY, 4, 95.0);
+        assertEquals(List.of(90.0), sellPrices);
+    }
+}
\ No newline at end of file
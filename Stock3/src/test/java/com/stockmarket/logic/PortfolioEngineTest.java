@@ -0,0 +1,115 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioEngineTest {
+
+    private static final LocalDate DATE = LocalDate.parse("2023-01-01");
+    // więcej niż SPLIT_THRESHOLD - zadania fork-join faktycznie się dzielą
+    private static final int ACCOUNTS = PortfolioEngine.SPLIT_THRESHOLD * 4 + 3;
+
+    private PortfolioEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new PortfolioEngine();
+        engine.registerAsset(new Share("XYZ", "XYZ", 10.0, 0.0));
+        engine.registerAsset(new Currency("EUR", "Euro", 4.0, 0.0));
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String id = "A" + i;
+            engine.openAccount(id, 1000.0);
+            engine.acquire(id, "XYZ", 2, DATE, 10.0);
+            engine.acquire(id, "EUR", 5, DATE, 4.0);
+        }
+    }
+
+    private Map<String, Double> prices(String symbol, double price) {
+        Map<String, Double> batch = new HashMap<>();
+        batch.put(symbol, price);
+        return batch;
+    }
+
+    @Test
+    void registerAssetShouldReturnSharedInstance() {
+        Share duplicate = new Share("XYZ", "Other", 99.0, 0.0);
+        assertSame(engine.getAsset("XYZ"), engine.registerAsset(duplicate));
+    }
+
+    @Test
+    void registerAssetShouldRejectSymbolOfOtherType() {
+        Currency clash = new Currency("XYZ", "Other", 1.0, 0.0);
+        assertThrows(IllegalArgumentException.class, () -> engine.registerAsset(clash));
+    }
+
+    @Test
+    void getAssetByTypeShouldReturnSharedInstance() {
+        assertSame(engine.getAsset("EUR"), engine.getAsset(AssetType.CURRENCY, "EUR"));
+    }
+
+    @Test
+    void openAccountShouldRejectDuplicateId() {
+        assertThrows(IllegalArgumentException.class, () -> engine.openAccount("A0", 1.0));
+    }
+
+    @Test
+    void priceBatchShouldRevalueEveryAccount() {
+        engine.applyPriceBatch(prices("XYZ", 15.0));
+        // każdy rachunek: 1000 - 20 - 20 + 2*15 + 5*4
+        assertEquals(ACCOUNTS * 1010.0, engine.calculateTotalRealValue(), 1e-6);
+    }
+
+    @Test
+    void accountShouldNotSeePriceBeforeRevaluation() {
+        engine.getAsset("XYZ").setMarketPrice(15.0);
+        assertEquals(1000.0, engine.getAccount("A0").calculateTotalRealValue(), 1e-9);
+    }
+
+    @Test
+    void tradeAfterPriceBatchShouldNotDoubleCountPriceChange() {
+        engine.applyPriceBatch(prices("XYZ", 15.0));
+        engine.getAsset("XYZ").setMarketPrice(20.0); // cena bez przeliczenia - delta wejdzie z najbliższą transakcją
+        engine.sell("A0", "XYZ", 1, 20.0);
+        // 1000 - 20 - 20 + 20 (sprzedaż) + 1*20 + 5*4
+        assertEquals(1020.0, engine.getAccount("A0").calculateTotalRealValue(), 1e-9);
+    }
+
+    @Test
+    void priceBatchWithUnknownSymbolShouldChangeNothing() {
+        Map<String, Double> batch = prices("XYZ", 15.0);
+        batch.put("NOPE", 1.0);
+        try {
+            engine.applyPriceBatch(batch);
+        } catch (IllegalArgumentException ignored) {
+            // sprawdzamy tylko stan po odrzuceniu paczki
+        }
+        assertEquals(10.0, engine.getAsset("XYZ").getMarketPrice(), 0.0);
+    }
+
+    @Test
+    void exposureShouldSumQuantitiesAcrossAccounts() {
+        assertEquals(ACCOUNTS * 2L, engine.calculateExposure().getQuantity("XYZ"));
+    }
+
+    @Test
+    void directAcquireOnAccountShouldUseSharedInstance() {
+        Portfolio account = engine.getAccount("A0");
+        account.acquire(new Share("XYZ", "XYZ copy", 12.0, 0.0), 1, DATE, 12.0);
+        assertSame(engine.getAsset("XYZ"), account.getPositionsView().get("XYZ").getAsset());
+    }
+
+    @Test
+    void exposureByTypeShouldUseCurrentPrices() {
+        engine.applyPriceBatch(prices("EUR", 5.0));
+        assertEquals(ACCOUNTS * 25.0, engine.calculateExposure().getMarketValue(AssetType.CURRENCY), 1e-6);
+    }
+}
\ No newline at end of file
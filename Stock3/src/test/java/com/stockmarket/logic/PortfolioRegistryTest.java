@@ -0,0 +1,87 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.AssetRegistry;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Position;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioRegistryTest {
+
+    private static final LocalDate DATE = LocalDate.parse("2024-01-02");
+
+    @Test
+    void acquireShouldCanonicalizeAsset() {
+        AssetRegistry registry = new AssetRegistry();
+        Share canonical = (Share) registry.register(new Share("XYZ", "XYZ", 10.0, 0.0));
+        Portfolio p = new Portfolio(1_000.0, true, registry);
+        p.acquire(new Share("XYZ", "XYZ", 10.0, 0.0), 3, DATE, 10.0);
+        assertSame(canonical, p.getPositionsView().get("XYZ").getAsset());
+    }
+
+    @Test
+    void acquireOfOtherTypeUnderHeldSymbolShouldBeRejected() {
+        Portfolio p = new Portfolio(1_000.0, true, new AssetRegistry());
+        p.acquire(new Share("X", "X", 10.0, 0.0), 3, DATE, 10.0);
+        assertThrows(IllegalArgumentException.class, () -> p.acquire(new Commodity("X", "X", 10.0, 0.0), 1, DATE, 10.0));
+    }
+
+    @Test
+    void rejectedAcquireOfOtherTypeShouldKeepValuationConsistent() {
+        Portfolio p = new Portfolio(1_000.0, true, new AssetRegistry());
+        p.acquire(new Share("X", "X", 10.0, 0.0), 3, DATE, 10.0);
+        try {
+            p.acquire(new Commodity("X", "X", 10.0, 0.0), 1, DATE, 10.0);
+        } catch (IllegalArgumentException ignored) {
+        }
+        assertEquals(1_000.0, p.calculateTotalRealValue(), 1e-9);
+    }
+
+    @Test
+    void registerAssetOfOtherTypeUnderKnownSymbolShouldBeRejected() {
+        Portfolio p = new Portfolio(1_000.0, true, new AssetRegistry());
+        p.registerAsset(new Share("X", "X", 10.0, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> p.registerAsset(new Commodity("X", "X", 10.0, 0.0)));
+    }
+
+    @Test
+    void acquiresOfEqualInstancesShouldShareOnePosition() {
+        Portfolio p = new Portfolio(1_000.0, true, new AssetRegistry());
+        p.acquire(new Share("XYZ", "XYZ", 10.0, 0.0), 3, DATE, 10.0);
+        p.acquire(new Share("XYZ", "XYZ", 10.0, 0.0), 2, DATE, 10.0);
+        assertEquals(5, p.getPositionsView().get("XYZ").getTotalQuantity());
+    }
+
+    @Test
+    void positionClosedBySymbolShouldBeReopenedByAsset() {
+        Portfolio p = new Portfolio(1_000.0, true, new AssetRegistry());
+        Share xyz = new Share("XYZ", "XYZ", 10.0, 0.0);
+        p.acquire(xyz, 3, DATE, 10.0);
+        p.sell("XYZ", 3, 11.0);
+        p.acquire(xyz, 1, DATE, 10.0);
+        assertEquals(1, p.getPositionsView().get("XYZ").getTotalQuantity());
+    }
+
+    @Test
+    void manyAssetsShouldGrowPositionTable() {
+        AssetRegistry registry = new AssetRegistry();
+        Portfolio p = new Portfolio(1_000_000.0, true, registry);
+        for (int i = 0; i < 100; i++) {
+            p.acquire(new Share("S" + i, "S" + i, 10.0, 0.0), 1, DATE, 10.0);
+        }
+        assertEquals(100, p.getPositionsCount());
+    }
+
+    @Test
+    void nonCanonicalPositionShouldBeRejected() {
+        AssetRegistry registry = new AssetRegistry();
+        registry.register(new Share("XYZ", "XYZ", 10.0, 0.0));
+        Portfolio p = new Portfolio(0.0, true, registry);
+        Position foreign = new Position(new Share("XYZ", "XYZ", 10.0, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> p.putPositionForPersistence(foreign));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioValuationTest {
+
+    private Portfolio p;
+    private Share xyz;
+    private Currency eur;
+
+    @BeforeEach
+    void setUp() {
+        p = new Portfolio(10_000.0);
+        xyz = new Share("XYZ", "XYZ", 100.0, 0.0);
+        eur = new Currency("EUR", "Euro", 4.0, 0.5);
+        p.acquire(xyz, 10, LocalDate.parse("2023-01-01"), 100.0);
+        p.acquire(eur, 100, LocalDate.parse("2023-01-01"), 4.0);
+    }
+
+    @Test
+    void totalRealValueShouldIncludeSpread() {
+        // 10000 - 1000 - 400 + 10*100 + 100*4*(1-0.5)
+        assertEquals(9800.0, p.calculateTotalRealValue(), 1e-9);
+    }
+
+    @Test
+    void priceChangeShouldUpdateTotalRealValue() {
+        xyz.setMarketPrice(110.0);
+        assertEquals(9900.0, p.calculateTotalRealValue(), 1e-9);
+    }
+
+    @Test
+    void priceChangeShouldUpdateTotalMarketValue() {
+        eur.setMarketPrice(5.0);
+        assertEquals(10100.0, p.calculateTotalMarketValue(), 1e-9);
+    }
+
+    @Test
+    void closedPositionShouldStopReactingToPriceChanges() {
+        p.sell("XYZ", 10, 100.0);
+        xyz.setMarketPrice(500.0);
+        assertEquals(9800.0, p.calculateTotalRealValue(), 1e-9);
+    }
+
+    @Test
+    void recalculateValuationShouldMatchRunningTotal() {
+        xyz.setMarketPrice(123.45);
+        double running = p.calculateTotalRealValue();
+        p.recalculateValuation();
+        assertEquals(running, p.calculateTotalRealValue(), 1e-9);
+    }
+}
\ No newline at end of file
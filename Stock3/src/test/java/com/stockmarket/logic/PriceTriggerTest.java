@@ -0,0 +1,116 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.PriceListener;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceTriggerTest {
+
+    private final Share xyz = new Share("XYZ", "XYZ", 100.0, 0.0);
+
+    private Portfolio portfolioWithTriggers(double cash) {
+        Portfolio p = new Portfolio(cash);
+        p.registerAsset(xyz);
+        p.setPriceTriggersEnabled(true);
+        return p;
+    }
+
+    private Order submit(Portfolio p, OrderType type, int qty, double limit) {
+        return p.submitLimitOrder(type, AssetType.SHARE, "XYZ", qty, limit, xyz.getMarketPrice());
+    }
+
+    @Test
+    void buyShouldFireWhenPriceDropsToLimit() {
+        Portfolio p = portfolioWithTriggers(10_000.0);
+        submit(p, OrderType.BUY, 5, 95.0);
+        xyz.setMarketPrice(95.0);
+        assertEquals(5, p.getPositionsView().get("XYZ").getTotalQuantity());
+    }
+
+    @Test
+    void buyShouldNotFireAbovePriceLimit() {
+        Portfolio p = portfolioWithTriggers(10_000.0);
+        submit(p, OrderType.BUY, 5, 95.0);
+        xyz.setMarketPrice(96.0);
+        assertEquals(1, p.getRestingOrdersCount());
+    }
+
+    @Test
+    void triggeredBuyShouldSettleAtNewMarketPrice() {
+        Portfolio p = portfolioWithTriggers(10_000.0);
+        submit(p, OrderType.BUY, 5, 95.0);
+        xyz.setMarketPrice(90.0);
+        assertEquals(90.0, p.getPositionsView().get("XYZ").getAverageCost(), 1e-9);
+    }
+
+    @Test
+    void priceJumpShouldFireOnlyCrossedLevels() {
+        Portfolio p = portfolioWithTriggers(1_000.0);
+        p.acquire(xyz, 10, LocalDate.parse("2024-01-02"), 100.0);
+        submit(p, OrderType.SELL, 2, 102.0);
+        submit(p, OrderType.SELL, 2, 104.0);
+        submit(p, OrderType.SELL, 2, 106.0);
+        xyz.setMarketPrice(104.0);
+        assertEquals(106.0, p.peekBestAsk("XYZ").getLimitPrice(), 1e-9);
+    }
+
+    @Test
+    void triggeredOrderShouldBeFilled() {
+        Portfolio p = portfolioWithTriggers(1_000.0);
+        p.acquire(xyz, 10, LocalDate.parse("2024-01-02"), 100.0);
+        Order order = submit(p, OrderType.SELL, 4, 102.0);
+        xyz.setMarketPrice(103.0);
+        assertTrue(order.isFilled());
+    }
+
+    @Test
+    void unaffordableBuyShouldBeCancelled() {
+        Portfolio p = portfolioWithTriggers(100.0);
+        final List<Order> cancelled = new ArrayList<>();
+        p.addPortfolioListener(new PortfolioListener() {
+            @Override
+            public void onOrderCancelled(Order order) {
+                cancelled.add(order);
+            }
+        });
+        Order order = submit(p, OrderType.BUY, 5, 95.0);
+        xyz.setMarketPrice(95.0);
+        assertEquals(List.of(order), cancelled);
+    }
+
+    @Test
+    void disabledTriggersShouldLeaveBookUntouched() {
+        Portfolio p = portfolioWithTriggers(10_000.0);
+        p.setPriceTriggersEnabled(false);
+        submit(p, OrderType.BUY, 5, 95.0);
+        xyz.setMarketPrice(90.0);
+        assertEquals(1, p.getRestingOrdersCount());
+    }
+
+    @Test
+    void closingPositionDuringBroadcastShouldNotSkipOtherListeners() {
+        Portfolio p = portfolioWithTriggers(1_000.0);
+        p.acquire(xyz, 4, LocalDate.parse("2024-01-02"), 100.0); // słuchacz pozycji przed wyzwalaczem
+        submit(p, OrderType.SELL, 4, 102.0);
+
+        final List<Double> seen = new ArrayList<>();
+        xyz.addPriceListener(new PriceListener() {
+            @Override
+            public void onPriceChanged(Asset asset, double oldPrice, double newPrice) {
+                seen.add(newPrice);
+            }
+        });
+        xyz.setMarketPrice(103.0); // sprzedaż zamyka pozycję i wypina jej słuchacza
+        assertEquals(List.of(103.0), seen);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Position;
+import com.stockmarket.domain.Share;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportGeneratorTest {
+
+    private static final LocalDate DATE = LocalDate.parse("2023-01-01");
+
+    private Portfolio p;
+    private final ReportGenerator reports = new ReportGenerator();
+
+    @BeforeEach
+    void setUp() {
+        p = new Portfolio(1_000_000.0);
+        p.acquire(new Share("AAA", "A", 10.0, 0.0), 1, DATE, 10.0);   // 10
+        p.acquire(new Share("BBB", "B", 10.0, 0.0), 30, DATE, 10.0);  // 300
+        p.acquire(new Share("CCC", "C", 10.0, 0.0), 20, DATE, 10.0);  // 200
+        p.acquire(new Currency("EUR", "Euro", 4.0, 0.0), 10, DATE, 4.0); // 40
+    }
+
+    // pozycje powyżej progu sortowania równoległego, typy i wartości losowe
+    private Position[] largePositions(boolean equalValues) {
+        Random rnd = new Random(11);
+        Position[] positions = new Position[ReportGenerator.PARALLEL_SORT_THRESHOLD + 500];
+        for (int i = 0; i < positions.length; i++) {
+            double price = equalValues ? 10.0 : 1.0 + rnd.nextInt(1000);
+            String symbol = "S" + i;
+            Position pos;
+            switch (equalValues ? 0 : rnd.nextInt(3)) {
+                case 0: pos = new Position(new Share(symbol, symbol, price, 0.0)); break;
+                case 1: pos = new Position(new Currency(symbol, symbol, price, 0.0)); break;
+                default: pos = new Position(new Commodity(symbol, symbol, price, 0.0)); break;
+            }
+            pos.addLot(DATE, equalValues ? 1 : 1 + rnd.nextInt(100), price);
+            positions[i] = pos;
+        }
+        return positions;
+    }
+
+    @Test
+    void parallelSortedOrderShouldBeByTypeThenValueDesc() {
+        Position[] positions = largePositions(false);
+        int[] order = ReportGenerator.sortedOrder(positions);
+
+        boolean sorted = true;
+        for (int k = 1; k < order.length; k++) {
+            Position prev = positions[order[k - 1]];
+            Position cur = positions[order[k]];
+            AssetType pt = prev.getAsset().getType();
+            AssetType ct = cur.getAsset().getType();
+            if (pt.compareTo(ct) > 0 || (pt == ct && prev.getMarketValue() < cur.getMarketValue())) sorted = false;
+        }
+        assertTrue(sorted);
+    }
+
+    @Test
+    void parallelSortedOrderShouldBreakTiesBySymbol() {
+        Position[] positions = largePositions(true);
+        int[] order = ReportGenerator.sortedOrder(positions);
+
+        boolean bySymbol = true;
+        for (int k = 1; k < order.length; k++) {
+            String prev = positions[order[k - 1]].getAsset().getSymbol();
+            String cur = positions[order[k]].getAsset().getSymbol();
+            if (prev.compareTo(cur) > 0) bySymbol = false;
+        }
+        assertTrue(bySymbol);
+    }
+
+    @Test
+    void writerReportShouldMatchStringReport() throws Exception {
+        StringWriter out = new StringWriter();
+        reports.writePositionsReport(p.getPositionsView(), out);
+        assertEquals(reports.generatePositionsReport(p.getPositionsView()), out.toString());
+    }
+
+    @Test
+    void outputStreamReportShouldMatchStringReport() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reports.writePositionsReport(p.getPositionsView(), out);
+        assertEquals(reports.generatePositionsReport(p.getPositionsView()), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void reportShouldSortByTypeThenValueDesc() {
+        String[] lines = reports.generatePositionsReport(p.getPositionsView()).split("\n");
+        assertEquals("BBB|SHARE|30|10.0|300.0|300.0", lines[1]);
+    }
+
+    @Test
+    void topReportShouldKeepLargestPositionsPerType() {
+        String report = reports.generateTopPositionsReport(p.getPositionsView(), 2);
+        assertFalse(report.contains("AAA|"));
+    }
+
+    @Test
+    void topReportShouldKeepEveryAssetType() {
+        String report = reports.generateTopPositionsReport(p.getPositionsView(), 1);
+        assertTrue(report.contains("EUR|CURRENCY|"));
+    }
+
+    @Test
+    void topReportShouldMatchPrefixOfFullReportWithinType() {
+        String[] full = reports.generatePositionsReport(p.getPositionsView()).split("\n");
+        String[] top = reports.generateTopPositionsReport(p.getPositionsView(), 2).split("\n");
+        // SHARE: BBB, CCC (AAA odcięte), potem CURRENCY: EUR
+        assertArrayEquals(new String[]{full[0], full[1], full[2], full[4]}, top);
+    }
+
+    @Test
+    void reportShouldBreakValueTiesBySymbol() {
+        Portfolio tied = new Portfolio(1_000_000.0);
+        tied.acquire(new Share("ZZZ", "Z", 10.0, 0.0), 5, DATE, 10.0);
+        tied.acquire(new Share("MMM", "M", 10.0, 0.0), 5, DATE, 10.0);
+        tied.acquire(new Share("AAA", "A", 10.0, 0.0), 5, DATE, 10.0);
+        String[] lines = reports.generatePositionsReport(tied.getPositionsView()).split("\n");
+        assertEquals("AAA|SHARE|5|10.0|50.0|50.0", lines[1]);
+    }
+
+    @Test
+    void topReportShouldCutValueTiesLikeFullReport() {
+        Portfolio tied = new Portfolio(1_000_000.0);
+        tied.acquire(new Share("ZZZ", "Z", 10.0, 0.0), 5, DATE, 10.0);
+        tied.acquire(new Share("MMM", "M", 10.0, 0.0), 5, DATE, 10.0);
+        tied.acquire(new Share("AAA", "A", 10.0, 0.0), 5, DATE, 10.0);
+        tied.acquire(new Share("BIG", "B", 10.0, 0.0), 9, DATE, 10.0);
+        String[] full = reports.generatePositionsReport(tied.getPositionsView()).split("\n");
+        String[] top = reports.generateTopPositionsReport(tied.getPositionsView(), 3).split("\n");
+        assertArrayEquals(new String[]{full[0], full[1], full[2], full[3]}, top);
+    }
+
+    @Test
+    void topReportShouldRejectNonPositiveN() {
+        assertThrows(IllegalArgumentException.class, () -> reports.generateTopPositionsReport(p.getPositionsView(), 0));
+    }
+}
\ No newline at end of file
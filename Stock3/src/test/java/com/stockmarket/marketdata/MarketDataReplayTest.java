@@ -0,0 +1,145 @@
+package com.stockmarket.marketdata;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.DataIntegrityException;
+import com.stockmarket.domain.PriceListener;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.PortfolioEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataReplayTest {
+
+    private static final List<String> SYMBOLS = List.of("AAA", "BBB", "ZZZ");
+    private static final int TICKS = 1_000;
+
+    private Map<String, Asset> assets;
+
+    @BeforeEach
+    void setUp() {
+        assets = new HashMap<>();
+        assets.put("AAA", new Share("AAA", "A", 1.0, 0.0));
+        assets.put("BBB", new Share("BBB", "B", 1.0, 0.0)); // ZZZ celowo nieznany
+    }
+
+    private File tempFile() throws Exception {
+        File f = File.createTempFile("ticks", ".dat");
+        f.deleteOnExit();
+        return f;
+    }
+
+    // ticki po kolei AAA, BBB, ZZZ; cena = numer ticka / 100, co tick +1 ms
+    private File writeTicks(TickFileFormat format) throws Exception {
+        File f = tempFile();
+        try (TickWriter w = TickWriter.open(f, format, SYMBOLS)) {
+            for (int i = 0; i < TICKS; i++) {
+                w.write(1_700_000_000_000L + i, SYMBOLS.get(i % 3), i / 100.0);
+            }
+        }
+        return f;
+    }
+
+    private MarketDataReplay replay(int batchSize) {
+        return new MarketDataReplay(AssetResolvers.of(assets), new ReplayConfig(batchSize, 0.0));
+    }
+
+    @Test
+    void textReplayShouldApplyLastPrice() throws Exception {
+        replay(64).replay(writeTicks(TickFileFormat.TEXT), TickFileFormat.TEXT);
+        assertEquals(9.97, assets.get("BBB").getMarketPrice(), 0.0); // ostatni BBB: tick 997
+    }
+
+    @Test
+    void binaryReplayShouldApplyLastPrice() throws Exception {
+        replay(64).replay(writeTicks(TickFileFormat.BINARY), TickFileFormat.BINARY);
+        assertEquals(9.99, assets.get("AAA").getMarketPrice(), 0.0); // ostatni AAA: tick 999
+    }
+
+    @Test
+    void unknownSymbolTicksShouldBeSkipped() throws Exception {
+        ReplayStats stats = replay(64).replay(writeTicks(TickFileFormat.TEXT), TickFileFormat.TEXT);
+        assertEquals(333, stats.getSkippedTicks());
+    }
+
+    @Test
+    void batchShouldSetPriceOncePerAsset() throws Exception {
+        final int[] notifications = new int[1];
+        assets.get("AAA").addPriceListener(new PriceListener() {
+            @Override
+            public void onPriceChanged(Asset asset, double oldPrice, double newPrice) {
+                notifications[0]++;
+            }
+        });
+        replay(TICKS).replay(writeTicks(TickFileFormat.BINARY), TickFileFormat.BINARY);
+        assertEquals(1, notifications[0]);
+    }
+
+    @Test
+    void listenerShouldBeCalledAfterEachBatch() throws Exception {
+        MarketDataReplay replay = replay(300);
+        final int[] batches = new int[1];
+        replay.addListener(batch -> batches[0]++);
+        replay.replay(writeTicks(TickFileFormat.TEXT), TickFileFormat.TEXT);
+        assertEquals(4, batches[0]); // 300 + 300 + 300 + 100
+    }
+
+    @Test
+    void smallTextWindowsShouldKeepEveryTick() throws Exception {
+        MarketDataReplay replay = new MarketDataReplay(AssetResolvers.of(assets), ReplayConfig.AS_FAST_AS_POSSIBLE, 64);
+        assertEquals(TICKS, replay.replay(writeTicks(TickFileFormat.TEXT), TickFileFormat.TEXT).getTicks());
+    }
+
+    @Test
+    void smallBinaryWindowsShouldKeepEveryTick() throws Exception {
+        MarketDataReplay replay = new MarketDataReplay(AssetResolvers.of(assets), ReplayConfig.AS_FAST_AS_POSSIBLE, 50);
+        assertEquals(TICKS, replay.replay(writeTicks(TickFileFormat.BINARY), TickFileFormat.BINARY).getTicks());
+    }
+
+    @Test
+    void decreasingTimestampShouldThrow() throws Exception {
+        File f = tempFile();
+        Files.write(f.toPath(), "TICKS\n2000|AAA|1.5\n1000|AAA|1.6\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(DataIntegrityException.class, () -> replay(1).replay(f, TickFileFormat.TEXT));
+    }
+
+    @Test
+    void textPriceShouldMatchDoubleParse() throws Exception {
+        File f = tempFile();
+        Files.write(f.toPath(), "TICKS\r\n1000|AAA|123.4567890123\r\n".getBytes(StandardCharsets.UTF_8));
+        replay(1).replay(f, TickFileFormat.TEXT);
+        assertEquals(Double.parseDouble("123.4567890123"), assets.get("AAA").getMarketPrice(), 0.0);
+    }
+
+    @Test
+    void pacedReplayShouldFollowSpeed() throws Exception {
+        File f = tempFile();
+        Files.write(f.toPath(), "TICKS\n0|AAA|1.0\n200|AAA|2.0\n".getBytes(StandardCharsets.UTF_8));
+        MarketDataReplay replay = new MarketDataReplay(AssetResolvers.of(assets), new ReplayConfig(1, 2.0));
+        // 200 ms danych przy speed 2 -> co najmniej 100 ms
+        assertTrue(replay.replay(f, TickFileFormat.TEXT).getElapsedNanos() >= 100_000_000L);
+    }
+
+    @Test
+    void batchHookShouldRevalueEngineAccounts() throws Exception {
+        final PortfolioEngine engine = new PortfolioEngine();
+        engine.registerAsset(new Share("AAA", "A", 1.0, 0.0));
+        engine.openAccount("acc", 100.0);
+        engine.acquire("acc", "AAA", 10, LocalDate.parse("2023-01-01"), 1.0);
+
+        MarketDataReplay replay = new MarketDataReplay(AssetResolvers.of(engine), new ReplayConfig(128, 0.0));
+        replay.addListener(batch -> engine.revalueAll());
+        replay.replay(writeTicks(TickFileFormat.BINARY), TickFileFormat.BINARY);
+        // 100 - 10 + 10 * 9.99
+        assertEquals(189.9, engine.getAccount("acc").calculateTotalRealValue(), 1e-9);
+    }
+}
\ No newline at end of file
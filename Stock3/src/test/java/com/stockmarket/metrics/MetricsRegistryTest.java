@@ -0,0 +1,124 @@
+package com.stockmarket.metrics;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.LotCoalescing;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @AfterEach
+    void tearDown() {
+        MetricsRegistry.global().setEnabled(false);
+        MetricsRegistry.global().reset();
+    }
+
+    @Test
+    void bucketShouldCoverPowerOfTwoRange() {
+        assertEquals(10, LatencyHistogram.bucketOf(1000)); // 512..1023
+    }
+
+    @Test
+    void percentileShouldBeCappedByMax() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(600);
+        h.record(700);
+        assertEquals(700, h.snapshot().getPercentileNanos(99));
+    }
+
+    @Test
+    void medianShouldReturnUpperBoundOfBucket() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < 9; i++) h.record(100);
+        h.record(1_000_000);
+        assertEquals(127, h.snapshot().getPercentileNanos(50));
+    }
+
+    @Test
+    void disabledRegistryShouldNotStartTimer() {
+        assertEquals(0L, new MetricsRegistry().startTimer());
+    }
+
+    @Test
+    void disabledRegistryShouldRecordNothing() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.record(Operation.ACQUIRE, AssetType.SHARE, registry.startTimer());
+        assertEquals(0, registry.snapshot().getTotal(Operation.ACQUIRE).getCount());
+    }
+
+    @Test
+    void enabledRegistryShouldRecordPerAssetType() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.setEnabled(true);
+        registry.record(Operation.SELL, AssetType.CURRENCY, registry.startTimer());
+        assertEquals(1, registry.snapshot().getHistogram(Operation.SELL, AssetType.CURRENCY).getCount());
+    }
+
+    @Test
+    void totalShouldMergeAllAssetTypes() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.setEnabled(true);
+        registry.record(Operation.SELL, AssetType.CURRENCY, registry.startTimer());
+        registry.record(Operation.SELL, AssetType.SHARE, registry.startTimer());
+        registry.record(Operation.SELL, null, registry.startTimer());
+        assertEquals(3, registry.snapshot().getTotal(Operation.SELL).getCount());
+    }
+
+    @Test
+    void portfolioAcquireShouldBeRecordedInGlobalRegistry() {
+        MetricsRegistry.global().setEnabled(true);
+        Portfolio p = new Portfolio(1000.0);
+        p.acquire(new Share("XYZ", "XYZ", 10.0, 0.0), 1, LocalDate.parse("2023-01-01"), 10.0);
+        assertEquals(1, MetricsRegistry.global().snapshot().getHistogram(Operation.ACQUIRE, AssetType.SHARE).getCount());
+    }
+
+    @Test
+    void portfolioLotsGaugeShouldCountAllLots() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Portfolio p = new Portfolio(1000.0);
+        Share s = new Share("XYZ", "XYZ", 10.0, 0.0);
+        p.acquire(s, 1, LocalDate.parse("2023-01-01"), 10.0);
+        p.acquire(s, 2, LocalDate.parse("2023-01-02"), 10.0);
+        p.registerGauges(registry, "portfolio");
+        assertEquals(2L, registry.snapshot().getGauges().get("portfolio.lots"));
+    }
+
+    @Test
+    void portfolioMergedLotsGaugeShouldIncludeClosedPositions() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Portfolio p = new Portfolio(1000.0);
+        Share s = new Share("XYZ", "XYZ", 10.0, 0.0);
+        p.setLotCoalescing(LotCoalescing.EXACT);
+        p.acquire(s, 1, LocalDate.parse("2023-01-01"), 10.0);
+        p.acquire(s, 2, LocalDate.parse("2023-01-01"), 10.0);
+        p.sell("XYZ", 3, 11.0);
+        p.registerGauges(registry, "portfolio");
+        assertEquals(1L, registry.snapshot().getGauges().get("portfolio.mergedLots"));
+    }
+
+    @Test
+    void exporterShouldWriteGaugeLine() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.registerGauge("book.depth", new Gauge() {
+            @Override
+            public long value() {
+                return 7;
+            }
+        });
+        assertTrue(new MetricsTextExporter().toText(registry.snapshot()).contains("GAUGE|book.depth|7\n"));
+    }
+
+    @Test
+    void exporterShouldWriteAllRowForMeasuredOperation() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.setEnabled(true);
+        registry.record(Operation.LOAD, null, registry.startTimer());
+        assertTrue(new MetricsTextExporter().toText(registry.snapshot()).contains("\nLOAD|ALL|1|"));
+    }
+}
\ No newline at end of file
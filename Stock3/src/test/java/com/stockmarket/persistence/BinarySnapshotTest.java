@@ -0,0 +1,153 @@
+package com.stockmarket.persistence;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.DataIntegrityException;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySnapshotTest {
+
+    private final PortfolioPersistence io = new PortfolioPersistence();
+
+    private Portfolio preparePortfolio() {
+        Portfolio p = new Portfolio(5000.0);
+        Share aapl = new Share("AAPL", "Apple", 110.0, 5.0);
+        Commodity gold = new Commodity("GOLD", "Złoto", 2000.0, 0.001);
+        p.acquire(aapl, 10, LocalDate.parse("2023-05-10"), 150.0);
+        p.acquire(aapl, 5, LocalDate.parse("2023-06-12"), 155.0);
+        p.acquire(gold, 1, LocalDate.parse("2023-07-01"), 1990.0);
+        return p;
+    }
+
+    private File saveBinary(Portfolio p) throws Exception {
+        File tmp = File.createTempFile("portfolio", ".bin");
+        tmp.deleteOnExit();
+        io.save(p, tmp, SnapshotFormat.BINARY);
+        return tmp;
+    }
+
+    @Test
+    void binaryFileShouldBeDetectedAsBinary() throws Exception {
+        File f = saveBinary(preparePortfolio());
+        assertEquals(SnapshotFormat.BINARY, io.detectFormat(f));
+    }
+
+    @Test
+    void textFileShouldBeDetectedAsText() throws Exception {
+        File tmp = File.createTempFile("portfolio", ".txt");
+        tmp.deleteOnExit();
+        io.save(preparePortfolio(), tmp);
+        assertEquals(SnapshotFormat.TEXT, io.detectFormat(tmp));
+    }
+
+    @Test
+    void binaryRoundTripShouldPreserveCash() throws Exception {
+        Portfolio p = preparePortfolio();
+        Portfolio loaded = io.load(saveBinary(p));
+        assertEquals(p.getCash(), loaded.getCash(), 1e-9);
+    }
+
+    @Test
+    void binaryRoundTripShouldPreserveLotOrder() throws Exception {
+        Portfolio loaded = io.load(saveBinary(preparePortfolio()));
+        assertEquals(LocalDate.parse("2023-06-12"), loaded.getPositionsView().get("AAPL").getLotsSnapshot().getLast().getDate());
+    }
+
+    @Test
+    void binaryRoundTripShouldPreserveAssetType() throws Exception {
+        Portfolio loaded = io.load(saveBinary(preparePortfolio()));
+        assertEquals(AssetType.COMMODITY, loaded.getPositionsView().get("GOLD").getAsset().getType());
+    }
+
+    @Test
+    void truncatedBinaryFileShouldThrow() throws Exception {
+        File f = saveBinary(preparePortfolio());
+        try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+            raf.setLength(raf.length() - 4);
+        }
+        assertThrows(DataIntegrityException.class, () -> io.load(f));
+    }
+
+    @Test
+    void binaryLotSumMismatchShouldThrow() throws Exception {
+        File tmp = File.createTempFile("badportfolio", ".bin");
+        tmp.deleteOnExit();
+
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp))) {
+            out.writeInt(PortfolioBinaryFormat.MAGIC);
+            out.writeShort(PortfolioBinaryFormat.VERSION);
+            out.writeDouble(1000.0);
+            out.writeInt(1);
+            out.writeByte(AssetType.SHARE.ordinal());
+            out.writeUTF("AAPL");
+            out.writeUTF("Apple");
+            out.writeDouble(110.0);
+            out.writeDouble(5.0);
+            out.writeInt(15); // deklarowane 15
+            out.writeInt(1);
+            out.writeInt((int) LocalDate.parse("2023-05-10").toEpochDay());
+            out.writeInt(10); // suma lotów 10
+            out.writeDouble(150.0);
+        }
+
+        assertThrows(DataIntegrityException.class, () -> io.load(tmp));
+    }
+
+    @Test
+    void largePositionShouldRoundTripThroughColumnarLots() throws Exception {
+        Portfolio p = new Portfolio(1_000_000.0);
+        Share s = new Share("XYZ", "XYZ", 1.0, 0.0);
+        for (int i = 0; i < 1000; i++) {
+            p.acquire(s, 1 + i % 7, LocalDate.parse("2020-01-01").plusDays(i), 1.0 + i);
+        }
+        Portfolio loaded = io.load(saveBinary(p));
+        assertEquals(p.getPositionsView().get("XYZ").getCostBasis(), loaded.getPositionsView().get("XYZ").getCostBasis(), 1e-9);
+    }
+
+    @Test
+    void corruptAssetCountShouldThrowInsteadOfAllocating() throws Exception {
+        File tmp = File.createTempFile("badportfolio", ".bin");
+        tmp.deleteOnExit();
+
+        // 22 bajty deklarujące 400 mln aktywów
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp))) {
+            out.writeInt(PortfolioBinaryFormat.MAGIC);
+            out.writeShort(PortfolioBinaryFormat.VERSION);
+            out.writeDouble(0.0);
+            out.writeInt(400_000_000);
+            out.writeInt(0);
+        }
+        assertThrows(DataIntegrityException.class, () -> io.load(tmp));
+    }
+
+    @Test
+    void corruptLotCountShouldThrowInsteadOfAllocating() throws Exception {
+        File tmp = File.createTempFile("badportfolio", ".bin");
+        tmp.deleteOnExit();
+
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp))) {
+            out.writeInt(PortfolioBinaryFormat.MAGIC);
+            out.writeShort(PortfolioBinaryFormat.VERSION);
+            out.writeDouble(1000.0);
+            out.writeInt(1);
+            out.writeByte(AssetType.SHARE.ordinal());
+            out.writeUTF("AAPL");
+            out.writeUTF("Apple");
+            out.writeDouble(100.0);
+            out.writeDouble(1.0);
+            out.writeInt(10);
+            out.writeInt(Integer.MAX_VALUE);
+        }
+        assertThrows(DataIntegrityException.class, () -> io.load(tmp));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.stockmarket.persistence;
+
+import com.stockmarket.domain.DataIntegrityException;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedPortfolioLoaderTest {
+
+    private final PortfolioPersistence io = new PortfolioPersistence();
+
+    // Wiele lotów o "groszowych" cenach - sprawdzamy zgodność szybkiego parsowania z Double.parseDouble
+    private File saveRandomPortfolio() throws Exception {
+        Random rnd = new Random(42);
+        Portfolio p = new Portfolio(1_000_000_000.0);
+        for (int s = 0; s < 5; s++) {
+            Share share = new Share("S" + s, "Spółka " + s, 0.0, 0.5);
+            for (int i = 0; i < 200; i++) {
+                double price = rnd.nextInt(10_000_000) / 100.0;
+                p.acquire(share, 1 + rnd.nextInt(50), LocalDate.ofEpochDay(18_000 + rnd.nextInt(2000)), price);
+            }
+        }
+
+        File tmp = File.createTempFile("portfolio", ".txt");
+        tmp.deleteOnExit();
+        io.save(p, tmp);
+        return tmp;
+    }
+
+    private File writeFile(String content) throws Exception {
+        File tmp = File.createTempFile("portfolio", ".txt");
+        tmp.deleteOnExit();
+        try (FileWriter w = new FileWriter(tmp)) {
+            w.write(content);
+        }
+        return tmp;
+    }
+
+    @Test
+    void mappedLoadShouldMatchStreamLoadCostBasis() throws Exception {
+        File f = saveRandomPortfolio();
+        double expected = io.load(f).getPositionsView().get("S3").getCostBasis();
+        assertEquals(expected, io.loadMapped(f).getPositionsView().get("S3").getCostBasis(), 0.0);
+    }
+
+    @Test
+    void smallWindowsShouldGiveSameQuantity() throws Exception {
+        File f = saveRandomPortfolio();
+        int expected = io.load(f).getPositionsView().get("S1").getTotalQuantity();
+        Portfolio loaded = new MappedPortfolioLoader(64).load(f);
+        assertEquals(expected, loaded.getPositionsView().get("S1").getTotalQuantity());
+    }
+
+    @Test
+    void mappedLoadShouldPreserveCash() throws Exception {
+        Portfolio p = new Portfolio(2000.0);
+        p.acquire(new Share("AAPL", "Apple", 110.0, 5.0), 10, LocalDate.parse("2023-05-10"), 150.0);
+        File tmp = File.createTempFile("portfolio", ".txt");
+        tmp.deleteOnExit();
+        io.save(p, tmp);
+        assertEquals(p.getCash(), io.loadMapped(tmp).getCash(), 0.0);
+    }
+
+    @Test
+    void mappedLoadShouldThrowWhenLotSumMismatch() throws Exception {
+        File f = writeFile("HEADER|CASH|1000.0\nASSET|SHARE|AAPL|Apple|110.0|15|5.0\nLOT|2023-05-10|10|150.0\n");
+        assertThrows(DataIntegrityException.class, () -> io.loadMapped(f));
+    }
+
+    @Test
+    void mappedLoadErrorShouldContainLineNumber() throws Exception {
+        File f = writeFile("HEADER|CASH|1000.0\nASSET|SHARE|AAPL|Apple|110.0|15|5.0\nLOT|2023-05-10|x|150.0\n");
+        DataIntegrityException e = assertThrows(DataIntegrityException.class, () -> io.loadMapped(f));
+        assertTrue(e.getMessage().contains("line 3"));
+    }
+
+    @Test
+    void mappedLoadShouldAcceptNonCanonicalNumbers() throws Exception {
+        File f = writeFile("HEADER|CASH|1.5E3\r\nASSET|SHARE|AAPL|Apple|110|15|5\r\nLOT|2023-05-10|+15|0.1234567890123456789\r\n");
+        assertEquals(1500.0, io.loadMapped(f).getCash(), 0.0);
+    }
+}
\ No newline at end of file
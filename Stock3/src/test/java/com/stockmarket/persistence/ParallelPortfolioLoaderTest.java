@@ -0,0 +1,84 @@
+package com.stockmarket.persistence;
+
+import com.stockmarket.domain.DataIntegrityException;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelPortfolioLoaderTest {
+
+    private final PortfolioPersistence io = new PortfolioPersistence();
+
+    private File saveManyPositions() throws Exception {
+        Portfolio p = new Portfolio(1_000_000_000.0);
+        for (int s = 0; s < 50; s++) {
+            Share share = new Share("S" + s, "S" + s, 10.0, 0.0);
+            for (int i = 0; i < 20; i++) {
+                p.acquire(share, 1 + i, LocalDate.parse("2023-01-01").plusDays(i), 10.0 + i);
+            }
+        }
+        File tmp = File.createTempFile("portfolio", ".txt");
+        tmp.deleteOnExit();
+        io.save(p, tmp);
+        return tmp;
+    }
+
+    // małe fragmenty (256 B), żeby plik testowy podzielił się na wiele części
+    private Portfolio loadInSmallChunks(File f) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            return new ParallelPortfolioLoader(256).load(f, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelLoadShouldPreserveAllPositions() throws Exception {
+        Portfolio loaded = loadInSmallChunks(saveManyPositions());
+        assertEquals(50, loaded.getPositionsCount());
+    }
+
+    @Test
+    void parallelLoadShouldPreserveCash() throws Exception {
+        File f = saveManyPositions();
+        assertEquals(io.load(f).getCash(), loadInSmallChunks(f).getCash(), 0.0);
+    }
+
+    @Test
+    void parallelLoadShouldPreserveLotQuantities() throws Exception {
+        Portfolio loaded = loadInSmallChunks(saveManyPositions());
+        assertEquals(210, loaded.getPositionsView().get("S49").getTotalQuantity());
+    }
+
+    @Test
+    void publicParallelLoadShouldMatchSequentialCount() throws Exception {
+        File f = saveManyPositions();
+        assertEquals(50, io.loadParallel(f, 2).getPositionsCount());
+    }
+
+    @Test
+    void parallelLoadErrorShouldReportAbsoluteLineNumber() throws Exception {
+        File tmp = File.createTempFile("badportfolio", ".txt");
+        tmp.deleteOnExit();
+        try (FileWriter w = new FileWriter(tmp)) {
+            w.write("HEADER|CASH|1000.0\n");
+            for (int s = 0; s < 30; s++) {
+                w.write("ASSET|SHARE|S" + s + "|S" + s + "|10.0|2|0.0\n");
+                w.write("LOT|2023-01-01|1|10.0\n");
+                w.write("LOT|2023-01-02|1|10.0\n");
+            }
+            w.write("ASSET|SHARE|BAD|BAD|10.0|1|0.0\n");
+            w.write("LOT|2023-13-01|1|10.0\n"); // linia 93 - niepoprawny miesiąc
+        }
+        DataIntegrityException e = assertThrows(DataIntegrityException.class, () -> loadInSmallChunks(tmp));
+        assertTrue(e.getMessage().contains("line 93"));
+    }
+}
\ No newline at end of file
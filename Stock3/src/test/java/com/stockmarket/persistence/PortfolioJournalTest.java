@@ -0,0 +1,345 @@
+package com.stockmarket.persistence;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.LotCoalescing;
+import com.stockmarket.domain.LotRelief;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.Share;
+import com.stockmarket.domain.TimeInForce;
+import com.stockmarket.logic.Portfolio;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioJournalTest {
+
+    private File tempFile(String suffix) throws Exception {
+        File f = File.createTempFile("journal", suffix);
+        f.deleteOnExit();
+        Files.delete(f.toPath()); // dziennik i snapshot mają powstać od zera
+        new File(f.getPath() + ".tmp").deleteOnExit();
+        return f;
+    }
+
+    // snapshot startowy + kilka operacji zapisanych tylko w dzienniku
+    private Portfolio runSession(File snapshot, File journal, JournalConfig config) throws Exception {
+        Portfolio p = new Portfolio(10_000.0);
+        Share aapl = new Share("AAPL", "Apple", 110.0, 5.0);
+        try (PortfolioJournal j = PortfolioJournal.open(journal, config)) {
+            j.attach(p);
+            j.compact(snapshot);
+
+            p.acquire(aapl, 10, LocalDate.parse("2023-05-10"), 100.0);
+            p.acquire(aapl, 5, LocalDate.parse("2023-06-12"), 120.0);
+            p.sell("AAPL", 7, 130.0);
+            p.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "AAPL", 4, 105.0, 110.0);
+            p.submitLimitOrder(OrderType.SELL, AssetType.SHARE, "AAPL", 3, 104.0, 110.0);
+        }
+        return p;
+    }
+
+    @Test
+    void recoverShouldRestoreCash() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        Portfolio p = runSession(snapshot, journal, JournalConfig.DEFAULT);
+
+        assertEquals(p.getCash(), PortfolioJournal.recover(snapshot, journal).getCash(), 1e-9);
+    }
+
+    // nazwa kończy się tuż przed końcem początkowego bufora rekordu (pola stałe za nią muszą go poszerzyć),
+    // potem symbol dłuższy niż cały początkowy bufor
+    private Portfolio runLongNameSession(File snapshot, File journal) throws Exception {
+        String symbol = "S".repeat(300);
+        Portfolio p = new Portfolio(10_000.0);
+        Share share = new Share(symbol, "N".repeat(215), 10.0, 0.0);
+        try (PortfolioJournal j = PortfolioJournal.open(journal, JournalConfig.DEFAULT)) {
+            j.attach(p);
+            j.compact(snapshot);
+            p.acquire(new Share("LONG", "N".repeat(215), 10.0, 0.0), 1, LocalDate.parse("2023-05-09"), 10.0);
+            p.acquire(share, 10, LocalDate.parse("2023-05-10"), 10.0);
+            p.acquire(share, 5, LocalDate.parse("2023-05-11"), 11.0);
+            p.sell(symbol, 3, 12.0, LotRelief.HIFO);
+            p.sellLot(symbol, 0, 2, 12.0);
+        }
+        return p;
+    }
+
+    @Test
+    void longSymbolAndNameShouldBeJournaled() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        assertDoesNotThrow(() -> runLongNameSession(snapshot, journal));
+    }
+
+    @Test
+    void recoverShouldReplayLongSymbolAndName() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        Portfolio p = runLongNameSession(snapshot, journal);
+        assertEquals(p.getCash(), PortfolioJournal.recover(snapshot, journal).getCash(), 1e-9);
+    }
+
+    @Test
+    void recoverShouldRestoreLotsAfterFifoSell() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        runSession(snapshot, journal, JournalConfig.DURABLE);
+
+        Portfolio recovered = PortfolioJournal.recover(snapshot, journal);
+        assertEquals(8, recovered.getPositionsView().get("AAPL").getTotalQuantity());
+    }
+
+    @Test
+    void recoverShouldReplayMatchingAndRestingOrders() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        runSession(snapshot, journal, JournalConfig.DEFAULT);
+
+        Portfolio recovered = PortfolioJournal.recover(snapshot, journal);
+        assertEquals(1, recovered.peekBestBid("AAPL").getRemainingQuantity());
+    }
+
+    // zlecenia oczekujące z anulowaniem, zmianą wolumenu i GTD - wszystko tylko w dzienniku
+    private Portfolio runOrderSession(File snapshot, File journal) throws Exception {
+        Portfolio p = new Portfolio(0.0);
+        LocalDateTime t0 = LocalDateTime.parse("2024-03-01T10:00:00");
+        try (PortfolioJournal j = PortfolioJournal.open(journal, JournalConfig.DEFAULT)) {
+            j.attach(p);
+            j.compact(snapshot);
+
+            Order a = p.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "AAPL", 5, 100.0, 101.0, t0);
+            Order b = p.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "AAPL", 6, 99.0, 101.0, t0,
+                    TimeInForce.GTD, t0.plusHours(2));
+            p.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "AAPL", 7, 98.0, 101.0, t0);
+            p.cancelOrder(a.getId());
+            p.amendOrderQuantity(b.getId(), 2);
+        }
+        return p;
+    }
+
+    @Test
+    void recoverShouldReplayCancelAndAmend() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        runOrderSession(snapshot, journal);
+
+        assertEquals(2, PortfolioJournal.recover(snapshot, journal).peekBestBid("AAPL").getRemainingQuantity());
+    }
+
+    @Test
+    void recoverShouldKeepOrderIds() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        Portfolio p = runOrderSession(snapshot, journal);
+
+        long id = p.peekBestBid("AAPL").getId();
+        assertEquals(id, PortfolioJournal.recover(snapshot, journal).peekBestBid("AAPL").getId());
+    }
+
+    @Test
+    void recoverShouldKeepGoodTillDateExpiry() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        runOrderSession(snapshot, journal);
+
+        Portfolio recovered = PortfolioJournal.recover(snapshot, journal);
+        assertEquals(1, recovered.expireOrders(LocalDateTime.parse("2024-03-01T12:00:00")).size());
+    }
+
+    @Test
+    void compactShouldKeepOrderIdsForLaterCancel() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        Portfolio p = runOrderSession(snapshot, journal);
+
+        try (PortfolioJournal j = PortfolioJournal.open(journal, JournalConfig.DEFAULT)) {
+            j.attach(p);
+            j.compact(snapshot);
+            p.cancelOrder(p.peekBestBid("AAPL").getId());
+        }
+        assertEquals(98.0, PortfolioJournal.recover(snapshot, journal).peekBestBid("AAPL").getLimitPrice(), 1e-9);
+    }
+
+    @Test
+    void recoverShouldReplayPriceTriggeredOrder() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        Portfolio p = new Portfolio(10_000.0);
+        Share aapl = new Share("AAPL", "Apple", 110.0, 5.0);
+        try (PortfolioJournal j = PortfolioJournal.open(journal, JournalConfig.DEFAULT)) {
+            j.attach(p);
+            j.compact(snapshot);
+            p.registerAsset(aapl);
+            p.setPriceTriggersEnabled(true);
+            p.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "AAPL", 4, 105.0, 110.0);
+            aapl.setMarketPrice(104.0);
+        }
+        assertEquals(0, PortfolioJournal.recover(snapshot, journal).getRestingOrdersCount());
+    }
+
+    @Test
+    void recoverShouldKeepOrderDateOnPriceTriggeredLot() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        Portfolio p = new Portfolio(10_000.0);
+        Share aapl = new Share("AAPL", "Apple", 110.0, 5.0);
+        try (PortfolioJournal j = PortfolioJournal.open(journal, JournalConfig.DEFAULT)) {
+            j.attach(p);
+            j.compact(snapshot);
+            p.registerAsset(aapl);
+            p.setPriceTriggersEnabled(true);
+            p.submitLimitOrder(OrderType.BUY, AssetType.SHARE, "AAPL", 4, 105.0, 110.0,
+                    LocalDateTime.parse("2023-03-15T10:00:00"));
+            aapl.setMarketPrice(104.0);
+        }
+
+        final long[] lotDay = new long[1];
+        PortfolioJournal.recover(snapshot, journal).getPositionsView().get("AAPL")
+                .forEachLot((epochDay, quantity, unitPrice) -> lotDay[0] = epochDay);
+        assertEquals(LocalDate.parse("2023-03-15").toEpochDay(), lotDay[0]);
+    }
+
+    // partie 10 @ 100, 10 @ 130, 10 @ 110 (id 0, 1, 2), sprzedaż HIFO i ze wskazanej partii
+    private Portfolio runLotReliefSession(File snapshot, File journal) throws Exception {
+        Portfolio p = new Portfolio(10_000.0);
+        Share aapl = new Share("AAPL", "Apple", 110.0, 0.0);
+        try (PortfolioJournal j = PortfolioJournal.open(journal, JournalConfig.DEFAULT)) {
+            j.attach(p);
+            j.compact(snapshot);
+            p.acquire(aapl, 10, LocalDate.parse("2023-05-10"), 100.0);
+            p.acquire(aapl, 10, LocalDate.parse("2023-05-11"), 130.0);
+            p.acquire(aapl, 10, LocalDate.parse("2023-05-12"), 110.0);
+            p.sell("AAPL", 12, 140.0, LotRelief.HIFO);
+            p.sellLot("AAPL", 0, 3, 140.0);
+        }
+        return p;
+    }
+
+    @Test
+    void recoverShouldReplayHifoAndSpecificLotSells() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        Portfolio p = runLotReliefSession(snapshot, journal);
+
+        assertEquals(p.getPositionsView().get("AAPL").getCostBasis(),
+                PortfolioJournal.recover(snapshot, journal).getPositionsView().get("AAPL").getCostBasis(), 1e-9);
+    }
+
+    @Test
+    void compactShouldRenumberLotsForLaterSellLot() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        Portfolio p = runLotReliefSession(snapshot, journal);
+
+        // zostały partie 7 @ 100 (id 0) i 8 @ 110 (id 2); po kompaktowaniu: id 0 i 1
+        try (PortfolioJournal j = PortfolioJournal.open(journal, JournalConfig.DEFAULT)) {
+            j.attach(p);
+            j.compact(snapshot);
+            p.sellLot("AAPL", 1, 8, 140.0);
+        }
+        assertEquals(700.0, PortfolioJournal.recover(snapshot, journal).getPositionsView().get("AAPL").getCostBasis(), 1e-9);
+    }
+
+    @Test
+    void recoverShouldReplayLotCoalescingBeforeSellLot() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        Portfolio p = new Portfolio(10_000.0);
+        Share aapl = new Share("AAPL", "Apple", 110.0, 0.0);
+        try (PortfolioJournal j = PortfolioJournal.open(journal, JournalConfig.DEFAULT)) {
+            j.attach(p);
+            j.compact(snapshot);
+            p.setLotCoalescing(LotCoalescing.EXACT);
+            p.acquire(aapl, 10, LocalDate.parse("2023-05-10"), 100.0);
+            p.acquire(aapl, 10, LocalDate.parse("2023-05-10"), 100.0); // scalone w partię 0
+            p.acquire(aapl, 10, LocalDate.parse("2023-05-11"), 120.0); // partia 1
+            p.sellLot("AAPL", 1, 10, 130.0);
+        }
+        assertEquals(20, PortfolioJournal.recover(snapshot, journal).getPositionsView().get("AAPL").getTotalQuantity());
+    }
+
+    @Test
+    void compactShouldKeepLotCoalescingInNewJournal() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        Portfolio p = new Portfolio(10_000.0);
+        try (PortfolioJournal j = PortfolioJournal.open(journal, JournalConfig.DEFAULT)) {
+            j.attach(p);
+            p.setLotCoalescing(LotCoalescing.within(0.5, 7));
+            j.compact(snapshot);
+        }
+        assertEquals(7, PortfolioJournal.recover(snapshot, journal).getLotCoalescing().getDayBucket());
+    }
+
+    @Test
+    void recoverShouldStopAtTornTail() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        runSession(snapshot, journal, JournalConfig.DEFAULT);
+
+        // urwany ostatni rekord (SELL z księgi) - zostaje tylko zlecenie BUY na 4
+        try (RandomAccessFile raf = new RandomAccessFile(journal, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        Portfolio recovered = PortfolioJournal.recover(snapshot, journal);
+        assertEquals(4, recovered.peekBestBid("AAPL").getRemainingQuantity());
+    }
+
+    @Test
+    void openShouldTruncateTornTailBeforeAppending() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        runSession(snapshot, journal, JournalConfig.DEFAULT);
+        try (RandomAccessFile raf = new RandomAccessFile(journal, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        Portfolio recovered = PortfolioJournal.recover(snapshot, journal);
+        try (PortfolioJournal j = PortfolioJournal.open(journal, JournalConfig.DEFAULT)) {
+            j.attach(recovered);
+            recovered.setCashForPersistence(1234.0);
+        }
+        assertEquals(1234.0, PortfolioJournal.recover(snapshot, journal).getCash(), 1e-9);
+    }
+
+    @Test
+    void compactShouldKeepRestingOrdersInNewJournal() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        Portfolio p = runSession(snapshot, journal, JournalConfig.DEFAULT);
+
+        try (PortfolioJournal j = PortfolioJournal.open(journal, JournalConfig.DEFAULT)) {
+            j.attach(p);
+            j.compact(snapshot);
+        }
+        assertEquals(1, PortfolioJournal.recover(snapshot, journal).getRestingOrdersCount());
+    }
+
+    @Test
+    void recoverShouldDiscardUncommittedCompaction() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        Portfolio p = runSession(snapshot, journal, JournalConfig.DEFAULT);
+
+        // awaria po zapisaniu snapshot.tmp, a przed jego podmianą
+        new PortfolioPersistence().save(new Portfolio(1.0), new File(snapshot.getPath() + ".tmp"), SnapshotFormat.BINARY);
+        assertEquals(p.getCash(), PortfolioJournal.recover(snapshot, journal).getCash(), 1e-9);
+    }
+
+    @Test
+    void recordsBelowBatchSizeShouldBeWrittenOnClose() throws Exception {
+        File snapshot = tempFile(".bin");
+        File journal = tempFile(".wal");
+        Portfolio p = runSession(snapshot, journal, new JournalConfig(1000, 0));
+
+        assertEquals(p.getCash(), PortfolioJournal.recover(snapshot, journal).getCash(), 1e-9);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.stockmarket.persistence;
+
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Position;
+import com.stockmarket.domain.PurchaseLot;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioTextCodecTest {
+
+    private final PortfolioPersistence io = new PortfolioPersistence();
+
+    private Portfolio preparePortfolio() {
+        Random rnd = new Random(7);
+        Portfolio p = new Portfolio(1_123_456_789.125);
+        Share aapl = new Share("AAPL", "Apple|Inc", 110.0, 5.0);
+        Currency eur = new Currency("EUR", "Euro", 4.3171, 0.02);
+        Commodity gold = new Commodity("GOLD", "Złoto", 2.5e8, 0.0001);
+        for (int i = 0; i < 300; i++) {
+            p.acquire(aapl, 1 + rnd.nextInt(100), LocalDate.ofEpochDay(rnd.nextInt(40_000)), rnd.nextDouble() * 1000);
+            p.acquire(eur, 1 + rnd.nextInt(100), LocalDate.ofEpochDay(rnd.nextInt(40_000)), rnd.nextInt(100_000) / 100.0);
+        }
+        p.acquire(gold, 1, LocalDate.parse("2023-07-01"), 0.0005);
+        return p;
+    }
+
+    // Dawny zapis przez konkatenację Stringów - wzorzec zgodności bajt w bajt
+    private String legacyFormat(Portfolio portfolio) {
+        String nl = System.lineSeparator();
+        StringBuilder sb = new StringBuilder();
+        sb.append("HEADER|CASH|" + portfolio.getCash()).append(nl);
+        for (Position pos : portfolio.getPositionsView().values()) {
+            sb.append("ASSET|" + pos.getAsset().getType() + "|" + pos.getAsset().getSymbol() + "|"
+                    + pos.getAsset().getName().replace("|", "/") + "|" + pos.getAsset().getMarketPrice() + "|"
+                    + pos.getTotalQuantity() + "|" + String.valueOf(AssetCodec.extraOf(pos.getAsset()))).append(nl);
+            for (PurchaseLot lot : pos.getLotsSnapshot()) {
+                sb.append("LOT|" + lot.getDate() + "|" + lot.getQuantity() + "|" + lot.getUnitPrice()).append(nl);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void saveShouldMatchLegacyFormatByteForByte() throws Exception {
+        Portfolio p = preparePortfolio();
+        File tmp = File.createTempFile("portfolio", ".txt");
+        tmp.deleteOnExit();
+        io.save(p, tmp);
+        assertArrayEquals(legacyFormat(p).getBytes(Charset.defaultCharset()), Files.readAllBytes(tmp.toPath()));
+    }
+
+    @Test
+    void decimalShouldMatchStringValueOf() throws Exception {
+        Random rnd = new Random(11);
+        StringWriter out = new StringWriter();
+        StringBuilder expected = new StringBuilder();
+        PortfolioTextCodec.LineWriter w = new PortfolioTextCodec.LineWriter(out);
+        double[] special = {0.0, -0.0, 1.0, 9_999_999.0, 1e7, 0.001, 0.000999, -3.0, Double.MAX_VALUE, Double.MIN_VALUE};
+        for (double v : special) {
+            w.decimal(v).sep();
+            expected.append(v).append('|');
+        }
+        for (int i = 0; i < 10_000; i++) {
+            double v = Double.longBitsToDouble(rnd.nextLong());
+            if (Double.isNaN(v)) continue;
+            w.decimal(v).sep();
+            expected.append(v).append('|');
+        }
+        w.flush();
+        assertEquals(expected.toString(), out.toString());
+    }
+
+    @Test
+    void lineLongerThanReadBufferShouldRoundTrip() throws Exception {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) name.append('n');
+        Portfolio p = new Portfolio(1000.0);
+        p.acquire(new Share("LONG", name.toString(), 1.0, 0.0), 3, LocalDate.parse("2023-01-01"), 1.0);
+
+        File tmp = File.createTempFile("portfolio", ".txt");
+        tmp.deleteOnExit();
+        io.save(p, tmp);
+        assertEquals(name.length(), io.load(tmp).getPositionsView().get("LONG").getAsset().getName().length());
+    }
+}
\ No newline at end of file